@@ -114,6 +114,19 @@ public class HystrixCodaHaleMetricsPublisherThreadPool implements HystrixMetrics
             }
         });
 
+        metricRegistry.register(createMetricName("queueWait_mean"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return metrics.getQueueWaitTimeMean();
+            }
+        });
+        createQueueWaitPercentileGauge("queueWait_percentile_25", 25);
+        createQueueWaitPercentileGauge("queueWait_percentile_50", 50);
+        createQueueWaitPercentileGauge("queueWait_percentile_75", 75);
+        createQueueWaitPercentileGauge("queueWait_percentile_90", 90);
+        createQueueWaitPercentileGauge("queueWait_percentile_99", 99);
+        createQueueWaitPercentileGauge("queueWait_percentile_995", 99.5);
+
         metricRegistry.register(createMetricName("countThreadsExecuted"), new Gauge<Number>() {
             @Override
             public Number getValue() {
@@ -184,6 +197,15 @@ public class HystrixCodaHaleMetricsPublisherThreadPool implements HystrixMetrics
         });
     }
 
+    protected void createQueueWaitPercentileGauge(final String name, final double percentile) {
+        metricRegistry.register(createMetricName(name), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return metrics.getQueueWaitTimePercentile(percentile);
+            }
+        });
+    }
+
     protected String createMetricName(String name) {
         return MetricRegistry.name(metricsRootNode, metricGroup, metricType, name);
     }
@@ -25,6 +25,7 @@ import com.netflix.hystrix.HystrixCommandMetrics;
 import com.netflix.hystrix.HystrixCommandMetrics.HealthCounts;
 import com.netflix.hystrix.HystrixCommandProperties;
 import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixPartitionedCircuitBreaker;
 import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolMetrics;
 import com.netflix.hystrix.util.PlatformSpecific;
@@ -220,10 +221,26 @@ public class HystrixMetricsPoller {
                 json.writeBooleanField("isCircuitBreakerOpen", false);
             } else {
                 json.writeBooleanField("isCircuitBreakerOpen", circuitBreaker.isOpen());
+                HystrixCircuitBreaker.OpenReason openReason = HystrixCircuitBreaker.Factory.getOpenReason(key);
+                if (openReason != null) {
+                    json.writeStringField("circuitBreakerOpenReason", openReason.name());
+                }
+            }
+            HystrixPartitionedCircuitBreaker partitionedCircuitBreaker = HystrixPartitionedCircuitBreaker.Factory.getInstance(key);
+            if (partitionedCircuitBreaker != null) {
+                // partitions not listed as open are closed
+                json.writeNumberField("circuitBreakerPartitionCount", partitionedCircuitBreaker.getNumberOfPartitions());
+                json.writeArrayFieldStart("openCircuitBreakerPartitions");
+                for (String partitionKey : partitionedCircuitBreaker.getOpenPartitions()) {
+                    json.writeString(partitionKey);
+                }
+                json.writeEndArray();
             }
             HealthCounts healthCounts = commandMetrics.getHealthCounts();
             json.writeNumberField("errorPercentage", healthCounts.getErrorPercentage());
             json.writeNumberField("errorCount", healthCounts.getErrorCount());
+            json.writeNumberField("slowCallPercentage", healthCounts.getSlowCallPercentage());
+            json.writeNumberField("slowCallCount", healthCounts.getSlowCallCount());
             json.writeNumberField("requestCount", healthCounts.getTotalRequests());
 
             // rolling counters
@@ -293,6 +310,24 @@ public class HystrixMetricsPoller {
                     return commandMetrics.getRollingCount(HystrixEventType.RESPONSE_FROM_CACHE);
                 }
             });
+            safelyWriteNumberField(json, "rollingCountResponseCacheHits", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.RESPONSE_CACHE_HIT);
+                }
+            });
+            safelyWriteNumberField(json, "rollingCountResponseCacheMisses", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.RESPONSE_CACHE_MISS);
+                }
+            });
+            safelyWriteNumberField(json, "rollingCountResponseCacheEvictions", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.RESPONSE_CACHE_EVICTION);
+                }
+            });
             safelyWriteNumberField(json, "rollingCountSemaphoreRejected", new Func0<Long>() {
                 @Override
                 public Long call() {
@@ -317,15 +352,48 @@ public class HystrixMetricsPoller {
                     return commandMetrics.getRollingCount(HystrixEventType.THREAD_POOL_REJECTED);
                 }
             });
+            safelyWriteNumberField(json, "rollingCountThreadPoolDropped", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.THREAD_POOL_DROPPED);
+                }
+            });
             safelyWriteNumberField(json, "rollingCountTimeout", new Func0<Long>() {
                 @Override
                 public Long call() {
                     return commandMetrics.getRollingCount(HystrixEventType.TIMEOUT);
                 }
             });
+            safelyWriteNumberField(json, "rollingCountDeadlineExceeded", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.DEADLINE_EXCEEDED);
+                }
+            });
+            safelyWriteNumberField(json, "rollingCountHedge", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.HEDGE);
+                }
+            });
+            safelyWriteNumberField(json, "rollingCountHedgeWin", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.HEDGE_WIN);
+                }
+            });
+            safelyWriteNumberField(json, "rollingCountRetry", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return commandMetrics.getRollingCount(HystrixEventType.RETRY);
+                }
+            });
 
             json.writeNumberField("currentConcurrentExecutionCount", commandMetrics.getCurrentConcurrentExecutionCount());
             json.writeNumberField("rollingMaxConcurrentExecutionCount", commandMetrics.getRollingMaxConcurrentExecutions());
+            if (commandMetrics.getProperties().executionAdaptiveConcurrencyLimitEnabled().get()) {
+                json.writeNumberField("concurrencyLimit", commandMetrics.getConcurrencyLimit());
+            }
 
             // latency percentiles
             json.writeNumberField("latencyExecute_mean", commandMetrics.getExecutionTimeMean());
@@ -360,6 +428,8 @@ public class HystrixMetricsPoller {
             json.writeNumberField("propertyValue_circuitBreakerRequestVolumeThreshold", commandProperties.circuitBreakerRequestVolumeThreshold().get());
             json.writeNumberField("propertyValue_circuitBreakerSleepWindowInMilliseconds", commandProperties.circuitBreakerSleepWindowInMilliseconds().get());
             json.writeNumberField("propertyValue_circuitBreakerErrorThresholdPercentage", commandProperties.circuitBreakerErrorThresholdPercentage().get());
+            json.writeNumberField("propertyValue_circuitBreakerSlowCallDurationThresholdInMilliseconds", commandProperties.circuitBreakerSlowCallDurationThresholdInMilliseconds().get());
+            json.writeNumberField("propertyValue_circuitBreakerSlowCallRateThresholdPercentage", commandProperties.circuitBreakerSlowCallRateThresholdPercentage().get());
             json.writeBooleanField("propertyValue_circuitBreakerForceOpen", commandProperties.circuitBreakerForceOpen().get());
             json.writeBooleanField("propertyValue_circuitBreakerForceClosed", commandProperties.circuitBreakerForceClosed().get());
             json.writeBooleanField("propertyValue_circuitBreakerEnabled", commandProperties.circuitBreakerEnabled().get());
@@ -425,12 +495,30 @@ public class HystrixMetricsPoller {
                 }
             });
             json.writeNumberField("rollingMaxActiveThreads", threadPoolMetrics.getRollingMaxActiveThreads());
+            json.writeNumberField("queueWait_mean", threadPoolMetrics.getQueueWaitTimeMean());
+            json.writeObjectFieldStart("queueWait");
+            json.writeNumberField("0", threadPoolMetrics.getQueueWaitTimePercentile(0));
+            json.writeNumberField("25", threadPoolMetrics.getQueueWaitTimePercentile(25));
+            json.writeNumberField("50", threadPoolMetrics.getQueueWaitTimePercentile(50));
+            json.writeNumberField("75", threadPoolMetrics.getQueueWaitTimePercentile(75));
+            json.writeNumberField("90", threadPoolMetrics.getQueueWaitTimePercentile(90));
+            json.writeNumberField("95", threadPoolMetrics.getQueueWaitTimePercentile(95));
+            json.writeNumberField("99", threadPoolMetrics.getQueueWaitTimePercentile(99));
+            json.writeNumberField("99.5", threadPoolMetrics.getQueueWaitTimePercentile(99.5));
+            json.writeNumberField("100", threadPoolMetrics.getQueueWaitTimePercentile(100));
+            json.writeEndObject();
             safelyWriteNumberField(json, "rollingCountCommandRejections", new Func0<Long>() {
                 @Override
                 public Long call() {
                     return threadPoolMetrics.getRollingCount(HystrixEventType.ThreadPool.REJECTED);
                 }
             });
+            safelyWriteNumberField(json, "rollingCountCommandDrops", new Func0<Long>() {
+                @Override
+                public Long call() {
+                    return threadPoolMetrics.getRollingCount(HystrixEventType.ThreadPool.DROPPED);
+                }
+            });
 
             json.writeNumberField("propertyValue_queueSizeRejectionThreshold", threadPoolMetrics.getProperties().queueSizeRejectionThreshold().get());
             json.writeNumberField("propertyValue_metricsRollingStatisticalWindowInMilliseconds", threadPoolMetrics.getProperties().metricsRollingStatisticalWindowInMilliseconds().get());
@@ -502,6 +590,7 @@ public class HystrixMetricsPoller {
             json.writeBooleanField("propertyValue_requestCacheEnabled", collapserMetrics.getProperties().requestCacheEnabled().get());
             json.writeNumberField("propertyValue_maxRequestsInBatch", collapserMetrics.getProperties().maxRequestsInBatch().get());
             json.writeNumberField("propertyValue_timerDelayInMilliseconds", collapserMetrics.getProperties().timerDelayInMilliseconds().get());
+            json.writeNumberField("batchWindowInMilliseconds", collapserMetrics.getBatchWindowInMilliseconds());
 
             json.writeNumberField("reportingHosts", 1); // this will get summed across all instances in a cluster
 
@@ -22,6 +22,7 @@ import com.netflix.hystrix.HystrixThreadPoolProperties;
 import com.netflix.hystrix.metric.consumer.CumulativeThreadPoolEventCounterStream;
 import com.netflix.hystrix.metric.consumer.RollingThreadPoolMaxConcurrencyStream;
 import com.netflix.hystrix.metric.consumer.RollingThreadPoolEventCounterStream;
+import com.netflix.hystrix.metric.consumer.RollingThreadPoolQueueWaitDistributionStream;
 import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherThreadPool;
 import com.netflix.servo.DefaultMonitorRegistry;
 import com.netflix.servo.annotations.DataSourceLevel;
@@ -105,6 +106,7 @@ public class HystrixServoMetricsPublisherThreadPool extends HystrixServoMetricsP
         RollingThreadPoolEventCounterStream.getInstance(key, properties).startCachingStreamValuesIfUnstarted();
         CumulativeThreadPoolEventCounterStream.getInstance(key, properties).startCachingStreamValuesIfUnstarted();
         RollingThreadPoolMaxConcurrencyStream.getInstance(key, properties).startCachingStreamValuesIfUnstarted();
+        RollingThreadPoolQueueWaitDistributionStream.getInstance(key, properties).startCachingStreamValuesIfUnstarted();
     }
 
     @Override
@@ -117,6 +119,24 @@ public class HystrixServoMetricsPublisherThreadPool extends HystrixServoMetricsP
         return servoInstanceTag;
     }
 
+    protected Monitor<Number> getQueueWaitMeanMonitor(final String name) {
+        return new GaugeMetric(MonitorConfig.builder(name).build()) {
+            @Override
+            public Number getValue() {
+                return metrics.getQueueWaitTimeMean();
+            }
+        };
+    }
+
+    protected Monitor<Number> getQueueWaitPercentileMonitor(final String name, final double percentile) {
+        return new GaugeMetric(MonitorConfig.builder(name).build()) {
+            @Override
+            public Number getValue() {
+                return metrics.getQueueWaitTimePercentile(percentile);
+            }
+        };
+    }
+
     protected Monitor<Number> safelyGetCumulativeMonitor(final String name, final Func0<HystrixEventType.ThreadPool> eventThunk) {
         return new CounterMetric(MonitorConfig.builder(name).withTag(getServoTypeTag()).withTag(getServoInstanceTag()).build()) {
             @Override
@@ -215,6 +235,14 @@ public class HystrixServoMetricsPublisherThreadPool extends HystrixServoMetricsP
             }
         });
 
+        monitors.add(getQueueWaitMeanMonitor("queueWait_mean"));
+        monitors.add(getQueueWaitPercentileMonitor("queueWait_percentile_25", 25));
+        monitors.add(getQueueWaitPercentileMonitor("queueWait_percentile_50", 50));
+        monitors.add(getQueueWaitPercentileMonitor("queueWait_percentile_75", 75));
+        monitors.add(getQueueWaitPercentileMonitor("queueWait_percentile_90", 90));
+        monitors.add(getQueueWaitPercentileMonitor("queueWait_percentile_99", 99));
+        monitors.add(getQueueWaitPercentileMonitor("queueWait_percentile_995", 99.5));
+
         //thread pool event monitors
         monitors.add(safelyGetCumulativeMonitor("countThreadsExecuted", new Func0<HystrixEventType.ThreadPool>() {
             @Override
@@ -240,6 +268,18 @@ public class HystrixServoMetricsPublisherThreadPool extends HystrixServoMetricsP
                 return HystrixEventType.ThreadPool.REJECTED;
             }
         }));
+        monitors.add(safelyGetCumulativeMonitor("countCommandsDropped", new Func0<HystrixEventType.ThreadPool>() {
+            @Override
+            public HystrixEventType.ThreadPool call() {
+                return HystrixEventType.ThreadPool.DROPPED;
+            }
+        }));
+        monitors.add(safelyGetRollingMonitor("rollingCountCommandsDropped", new Func0<HystrixEventType.ThreadPool>() {
+            @Override
+            public HystrixEventType.ThreadPool call() {
+                return HystrixEventType.ThreadPool.DROPPED;
+            }
+        }));
 
         // properties
         monitors.add(new InformationalMetric<Number>(MonitorConfig.builder("propertyValue_corePoolSize").build()) {
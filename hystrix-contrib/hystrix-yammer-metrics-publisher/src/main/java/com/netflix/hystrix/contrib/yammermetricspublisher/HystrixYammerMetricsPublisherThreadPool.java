@@ -108,6 +108,19 @@ public class HystrixYammerMetricsPublisherThreadPool implements HystrixMetricsPu
             }
         });
 
+        metricsRegistry.newGauge(createMetricName("queueWait_mean"), new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return metrics.getQueueWaitTimeMean();
+            }
+        });
+        createQueueWaitPercentileGauge("queueWait_percentile_25", 25);
+        createQueueWaitPercentileGauge("queueWait_percentile_50", 50);
+        createQueueWaitPercentileGauge("queueWait_percentile_75", 75);
+        createQueueWaitPercentileGauge("queueWait_percentile_90", 90);
+        createQueueWaitPercentileGauge("queueWait_percentile_99", 99);
+        createQueueWaitPercentileGauge("queueWait_percentile_995", 99.5);
+
         metricsRegistry.newGauge(createMetricName("countThreadsExecuted"), new Gauge<Number>() {
             @Override
             public Number value() {
@@ -178,6 +191,15 @@ public class HystrixYammerMetricsPublisherThreadPool implements HystrixMetricsPu
         });
     }
 
+    protected void createQueueWaitPercentileGauge(final String name, final double percentile) {
+        metricsRegistry.newGauge(createMetricName(name), new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return metrics.getQueueWaitTimePercentile(percentile);
+            }
+        });
+    }
+
     protected MetricName createMetricName(String name) {
         return new MetricName(metricGroup, metricType, name);
     }
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.perf;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.metric.consumer.BucketCounterRing;
+import com.netflix.hystrix.metric.consumer.CumulativeCommandEventCounterStream;
+import com.netflix.hystrix.metric.consumer.HealthCountsStream;
+import com.netflix.hystrix.metric.consumer.RollingCommandEventCounterStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Rx window/reduce bucketing pipeline with the preallocated {@link BucketCounterRing} engine.
+ * Run with -prof gc to see the difference in allocation rate as well as throughput.
+ */
+public class BucketEnginePerfTest {
+
+    private static final HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("PERF");
+
+    @State(Scope.Benchmark)
+    public static class StreamState {
+        @Param({"RX_WINDOW", "RING"})
+        public String bucketEngine;
+
+        @Param({"1", "100"})
+        public int numKeys;
+
+        HystrixCommandKey[] keys;
+        HystrixCommandCompletionStream[] completionStreams;
+        RollingCommandEventCounterStream[] rollingStreams;
+        CumulativeCommandEventCounterStream[] cumulativeStreams;
+        HealthCountsStream[] healthStreams;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ConfigurationManager.getConfigInstance().setProperty("hystrix.metrics.bucketEngine", bucketEngine);
+            keys = new HystrixCommandKey[numKeys];
+            completionStreams = new HystrixCommandCompletionStream[numKeys];
+            rollingStreams = new RollingCommandEventCounterStream[numKeys];
+            cumulativeStreams = new CumulativeCommandEventCounterStream[numKeys];
+            healthStreams = new HealthCountsStream[numKeys];
+            for (int i = 0; i < numKeys; i++) {
+                keys[i] = HystrixCommandKey.Factory.asKey("BucketEnginePerf-" + bucketEngine + "-" + numKeys + "-" + i);
+                completionStreams[i] = HystrixCommandCompletionStream.getInstance(keys[i]);
+                rollingStreams[i] = RollingCommandEventCounterStream.getInstance(keys[i], 10, 100);
+                rollingStreams[i].startCachingStreamValuesIfUnstarted();
+                cumulativeStreams[i] = CumulativeCommandEventCounterStream.getInstance(keys[i], 10, 100);
+                cumulativeStreams[i].startCachingStreamValuesIfUnstarted();
+                healthStreams[i] = HealthCountsStream.getInstance(keys[i], 10, 100);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            for (int i = 0; i < numKeys; i++) {
+                rollingStreams[i].unsubscribe();
+                cumulativeStreams[i].unsubscribe();
+                healthStreams[i].unsubscribe();
+            }
+            ConfigurationManager.getConfigInstance().clearProperty("hystrix.metrics.bucketEngine");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CompletionState {
+        final Random r = new Random();
+        ExecutionResult[] results;
+        int keyIndex;
+        int resultIndex;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            results = new ExecutionResult[] {
+                    ExecutionResult.from(HystrixEventType.SUCCESS).setExecutionLatency(5),
+                    ExecutionResult.from(HystrixEventType.FAILURE, HystrixEventType.FALLBACK_SUCCESS).setExecutionLatency(10),
+                    ExecutionResult.from(HystrixEventType.TIMEOUT, HystrixEventType.FALLBACK_MISSING).setExecutionLatency(100)
+            };
+        }
+
+        @Setup(Level.Invocation)
+        public void pick(StreamState streamState) {
+            keyIndex = r.nextInt(streamState.numKeys);
+            resultIndex = r.nextInt(results.length);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RingState {
+        BucketCounterRing ring;
+        final long[] counts = new long[HystrixEventType.values().length];
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ring = new BucketCounterRing(100, HystrixEventType.values().length);
+            counts[HystrixEventType.SUCCESS.ordinal()] = 1;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HystrixCommandCompletionStream writeOnly(StreamState streamState, CompletionState completionState) {
+        HystrixCommandCompletionStream completionStream = streamState.completionStreams[completionState.keyIndex];
+        completionStream.write(HystrixCommandCompletion.from(completionState.results[completionState.resultIndex],
+                streamState.keys[completionState.keyIndex], threadPoolKey));
+        return completionStream;
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(7)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HystrixCommandCompletionStream writeHeavyWrite(StreamState streamState, CompletionState completionState) {
+        HystrixCommandCompletionStream completionStream = streamState.completionStreams[completionState.keyIndex];
+        completionStream.write(HystrixCommandCompletion.from(completionState.results[completionState.resultIndex],
+                streamState.keys[completionState.keyIndex], threadPoolKey));
+        return completionStream;
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(1)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long writeHeavyRead(StreamState streamState, CompletionState completionState) {
+        int i = completionState.keyIndex;
+        HystrixCommandMetrics.HealthCounts healthCounts = streamState.healthStreams[i].getLatest();
+        return healthCounts.getErrorCount() +
+                streamState.rollingStreams[i].getLatest(HystrixEventType.SUCCESS) +
+                streamState.cumulativeStreams[i].getLatest(HystrixEventType.SUCCESS);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BucketCounterRing ringAddAllOnly(RingState ringState) {
+        ringState.ring.addAll(ringState.counts);
+        return ringState.ring;
+    }
+}
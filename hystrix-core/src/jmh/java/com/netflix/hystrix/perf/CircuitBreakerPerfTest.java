@@ -0,0 +1,165 @@
+/**
+ * Copyright 2015 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.perf;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCommandDefault;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerPerfTest {
+
+    static HystrixCommandGroupKey groupKey = HystrixCommandGroupKey.Factory.asKey("CircuitBreakerPerf");
+
+    @State(Scope.Benchmark)
+    public static class CircuitBreakerState {
+        @Param({"HEALTH_SNAPSHOT", "SLIDING_WINDOW"})
+        public HystrixCommandProperties.CircuitBreakerImplementation implementation;
+
+        HystrixCommandKey commandKey;
+        HystrixCommandProperties.Setter propertiesSetter;
+        HystrixCircuitBreaker circuitBreaker;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            commandKey = HystrixCommandKey.Factory.asKey("CircuitBreakerPerf-" + implementation.name());
+            propertiesSetter = HystrixCommandProperties.Setter()
+                    .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
+                    .withExecutionIsolationSemaphoreMaxConcurrentRequests(1000)
+                    .withCircuitBreakerImplementation(implementation)
+                    // high enough that a benchmark never trips the circuit
+                    .withCircuitBreakerErrorThresholdPercentage(100);
+            HystrixCommandProperties properties = new HystrixPropertiesCommandDefault(commandKey, propertiesSetter);
+            HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(commandKey, groupKey, HystrixThreadPoolKey.Factory.asKey(groupKey.name()), properties);
+            circuitBreaker = HystrixCircuitBreaker.Factory.getInstance(commandKey, groupKey, properties, metrics);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Hystrix.reset();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ShortCircuitedState {
+        @Param({"true", "false"})
+        public boolean stacklessExceptions;
+
+        @Param({"true", "false"})
+        public boolean hasFallback;
+
+        HystrixCommand.Template template;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            template = new HystrixCommand.Template(HystrixCommand.Setter.withGroupKey(groupKey)
+                    .andCommandKey(HystrixCommandKey.Factory.asKey("ShortCircuitedPerf-" + stacklessExceptions + "-" + hasFallback))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
+                            .withCircuitBreakerForceOpen(true)
+                            .withExecutionStacklessExceptionsEnabled(stacklessExceptions)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Hystrix.reset();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object executeShortCircuited(ShortCircuitedState state) {
+        HystrixCommand<Integer> command;
+        if (state.hasFallback) {
+            command = new HystrixCommand<Integer>(state.template) {
+                @Override
+                protected Integer run() throws Exception {
+                    return 1;
+                }
+
+                @Override
+                protected Integer getFallback() {
+                    return 2;
+                }
+            };
+        } else {
+            command = new HystrixCommand<Integer>(state.template) {
+                @Override
+                protected Integer run() throws Exception {
+                    return 1;
+                }
+            };
+        }
+        try {
+            return command.execute();
+        } catch (HystrixRuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean attemptExecution(CircuitBreakerState state) {
+        return state.circuitBreaker.attemptExecution();
+    }
+
+    @Benchmark
+    @Group("attemptWhileCompleting")
+    @GroupThreads(4)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean attemptExecutionWhileCommandsComplete(CircuitBreakerState state) {
+        return state.circuitBreaker.attemptExecution();
+    }
+
+    @Benchmark
+    @Group("attemptWhileCompleting")
+    @GroupThreads(4)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Integer executeCommand(final CircuitBreakerState state) {
+        return new HystrixCommand<Integer>(HystrixCommand.Setter.withGroupKey(groupKey)
+                .andCommandKey(state.commandKey)
+                .andCommandPropertiesDefaults(state.propertiesSetter)) {
+            @Override
+            protected Integer run() throws Exception {
+                return 1;
+            }
+        }.execute();
+    }
+}
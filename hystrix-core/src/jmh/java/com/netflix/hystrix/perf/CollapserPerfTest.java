@@ -20,6 +20,7 @@ import com.netflix.hystrix.HystrixCollapserKey;
 import com.netflix.hystrix.HystrixCollapserProperties;
 import com.netflix.hystrix.HystrixCommand;
 import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandProperties;
 import com.netflix.hystrix.HystrixThreadPool;
 import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolProperties;
@@ -34,6 +35,7 @@ import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.infra.Blackhole;
 import rx.Observable;
 import rx.Subscription;
@@ -93,20 +95,53 @@ public class CollapserPerfTest {
 
     }
 
+    @State(Scope.Benchmark)
+    public static class GlobalCollapserState {
+        @Param({"true", "false"})
+        boolean requestCacheEnabled;
+    }
+
+    @State(Scope.Thread)
+    public static class SubmitterState {
+        String prefix;
+        int counter;
+
+        @Setup
+        public void setUp() {
+            prefix = Thread.currentThread().getName() + "-";
+        }
+
+        //unique per thread, so duplicates don't hit the request caching path
+        String nextArg() {
+            return prefix + counter++;
+        }
+    }
+
     private static class IdentityCollapser extends HystrixCollapser<List<String>, String, String> {
 
-        private final int arg;
+        private final String arg;
         private final int blackholeConsumption;
+        private final boolean executeBatchInline;
 
         IdentityCollapser(int arg, int blackholeConsumption) {
             super(Setter.withCollapserKey(HystrixCollapserKey.Factory.asKey("COLLAPSER")).andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter().withMaxRequestsInBatch(1000).withTimerDelayInMilliseconds(1)));
-            this.arg = arg;
+            this.arg = arg + "";
             this.blackholeConsumption = blackholeConsumption;
+            this.executeBatchInline = false;
+        }
+
+        IdentityCollapser(String arg, boolean requestCacheEnabled) {
+            super(Setter.withCollapserKey(HystrixCollapserKey.Factory.asKey("GLOBAL_COLLAPSER-" + requestCacheEnabled))
+                    .andScope(Scope.GLOBAL)
+                    .andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter().withMaxRequestsInBatch(1000).withTimerDelayInMilliseconds(1).withRequestCacheEnabled(requestCacheEnabled)));
+            this.arg = arg;
+            this.blackholeConsumption = 0;
+            this.executeBatchInline = true;
         }
 
         @Override
         public String getRequestArgument() {
-            return arg + "";
+            return arg;
         }
 
         @Override
@@ -115,11 +150,22 @@ public class CollapserPerfTest {
             for (CollapsedRequest<String, String> collapsedReq: collapsedRequests) {
                 args.add(collapsedReq.getArgument());
             }
+            if (executeBatchInline) {
+                return new BatchCommand(args);
+            }
             return new BatchCommand(args, blackholeConsumption);
         }
 
         @Override
         protected void mapResponseToRequests(List<String> batchResponse, Collection<CollapsedRequest<String, String>> collapsedRequests) {
+            if (executeBatchInline) {
+                //the batch command returns a response per argument, in order, so don't spend the benchmark searching for it
+                int i = 0;
+                for (CollapsedRequest<String, String> collapsedReq: collapsedRequests) {
+                    collapsedReq.setResponse(batchResponse.get(i++));
+                }
+                return;
+            }
             for (CollapsedRequest<String, String> collapsedReq: collapsedRequests) {
                 String requestArg = collapsedReq.getArgument();
                 String response = "<not found>";
@@ -144,6 +190,20 @@ public class CollapserPerfTest {
             this.blackholeConsumption = blackholeConsumption;
         }
 
+        /**
+         * Runs inline on the thread executing the batch, so submitters are measured without being throttled by a thread-pool.
+         */
+        BatchCommand(List<String> inputArgs) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("PERF"))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
+                            .withExecutionIsolationSemaphoreMaxConcurrentRequests(Integer.MAX_VALUE)
+                            .withExecutionTimeoutEnabled(false)
+                            .withRequestLogEnabled(false)));
+            this.inputArgs = inputArgs;
+            this.blackholeConsumption = 0;
+        }
+
         @Override
         protected List<String> run() throws Exception {
             Blackhole.consumeCPU(blackholeConsumption);
@@ -161,4 +221,32 @@ public class CollapserPerfTest {
     public List<String> observeCollapsedAndWait(CollapserState collapserState, ThreadPoolState threadPoolState) {
         return collapserState.executionHandle.toList().toBlocking().single();
     }
+
+    /**
+     * Many threads submitting to a single globally-scoped collapser, which is where contention on the batch being accumulated shows up.
+     * Each invocation only submits the request, the batches are executed by whichever submitter fills them, or by the timer.
+     */
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Observable<String> submitToGlobalCollapser1Thread(GlobalCollapserState collapserState, SubmitterState submitterState) {
+        return new IdentityCollapser(submitterState.nextArg(), collapserState.requestCacheEnabled).observe();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Observable<String> submitToGlobalCollapser8Threads(GlobalCollapserState collapserState, SubmitterState submitterState) {
+        return new IdentityCollapser(submitterState.nextArg(), collapserState.requestCacheEnabled).observe();
+    }
+
+    @Benchmark
+    @Threads(32)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Observable<String> submitToGlobalCollapser32Threads(GlobalCollapserState collapserState, SubmitterState submitterState) {
+        return new IdentityCollapser(submitterState.nextArg(), collapserState.requestCacheEnabled).observe();
+    }
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.perf;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the {@link ExecutionResult} transitions that a command makes over its lifecycle, then builds the
+ * {@link HystrixCommandCompletion} and buckets it the way the metrics consumers do.
+ * <p>
+ * This is meant to be run with -prof gc, to track the bytes allocated per command just for bookkeeping
+ * (see gc.alloc.rate.norm).
+ */
+public class CommandCompletionAllocationPerfTest {
+
+    private static final HystrixCommandKey commandKey = HystrixCommandKey.Factory.asKey("PERF");
+    private static final HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("PERF");
+    private static final ExecutionResult EMPTY = ExecutionResult.from();
+    private static final RuntimeException RUNTIME_EXCEPTION = new RuntimeException("PERF");
+
+    @State(Scope.Thread)
+    public static class CommandState {
+        //like AbstractCommand, publish every transition through a volatile field, so that none of them can be optimized away
+        volatile ExecutionResult executionResult;
+        long[] bucket;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            bucket = new long[HystrixEventType.values().length];
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            executionResult = EMPTY;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] threadIsolatedSuccess(CommandState state) {
+        state.executionResult = state.executionResult.setInvocationStartTime(1L);
+        state.executionResult = state.executionResult.setExecutionOccurred();
+        state.executionResult = state.executionResult.setExecutedInThread();
+        state.executionResult = state.executionResult.setExecutionOccurred();
+        state.executionResult = state.executionResult.addEvent(3, HystrixEventType.SUCCESS);
+        state.executionResult = state.executionResult.markUserThreadCompletion(4);
+        return bucket(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] semaphoreIsolatedFailureWithFallback(CommandState state) {
+        state.executionResult = state.executionResult.setInvocationStartTime(1L);
+        state.executionResult = state.executionResult.setExecutionOccurred();
+        state.executionResult = state.executionResult.addEvent(3, HystrixEventType.FAILURE);
+        state.executionResult = state.executionResult.setException(RUNTIME_EXCEPTION);
+        state.executionResult = state.executionResult.addEvent(4, HystrixEventType.FALLBACK_SUCCESS);
+        state.executionResult = state.executionResult.markUserThreadCompletion(5);
+        return bucket(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] observableWithEmits(CommandState state) {
+        state.executionResult = state.executionResult.setInvocationStartTime(1L);
+        state.executionResult = state.executionResult.setExecutionOccurred();
+        state.executionResult = state.executionResult.addEvent(HystrixEventType.EMIT);
+        state.executionResult = state.executionResult.addEvent(HystrixEventType.EMIT);
+        state.executionResult = state.executionResult.addEvent(HystrixEventType.EMIT);
+        state.executionResult = state.executionResult.addEvent(3, HystrixEventType.SUCCESS);
+        state.executionResult = state.executionResult.markUserThreadCompletion(4);
+        return bucket(state);
+    }
+
+    private static long[] bucket(CommandState state) {
+        HystrixCommandCompletion completion = HystrixCommandCompletion.from(state.executionResult, commandKey, threadPoolKey, null);
+        return HystrixCommandMetrics.appendEventToBucket.call(state.bucket, completion);
+    }
+}
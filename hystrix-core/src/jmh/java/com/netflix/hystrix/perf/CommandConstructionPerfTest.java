@@ -17,10 +17,17 @@ package com.netflix.hystrix.perf;
 
 import com.netflix.hystrix.HystrixCommand;
 import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
 
 import java.util.concurrent.TimeUnit;
 
@@ -28,6 +35,31 @@ public class CommandConstructionPerfTest {
 
     static HystrixCommandGroupKey groupKey = HystrixCommandGroupKey.Factory.asKey("Group");
 
+    enum EnumCommandKey implements HystrixCommandKey {
+        PERF_ENUM
+    }
+
+    @State(Scope.Benchmark)
+    public static class CommandKeyState {
+        @Param({"interned", "enum"})
+        public String keyType;
+
+        HystrixCommand.Setter setter;
+        HystrixCommand.Template template;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            HystrixCommandKey commandKey = keyType.equals("enum") ? EnumCommandKey.PERF_ENUM : HystrixCommandKey.Factory.asKey("PERF_INTERNED");
+            setter = HystrixCommand.Setter.withGroupKey(groupKey)
+                    .andCommandKey(commandKey)
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE));
+            template = new HystrixCommand.Template(setter);
+            // the first construction creates the per-key state, every one after only looks it up
+            construct(setter);
+        }
+    }
+
     @Benchmark
     @BenchmarkMode({Mode.SingleShotTime})
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
@@ -39,4 +71,32 @@ public class CommandConstructionPerfTest {
             }
         };
     }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HystrixCommand constructHystrixCommandWithExistingPerKeyState(CommandKeyState state) {
+        return construct(state.setter);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HystrixCommand constructHystrixCommandFromTemplate(CommandKeyState state) {
+        return new HystrixCommand<Integer>(state.template) {
+            @Override
+            protected Integer run() throws Exception {
+                return 1;
+            }
+        };
+    }
+
+    private static HystrixCommand<Integer> construct(HystrixCommand.Setter setter) {
+        return new HystrixCommand<Integer>(setter) {
+            @Override
+            protected Integer run() throws Exception {
+                return 1;
+            }
+        };
+    }
 }
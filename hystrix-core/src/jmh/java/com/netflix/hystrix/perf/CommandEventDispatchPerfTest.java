@@ -0,0 +1,168 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.perf;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.metric.HystrixCommandEventDispatcher;
+import com.netflix.hystrix.metric.HystrixThreadEventStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing command events through the per-thread {@link HystrixThreadEventStream} with writing them directly
+ * via {@link HystrixCommandEventDispatcher}.  The hystrixExecute benchmark mirrors the one in {@link CommandExecutionPerfTest},
+ * so the two may be read side-by-side.  Run with -prof gc to compare allocation rates.
+ * <p>
+ * Like {@link CommandExecutionPerfTest}, this must be run on a forked JVM, since the dispatch mode gets locked in per
+ * command key the first time its metrics are created.
+ */
+public class CommandEventDispatchPerfTest {
+
+    private static final HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("PERF");
+
+    @State(Scope.Benchmark)
+    public static class DispatchState {
+        @Param({"false", "true"})
+        public boolean directEventDispatch;
+
+        HystrixCommandKey commandKey;
+        HystrixCommandEventDispatcher dispatcher;
+        ExecutionResult threadResult;
+        ExecutionResult semaphoreResult;
+        Subscription subscription;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ConfigurationManager.getConfigInstance().setProperty("hystrix.metrics.directEventDispatch.enabled", directEventDispatch);
+            commandKey = HystrixCommandKey.Factory.asKey("EventDispatchPerf-" + directEventDispatch);
+            dispatcher = HystrixCommandEventDispatcher.forCommand(commandKey);
+            threadResult = ExecutionResult.from(HystrixEventType.SUCCESS).setExecutedInThread().setExecutionLatency(1);
+            semaphoreResult = ExecutionResult.from(HystrixEventType.SUCCESS).setExecutionLatency(1);
+            //make sure there's a consumer, as there would be in a real system
+            subscription = HystrixCommandCompletionStream.getInstance(commandKey).observe().subscribe(new Action1<Object>() {
+                @Override
+                public void call(Object o) {
+                }
+            });
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            subscription.unsubscribe();
+            ConfigurationManager.getConfigInstance().clearProperty("hystrix.metrics.directEventDispatch.enabled");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CommandState {
+        HystrixCommand<Integer> command;
+
+        @Param({"THREAD", "SEMAPHORE"})
+        public HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy;
+
+        @Setup(Level.Invocation)
+        public void setUp(DispatchState dispatchState) {
+            command = new HystrixCommand<Integer>(
+                    HystrixCommand.Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("PERF"))
+                            .andCommandKey(dispatchState.commandKey)
+                            .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                                    .withExecutionIsolationStrategy(isolationStrategy)
+                                    .withRequestCacheEnabled(false)
+                                    .withRequestLogEnabled(false))
+            ) {
+                @Override
+                protected Integer run() throws Exception {
+                    return 1;
+                }
+
+                @Override
+                protected Integer getFallback() {
+                    return 2;
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResult executionDoneOnly(DispatchState state) {
+        if (state.directEventDispatch) {
+            state.dispatcher.executionDone(state.semaphoreResult, state.commandKey, threadPoolKey);
+        } else {
+            HystrixThreadEventStream.getInstance().executionDone(state.semaphoreResult, state.commandKey, threadPoolKey);
+        }
+        return state.semaphoreResult;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResult threadIsolatedStartAndDone(DispatchState state) {
+        if (state.directEventDispatch) {
+            state.dispatcher.commandExecutionStarted(state.commandKey, threadPoolKey, HystrixCommandProperties.ExecutionIsolationStrategy.THREAD, 1);
+            state.dispatcher.executionDone(state.threadResult, state.commandKey, threadPoolKey);
+        } else {
+            HystrixThreadEventStream.getInstance().commandExecutionStarted(state.commandKey, threadPoolKey, HystrixCommandProperties.ExecutionIsolationStrategy.THREAD, 1);
+            HystrixThreadEventStream.getInstance().executionDone(state.threadResult, state.commandKey, threadPoolKey);
+        }
+        return state.threadResult;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Integer hystrixExecute(CommandState state) {
+        return state.command.execute();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Integer hystrixExecuteFromManyThreads(CommandState state) {
+        //hop onto an Rx IO thread first, so that many distinct threads end up writing metrics
+        final HystrixCommand<Integer> command = state.command;
+        return Observable.defer(new Func0<Observable<Integer>>() {
+            @Override
+            public Observable<Integer> call() {
+                return Observable.just(command.execute());
+            }
+        }).subscribeOn(Schedulers.io()).toBlocking().first();
+    }
+}
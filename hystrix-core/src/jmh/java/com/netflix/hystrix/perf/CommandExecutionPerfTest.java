@@ -17,6 +17,7 @@ package com.netflix.hystrix.perf;
 
 import com.netflix.hystrix.HystrixCommand;
 import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
 import com.netflix.hystrix.HystrixCommandProperties;
 import com.netflix.hystrix.HystrixObservableCommand;
 import com.netflix.hystrix.HystrixThreadPool;
@@ -158,6 +159,54 @@ public class CommandExecutionPerfTest {
         }
     }
 
+    @State(Scope.Thread)
+    public static class SemaphoreCommandState {
+        HystrixCommand<Integer> command;
+        HystrixRequestContext requestContext;
+
+        @Param({"true", "false"})
+        public boolean synchronousExecution;
+
+        @Param({"true", "false"})
+        public boolean forceOpen;
+
+        //amount of "work" to give to CPU
+        @Param({"1", "100", "10000"})
+        public int blackholeConsumption;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            requestContext = HystrixRequestContext.initializeContext();
+
+            // without a timeout, so execute() may run the command on the calling thread
+            command = new HystrixCommand<Integer>(
+                    HystrixCommand.Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("PERF"))
+                            .andCommandKey(HystrixCommandKey.Factory.asKey("PERF_SEMAPHORE_NO_TIMEOUT_" + synchronousExecution + "_" + forceOpen))
+                            .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                                    .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
+                                    .withExecutionTimeoutEnabled(false)
+                                    .withExecutionIsolationSemaphoreSynchronousExecutionEnabled(synchronousExecution)
+                                    .withCircuitBreakerForceOpen(forceOpen))
+            ) {
+                @Override
+                protected Integer run() throws Exception {
+                    Blackhole.consumeCPU(blackholeConsumption);
+                    return 1;
+                }
+
+                @Override
+                protected Integer getFallback() {
+                    return 2;
+                }
+            };
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            requestContext.shutdown();
+        }
+    }
+
     @State(Scope.Thread)
     public static class ObservableCommandState {
         HystrixObservableCommand<Integer> command;
@@ -324,6 +373,13 @@ public class CommandExecutionPerfTest {
         return state.command.execute();
     }
 
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Integer hystrixExecuteSemaphoreWithoutTimeout(SemaphoreCommandState state) {
+        return state.command.execute();
+    }
+
     @Benchmark
     @BenchmarkMode({Mode.Throughput})
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.perf;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCommandDefault;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the properties an execution needs through the chained dynamic properties with reading them from
+ * {@link HystrixCommandProperties#snapshot()}.  Each benchmark reads the same properties a semaphore-isolated command reads while it executes.
+ */
+public class PropertiesSnapshotPerfTest {
+
+    static HystrixCommandGroupKey groupKey = HystrixCommandGroupKey.Factory.asKey("PropertiesSnapshotPerf");
+
+    @State(Scope.Benchmark)
+    public static class PropertiesState {
+        HystrixCommandProperties properties;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            properties = new HystrixPropertiesCommandDefault(HystrixCommandKey.Factory.asKey("PropertiesSnapshotPerf"), HystrixCommandProperties.Setter()
+                    .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CommandState {
+        HystrixCommand.Template template;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            template = new HystrixCommand.Template(HystrixCommand.Setter.withGroupKey(groupKey)
+                    .andCommandKey(HystrixCommandKey.Factory.asKey("PropertiesSnapshotPerf-Command"))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
+                            .withExecutionIsolationSemaphoreMaxConcurrentRequests(1000)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Hystrix.reset();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void readChainedProperties(PropertiesState state, Blackhole bh) {
+        HystrixCommandProperties properties = state.properties;
+        bh.consume(properties.circuitBreakerEnabled().get());
+        bh.consume(properties.requestLogEnabled().get());
+        bh.consume(properties.requestCacheEnabled().get());
+        bh.consume(properties.responseCacheEnabled().get());
+        bh.consume(properties.circuitBreakerForceOpen().get());
+        bh.consume(properties.circuitBreakerForceClosed().get());
+        bh.consume(properties.executionIsolationStrategy().get());
+        bh.consume(properties.executionIsolationSemaphoreMaxConcurrentRequests().get());
+        bh.consume(properties.executionAdaptiveConcurrencyLimitEnabled().get());
+        bh.consume(properties.executionTimeoutEnabled().get());
+        bh.consume(properties.executionTimeoutInMilliseconds().get());
+        bh.consume(properties.executionRetryMaxAttempts().get());
+        bh.consume(properties.fallbackEnabled().get());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void readSnapshot(PropertiesState state, Blackhole bh) {
+        HystrixCommandProperties properties = state.properties;
+        bh.consume(properties.snapshot().circuitBreakerEnabled());
+        bh.consume(properties.snapshot().requestLogEnabled());
+        bh.consume(properties.snapshot().requestCacheEnabled());
+        bh.consume(properties.snapshot().responseCacheEnabled());
+        bh.consume(properties.snapshot().circuitBreakerForceOpen());
+        bh.consume(properties.snapshot().circuitBreakerForceClosed());
+        bh.consume(properties.snapshot().executionIsolationStrategy());
+        bh.consume(properties.snapshot().executionIsolationSemaphoreMaxConcurrentRequests());
+        bh.consume(properties.snapshot().executionAdaptiveConcurrencyLimitEnabled());
+        bh.consume(properties.snapshot().executionTimeoutEnabled());
+        bh.consume(properties.snapshot().executionTimeoutInMilliseconds());
+        bh.consume(properties.snapshot().executionRetryMaxAttempts());
+        bh.consume(properties.snapshot().fallbackEnabled());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer executeSemaphoreCommand(CommandState state) {
+        return new HystrixCommand<Integer>(state.template) {
+            @Override
+            protected Integer run() throws Exception {
+                return 1;
+            }
+        }.execute();
+    }
+}
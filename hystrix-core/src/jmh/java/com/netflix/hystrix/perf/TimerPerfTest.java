@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.perf;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.HystrixTimerThreadPoolProperties.TimerImplementation;
+import com.netflix.hystrix.util.HystrixTimer;
+import com.netflix.hystrix.util.HystrixTimer.TimerListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scheduling and then cancelling a {@link TimerListener} on {@link HystrixTimer}, which is what every command with a
+ * timeout does, for each {@link TimerImplementation}.  The timer is loaded with a number of outstanding listeners first, since the
+ * cost of scheduling on a {@link java.util.concurrent.ScheduledThreadPoolExecutor} grows with the size of its queue.
+ */
+public class TimerPerfTest {
+
+    private static final TimerListener TIMEOUT = new NoOpListener(1000);
+
+    @State(Scope.Benchmark)
+    public static class TimerState {
+        @Param({"SCHEDULED_EXECUTOR", "TIMING_WHEEL"})
+        public TimerImplementation implementation;
+
+        @Param({"0", "1000000"})
+        public int outstandingTimers;
+
+        List<Reference<TimerListener>> outstanding;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ConfigurationManager.getConfigInstance().setProperty("hystrix.timer.threadpool.default.implementation", implementation.name());
+            HystrixTimer.reset();
+            outstanding = new ArrayList<Reference<TimerListener>>(outstandingTimers);
+            //long enough not to fire during the trial
+            TimerListener listener = new NoOpListener(Integer.MAX_VALUE);
+            for (int i = 0; i < outstandingTimers; i++) {
+                outstanding.add(HystrixTimer.getInstance().addTimerListener(listener));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            for (Reference<TimerListener> ref : outstanding) {
+                ref.clear();
+            }
+            HystrixTimer.reset();
+            ConfigurationManager.getConfigInstance().clearProperty("hystrix.timer.threadpool.default.implementation");
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Reference<TimerListener> scheduleAndCancel(TimerState state) {
+        Reference<TimerListener> ref = HystrixTimer.getInstance().addTimerListener(TIMEOUT);
+        ref.clear();
+        return ref;
+    }
+
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Reference<TimerListener> scheduleAndCancelFromManyThreads(TimerState state) {
+        Reference<TimerListener> ref = HystrixTimer.getInstance().addTimerListener(TIMEOUT);
+        ref.clear();
+        return ref;
+    }
+
+    private static class NoOpListener implements TimerListener {
+        private final int interval;
+
+        NoOpListener(int interval) {
+            this.interval = interval;
+        }
+
+        @Override
+        public void tick() {
+        }
+
+        @Override
+        public int getIntervalTimeInMilliseconds() {
+            return interval;
+        }
+    }
+}
@@ -19,12 +19,18 @@ import com.netflix.hystrix.HystrixCircuitBreaker.NoOpCircuitBreaker;
 import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
 import com.netflix.hystrix.exception.ExceptionNotWrappedByHystrix;
 import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.hystrix.exception.HystrixQueueDropException;
 import com.netflix.hystrix.exception.HystrixRuntimeException;
 import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
 import com.netflix.hystrix.exception.HystrixTimeoutException;
+import com.netflix.hystrix.metric.HystrixPartitionRejection;
+import com.netflix.hystrix.metric.HystrixPartitionRejectionStream;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
 import com.netflix.hystrix.strategy.concurrency.HystrixContextRunnable;
+import com.netflix.hystrix.strategy.concurrency.HystrixCoDelQueue;
+import com.netflix.hystrix.strategy.concurrency.HystrixContextScheduler;
+import com.netflix.hystrix.strategy.concurrency.HystrixPriorityQueue;
 import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
 import com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier;
 import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
@@ -34,25 +40,32 @@ import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 import com.netflix.hystrix.strategy.properties.HystrixProperty;
 import com.netflix.hystrix.util.HystrixTimer;
 import com.netflix.hystrix.util.HystrixTimer.TimerListener;
+import com.netflix.hystrix.util.OrdinalTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Notification;
 import rx.Observable;
 import rx.Observable.Operator;
+import rx.Scheduler;
 import rx.Subscriber;
 import rx.Subscription;
 import rx.functions.Action0;
 import rx.functions.Action1;
 import rx.functions.Func0;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 import rx.subjects.ReplaySubject;
 import rx.subscriptions.CompositeSubscription;
 
 import java.lang.ref.Reference;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,6 +75,7 @@ import java.util.concurrent.atomic.AtomicReference;
     protected final HystrixCircuitBreaker circuitBreaker;
     protected final HystrixThreadPool threadPool;
     protected final HystrixThreadPoolKey threadPoolKey;
+    private final HystrixThreadPoolProperties.Setter threadPoolPropertiesDefaults; // needed to lazily create the HystrixVirtualThreadBulkhead
     protected final HystrixCommandProperties properties;
 
     protected enum TimedOutStatus {
@@ -90,14 +104,14 @@ import java.util.concurrent.atomic.AtomicReference;
 
     /* FALLBACK Semaphore */
     protected final TryableSemaphore fallbackSemaphoreOverride;
-    /* each circuit has a semaphore to restrict concurrent fallback execution */
-    protected static final ConcurrentHashMap<String, TryableSemaphore> fallbackSemaphorePerCircuit = new ConcurrentHashMap<String, TryableSemaphore>();
+    /* each circuit has a semaphore to restrict concurrent fallback execution, indexed by HystrixCommandKey.Factory.ordinalOf(commandKey) */
+    protected static final OrdinalTable<TryableSemaphore> fallbackSemaphorePerCircuit = new OrdinalTable<TryableSemaphore>();
     /* END FALLBACK Semaphore */
 
     /* EXECUTION Semaphore */
     protected final TryableSemaphore executionSemaphoreOverride;
-    /* each circuit has a semaphore to restrict concurrent fallback execution */
-    protected static final ConcurrentHashMap<String, TryableSemaphore> executionSemaphorePerCircuit = new ConcurrentHashMap<String, TryableSemaphore>();
+    /* each circuit has a semaphore to restrict concurrent execution, indexed by HystrixCommandKey.Factory.ordinalOf(commandKey) */
+    protected static final OrdinalTable<TryableSemaphore> executionSemaphorePerCircuit = new OrdinalTable<TryableSemaphore>();
     /* END EXECUTION Semaphore */
 
     protected final AtomicReference<Reference<TimerListener>> timeoutTimer = new AtomicReference<Reference<TimerListener>>();
@@ -118,11 +132,18 @@ import java.util.concurrent.atomic.AtomicReference;
     protected volatile ExecutionResult executionResult = ExecutionResult.EMPTY; //state on shared execution
 
     protected volatile boolean isResponseFromCache = false;
+
+    /* priority from HystrixCommand.Setter#andPriority, or null to use the priority of the request context */
+    /* package */HystrixPriority declaredPriority = null;
+    /* circuit breaker of the partition of this execution, set as it starts, or null to use the one of the command */
+    private volatile HystrixCircuitBreaker.HystrixRollingHealthCircuitBreaker partitionCircuitBreaker = null;
     protected volatile ExecutionResult executionResultAtTimeOfCancellation;
     protected volatile long commandStartTimestamp = -1L;
 
     /* If this command executed and timed-out */
     protected final AtomicReference<TimedOutStatus> isCommandTimedOut = new AtomicReference<TimedOutStatus>(TimedOutStatus.NOT_EXECUTED);
+    /* If the timeout was the deadline of the request rather than the configured timeout */
+    protected volatile boolean isTimeoutFromDeadline = false;
     protected volatile Action0 endCurrentThreadExecutingCommand;
 
     /**
@@ -162,10 +183,11 @@ import java.util.concurrent.atomic.AtomicReference;
         this.commandGroup = initGroupKey(group);
         this.commandKey = initCommandKey(key, getClass());
         this.properties = initCommandProperties(this.commandKey, propertiesStrategy, commandPropertiesDefaults);
-        this.threadPoolKey = initThreadPoolKey(threadPoolKey, this.commandGroup, this.properties.executionIsolationThreadPoolKeyOverride().get());
+        this.threadPoolKey = initThreadPoolKey(threadPoolKey, this.commandGroup, this.properties.snapshot().executionIsolationThreadPoolKeyOverride());
         this.metrics = initMetrics(metrics, this.commandGroup, this.threadPoolKey, this.commandKey, this.properties);
-        this.circuitBreaker = initCircuitBreaker(this.properties.circuitBreakerEnabled().get(), circuitBreaker, this.commandGroup, this.commandKey, this.properties, this.metrics);
+        this.circuitBreaker = initCircuitBreaker(this.properties.snapshot().circuitBreakerEnabled(), circuitBreaker, this.commandGroup, this.commandKey, this.properties, this.metrics);
         this.threadPool = initThreadPool(threadPool, this.threadPoolKey, threadPoolPropertiesDefaults);
+        this.threadPoolPropertiesDefaults = threadPoolPropertiesDefaults;
 
         //Strategies from plugins
         this.eventNotifier = HystrixPlugins.getInstance().getEventNotifier();
@@ -174,7 +196,7 @@ import java.util.concurrent.atomic.AtomicReference;
         this.executionHook = initExecutionHook(executionHook);
 
         this.requestCache = HystrixRequestCache.getInstance(this.commandKey, this.concurrencyStrategy);
-        this.currentRequestLog = initRequestLog(this.properties.requestLogEnabled().get(), this.concurrencyStrategy);
+        this.currentRequestLog = initRequestLog(this.properties.snapshot().requestLogEnabled(), this.concurrencyStrategy);
 
         /* fallback semaphore override if applicable */
         this.fallbackSemaphoreOverride = fallbackSemaphore;
@@ -183,6 +205,84 @@ import java.util.concurrent.atomic.AtomicReference;
         this.executionSemaphoreOverride = executionSemaphore;
     }
 
+    /**
+     * Construct a command from the per-key state of a {@link HystrixCommand.Template}, so only the request log is resolved for each instance.
+     */
+    /* package */AbstractCommand(HystrixCommand.Template template) {
+        Prototype prototype = template.getPrototype(getClass());
+        this.commandGroup = prototype.commandGroup;
+        this.commandKey = prototype.commandKey;
+        this.properties = prototype.properties;
+        this.threadPoolKey = prototype.threadPoolKey;
+        this.metrics = prototype.metrics;
+        this.circuitBreaker = prototype.circuitBreaker;
+        this.threadPool = prototype.threadPool;
+        this.threadPoolPropertiesDefaults = prototype.threadPoolPropertiesDefaults;
+        this.eventNotifier = prototype.eventNotifier;
+        this.concurrencyStrategy = prototype.concurrencyStrategy;
+        this.executionHook = prototype.executionHook;
+        this.requestCache = prototype.requestCache;
+        this.currentRequestLog = initRequestLog(this.properties.snapshot().requestLogEnabled(), this.concurrencyStrategy);
+        this.fallbackSemaphoreOverride = null;
+        this.executionSemaphoreOverride = null;
+    }
+
+    /**
+     * Per-key state of a command, resolved the same way as by the {@link AbstractCommand} constructor, but once to be shared by every command
+     * created from a {@link HystrixCommand.Template}.
+     */
+    /* package */static class Prototype {
+        private final HystrixCommandGroupKey commandGroup;
+        private final HystrixCommandKey commandKey;
+        private final HystrixCommandProperties properties;
+        private final HystrixThreadPoolKey threadPoolKey;
+        private final HystrixCommandMetrics metrics;
+        private final HystrixCircuitBreaker circuitBreaker;
+        private final HystrixThreadPool threadPool;
+        private final HystrixThreadPoolProperties.Setter threadPoolPropertiesDefaults;
+        private final HystrixEventNotifier eventNotifier;
+        private final HystrixConcurrencyStrategy concurrencyStrategy;
+        private final HystrixCommandExecutionHook executionHook;
+        private final HystrixRequestCache requestCache;
+
+        /* what the state above was resolved from, so it can be resolved again if any of it changes */
+        private final int resetCount;
+        private final String threadPoolKeyOverride;
+        private final boolean circuitBreakerEnabled;
+
+        /* package */Prototype(HystrixCommandGroupKey group, HystrixCommandKey key, HystrixThreadPoolKey threadPoolKey,
+                HystrixCommandProperties.Setter commandPropertiesDefaults, HystrixThreadPoolProperties.Setter threadPoolPropertiesDefaults, Class<?> commandClass) {
+            this.resetCount = Hystrix.getResetCount();
+            this.commandGroup = initGroupKey(group);
+            this.commandKey = initCommandKey(key, commandClass);
+            this.properties = initCommandProperties(this.commandKey, null, commandPropertiesDefaults);
+            this.threadPoolKeyOverride = this.properties.snapshot().executionIsolationThreadPoolKeyOverride();
+            this.threadPoolKey = initThreadPoolKey(threadPoolKey, this.commandGroup, this.threadPoolKeyOverride);
+            this.metrics = initMetrics(null, this.commandGroup, this.threadPoolKey, this.commandKey, this.properties);
+            this.circuitBreakerEnabled = this.properties.snapshot().circuitBreakerEnabled();
+            this.circuitBreaker = initCircuitBreaker(this.circuitBreakerEnabled, null, this.commandGroup, this.commandKey, this.properties, this.metrics);
+            this.threadPool = initThreadPool(null, this.threadPoolKey, threadPoolPropertiesDefaults);
+            this.threadPoolPropertiesDefaults = threadPoolPropertiesDefaults;
+
+            this.eventNotifier = HystrixPlugins.getInstance().getEventNotifier();
+            this.concurrencyStrategy = HystrixPlugins.getInstance().getConcurrencyStrategy();
+            HystrixMetricsPublisherFactory.createOrRetrievePublisherForCommand(this.commandKey, this.commandGroup, this.metrics, this.circuitBreaker, this.properties);
+            this.executionHook = initExecutionHook(null);
+            this.requestCache = HystrixRequestCache.getInstance(this.commandKey, this.concurrencyStrategy);
+        }
+
+        /**
+         * @return false if Hystrix was reset, or a property this was resolved from changed, since this was created
+         */
+        /* package */boolean isCurrent() {
+            if (resetCount != Hystrix.getResetCount() || circuitBreakerEnabled != properties.snapshot().circuitBreakerEnabled()) {
+                return false;
+            }
+            String override = properties.snapshot().executionIsolationThreadPoolKeyOverride();
+            return threadPoolKeyOverride == null ? override == null : threadPoolKeyOverride.equals(override);
+        }
+    }
+
     private static HystrixCommandGroupKey initGroupKey(final HystrixCommandGroupKey fromConstructor) {
         if (fromConstructor == null) {
             throw new IllegalStateException("HystrixCommandGroup can not be NULL");
@@ -370,11 +470,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
             @Override
             public void call() {
-                if (_cmd.commandState.compareAndSet(CommandState.OBSERVABLE_CHAIN_CREATED, CommandState.TERMINAL)) {
-                    handleCommandEnd(false); //user code never ran
-                } else if (_cmd.commandState.compareAndSet(CommandState.USER_CODE_EXECUTED, CommandState.TERMINAL)) {
-                    handleCommandEnd(true); //user code did run
-                }
+                handleCommandTerminated();
             }
         };
 
@@ -382,7 +478,7 @@ import java.util.concurrent.atomic.AtomicReference;
         final Action0 unsubscribeCommandCleanup = new Action0() {
             @Override
             public void call() {
-                circuitBreaker.markNonSuccess();
+                getExecutionCircuitBreaker().markNonSuccess();
                 if (_cmd.commandState.compareAndSet(CommandState.OBSERVABLE_CHAIN_CREATED, CommandState.UNSUBSCRIBED)) {
                     if (!_cmd.executionResult.containsTerminalEvent()) {
                         _cmd.eventNotifier.markEvent(HystrixEventType.CANCELLED, _cmd.commandKey);
@@ -424,20 +520,7 @@ import java.util.concurrent.atomic.AtomicReference;
         final Func1<R, R> wrapWithAllOnNextHooks = new Func1<R, R>() {
             @Override
             public R call(R r) {
-                R afterFirstApplication = r;
-
-                try {
-                    afterFirstApplication = executionHook.onComplete(_cmd, r);
-                } catch (Throwable hookEx) {
-                    logger.warn("Error calling HystrixCommandExecutionHook.onComplete", hookEx);
-                }
-
-                try {
-                    return executionHook.onEmit(_cmd, afterFirstApplication);
-                } catch (Throwable hookEx) {
-                    logger.warn("Error calling HystrixCommandExecutionHook.onEmit", hookEx);
-                    return afterFirstApplication;
-                }
+                return wrapWithAllOnNextHooks(r);
             }
         };
 
@@ -455,21 +538,7 @@ import java.util.concurrent.atomic.AtomicReference;
         return Observable.defer(new Func0<Observable<R>>() {
             @Override
             public Observable<R> call() {
-                 /* this is a stateful object so can only be used once */
-                if (!commandState.compareAndSet(CommandState.NOT_STARTED, CommandState.OBSERVABLE_CHAIN_CREATED)) {
-                    IllegalStateException ex = new IllegalStateException("This instance can only be executed once. Please instantiate a new instance.");
-                    //TODO make a new error type for this
-                    throw new HystrixRuntimeException(FailureType.BAD_REQUEST_EXCEPTION, _cmd.getClass(), getLogMessagePrefix() + " command executed multiple times - this is not permitted.", ex, null);
-                }
-
-                commandStartTimestamp = System.currentTimeMillis();
-
-                if (properties.requestLogEnabled().get()) {
-                    // log this command execution regardless of what happened
-                    if (currentRequestLog != null) {
-                        currentRequestLog.addExecutedCommand(_cmd);
-                    }
-                }
+                markCommandStarted();
 
                 final boolean requestCacheEnabled = isRequestCachingEnabled();
                 final String cacheKey = getCacheKey();
@@ -483,14 +552,36 @@ import java.util.concurrent.atomic.AtomicReference;
                     }
                 }
 
+                /* then from the cache shared across requests */
+                HystrixResponseCache.Entry<R> fromResponseCache = null;
+                final HystrixResponseCache responseCache = isResponseCachingEnabled() ? HystrixResponseCache.getInstance(commandKey, properties) : null;
+                if (responseCache != null) {
+                    fromResponseCache = responseCache.get(cacheKey);
+                    if (fromResponseCache != null) {
+                        // a stale response is returned as it is while this command refreshes it, unless another command already is
+                        if (fromResponseCache.getState(properties) == HystrixResponseCache.State.FRESH || !fromResponseCache.startRefresh()) {
+                            isResponseFromCache = true;
+                            return handleResponseCacheHitAndEmitValues(fromResponseCache);
+                        }
+                        executionResult = executionResult.addEvent(HystrixEventType.RESPONSE_CACHE_HIT);
+                    } else {
+                        executionResult = executionResult.addEvent(HystrixEventType.RESPONSE_CACHE_MISS);
+                    }
+                }
+
                 Observable<R> hystrixObservable =
                         Observable.defer(applyHystrixSemantics)
                                 .map(wrapWithAllOnNextHooks);
 
+                if (responseCache != null) {
+                    hystrixObservable = loadIntoResponseCache(hystrixObservable, responseCache, cacheKey, fromResponseCache);
+                }
+
                 Observable<R> afterCache;
 
-                // put in cache
-                if (requestCacheEnabled && cacheKey != null) {
+                // put in cache, unless this is a background refresh of a stale response: the caller already has its response, and
+                // HystrixCachedObservable subscribes straight away, which would run the refresh on this thread
+                if (requestCacheEnabled && cacheKey != null && fromResponseCache == null) {
                     // wrap it for caching
                     HystrixCachedObservable<R> toCache = HystrixCachedObservable.from(hystrixObservable, _cmd);
                     HystrixCommandResponseFromCache<R> fromCache = (HystrixCommandResponseFromCache<R>) requestCache.putIfAbsent(cacheKey, toCache);
@@ -507,40 +598,138 @@ import java.util.concurrent.atomic.AtomicReference;
                     afterCache = hystrixObservable;
                 }
 
-                return afterCache
+                Observable<R> withCleanup = afterCache
                         .doOnTerminate(terminateCommandCleanup)     // perform cleanup once (either on normal terminal state (this line), or unsubscribe (next line))
                         .doOnUnsubscribe(unsubscribeCommandCleanup) // perform cleanup once
                         .doOnCompleted(fireOnCompletedHook);
+
+                if (fromResponseCache != null) {
+                    // refresh the stale response on another thread, so the caller gets it without waiting for the execution
+                    isResponseFromCache = true;
+                    refreshInBackground(withCleanup, fromResponseCache);
+                    return Observable.from(fromResponseCache.getValues());
+                }
+                return withCleanup;
             }
         });
     }
 
+    private void refreshInBackground(final Observable<R> refresh, HystrixResponseCache.Entry<R> staleResponse) {
+        try {
+            HystrixResponseCache.getRefreshExecutor().execute(new HystrixContextRunnable(concurrencyStrategy, new Runnable() {
+                @Override
+                public void run() {
+                    refresh.subscribe(new Subscriber<R>() {
+                        @Override
+                        public void onCompleted() {
+
+                        }
+
+                        @Override
+                        public void onError(Throwable e) {
+                            logger.warn(getLogMessagePrefix() + " failed to refresh a stale response from the response cache", e);
+                        }
+
+                        @Override
+                        public void onNext(R r) {
+
+                        }
+                    });
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            // too many refreshes are already waiting, so leave this one to a later caller
+            staleResponse.refreshFailed();
+        }
+    }
+
+    private void markCommandStarted() {
+        /* this is a stateful object so can only be used once */
+        if (!commandState.compareAndSet(CommandState.NOT_STARTED, CommandState.OBSERVABLE_CHAIN_CREATED)) {
+            IllegalStateException ex = new IllegalStateException("This instance can only be executed once. Please instantiate a new instance.");
+            //TODO make a new error type for this
+            throw new HystrixRuntimeException(FailureType.BAD_REQUEST_EXCEPTION, getClass(), getLogMessagePrefix() + " command executed multiple times - this is not permitted.", ex, null);
+        }
+
+        commandStartTimestamp = System.currentTimeMillis();
+
+        if (properties.snapshot().requestLogEnabled()) {
+            // log this command execution regardless of what happened
+            if (currentRequestLog != null) {
+                currentRequestLog.addExecutedCommand(this);
+            }
+        }
+    }
+
+    /**
+     * Store the values emitted by a successful execution in the {@link HystrixResponseCache}, before the command's metrics are recorded so that
+     * any responses evicted are counted in them.
+     */
+    private Observable<R> loadIntoResponseCache(Observable<R> hystrixObservable, final HystrixResponseCache responseCache, final String cacheKey,
+                                                final HystrixResponseCache.Entry<R> staleResponse) {
+        final List<R> values = new ArrayList<R>();
+        return hystrixObservable
+                .doOnNext(new Action1<R>() {
+                    @Override
+                    public void call(R r) {
+                        synchronized (values) {
+                            values.add(r);
+                        }
+                    }
+                })
+                .doOnCompleted(new Action0() {
+                    @Override
+                    public void call() {
+                        // fallback values are not the response, so only successful executions are cached
+                        if (!executionResult.getEventCounts().contains(HystrixEventType.SUCCESS)) {
+                            if (staleResponse != null) {
+                                staleResponse.refreshFailed();
+                            }
+                            return;
+                        }
+                        List<R> response;
+                        synchronized (values) {
+                            response = new ArrayList<R>(values);
+                        }
+                        int evictions = responseCache.put(cacheKey, response, getResponseCacheWeight(response));
+                        if (evictions > 0) {
+                            executionResult = executionResult.markResponseCacheEvictions(evictions);
+                        }
+                    }
+                })
+                .doOnError(new Action1<Throwable>() {
+                    @Override
+                    public void call(Throwable t) {
+                        if (staleResponse != null) {
+                            staleResponse.refreshFailed();
+                        }
+                    }
+                });
+    }
+
     private Observable<R> applyHystrixSemantics(final AbstractCommand<R> _cmd) {
         // mark that we're starting execution on the ExecutionHook
         // if this hook throws an exception, then a fast-fail occurs with no fallback.  No state is left inconsistent
         executionHook.onStart(_cmd);
+        partitionCircuitBreaker = initPartitionCircuitBreaker();
 
-        /* determine if we're allowed to execute */
-        if (circuitBreaker.attemptExecution()) {
-            final TryableSemaphore executionSemaphore = getExecutionSemaphore();
-            final AtomicBoolean semaphoreHasBeenReleased = new AtomicBoolean(false);
-            final Action0 singleSemaphoreRelease = new Action0() {
-                @Override
-                public void call() {
-                    if (semaphoreHasBeenReleased.compareAndSet(false, true)) {
-                        executionSemaphore.release();
+        final Admission admission = admitExecution();
+        switch (admission.decision) {
+            case ADMITTED:
+                final Action0 singleSemaphoreRelease = new Action0() {
+                    @Override
+                    public void call() {
+                        admission.release();
                     }
-                }
-            };
+                };
 
-            final Action1<Throwable> markExceptionThrown = new Action1<Throwable>() {
-                @Override
-                public void call(Throwable t) {
-                    eventNotifier.markEvent(HystrixEventType.EXCEPTION_THROWN, commandKey);
-                }
-            };
+                final Action1<Throwable> markExceptionThrown = new Action1<Throwable>() {
+                    @Override
+                    public void call(Throwable t) {
+                        eventNotifier.markEvent(HystrixEventType.EXCEPTION_THROWN, commandKey);
+                    }
+                };
 
-            if (executionSemaphore.tryAcquire()) {
                 try {
                     /* used to track userThreadExecutionTime */
                     executionResult = executionResult.setInvocationStartTime(System.currentTimeMillis());
@@ -551,11 +740,102 @@ import java.util.concurrent.atomic.AtomicReference;
                 } catch (RuntimeException e) {
                     return Observable.error(e);
                 }
-            } else {
-                return handleSemaphoreRejectionViaFallback();
+            case DEADLINE_EXCEEDED:
+                return handleDeadlineExceededViaFallback();
+            case SHORT_CIRCUITED:
+                return handleShortCircuitViaFallback();
+            default:
+                return handleSemaphoreRejectionViaFallback(getRejectionException(admission.decision));
+        }
+    }
+
+    /**
+     * Whether an execution may go ahead, decided the same way for {@link #toObservable()} and {@link #executeOnCallingThread}, so that a change
+     * to admission only has to be made here.
+     */
+    private enum AdmissionDecision {
+        ADMITTED, DEADLINE_EXCEEDED, SHORT_CIRCUITED, PARTITION_REJECTED, CONCURRENCY_LIMIT_REJECTED, SEMAPHORE_REJECTED
+    }
+
+    /**
+     * The decision of {@link #admitExecution()}, holding the permits of an admitted execution until {@link #release()}.
+     */
+    private static final class Admission {
+        private static final Admission DEADLINE_EXCEEDED = new Admission(AdmissionDecision.DEADLINE_EXCEEDED, null, null);
+        private static final Admission SHORT_CIRCUITED = new Admission(AdmissionDecision.SHORT_CIRCUITED, null, null);
+        private static final Admission PARTITION_REJECTED = new Admission(AdmissionDecision.PARTITION_REJECTED, null, null);
+        private static final Admission CONCURRENCY_LIMIT_REJECTED = new Admission(AdmissionDecision.CONCURRENCY_LIMIT_REJECTED, null, null);
+        private static final Admission SEMAPHORE_REJECTED = new Admission(AdmissionDecision.SEMAPHORE_REJECTED, null, null);
+
+        private final AdmissionDecision decision;
+        private final TryableSemaphore partitionSemaphore;
+        private final TryableSemaphore executionSemaphore;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Admission(AdmissionDecision decision, TryableSemaphore partitionSemaphore, TryableSemaphore executionSemaphore) {
+            this.decision = decision;
+            this.partitionSemaphore = partitionSemaphore;
+            this.executionSemaphore = executionSemaphore;
+        }
+
+        /**
+         * Release the permits of an admitted execution, once however many times this is called.
+         */
+        private void release() {
+            if (executionSemaphore != null && released.compareAndSet(false, true)) {
+                executionSemaphore.release();
+                partitionSemaphore.release();
             }
-        } else {
-            return handleShortCircuitViaFallback();
+        }
+    }
+
+    /**
+     * Decide whether this execution may go ahead: not once its request is past its deadline, nor while the circuit is open, nor beyond the
+     * limit of its partition or of its execution semaphore, checked in that order.  Only an admitted execution holds permits.
+     */
+    private Admission admitExecution() {
+        /* the request has run out of time, so don't take a permit or a thread for a response nobody will read */
+        if (isRequestDeadlineExceeded()) {
+            eventNotifier.markEvent(HystrixEventType.DEADLINE_EXCEEDED, commandKey);
+            return Admission.DEADLINE_EXCEEDED;
+        }
+
+        /* determine if we're allowed to execute */
+        if (!getExecutionCircuitBreaker().attemptExecution()) {
+            return Admission.SHORT_CIRCUITED;
+        }
+
+        final TryableSemaphore partitionSemaphore = getPartitionSemaphore();
+        if (!partitionSemaphore.tryAcquire()) {
+            markPartitionRejection();
+            return Admission.PARTITION_REJECTED;
+        }
+        final TryableSemaphore executionSemaphore = getExecutionSemaphore();
+        if (!executionSemaphore.tryAcquire()) {
+            partitionSemaphore.release();
+            if (properties.snapshot().executionIsolationStrategy() != ExecutionIsolationStrategy.SEMAPHORE) {
+                // only the adaptive concurrency limit is checked here for thread isolation, and it turns commands away before they reach the
+                // thread-pool, so the rejection is not charged to the pool, which other commands may share
+                return Admission.CONCURRENCY_LIMIT_REJECTED;
+            }
+            return Admission.SEMAPHORE_REJECTED;
+        }
+        return new Admission(AdmissionDecision.ADMITTED, partitionSemaphore, executionSemaphore);
+    }
+
+    /**
+     * The exception a rejection by {@link #admitExecution()} is reported with.  Each of them is rejected as a semaphore rejection, whatever the
+     * isolation strategy, since none of them reached a thread-pool.
+     */
+    private Exception getRejectionException(AdmissionDecision decision) {
+        boolean stackless = HystrixFailFastExceptions.isStackless(properties);
+        switch (decision) {
+            case PARTITION_REJECTED:
+                return HystrixFailFastExceptions.partitionRejected(stackless);
+            case CONCURRENCY_LIMIT_REJECTED:
+                return HystrixFailFastExceptions.concurrencyLimitRejected(stackless);
+            default:
+                return HystrixFailFastExceptions.semaphoreRejected(stackless);
         }
     }
 
@@ -577,11 +857,7 @@ import java.util.concurrent.atomic.AtomicReference;
                     eventNotifier.markEvent(HystrixEventType.EMIT, commandKey);
                 }
                 if (commandIsScalar()) {
-                    long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
-                    eventNotifier.markEvent(HystrixEventType.SUCCESS, commandKey);
-                    executionResult = executionResult.addEvent((int) latency, HystrixEventType.SUCCESS);
-                    eventNotifier.markCommandExecution(getCommandKey(), properties.executionIsolationStrategy().get(), (int) latency, executionResult.getOrderedList());
-                    circuitBreaker.markSuccess();
+                    markExecutionSuccess();
                 }
             }
         };
@@ -590,11 +866,7 @@ import java.util.concurrent.atomic.AtomicReference;
             @Override
             public void call() {
                 if (!commandIsScalar()) {
-                    long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
-                    eventNotifier.markEvent(HystrixEventType.SUCCESS, commandKey);
-                    executionResult = executionResult.addEvent((int) latency, HystrixEventType.SUCCESS);
-                    eventNotifier.markCommandExecution(getCommandKey(), properties.executionIsolationStrategy().get(), (int) latency, executionResult.getOrderedList());
-                    circuitBreaker.markSuccess();
+                    markExecutionSuccess();
                 }
             }
         };
@@ -602,13 +874,13 @@ import java.util.concurrent.atomic.AtomicReference;
         final Func1<Throwable, Observable<R>> handleFallback = new Func1<Throwable, Observable<R>>() {
             @Override
             public Observable<R> call(Throwable t) {
-                circuitBreaker.markNonSuccess();
+                getExecutionCircuitBreaker().markNonSuccess();
                 Exception e = getExceptionFromThrowable(t);
                 executionResult = executionResult.setExecutionException(e);
                 if (e instanceof RejectedExecutionException) {
                     return handleThreadPoolRejectionViaFallback(e);
                 } else if (t instanceof HystrixTimeoutException) {
-                    return handleTimeoutViaFallback();
+                    return isTimeoutFromDeadline ? handleDeadlineExceededViaFallback() : handleTimeoutViaFallback();
                 } else if (t instanceof HystrixBadRequestException) {
                     return handleBadRequestByEmittingError(e);
                 } else {
@@ -633,7 +905,7 @@ import java.util.concurrent.atomic.AtomicReference;
         };
 
         Observable<R> execution;
-        if (properties.executionTimeoutEnabled().get()) {
+        if (properties.snapshot().executionTimeoutEnabled()) {
             execution = executeCommandWithSpecifiedIsolation(_cmd)
                     .lift(new HystrixObservableTimeoutOperator<R>(_cmd));
         } else {
@@ -646,10 +918,32 @@ import java.util.concurrent.atomic.AtomicReference;
                 .doOnEach(setRequestContext);
     }
 
+    private void markExecutionSuccess() {
+        long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
+        eventNotifier.markEvent(HystrixEventType.SUCCESS, commandKey);
+        executionResult = executionResult.addEvent((int) latency, HystrixEventType.SUCCESS);
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+        eventNotifier.markCommandExecution(getCommandKey(), snapshot.executionIsolationStrategy(), (int) latency, executionResult.getOrderedList());
+        getExecutionCircuitBreaker().markSuccess();
+        if (snapshot.executionRetryMaxAttempts() > 1) {
+            HystrixAttemptBudget.Factory.getRetryBudget(commandKey).deposit(snapshot.executionRetryBudgetPercentage());
+        }
+    }
+
     private Observable<R> executeCommandWithSpecifiedIsolation(final AbstractCommand<R> _cmd) {
-        if (properties.executionIsolationStrategy().get() == ExecutionIsolationStrategy.THREAD) {
+        final ExecutionIsolationStrategy isolationStrategy = properties.snapshot().executionIsolationStrategy();
+        if (isolationStrategy == ExecutionIsolationStrategy.THREAD || isolationStrategy == ExecutionIsolationStrategy.VIRTUAL_THREAD) {
+            final AtomicBoolean hedgeWon = new AtomicBoolean(false);
+            final Func0<Boolean> shouldInterruptThread = new Func0<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return properties.snapshot().executionIsolationThreadInterruptOnTimeout() && (_cmd.isCommandTimedOut.get() == TimedOutStatus.TIMED_OUT || hedgeWon.get());
+                }
+            };
+            final Scheduler isolationScheduler = getIsolationScheduler(isolationStrategy, shouldInterruptThread);
+
             // mark that we are executing in a thread (even if we end up being rejected we still were a THREAD execution and not SEMAPHORE)
-            return Observable.defer(new Func0<Observable<R>>() {
+            Observable<R> execution = Observable.defer(new Func0<Observable<R>>() {
                 @Override
                 public Observable<R> call() {
                     executionResult = executionResult.setExecutionOccurred();
@@ -657,20 +951,34 @@ import java.util.concurrent.atomic.AtomicReference;
                         return Observable.error(new IllegalStateException("execution attempted while in state : " + commandState.get().name()));
                     }
 
-                    metrics.markCommandStart(commandKey, threadPoolKey, ExecutionIsolationStrategy.THREAD);
+                    metrics.markCommandStart(commandKey, threadPoolKey, isolationStrategy);
 
                     if (isCommandTimedOut.get() == TimedOutStatus.TIMED_OUT) {
                         // the command timed out in the wrapping thread so we will return immediately
                         // and not increment any of the counters below or other such logic
                         return Observable.error(new RuntimeException("timed out before executing run()"));
                     }
+                    if (HystrixCoDelQueue.isCurrentTaskDropped()) {
+                        // the queue of the thread-pool dropped us as we waited too long, so reject instead of running
+                        return Observable.error(HystrixFailFastExceptions.queueDropped(HystrixFailFastExceptions.isStackless(properties)));
+                    }
                     if (threadState.compareAndSet(ThreadState.NOT_USING_THREAD, ThreadState.STARTED)) {
                         //we have not been unsubscribed, so should proceed
                         HystrixCounters.incrementGlobalConcurrentThreads();
                         threadPool.markThreadExecution();
                         // store the command that is being run
                         endCurrentThreadExecutingCommand = Hystrix.startCurrentThreadExecutingCommand(getCommandKey());
-                        executionResult = executionResult.setExecutedInThread();
+                        long queueWaitInNanos = HystrixContextScheduler.getQueueWaitOfCurrentActionInNanos();
+                        if (queueWaitInNanos >= 0) {
+                            int queueWaitInMilliseconds = (int) TimeUnit.NANOSECONDS.toMillis(queueWaitInNanos);
+                            executionResult = executionResult.setExecutedInThread(queueWaitInMilliseconds);
+                            HystrixThreadPoolMetrics threadPoolMetrics = HystrixThreadPoolMetrics.getInstance(threadPoolKey);
+                            if (threadPoolMetrics != null) {
+                                threadPoolMetrics.markPriorityExecution(getPriority(), queueWaitInMilliseconds);
+                            }
+                        } else {
+                            executionResult = executionResult.setExecutedInThread();
+                        }
                         /**
                          * If any of these hooks throw an exception, then it appears as if the actual execution threw an error
                          */
@@ -709,14 +1017,14 @@ import java.util.concurrent.atomic.AtomicReference;
                     }
                     //if it was terminal, then other cleanup handled it
                 }
-            }).subscribeOn(threadPool.getScheduler(new Func0<Boolean>() {
-                @Override
-                public Boolean call() {
-                    return properties.executionIsolationThreadInterruptOnTimeout().get() && _cmd.isCommandTimedOut.get() == TimedOutStatus.TIMED_OUT;
-                }
-            }));
+            }).subscribeOn(isolationScheduler);
+
+            if (commandIsScalar() && isIdempotent() && properties.snapshot().executionHedgeEnabled()) {
+                execution = hedgeExecution(_cmd, execution, isolationStrategy, hedgeWon);
+            }
+            return retryExecution(_cmd, execution, isolationScheduler, 1);
         } else {
-            return Observable.defer(new Func0<Observable<R>>() {
+            return retryExecution(_cmd, Observable.defer(new Func0<Observable<R>>() {
                 @Override
                 public Observable<R> call() {
                     executionResult = executionResult.setExecutionOccurred();
@@ -737,8 +1045,273 @@ import java.util.concurrent.atomic.AtomicReference;
                         return Observable.error(ex);
                     }
                 }
+            }), null, 1);
+        }
+    }
+
+    private Scheduler getIsolationScheduler(ExecutionIsolationStrategy isolationStrategy, Func0<Boolean> shouldInterruptThread) {
+        if (isolationStrategy == ExecutionIsolationStrategy.VIRTUAL_THREAD) {
+            return HystrixVirtualThreadBulkhead.Factory.getInstance(threadPoolKey, threadPoolPropertiesDefaults).getScheduler(shouldInterruptThread);
+        } else {
+            Scheduler scheduler = threadPool.getScheduler(shouldInterruptThread);
+            HystrixPriority priority = getPriority();
+            // a command is queued with NORMAL priority unless it is scheduled with another
+            return priority == HystrixPriority.NORMAL ? scheduler : HystrixPriorityQueue.withPriority(scheduler, priority);
+        }
+    }
+
+    /**
+     * Execute the user code again, for a hedge or a retry, recording the given event as it starts.
+     * <p>
+     * With thread isolation it runs on the given scheduler and counts as another thread execution of the pool.  With semaphore isolation (a null
+     * scheduler) it runs on the subscribing thread under the permit the command already holds.
+     */
+    private Observable<R> getAdditionalExecutionObservable(final HystrixEventType eventType, final Scheduler isolationScheduler) {
+        final AtomicReference<ThreadState> additionalThreadState = new AtomicReference<ThreadState>(ThreadState.NOT_USING_THREAD);
+        final Action0 additionalThreadEnd = new Action0() {
+            @Override
+            public void call() {
+                if (additionalThreadState.compareAndSet(ThreadState.STARTED, ThreadState.TERMINAL)) {
+                    HystrixCounters.decrementGlobalConcurrentThreads();
+                    threadPool.markThreadCompletion();
+                }
+            }
+        };
+
+        Observable<R> additionalExecution = Observable.defer(new Func0<Observable<R>>() {
+            @Override
+            public Observable<R> call() {
+                if (isCommandTimedOut.get() == TimedOutStatus.TIMED_OUT) {
+                    // the timeout has already been emitted, so there is nobody to execute for
+                    return Observable.never();
+                }
+                if (isolationScheduler != null) {
+                    if (HystrixCoDelQueue.isCurrentTaskDropped()) {
+                        return Observable.error(HystrixFailFastExceptions.queueDropped(HystrixFailFastExceptions.isStackless(properties)));
+                    }
+                    if (!additionalThreadState.compareAndSet(ThreadState.NOT_USING_THREAD, ThreadState.STARTED)) {
+                        return Observable.never();
+                    }
+                    HystrixCounters.incrementGlobalConcurrentThreads();
+                    threadPool.markThreadExecution();
+                }
+                executionResult = executionResult.addEvent(eventType);
+                eventNotifier.markEvent(eventType, commandKey);
+                try {
+                    return getExecutionObservable();
+                } catch (Throwable ex) {
+                    return Observable.error(ex);
+                }
+            }
+        });
+        if (isolationScheduler == null) {
+            return additionalExecution;
+        }
+        return additionalExecution.doOnTerminate(additionalThreadEnd).doOnUnsubscribe(additionalThreadEnd).subscribeOn(isolationScheduler);
+    }
+
+    /**
+     * Race a thread-isolated execution against a second execution of the user code, started in the same bulkhead if the first is still running after
+     * {@link HystrixCommandProperties#executionHedgeDelayPercentile()} of recent latencies and there is room in the hedge budget.
+     * <p>
+     * The first of the two to succeed is used and the other is unsubscribed, which interrupts it if it lost while running and
+     * {@link HystrixCommandProperties#executionIsolationThreadInterruptOnTimeout()} is set.  A hedge that fails or is rejected is ignored, and a
+     * failure of the original execution waits for a hedge that is still running, so the command only fails with the original failure when no hedge
+     * succeeds.  Hedges are there to cut latency; they don't start again after a failure.
+     */
+    private Observable<R> hedgeExecution(final AbstractCommand<R> _cmd, final Observable<R> execution, ExecutionIsolationStrategy isolationStrategy, final AtomicBoolean hedgeWon) {
+        final HystrixAttemptBudget budget = HystrixAttemptBudget.Factory.getHedgeBudget(commandKey);
+        budget.deposit(properties.snapshot().executionHedgeBudgetPercentage());
+
+        final Scheduler hedgeScheduler = getIsolationScheduler(isolationStrategy, new Func0<Boolean>() {
+            @Override
+            public Boolean call() {
+                // abandoned rather than timed out if the original execution already won
+                return properties.snapshot().executionIsolationThreadInterruptOnTimeout() && !hedgeWon.get();
+            }
+        });
+        final Observable<HedgeRace.Attempt<R>> hedge = HedgeRace.attempts(getAdditionalExecutionObservable(HystrixEventType.HEDGE, hedgeScheduler), true);
+        final long hedgeDelayInMilliseconds = getHedgeDelayInMilliseconds();
+
+        return Observable.defer(new Func0<Observable<R>>() {
+            @Override
+            public Observable<R> call() {
+                final HedgeRace<R> race = new HedgeRace<R>(hedgeWon);
+                // the timer carries the request context over to the hedge, which is scheduled from its thread
+                Observable<HedgeRace.Attempt<R>> delayedHedge = Observable.timer(hedgeDelayInMilliseconds, TimeUnit.MILLISECONDS, new HystrixContextScheduler(concurrencyStrategy, Schedulers.computation()))
+                        .flatMap(new Func1<Long, Observable<HedgeRace.Attempt<R>>>() {
+                            @Override
+                            public Observable<HedgeRace.Attempt<R>> call(Long tick) {
+                                return budget.tryAcquire() && race.startHedge() ? hedge : Observable.<HedgeRace.Attempt<R>>never();
+                            }
+                        });
+                return Observable.merge(HedgeRace.attempts(execution, false), delayedHedge)
+                        .concatMap(race)
+                        .take(1)
+                        .flatMap(new Func1<HedgeRace.Attempt<R>, Observable<R>>() {
+                            @Override
+                            public Observable<R> call(HedgeRace.Attempt<R> result) {
+                                Notification<R> notification = result.notification;
+                                if (notification.isOnError()) {
+                                    return Observable.error(notification.getThrowable());
+                                } else if (!notification.isOnNext()) {
+                                    return Observable.empty();
+                                } else if (!result.fromHedge) {
+                                    return Observable.just(notification.getValue());
+                                }
+                                // the race is decided, and this is the thread the response is emitted on
+                                executionResult = executionResult.addEvent(HystrixEventType.HEDGE_WIN);
+                                eventNotifier.markEvent(HystrixEventType.HEDGE_WIN, commandKey);
+                                return Observable.just(notification.getValue()).lift(new ExecutionHookApplication(_cmd));
+                            }
+                        });
+            }
+        });
+    }
+
+    /**
+     * The race between an execution and its hedge, decided on the merged notifications of both, which arrive one at a time.
+     * <p>
+     * The first to emit a value wins, and is passed on as it completes.  A hedge that fails, or completes without a value, is ignored.  A failure of
+     * the execution is held back while its hedge is running, and passed on if the hedge does not succeed.  Once a notification is passed on the race
+     * is over, and both are unsubscribed.
+     */
+    private static final class HedgeRace<R> implements Func1<HedgeRace.Attempt<R>, Observable<HedgeRace.Attempt<R>>> {
+
+        private enum State {
+            WAITING, HEDGING, DECIDED
+        }
+
+        private static final class Attempt<R> {
+            private final boolean fromHedge;
+            private final Notification<R> notification;
+
+            private Attempt(boolean fromHedge, Notification<R> notification) {
+                this.fromHedge = fromHedge;
+                this.notification = notification;
+            }
+        }
+
+        private static <R> Observable<Attempt<R>> attempts(Observable<R> execution, final boolean fromHedge) {
+            return execution.materialize().map(new Func1<Notification<R>, Attempt<R>>() {
+                @Override
+                public Attempt<R> call(Notification<R> notification) {
+                    return new Attempt<R>(fromHedge, notification);
+                }
             });
         }
+
+        private final AtomicReference<State> state = new AtomicReference<State>(State.WAITING);
+        private final AtomicBoolean hedgeWon;
+
+        // only used by call(), which is never called concurrently
+        private Attempt<R> winner;
+        private Attempt<R> executionFailure;
+        private boolean hedgeTerminated;
+
+        private HedgeRace(AtomicBoolean hedgeWon) {
+            this.hedgeWon = hedgeWon;
+        }
+
+        /**
+         * @return whether the hedge may start, which it may not once the execution has emitted or failed
+         */
+        private boolean startHedge() {
+            return state.compareAndSet(State.WAITING, State.HEDGING);
+        }
+
+        @Override
+        public Observable<Attempt<R>> call(Attempt<R> attempt) {
+            Notification<R> notification = attempt.notification;
+            if (winner != null) {
+                if (winner.fromHedge != attempt.fromHedge) {
+                    return Observable.empty();
+                }
+                return Observable.just(notification.isOnError() ? attempt : winner);
+            }
+            if (notification.isOnNext()) {
+                winner = attempt;
+                if (attempt.fromHedge) {
+                    hedgeWon.set(true);
+                } else {
+                    state.compareAndSet(State.WAITING, State.DECIDED);
+                }
+                return Observable.empty();
+            }
+            if (attempt.fromHedge) {
+                hedgeTerminated = true;
+                return executionFailure == null ? Observable.<Attempt<R>>empty() : Observable.just(executionFailure);
+            }
+            if (notification.isOnError() && !hedgeTerminated && !state.compareAndSet(State.WAITING, State.DECIDED)) {
+                // the hedge is running, and may still succeed
+                executionFailure = attempt;
+                return Observable.empty();
+            }
+            return Observable.just(attempt);
+        }
+    }
+
+    private long getHedgeDelayInMilliseconds() {
+        int percentileLatency = metrics.getExecutionTimePercentile(properties.snapshot().executionHedgeDelayPercentile());
+        return Math.max(properties.snapshot().executionHedgeMinimumDelayInMilliseconds(), percentileLatency);
+    }
+
+    /**
+     * Follow a failed execution with another, after a backoff, while {@link HystrixCommandProperties#executionRetryMaxAttempts()} allows, the failure
+     * is one {@link #isRetryable(Throwable)} accepts and there is room in the retry budget.
+     * <p>
+     * Each retry is recorded as a {@link HystrixEventType#RETRY} and counts as a failure towards the health of the circuit.  The timeout of the command
+     * covers all of the attempts, as it is applied around this.
+     *
+     * @param isolationScheduler scheduler of the bulkhead for a thread-isolated command, or null for a semaphore-isolated one
+     * @param attempt number of attempts made when execution fails
+     */
+    private Observable<R> retryExecution(final AbstractCommand<R> _cmd, final Observable<R> execution, final Scheduler isolationScheduler, final int attempt) {
+        if (!commandIsScalar() || attempt >= properties.snapshot().executionRetryMaxAttempts()) {
+            return execution;
+        }
+        return execution.onErrorResumeNext(new Func1<Throwable, Observable<R>>() {
+            @Override
+            public Observable<R> call(Throwable t) {
+                if (!shouldRetry(t) || !HystrixAttemptBudget.Factory.getRetryBudget(commandKey).tryAcquire()) {
+                    return Observable.error(t);
+                }
+                // a semaphore-isolated command waits on the thread it is running on, the same as run() would
+                Scheduler backoffScheduler = isolationScheduler == null ? Schedulers.trampoline() : new HystrixContextScheduler(concurrencyStrategy, Schedulers.computation());
+                Observable<R> retry = Observable.timer(getRetryBackoffInMilliseconds(attempt), TimeUnit.MILLISECONDS, backoffScheduler)
+                        .flatMap(new Func1<Long, Observable<R>>() {
+                            @Override
+                            public Observable<R> call(Long tick) {
+                                return getAdditionalExecutionObservable(HystrixEventType.RETRY, isolationScheduler).lift(new ExecutionHookApplication(_cmd));
+                            }
+                        });
+                return retryExecution(_cmd, retry, isolationScheduler, attempt + 1);
+            }
+        });
+    }
+
+    private boolean shouldRetry(Throwable t) {
+        if (isCommandTimedOut.get() == TimedOutStatus.TIMED_OUT || getExecutionCircuitBreaker().isOpen()) {
+            return false;
+        }
+        // bad requests will fail the same way again, and rejections are our own bulkhead saying it is full
+        Exception e = getExceptionFromThrowable(t);
+        if (e instanceof HystrixBadRequestException || e instanceof RejectedExecutionException) {
+            return false;
+        }
+        return isRetryable(e);
+    }
+
+    /**
+     * Exponential backoff with full jitter: a random time up to the base backoff doubled for each earlier retry, capped at the maximum backoff.
+     *
+     * @param attempt number of attempts made so far
+     */
+    private long getRetryBackoffInMilliseconds(int attempt) {
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+        long maxBackoff = snapshot.executionRetryMaxBackoffInMilliseconds();
+        long backoff = Math.min(maxBackoff, (long) snapshot.executionRetryBackoffInMilliseconds() << Math.min(attempt - 1, 30));
+        return backoff <= 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
     }
 
     /**
@@ -773,7 +1346,7 @@ import java.util.concurrent.atomic.AtomicReference;
                 logger.warn("Recovered from java.lang.Error by serving Hystrix fallback", originalException);
             }
 
-            if (properties.fallbackEnabled().get()) {
+            if (properties.snapshot().fallbackEnabled()) {
                 /* fallback behavior is permitted so attempt */
 
                 final Action1<Notification<? super R>> setRequestContext = new Action1<Notification<? super R>>() {
@@ -796,42 +1369,14 @@ import java.util.concurrent.atomic.AtomicReference;
                 final Action0 markFallbackCompleted = new Action0() {
                     @Override
                     public void call() {
-                        long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
-                        eventNotifier.markEvent(HystrixEventType.FALLBACK_SUCCESS, commandKey);
-                        executionResult = executionResult.addEvent((int) latency, HystrixEventType.FALLBACK_SUCCESS);
+                        markFallbackSuccess();
                     }
                 };
 
-                final Func1<Throwable, Observable<R>> handleFallbackError = new Func1<Throwable, Observable<R>>() {
-                    @Override
-                    public Observable<R> call(Throwable t) {
-                        /* executionHook for all errors */
-                        Exception e = wrapWithOnErrorHook(failureType, originalException);
-                        Exception fe = getExceptionFromThrowable(t);
-
-                        long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
-                        Exception toEmit;
-
-                        if (fe instanceof UnsupportedOperationException) {
-                            logger.debug("No fallback for HystrixCommand. ", fe); // debug only since we're throwing the exception and someone higher will do something with it
-                            eventNotifier.markEvent(HystrixEventType.FALLBACK_MISSING, commandKey);
-                            executionResult = executionResult.addEvent((int) latency, HystrixEventType.FALLBACK_MISSING);
-
-                            toEmit = new HystrixRuntimeException(failureType, _cmd.getClass(), getLogMessagePrefix() + " " + message + " and no fallback available.", e, fe);
-                        } else {
-                            logger.debug("HystrixCommand execution " + failureType.name() + " and fallback failed.", fe);
-                            eventNotifier.markEvent(HystrixEventType.FALLBACK_FAILURE, commandKey);
-                            executionResult = executionResult.addEvent((int) latency, HystrixEventType.FALLBACK_FAILURE);
-
-                            toEmit = new HystrixRuntimeException(failureType, _cmd.getClass(), getLogMessagePrefix() + " " + message + " and fallback failed.", e, fe);
-                        }
-
-                        // NOTE: we're suppressing fallback exception here
-                        if (shouldNotBeWrapped(originalException)) {
-                            return Observable.error(e);
-                        }
-
-                        return Observable.error(toEmit);
+                final Func1<Throwable, Observable<R>> handleFallbackError = new Func1<Throwable, Observable<R>>() {
+                    @Override
+                    public Observable<R> call(Throwable t) {
+                        return Observable.error(handleFallbackError(t, failureType, message, originalException));
                     }
                 };
 
@@ -881,6 +1426,46 @@ import java.util.concurrent.atomic.AtomicReference;
         }
     }
 
+    private void markFallbackSuccess() {
+        long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
+        eventNotifier.markEvent(HystrixEventType.FALLBACK_SUCCESS, commandKey);
+        executionResult = executionResult.addEvent((int) latency, HystrixEventType.FALLBACK_SUCCESS);
+    }
+
+    /**
+     * @return exception to emit when getFallback() failed, or there is none
+     */
+    private Exception handleFallbackError(Throwable t, FailureType failureType, String message, Exception originalException) {
+        /* executionHook for all errors */
+        Exception e = wrapWithOnErrorHook(failureType, originalException);
+        Exception fe = getExceptionFromThrowable(t);
+
+        long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
+        boolean stackless = HystrixFailFastExceptions.isStackless(properties);
+        Exception toEmit;
+
+        if (fe instanceof UnsupportedOperationException) {
+            logger.debug("No fallback for HystrixCommand. ", fe); // debug only since we're throwing the exception and someone higher will do something with it
+            eventNotifier.markEvent(HystrixEventType.FALLBACK_MISSING, commandKey);
+            executionResult = executionResult.addEvent((int) latency, HystrixEventType.FALLBACK_MISSING);
+
+            toEmit = HystrixFailFastExceptions.hystrixRuntimeException(stackless, failureType, getClass(), getLogMessagePrefix() + " " + message + " and no fallback available.", e, fe);
+        } else {
+            logger.debug("HystrixCommand execution " + failureType.name() + " and fallback failed.", fe);
+            eventNotifier.markEvent(HystrixEventType.FALLBACK_FAILURE, commandKey);
+            executionResult = executionResult.addEvent((int) latency, HystrixEventType.FALLBACK_FAILURE);
+
+            toEmit = HystrixFailFastExceptions.hystrixRuntimeException(stackless, failureType, getClass(), getLogMessagePrefix() + " " + message + " and fallback failed.", e, fe);
+        }
+
+        // NOTE: we're suppressing fallback exception here
+        if (shouldNotBeWrapped(originalException)) {
+            return e;
+        }
+
+        return toEmit;
+    }
+
     private Observable<R> getUserExecutionObservable(final AbstractCommand<R> _cmd) {
         Observable<R> userObservable;
 
@@ -927,6 +1512,46 @@ import java.util.concurrent.atomic.AtomicReference;
                 });
     }
 
+    private Observable<R> handleResponseCacheHitAndEmitValues(final HystrixResponseCache.Entry<R> fromCache) {
+        try {
+            executionHook.onCacheHit(this);
+        } catch (Throwable hookEx) {
+            logger.warn("Error calling HystrixCommandExecutionHook.onCacheHit", hookEx);
+        }
+
+        return Observable.from(fromCache.getValues())
+                .doOnTerminate(new Action0() {
+                    @Override
+                    public void call() {
+                        if (commandState.compareAndSet(CommandState.OBSERVABLE_CHAIN_CREATED, CommandState.TERMINAL)) {
+                            cleanUpAfterResponseFromResponseCache();
+                        }
+                    }
+                })
+                .doOnUnsubscribe(new Action0() {
+                    @Override
+                    public void call() {
+                        if (commandState.compareAndSet(CommandState.OBSERVABLE_CHAIN_CREATED, CommandState.UNSUBSCRIBED)) {
+                            cleanUpAfterResponseFromResponseCache();
+                        }
+                    }
+                });
+    }
+
+    private void cleanUpAfterResponseFromResponseCache() {
+        final long latency = System.currentTimeMillis() - commandStartTimestamp;
+        executionResult = executionResult
+                .addEvent(-1, HystrixEventType.RESPONSE_FROM_CACHE)
+                .addEvent(HystrixEventType.RESPONSE_CACHE_HIT)
+                .markUserThreadCompletion(latency)
+                .setNotExecutedInThread();
+        ExecutionResult cacheOnlyForMetrics = ExecutionResult.from(HystrixEventType.RESPONSE_FROM_CACHE, HystrixEventType.RESPONSE_CACHE_HIT)
+                .markUserThreadCompletion(latency);
+        metrics.markCommandDone(cacheOnlyForMetrics, commandKey, threadPoolKey, false);
+        eventNotifier.markEvent(HystrixEventType.RESPONSE_FROM_CACHE, commandKey);
+        eventNotifier.markEvent(HystrixEventType.RESPONSE_CACHE_HIT, commandKey);
+    }
+
     private void cleanUpAfterResponseFromCache(boolean commandExecutionStarted) {
         Reference<TimerListener> tl = timeoutTimer.get();
         if (tl != null) {
@@ -944,6 +1569,14 @@ import java.util.concurrent.atomic.AtomicReference;
         eventNotifier.markEvent(HystrixEventType.RESPONSE_FROM_CACHE, commandKey);
     }
 
+    private void handleCommandTerminated() {
+        if (commandState.compareAndSet(CommandState.OBSERVABLE_CHAIN_CREATED, CommandState.TERMINAL)) {
+            handleCommandEnd(false); //user code never ran
+        } else if (commandState.compareAndSet(CommandState.USER_CODE_EXECUTED, CommandState.TERMINAL)) {
+            handleCommandEnd(true); //user code did run
+        }
+    }
+
     private void handleCommandEnd(boolean commandExecutionStarted) {
         Reference<TimerListener> tl = timeoutTimer.get();
         if (tl != null) {
@@ -957,14 +1590,19 @@ import java.util.concurrent.atomic.AtomicReference;
         } else {
             metrics.markCommandDone(executionResultAtTimeOfCancellation, commandKey, threadPoolKey, commandExecutionStarted);
         }
+        HystrixCircuitBreaker.HystrixRollingHealthCircuitBreaker _partitionCircuitBreaker = partitionCircuitBreaker;
+        if (_partitionCircuitBreaker != null) {
+            // the completion stream doesn't know about partitions, so count the health of the partition here
+            ExecutionResult completedResult = executionResultAtTimeOfCancellation == null ? executionResult : executionResultAtTimeOfCancellation;
+            _partitionCircuitBreaker.markCompletion(completedResult.getEventCounts(), completedResult.getExecutionLatency());
+        }
 
         if (endCurrentThreadExecutingCommand != null) {
             endCurrentThreadExecutingCommand.call();
         }
     }
 
-    private Observable<R> handleSemaphoreRejectionViaFallback() {
-        Exception semaphoreRejectionException = new RuntimeException("could not acquire a semaphore for execution");
+    private Observable<R> handleSemaphoreRejectionViaFallback(Exception semaphoreRejectionException) {
         executionResult = executionResult.setExecutionException(semaphoreRejectionException);
         eventNotifier.markEvent(HystrixEventType.SEMAPHORE_REJECTED, commandKey);
         logger.debug("HystrixCommand Execution Rejection by Semaphore."); // debug only since we're throwing the exception and someone higher will do something with it
@@ -973,11 +1611,15 @@ import java.util.concurrent.atomic.AtomicReference;
                 "could not acquire a semaphore for execution", semaphoreRejectionException);
     }
 
+    private void markPartitionRejection() {
+        HystrixPartitionRejectionStream.getInstance(commandKey).write(new HystrixPartitionRejection(commandKey, getPartitionKey()));
+    }
+
     private Observable<R> handleShortCircuitViaFallback() {
         // record that we are returning a short-circuited fallback
         eventNotifier.markEvent(HystrixEventType.SHORT_CIRCUITED, commandKey);
         // short-circuit and go directly to fallback (or throw an exception if no fallback implemented)
-        Exception shortCircuitException = new RuntimeException("Hystrix circuit short-circuited and is OPEN");
+        Exception shortCircuitException = HystrixFailFastExceptions.shortCircuited(HystrixFailFastExceptions.isStackless(properties));
         executionResult = executionResult.setExecutionException(shortCircuitException);
         try {
             return getFallbackOrThrowException(this, HystrixEventType.SHORT_CIRCUITED, FailureType.SHORTCIRCUIT,
@@ -989,16 +1631,53 @@ import java.util.concurrent.atomic.AtomicReference;
 
     private Observable<R> handleThreadPoolRejectionViaFallback(Exception underlying) {
         eventNotifier.markEvent(HystrixEventType.THREAD_POOL_REJECTED, commandKey);
-        threadPool.markThreadRejection();
+        if (underlying instanceof HystrixQueueDropException) {
+            eventNotifier.markEvent(HystrixEventType.THREAD_POOL_DROPPED, commandKey);
+            executionResult = executionResult.addEvent(HystrixEventType.THREAD_POOL_DROPPED);
+        }
+        markThreadRejection();
         // use a fallback instead (or throw exception if not implemented)
         return getFallbackOrThrowException(this, HystrixEventType.THREAD_POOL_REJECTED, FailureType.REJECTED_THREAD_EXECUTION, "could not be queued for execution", underlying);
     }
 
+    private void markThreadRejection() {
+        threadPool.markThreadRejection();
+        HystrixThreadPoolMetrics threadPoolMetrics = HystrixThreadPoolMetrics.getInstance(threadPoolKey);
+        if (threadPoolMetrics != null) {
+            threadPoolMetrics.markPriorityRejection(getPriority());
+        }
+    }
+
+    private Observable<R> handleDeadlineExceededViaFallback() {
+        Exception deadlineExceededException = HystrixFailFastExceptions.deadlineExceeded(HystrixFailFastExceptions.isStackless(properties));
+        executionResult = executionResult.setExecutionException(deadlineExceededException);
+        try {
+            return getFallbackOrThrowException(this, HystrixEventType.DEADLINE_EXCEEDED, FailureType.TIMEOUT, "exceeded the deadline of its request", deadlineExceededException);
+        } catch (Exception e) {
+            return Observable.error(e);
+        }
+    }
+
+    /**
+     * @return true if this command is executed within a {@link HystrixRequestContext} whose deadline has passed
+     */
+    private static boolean isRequestDeadlineExceeded() {
+        HystrixRequestContext context = HystrixRequestContext.getContextForCurrentThread();
+        return context != null && context.getRemainingTimeInMilliseconds() <= 0;
+    }
+
     private Observable<R> handleTimeoutViaFallback() {
-        return getFallbackOrThrowException(this, HystrixEventType.TIMEOUT, FailureType.TIMEOUT, "timed-out", new TimeoutException());
+        return getFallbackOrThrowException(this, HystrixEventType.TIMEOUT, FailureType.TIMEOUT, "timed-out", HystrixFailFastExceptions.timedOut(HystrixFailFastExceptions.isStackless(properties)));
     }
 
     private Observable<R> handleBadRequestByEmittingError(Exception underlying) {
+        return Observable.error(handleBadRequest(underlying));
+    }
+
+    /**
+     * @return exception to emit for the bad request
+     */
+    private Exception handleBadRequest(Exception underlying) {
         Exception toEmit = underlying;
 
         try {
@@ -1018,7 +1697,7 @@ import java.util.concurrent.atomic.AtomicReference;
         /*
          * HystrixBadRequestException is treated differently and allowed to propagate without any stats tracking or fallback logic
          */
-        return Observable.error(toEmit);
+        return toEmit;
     }
 
     private Observable<R> handleFailureViaFallback(Exception underlying) {
@@ -1036,22 +1715,32 @@ import java.util.concurrent.atomic.AtomicReference;
     }
 
     private Observable<R> handleFallbackRejectionByEmittingError() {
+        return Observable.error(handleFallbackRejection());
+    }
+
+    private HystrixRuntimeException handleFallbackRejection() {
         long latencyWithFallback = System.currentTimeMillis() - executionResult.getStartTimestamp();
         eventNotifier.markEvent(HystrixEventType.FALLBACK_REJECTION, commandKey);
         executionResult = executionResult.addEvent((int) latencyWithFallback, HystrixEventType.FALLBACK_REJECTION);
         logger.debug("HystrixCommand Fallback Rejection."); // debug only since we're throwing the exception and someone higher will do something with it
         // if we couldn't acquire a permit, we "fail fast" by throwing an exception
-        return Observable.error(new HystrixRuntimeException(FailureType.REJECTED_SEMAPHORE_FALLBACK, this.getClass(), getLogMessagePrefix() + " fallback execution rejected.", null, null));
+        return HystrixFailFastExceptions.hystrixRuntimeException(HystrixFailFastExceptions.isStackless(properties), FailureType.REJECTED_SEMAPHORE_FALLBACK, this.getClass(),
+                getLogMessagePrefix() + " fallback execution rejected.", null, null);
     }
 
     private Observable<R> handleFallbackDisabledByEmittingError(Exception underlying, FailureType failureType, String message) {
+        return Observable.error(handleFallbackDisabled(underlying, failureType, message));
+    }
+
+    private HystrixRuntimeException handleFallbackDisabled(Exception underlying, FailureType failureType, String message) {
         /* fallback is disabled so throw HystrixRuntimeException */
         logger.debug("Fallback disabled for HystrixCommand so will throw HystrixRuntimeException. ", underlying); // debug only since we're throwing the exception and someone higher will do something with it
         eventNotifier.markEvent(HystrixEventType.FALLBACK_DISABLED, commandKey);
 
         /* executionHook for all errors */
         Exception wrapped = wrapWithOnErrorHook(failureType, underlying);
-        return Observable.error(new HystrixRuntimeException(failureType, this.getClass(), getLogMessagePrefix() + " " + message + " and fallback disabled.", wrapped, null));
+        return HystrixFailFastExceptions.hystrixRuntimeException(HystrixFailFastExceptions.isStackless(properties), failureType, this.getClass(),
+                getLogMessagePrefix() + " " + message + " and fallback disabled.", wrapped, null);
     }
 
     protected boolean shouldNotBeWrapped(Throwable underlying) {
@@ -1136,6 +1825,12 @@ import java.util.concurrent.atomic.AtomicReference;
             //capture the HystrixRequestContext upfront so that we can use it in the timeout thread later
             final HystrixRequestContext hystrixRequestContext = HystrixRequestContext.getContextForCurrentThread();
 
+            // the deadline of the request replaces the configured timeout if it comes first
+            final int configuredTimeout = originalCommand.properties.snapshot().executionTimeoutInMilliseconds();
+            final long remainingTime = hystrixRequestContext == null ? Long.MAX_VALUE : hystrixRequestContext.getRemainingTimeInMilliseconds();
+            final boolean timeoutFromDeadline = remainingTime < configuredTimeout;
+            final int timeout = timeoutFromDeadline ? (int) Math.max(remainingTime, 1) : configuredTimeout;
+
             TimerListener listener = new TimerListener() {
 
                 @Override
@@ -1144,7 +1839,12 @@ import java.util.concurrent.atomic.AtomicReference;
                     // otherwise it means we lost a race and the run() execution completed or did not start
                     if (originalCommand.isCommandTimedOut.compareAndSet(TimedOutStatus.NOT_EXECUTED, TimedOutStatus.TIMED_OUT)) {
                         // report timeout failure
-                        originalCommand.eventNotifier.markEvent(HystrixEventType.TIMEOUT, originalCommand.commandKey);
+                        if (timeoutFromDeadline) {
+                            originalCommand.isTimeoutFromDeadline = true;
+                            originalCommand.eventNotifier.markEvent(HystrixEventType.DEADLINE_EXCEEDED, originalCommand.commandKey);
+                        } else {
+                            originalCommand.eventNotifier.markEvent(HystrixEventType.TIMEOUT, originalCommand.commandKey);
+                        }
 
                         // shut down the original request
                         s.unsubscribe();
@@ -1153,19 +1853,19 @@ import java.util.concurrent.atomic.AtomicReference;
 
                             @Override
                             public void run() {
-                                child.onError(new HystrixTimeoutException());
+                                child.onError(HystrixFailFastExceptions.timeoutSignal(HystrixFailFastExceptions.isStackless(originalCommand.properties)));
                             }
                         });
 
-
-                        timeoutRunnable.run();
+                        // the fallback may block, so it is run off the timer thread to not hold up the timeouts of other commands
+                        HystrixTimer.getInstance().execute(timeoutRunnable);
                         //if it did not start, then we need to mark a command start for concurrency metrics, and then issue the timeout
                     }
                 }
 
                 @Override
                 public int getIntervalTimeInMilliseconds() {
-                    return originalCommand.properties.executionTimeoutInMilliseconds().get();
+                    return timeout;
                 }
             };
 
@@ -1234,12 +1934,13 @@ import java.util.concurrent.atomic.AtomicReference;
      */
     protected TryableSemaphore getFallbackSemaphore() {
         if (fallbackSemaphoreOverride == null) {
-            TryableSemaphore _s = fallbackSemaphorePerCircuit.get(commandKey.name());
+            int ordinal = HystrixCommandKey.Factory.ordinalOf(commandKey);
+            TryableSemaphore _s = fallbackSemaphorePerCircuit.get(ordinal);
             if (_s == null) {
                 // we didn't find one cache so setup
-                fallbackSemaphorePerCircuit.putIfAbsent(commandKey.name(), new TryableSemaphoreActual(properties.fallbackIsolationSemaphoreMaxConcurrentRequests()));
+                fallbackSemaphorePerCircuit.putIfAbsent(ordinal, new TryableSemaphoreActual(properties.fallbackIsolationSemaphoreMaxConcurrentRequests()));
                 // assign whatever got set (this or another thread)
-                return fallbackSemaphorePerCircuit.get(commandKey.name());
+                return fallbackSemaphorePerCircuit.get(ordinal);
             } else {
                 return _s;
             }
@@ -1250,18 +1951,29 @@ import java.util.concurrent.atomic.AtomicReference;
 
     /**
      * Get the TryableSemaphore this HystrixCommand should use for execution if not running in a separate thread.
+     * <p>
+     * If {@link HystrixCommandProperties#executionAdaptiveConcurrencyLimitEnabled()} this is the {@link HystrixConcurrencyLimiter} for the command, whatever
+     * the isolation strategy.
      * 
      * @return TryableSemaphore
      */
     protected TryableSemaphore getExecutionSemaphore() {
-        if (properties.executionIsolationStrategy().get() == ExecutionIsolationStrategy.SEMAPHORE) {
+        if (executionSemaphoreOverride == null && properties.snapshot().executionAdaptiveConcurrencyLimitEnabled()) {
+            HystrixConcurrencyLimiter limiter = HystrixConcurrencyLimiter.Factory.getInstance(commandKey);
+            if (limiter == null) {
+                limiter = HystrixConcurrencyLimiter.Factory.getInstance(commandKey, properties, getStaticConcurrencyLimit());
+            }
+            return limiter;
+        }
+        if (properties.snapshot().executionIsolationStrategy() == ExecutionIsolationStrategy.SEMAPHORE) {
             if (executionSemaphoreOverride == null) {
-                TryableSemaphore _s = executionSemaphorePerCircuit.get(commandKey.name());
+                int ordinal = HystrixCommandKey.Factory.ordinalOf(commandKey);
+                TryableSemaphore _s = executionSemaphorePerCircuit.get(ordinal);
                 if (_s == null) {
                     // we didn't find one cache so setup
-                    executionSemaphorePerCircuit.putIfAbsent(commandKey.name(), new TryableSemaphoreActual(properties.executionIsolationSemaphoreMaxConcurrentRequests()));
+                    executionSemaphorePerCircuit.putIfAbsent(ordinal, new TryableSemaphoreActual(properties.executionIsolationSemaphoreMaxConcurrentRequests()));
                     // assign whatever got set (this or another thread)
-                    return executionSemaphorePerCircuit.get(commandKey.name());
+                    return executionSemaphorePerCircuit.get(ordinal);
                 } else {
                     return _s;
                 }
@@ -1274,6 +1986,42 @@ import java.util.concurrent.atomic.AtomicReference;
         }
     }
 
+    /**
+     * Get the TryableSemaphore limiting the concurrent executions of the partition of this HystrixCommand, which is taken before the semaphore or
+     * thread of the command.
+     * <p>
+     * This is a no-op unless {@link HystrixCommandProperties#executionPartitionEnabled()} and {@link #getPartitionKey()} returns a partition.
+     *
+     * @return TryableSemaphore for this execution
+     */
+    private TryableSemaphore getPartitionSemaphore() {
+        if (properties.snapshot().executionPartitionEnabled()) {
+            String partitionKey = getPartitionKey();
+            if (partitionKey != null) {
+                return HystrixBulkheadPartitions.Factory.getInstance(commandKey, properties).getExecutionSemaphore(partitionKey);
+            }
+        }
+        return TryableSemaphoreNoOp.DEFAULT;
+    }
+
+    /**
+     * The concurrency limit for the isolation strategy when it isn't adaptive, which the adaptive limit starts from.
+     */
+    private int getStaticConcurrencyLimit() {
+        ExecutionIsolationStrategy isolationStrategy = properties.snapshot().executionIsolationStrategy();
+        if (isolationStrategy != ExecutionIsolationStrategy.SEMAPHORE) {
+            HystrixThreadPoolMetrics threadPoolMetrics = HystrixThreadPoolMetrics.getInstance(threadPoolKey);
+            if (threadPoolMetrics != null) {
+                HystrixThreadPoolProperties threadPoolProperties = threadPoolMetrics.getProperties();
+                if (isolationStrategy == ExecutionIsolationStrategy.VIRTUAL_THREAD) {
+                    return threadPoolProperties.virtualThreadMaxConcurrentRequests().get();
+                }
+                return threadPoolProperties.coreSize().get();
+            }
+        }
+        return properties.snapshot().executionIsolationSemaphoreMaxConcurrentRequests();
+    }
+
     /**
      * Each concrete implementation of AbstractCommand should return the name of the fallback method as a String
      * This will be used to determine if the fallback "exists" for firing the onFallbackStart/onFallbackError hooks
@@ -1310,10 +2058,49 @@ import java.util.concurrent.atomic.AtomicReference;
         return threadPoolKey;
     }
 
+    /**
+     * @return {@link HystrixPriority} with which this command is queued for its {@link HystrixThreadPool}: the one given to
+     *         {@link HystrixCommand.Setter#andPriority}, else the one of the current {@link HystrixRequestContext}, else {@link HystrixPriority#NORMAL}
+     */
+    public HystrixPriority getPriority() {
+        if (declaredPriority != null) {
+            return declaredPriority;
+        }
+        HystrixRequestContext context = HystrixRequestContext.getContextForCurrentThread();
+        HystrixPriority contextPriority = context == null ? null : context.getPriority();
+        return contextPriority == null ? HystrixPriority.NORMAL : contextPriority;
+    }
+
     /* package */HystrixCircuitBreaker getCircuitBreaker() {
         return circuitBreaker;
     }
 
+    /**
+     * The circuit breaker of the partition of this execution if it has one, otherwise the one of the command.
+     */
+    private HystrixCircuitBreaker getExecutionCircuitBreaker() {
+        HystrixCircuitBreaker _partitionCircuitBreaker = partitionCircuitBreaker;
+        return _partitionCircuitBreaker == null ? circuitBreaker : _partitionCircuitBreaker;
+    }
+
+    /**
+     * Get the circuit breaker of the partition of this execution when {@link HystrixCommandProperties#circuitBreakerPartitionEnabled()}.  This
+     * is looked up as the execution starts rather than when the command is constructed, since {@link #getPartitionKey()} may depend on state
+     * of a subclass.
+     *
+     * @return circuit breaker of the partition, or null if the execution should use the one of the command
+     */
+    private HystrixCircuitBreaker.HystrixRollingHealthCircuitBreaker initPartitionCircuitBreaker() {
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+        if (snapshot.circuitBreakerEnabled() && snapshot.circuitBreakerPartitionEnabled()) {
+            String partitionKey = getPartitionKey();
+            if (partitionKey != null) {
+                return HystrixPartitionedCircuitBreaker.Factory.getInstance(commandKey, properties).getCircuitBreaker(partitionKey);
+            }
+        }
+        return null;
+    }
+
     /**
      * The {@link HystrixCommandMetrics} associated with this {@link AbstractCommand} instance.
      *
@@ -1332,6 +2119,257 @@ import java.util.concurrent.atomic.AtomicReference;
         return properties;
     }
 
+    /* ******************************************************************************** */
+    /* ******************************************************************************** */
+    /* Synchronous execution on the calling thread */
+    /* ******************************************************************************** */
+    /* ******************************************************************************** */
+
+    /**
+     * Whether {@link #executeOnCallingThread} may be used instead of subscribing to {@link #toObservable()}: run() executes on the calling thread
+     * with no timeout scheduled, and the response can't come from a cache.
+     *
+     * @see HystrixCommandProperties#executionIsolationSemaphoreSynchronousExecutionEnabled()
+     */
+    /* package */boolean isSynchronousExecutionEnabled() {
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+        return snapshot.executionIsolationSemaphoreSynchronousExecutionEnabled()
+                && snapshot.executionIsolationStrategy() == ExecutionIsolationStrategy.SEMAPHORE
+                && !snapshot.executionTimeoutEnabled()
+                && !isRequestCachingEnabled()
+                && !isResponseCachingEnabled()
+                && snapshot.executionRetryMaxAttempts() <= 1;
+    }
+
+    /**
+     * Execute a command which emits a single value with plain method calls on the calling thread, rather than assembling and subscribing to
+     * {@link #toObservable()}.
+     * <p>
+     * Each step is taken in the order the operators of {@link #toObservable()} would take it, so that hooks, events, metrics and the circuit-breaker
+     * see the same execution either way.  Only {@link HystrixCommand}, which emits a single value, executes this way.
+     *
+     * @param run
+     *            invokes the user-provided execution
+     * @param fallback
+     *            invokes the user-provided fallback
+     * @return R
+     * @throws ExecutionException
+     *             with the error {@link #toObservable()} would have emitted as its cause, as {@code Future.get()} would throw
+     */
+    /* package */R executeOnCallingThread(Callable<R> run, Callable<R> fallback) throws ExecutionException {
+        try {
+            markCommandStarted();
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        }
+
+        try {
+            R r = applyHystrixSemanticsOnCallingThread(run, fallback);
+            handleCommandTerminated();
+            try {
+                executionHook.onSuccess(this);
+            } catch (Throwable hookEx) {
+                logger.warn("Error calling HystrixCommandExecutionHook.onSuccess", hookEx);
+            }
+            return r;
+        } catch (Throwable t) {
+            handleCommandTerminated();
+            throw new ExecutionException(t);
+        } finally {
+            // what unsubscribing from the terminated Observable would do
+            getExecutionCircuitBreaker().markNonSuccess();
+        }
+    }
+
+    private R applyHystrixSemanticsOnCallingThread(Callable<R> run, Callable<R> fallback) throws Exception {
+        // mark that we're starting execution on the ExecutionHook
+        // if this hook throws an exception, then a fast-fail occurs with no fallback.  No state is left inconsistent
+        executionHook.onStart(this);
+        partitionCircuitBreaker = initPartitionCircuitBreaker();
+
+        Admission admission = admitExecution();
+        switch (admission.decision) {
+            case ADMITTED:
+                try {
+                    /* used to track userThreadExecutionTime */
+                    executionResult = executionResult.setInvocationStartTime(System.currentTimeMillis());
+                    return executeCommandOnCallingThread(run, fallback);
+                } catch (Exception e) {
+                    eventNotifier.markEvent(HystrixEventType.EXCEPTION_THROWN, commandKey);
+                    throw e;
+                } finally {
+                    admission.release();
+                }
+            case DEADLINE_EXCEEDED:
+                Exception deadlineExceededException = HystrixFailFastExceptions.deadlineExceeded(HystrixFailFastExceptions.isStackless(properties));
+                executionResult = executionResult.setExecutionException(deadlineExceededException);
+                return getFallbackOrThrowExceptionOnCallingThread(HystrixEventType.DEADLINE_EXCEEDED, FailureType.TIMEOUT,
+                        "exceeded the deadline of its request", deadlineExceededException, fallback);
+            case SHORT_CIRCUITED:
+                // record that we are returning a short-circuited fallback
+                eventNotifier.markEvent(HystrixEventType.SHORT_CIRCUITED, commandKey);
+                Exception shortCircuitException = HystrixFailFastExceptions.shortCircuited(HystrixFailFastExceptions.isStackless(properties));
+                executionResult = executionResult.setExecutionException(shortCircuitException);
+                return getFallbackOrThrowExceptionOnCallingThread(HystrixEventType.SHORT_CIRCUITED, FailureType.SHORTCIRCUIT,
+                        "short-circuited", shortCircuitException, fallback);
+            default:
+                return handleSemaphoreRejectionOnCallingThread(getRejectionException(admission.decision), fallback);
+        }
+    }
+
+    private R handleSemaphoreRejectionOnCallingThread(Exception semaphoreRejectionException, Callable<R> fallback) throws Exception {
+        executionResult = executionResult.setExecutionException(semaphoreRejectionException);
+        eventNotifier.markEvent(HystrixEventType.SEMAPHORE_REJECTED, commandKey);
+        logger.debug("HystrixCommand Execution Rejection by Semaphore."); // debug only since we're throwing the exception and someone higher will do something with it
+        return getFallbackOrThrowExceptionOnCallingThread(HystrixEventType.SEMAPHORE_REJECTED, FailureType.REJECTED_SEMAPHORE_EXECUTION,
+                "could not acquire a semaphore for execution", semaphoreRejectionException, fallback);
+    }
+
+    @SuppressWarnings("deprecation")
+    private R executeCommandOnCallingThread(Callable<R> run, Callable<R> fallback) throws Exception {
+        executionResult = executionResult.setExecutionOccurred();
+        if (!commandState.compareAndSet(CommandState.OBSERVABLE_CHAIN_CREATED, CommandState.USER_CODE_EXECUTED)) {
+            return handleExecutionErrorOnCallingThread(new IllegalStateException("execution attempted while in state : " + commandState.get().name()), fallback);
+        }
+
+        metrics.markCommandStart(commandKey, threadPoolKey, ExecutionIsolationStrategy.SEMAPHORE);
+        // store the command that is being run
+        endCurrentThreadExecutingCommand = Hystrix.startCurrentThreadExecutingCommand(getCommandKey());
+        try {
+            executionHook.onRunStart(this);
+            executionHook.onExecutionStart(this);
+        } catch (Throwable ex) {
+            //If the above hooks throw, then use that as the result of the run method
+            return handleExecutionErrorOnCallingThread(ex, fallback);
+        }
+
+        R r;
+        try {
+            r = run.call();
+        } catch (Throwable t) {
+            Exception e = wrapWithOnExecutionErrorHook(t);
+            try {
+                e = executionHook.onRunError(this, e);
+            } catch (Throwable hookEx) {
+                logger.warn("Error calling HystrixCommandExecutionHook.onRunError", hookEx);
+            }
+            return handleExecutionErrorOnCallingThread(e, fallback);
+        }
+
+        r = wrapWithOnExecutionEmitHook(r);
+        try {
+            r = executionHook.onRunSuccess(this, r);
+        } catch (Throwable hookEx) {
+            logger.warn("Error calling HystrixCommandExecutionHook.onRunSuccess", hookEx);
+        }
+        if (shouldOutputOnNextEvents()) {
+            executionResult = executionResult.addEvent(HystrixEventType.EMIT);
+            eventNotifier.markEvent(HystrixEventType.EMIT, commandKey);
+        }
+        markExecutionSuccess();
+        r = wrapWithAllOnNextHooks(r);
+
+        try {
+            executionHook.onExecutionSuccess(this);
+        } catch (Throwable hookEx) {
+            logger.warn("Error calling HystrixCommandExecutionHook.onExecutionSuccess", hookEx);
+        }
+        return r;
+    }
+
+    private R handleExecutionErrorOnCallingThread(Throwable t, Callable<R> fallback) throws Exception {
+        getExecutionCircuitBreaker().markNonSuccess();
+        Exception e = getExceptionFromThrowable(t);
+        executionResult = executionResult.setExecutionException(e);
+        if (e instanceof RejectedExecutionException) {
+            eventNotifier.markEvent(HystrixEventType.THREAD_POOL_REJECTED, commandKey);
+            markThreadRejection();
+            return getFallbackOrThrowExceptionOnCallingThread(HystrixEventType.THREAD_POOL_REJECTED, FailureType.REJECTED_THREAD_EXECUTION, "could not be queued for execution", e, fallback);
+        } else if (t instanceof HystrixBadRequestException) {
+            throw handleBadRequest(e);
+        } else {
+            /*
+             * Treat HystrixBadRequestException from ExecutionHook like a plain HystrixBadRequestException.
+             */
+            if (e instanceof HystrixBadRequestException) {
+                eventNotifier.markEvent(HystrixEventType.BAD_REQUEST, commandKey);
+                throw e;
+            }
+
+            logger.debug("Error executing HystrixCommand.run(). Proceeding to fallback logic ...", e);
+            // report failure
+            eventNotifier.markEvent(HystrixEventType.FAILURE, commandKey);
+            // record the exception
+            executionResult = executionResult.setException(e);
+            return getFallbackOrThrowExceptionOnCallingThread(HystrixEventType.FAILURE, FailureType.COMMAND_EXCEPTION, "failed", e, fallback);
+        }
+    }
+
+    /**
+     * The counterpart of {@link #getFallbackOrThrowException} for {@link #executeOnCallingThread}.
+     */
+    @SuppressWarnings("deprecation")
+    private R getFallbackOrThrowExceptionOnCallingThread(final HystrixEventType eventType, final FailureType failureType, final String message, final Exception originalException,
+                                                        Callable<R> fallback) throws Exception {
+        long latency = System.currentTimeMillis() - executionResult.getStartTimestamp();
+        // record the executionResult
+        // do this before executing fallback so it can be queried from within getFallback (see See https://github.com/Netflix/Hystrix/pull/144)
+        executionResult = executionResult.addEvent((int) latency, eventType);
+
+        if (isUnrecoverable(originalException)) {
+            logger.error("Unrecoverable Error for HystrixCommand so will throw HystrixRuntimeException and not apply fallback. ", originalException);
+
+            /* executionHook for all errors */
+            Exception e = wrapWithOnErrorHook(failureType, originalException);
+            throw new HystrixRuntimeException(failureType, this.getClass(), getLogMessagePrefix() + " " + message + " and encountered unrecoverable error.", e, null);
+        }
+        if (isRecoverableError(originalException)) {
+            logger.warn("Recovered from java.lang.Error by serving Hystrix fallback", originalException);
+        }
+        if (!properties.snapshot().fallbackEnabled()) {
+            throw handleFallbackDisabled(originalException, failureType, message);
+        }
+
+        final TryableSemaphore fallbackSemaphore = getFallbackSemaphore();
+        // acquire a permit
+        if (!fallbackSemaphore.tryAcquire()) {
+            throw handleFallbackRejection();
+        }
+        try {
+            R r;
+            try {
+                if (isFallbackUserDefined()) {
+                    executionHook.onFallbackStart(this);
+                }
+                r = fallback.call();
+            } catch (Throwable ex) {
+                throw handleFallbackError(wrapWithOnFallbackErrorHook(ex), failureType, message, originalException);
+            }
+
+            r = wrapWithOnFallbackEmitHook(r);
+            try {
+                r = executionHook.onFallbackSuccess(this, r);
+            } catch (Throwable hookEx) {
+                logger.warn("Error calling HystrixCommandExecutionHook.onFallbackSuccess", hookEx);
+            }
+            if (shouldOutputOnNextEvents()) {
+                executionResult = executionResult.addEvent(HystrixEventType.FALLBACK_EMIT);
+                eventNotifier.markEvent(HystrixEventType.FALLBACK_EMIT, commandKey);
+            }
+            r = wrapWithAllOnNextHooks(r);
+
+            try {
+                executionHook.onFallbackSuccess(this);
+            } catch (Throwable hookEx) {
+                logger.warn("Error calling HystrixCommandExecutionHook.onFallbackSuccess", hookEx);
+            }
+            markFallbackSuccess();
+            return r;
+        } finally {
+            fallbackSemaphore.release();
+        }
+    }
+
     /* ******************************************************************************** */
     /* ******************************************************************************** */
     /* Operators that implement hook application */
@@ -1540,6 +2578,23 @@ import java.util.concurrent.atomic.AtomicReference;
         }
     }
 
+    private R wrapWithAllOnNextHooks(R r) {
+        R afterFirstApplication = r;
+
+        try {
+            afterFirstApplication = executionHook.onComplete(this, r);
+        } catch (Throwable hookEx) {
+            logger.warn("Error calling HystrixCommandExecutionHook.onComplete", hookEx);
+        }
+
+        try {
+            return executionHook.onEmit(this, afterFirstApplication);
+        } catch (Throwable hookEx) {
+            logger.warn("Error calling HystrixCommandExecutionHook.onEmit", hookEx);
+            return afterFirstApplication;
+        }
+    }
+
     private R wrapWithOnEmitHook(R r) {
         try {
             return executionHook.onEmit(this, r);
@@ -1698,6 +2753,45 @@ import java.util.concurrent.atomic.AtomicReference;
 
     }
 
+    /**
+     * Whether executing this command more than once has the same effect as executing it once, so that a slow execution can be hedged with a second
+     * one when {@link HystrixCommandProperties#executionHedgeEnabled()}.
+     * <p>
+     * By default this returns false.
+     *
+     * @return true if the command is idempotent
+     */
+    protected boolean isIdempotent() {
+        return false;
+    }
+
+    /**
+     * Key of the partition this execution belongs to, such as a tenant id or a shard, whose concurrent executions are limited separately when
+     * {@link HystrixCommandProperties#executionPartitionEnabled()}, and which has a circuit breaker of its own when
+     * {@link HystrixCommandProperties#circuitBreakerPartitionEnabled()}.
+     * <p>
+     * By default this returns null, which leaves the execution to the semaphore or thread-pool and circuit breaker of the command.
+     *
+     * @return partition key or null
+     */
+    protected String getPartitionKey() {
+        return null;
+    }
+
+    /**
+     * Whether an execution that failed with the given exception should be retried when {@link HystrixCommandProperties#executionRetryMaxAttempts()}
+     * allows it.  {@link HystrixBadRequestException}s and rejections are never retried.
+     * <p>
+     * By default this returns {@link #isIdempotent()}, so any failure of an idempotent command is retried.  Override it to retry only failures that
+     * are likely to be transient.
+     *
+     * @param e exception the execution failed with
+     * @return true if the execution should be retried
+     */
+    protected boolean isRetryable(Throwable e) {
+        return isIdempotent();
+    }
+
     /* ******************************************************************************** */
     /* ******************************************************************************** */
     /* RequestCache */
@@ -1724,7 +2818,23 @@ import java.util.concurrent.atomic.AtomicReference;
     }
 
     protected boolean isRequestCachingEnabled() {
-        return properties.requestCacheEnabled().get() && getCacheKey() != null;
+        return properties.snapshot().requestCacheEnabled() && getCacheKey() != null;
+    }
+
+    protected boolean isResponseCachingEnabled() {
+        return properties.snapshot().responseCacheEnabled() && getCacheKey() != null;
+    }
+
+    /**
+     * Weight of a response stored in {@link HystrixResponseCache}, counted against {@link HystrixCommandProperties#responseCacheMaxWeight()}.
+     * <p>
+     * By default every response weighs 1, so the max weight is the number of responses cached.  Override this to weigh responses by their size instead.
+     *
+     * @param values values emitted by a successful execution
+     * @return weight
+     */
+    protected int getResponseCacheWeight(List<R> values) {
+        return 1;
     }
 
     protected String getLogMessagePrefix() {
@@ -1749,7 +2859,8 @@ import java.util.concurrent.atomic.AtomicReference;
      * @return boolean
      */
     public boolean isCircuitBreakerOpen() {
-        return properties.circuitBreakerForceOpen().get() || (!properties.circuitBreakerForceClosed().get() && circuitBreaker.isOpen());
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+        return snapshot.circuitBreakerForceOpen() || (!snapshot.circuitBreakerForceClosed() && getExecutionCircuitBreaker().isOpen());
     }
 
     /**
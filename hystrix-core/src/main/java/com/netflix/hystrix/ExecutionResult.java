@@ -36,73 +36,118 @@ public class ExecutionResult {
     private final long startTimestamp;
     private final int executionLatency; //time spent in run() method
     private final int userThreadLatency; //time elapsed between caller thread submitting request and response being visible to it
+    private final int queueWaitLatency; //time spent waiting in the thread-pool queue before run() was started
     private final boolean executionOccurred;
     private final boolean isExecutedInThread;
     private final HystrixCollapserKey collapserKey;
 
     private static final HystrixEventType[] ALL_EVENT_TYPES = HystrixEventType.values();
     private static final int NUM_EVENT_TYPES = ALL_EVENT_TYPES.length;
-    private static final BitSet EXCEPTION_PRODUCING_EVENTS = new BitSet(NUM_EVENT_TYPES);
-    private static final BitSet TERMINAL_EVENTS = new BitSet(NUM_EVENT_TYPES);
+    private static final long EXCEPTION_PRODUCING_EVENTS = maskOf(HystrixEventType.EXCEPTION_PRODUCING_EVENT_TYPES);
+    private static final long TERMINAL_EVENTS = maskOf(HystrixEventType.TERMINAL_EVENT_TYPES);
 
     static {
-        for (HystrixEventType eventType: HystrixEventType.EXCEPTION_PRODUCING_EVENT_TYPES) {
-            EXCEPTION_PRODUCING_EVENTS.set(eventType.ordinal());
+        //events are tracked as bits of a long, so adding/checking an event never allocates
+        if (NUM_EVENT_TYPES > Long.SIZE) {
+            throw new IllegalStateException("Too many HystrixEventTypes to fit into an event mask : " + NUM_EVENT_TYPES);
         }
+    }
 
-        for (HystrixEventType eventType: HystrixEventType.TERMINAL_EVENT_TYPES) {
-            TERMINAL_EVENTS.set(eventType.ordinal());
+    private static long maskOf(Iterable<HystrixEventType> eventTypes) {
+        long mask = 0L;
+        for (HystrixEventType eventType: eventTypes) {
+            mask |= bitFor(eventType);
         }
+        return mask;
+    }
+
+    private static long bitFor(HystrixEventType eventType) {
+        return 1L << eventType.ordinal();
     }
 
     public static class EventCounts {
-        private final BitSet events;
+        //shared instances for the common case of an execution which records exactly 1 flag-only event (like SUCCESS)
+        private static final EventCounts[] SINGLE_EVENT_COUNTS = new EventCounts[NUM_EVENT_TYPES];
+
+        static {
+            for (HystrixEventType eventType: ALL_EVENT_TYPES) {
+                switch (eventType) {
+                    case EMIT: break;
+                    case FALLBACK_EMIT: break;
+                    case COLLAPSED: break;
+                    case RESPONSE_CACHE_EVICTION: break;
+                    case RETRY: break;
+                    default:
+                        SINGLE_EVENT_COUNTS[eventType.ordinal()] = new EventCounts(bitFor(eventType), 0, 0, 0);
+                        break;
+                }
+            }
+        }
+
+        private final long events;
         private final int numEmissions;
         private final int numFallbackEmissions;
         private final int numCollapsed;
+        private final int numResponseCacheEvictions;
+        private final int numRetries;
 
         EventCounts() {
-            this.events = new BitSet(NUM_EVENT_TYPES);
+            this.events = 0L;
             this.numEmissions = 0;
             this.numFallbackEmissions = 0;
             this.numCollapsed = 0;
+            this.numResponseCacheEvictions = 0;
+            this.numRetries = 0;
         }
 
-        EventCounts(BitSet events, int numEmissions, int numFallbackEmissions, int numCollapsed) {
+        EventCounts(long events, int numEmissions, int numFallbackEmissions, int numCollapsed) {
+            this(events, numEmissions, numFallbackEmissions, numCollapsed, 0, 0);
+        }
+
+        EventCounts(long events, int numEmissions, int numFallbackEmissions, int numCollapsed, int numResponseCacheEvictions, int numRetries) {
             this.events = events;
             this.numEmissions = numEmissions;
             this.numFallbackEmissions = numFallbackEmissions;
             this.numCollapsed = numCollapsed;
+            this.numResponseCacheEvictions = numResponseCacheEvictions;
+            this.numRetries = numRetries;
         }
 
         EventCounts(HystrixEventType... eventTypes) {
-            BitSet newBitSet = new BitSet(NUM_EVENT_TYPES);
+            long newEvents = 0L;
             int localNumEmits = 0;
             int localNumFallbackEmits = 0;
             int localNumCollapsed = 0;
+            int localNumResponseCacheEvictions = 0;
+            int localNumRetries = 0;
             for (HystrixEventType eventType: eventTypes) {
                 switch (eventType) {
                     case EMIT:
-                        newBitSet.set(HystrixEventType.EMIT.ordinal());
                         localNumEmits++;
                         break;
                     case FALLBACK_EMIT:
-                        newBitSet.set(HystrixEventType.FALLBACK_EMIT.ordinal());
                         localNumFallbackEmits++;
                         break;
                     case COLLAPSED:
-                        newBitSet.set(HystrixEventType.COLLAPSED.ordinal());
                         localNumCollapsed++;
                         break;
+                    case RESPONSE_CACHE_EVICTION:
+                        localNumResponseCacheEvictions++;
+                        break;
+                    case RETRY:
+                        localNumRetries++;
+                        break;
                     default:
-                        newBitSet.set(eventType.ordinal());
                         break;
                 }
+                newEvents |= bitFor(eventType);
             }
-            this.events = newBitSet;
+            this.events = newEvents;
             this.numEmissions = localNumEmits;
             this.numFallbackEmissions = localNumFallbackEmits;
             this.numCollapsed = localNumCollapsed;
+            this.numResponseCacheEvictions = localNumResponseCacheEvictions;
+            this.numRetries = localNumRetries;
         }
 
         EventCounts plus(HystrixEventType eventType) {
@@ -110,36 +155,55 @@ public class ExecutionResult {
         }
 
         EventCounts plus(HystrixEventType eventType, int count) {
-            BitSet newBitSet = (BitSet) events.clone();
+            if (events == 0L && SINGLE_EVENT_COUNTS[eventType.ordinal()] != null) {
+                return SINGLE_EVENT_COUNTS[eventType.ordinal()];
+            }
             int localNumEmits = numEmissions;
             int localNumFallbackEmits =  numFallbackEmissions;
             int localNumCollapsed = numCollapsed;
+            int localNumResponseCacheEvictions = numResponseCacheEvictions;
+            int localNumRetries = numRetries;
             switch (eventType) {
                 case EMIT:
-                    newBitSet.set(HystrixEventType.EMIT.ordinal());
                     localNumEmits += count;
                     break;
                 case FALLBACK_EMIT:
-                    newBitSet.set(HystrixEventType.FALLBACK_EMIT.ordinal());
                     localNumFallbackEmits += count;
                     break;
                 case COLLAPSED:
-                    newBitSet.set(HystrixEventType.COLLAPSED.ordinal());
                     localNumCollapsed += count;
                     break;
+                case RESPONSE_CACHE_EVICTION:
+                    localNumResponseCacheEvictions += count;
+                    break;
+                case RETRY:
+                    localNumRetries += count;
+                    break;
                 default:
-                    newBitSet.set(eventType.ordinal());
+                    if (contains(eventType)) {
+                        //flag already set, so there's nothing new to record
+                        return this;
+                    }
                     break;
             }
-            return new EventCounts(newBitSet, localNumEmits, localNumFallbackEmits, localNumCollapsed);
+            return new EventCounts(events | bitFor(eventType), localNumEmits, localNumFallbackEmits, localNumCollapsed, localNumResponseCacheEvictions, localNumRetries);
         }
 
         public boolean contains(HystrixEventType eventType) {
-            return events.get(eventType.ordinal());
+            return (events & bitFor(eventType)) != 0;
         }
 
         public boolean containsAnyOf(BitSet other) {
-            return events.intersects(other);
+            for (int i = other.nextSetBit(0); i >= 0 && i < NUM_EVENT_TYPES; i = other.nextSetBit(i + 1)) {
+                if ((events & (1L << i)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean containsAnyOf(long eventMask) {
+            return (events & eventMask) != 0;
         }
 
         public int getCount(HystrixEventType eventType) {
@@ -148,6 +212,8 @@ public class ExecutionResult {
                 case FALLBACK_EMIT: return numFallbackEmissions;
                 case EXCEPTION_THROWN: return containsAnyOf(EXCEPTION_PRODUCING_EVENTS) ? 1 : 0;
                 case COLLAPSED: return numCollapsed;
+                case RESPONSE_CACHE_EVICTION: return numResponseCacheEvictions;
+                case RETRY: return numRetries;
                 default: return contains(eventType) ? 1 : 0;
             }
         }
@@ -162,37 +228,44 @@ public class ExecutionResult {
             if (numEmissions != that.numEmissions) return false;
             if (numFallbackEmissions != that.numFallbackEmissions) return false;
             if (numCollapsed != that.numCollapsed) return false;
-            return events.equals(that.events);
+            if (numResponseCacheEvictions != that.numResponseCacheEvictions) return false;
+            if (numRetries != that.numRetries) return false;
+            return events == that.events;
 
         }
 
         @Override
         public int hashCode() {
-            int result = events.hashCode();
+            int result = (int) (events ^ (events >>> 32));
             result = 31 * result + numEmissions;
             result = 31 * result + numFallbackEmissions;
             result = 31 * result + numCollapsed;
+            result = 31 * result + numResponseCacheEvictions;
+            result = 31 * result + numRetries;
             return result;
         }
 
         @Override
         public String toString() {
             return "EventCounts{" +
-                    "events=" + events +
+                    "events=" + BitSet.valueOf(new long[] { events }) +
                     ", numEmissions=" + numEmissions +
                     ", numFallbackEmissions=" + numFallbackEmissions +
                     ", numCollapsed=" + numCollapsed +
+                    ", numResponseCacheEvictions=" + numResponseCacheEvictions +
+                    ", numRetries=" + numRetries +
                     '}';
         }
     }
 
     private ExecutionResult(EventCounts eventCounts, long startTimestamp, int executionLatency,
-                            int userThreadLatency, Exception failedExecutionException, Exception executionException,
+                            int userThreadLatency, int queueWaitLatency, Exception failedExecutionException, Exception executionException,
                             boolean executionOccurred, boolean isExecutedInThread, HystrixCollapserKey collapserKey) {
         this.eventCounts = eventCounts;
         this.startTimestamp = startTimestamp;
         this.executionLatency = executionLatency;
         this.userThreadLatency = userThreadLatency;
+        this.queueWaitLatency = queueWaitLatency;
         this.failedExecutionException = failedExecutionException;
         this.executionException = executionException;
         this.executionOccurred = executionOccurred;
@@ -210,7 +283,7 @@ public class ExecutionResult {
                 didExecutionOccur = true;
             }
         }
-        return new ExecutionResult(new EventCounts(eventTypes), -1L, -1, -1, null, null, didExecutionOccur, false, null);
+        return new ExecutionResult(new EventCounts(eventTypes), -1L, -1, -1, -1, null, null, didExecutionOccur, false, null);
     }
 
     private static boolean didExecutionOccur(HystrixEventType eventType) {
@@ -225,49 +298,77 @@ public class ExecutionResult {
     }
 
     public ExecutionResult setExecutionOccurred() {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency,
+        if (executionOccurred) {
+            return this;
+        }
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, true, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult setExecutionLatency(int executionLatency) {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency,
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, executionOccurred, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult setException(Exception e) {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, e,
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency, e,
                 executionException, executionOccurred, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult setExecutionException(Exception executionException) {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency,
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, executionOccurred, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult setInvocationStartTime(long startTimestamp) {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency,
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, executionOccurred, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult setExecutedInThread() {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency,
+        if (isExecutedInThread) {
+            return this;
+        }
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
+                failedExecutionException, executionException, executionOccurred, true, collapserKey);
+    }
+
+    /**
+     * Mark execution in a thread, after waiting in the thread-pool queue for the given time.
+     *
+     * @param queueWaitLatency time in milliseconds between the command being queued and a thread picking it up
+     * @return new {@link ExecutionResult}
+     */
+    public ExecutionResult setExecutedInThread(int queueWaitLatency) {
+        if (isExecutedInThread && queueWaitLatency == this.queueWaitLatency) {
+            return this;
+        }
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, executionOccurred, true, collapserKey);
     }
 
     public ExecutionResult setNotExecutedInThread() {
-        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency,
+        if (!isExecutedInThread) {
+            return this;
+        }
+        return new ExecutionResult(eventCounts, startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, executionOccurred, false, collapserKey);
     }
 
     public ExecutionResult markCollapsed(HystrixCollapserKey collapserKey, int sizeOfBatch) {
-        return new ExecutionResult(eventCounts.plus(HystrixEventType.COLLAPSED, sizeOfBatch), startTimestamp, executionLatency, userThreadLatency,
+        return new ExecutionResult(eventCounts.plus(HystrixEventType.COLLAPSED, sizeOfBatch), startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
+                failedExecutionException, executionException, executionOccurred, isExecutedInThread, collapserKey);
+    }
+
+    public ExecutionResult markResponseCacheEvictions(int numEvictions) {
+        return new ExecutionResult(eventCounts.plus(HystrixEventType.RESPONSE_CACHE_EVICTION, numEvictions), startTimestamp, executionLatency, userThreadLatency, queueWaitLatency,
                 failedExecutionException, executionException, executionOccurred, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult markUserThreadCompletion(long userThreadLatency) {
         if (startTimestamp > 0 && !isResponseRejected()) {
             /* execution time (must occur before terminal state otherwise a race condition can occur if requested by client) */
-            return new ExecutionResult(eventCounts, startTimestamp, executionLatency, (int) userThreadLatency,
+            return new ExecutionResult(eventCounts, startTimestamp, executionLatency, (int) userThreadLatency, queueWaitLatency,
                     failedExecutionException, executionException, executionOccurred, isExecutedInThread, collapserKey);
         } else {
             return this;
@@ -281,15 +382,23 @@ public class ExecutionResult {
      * @return new {@link ExecutionResult} with event added
      */
     public ExecutionResult addEvent(HystrixEventType eventType) {
-        return new ExecutionResult(eventCounts.plus(eventType), startTimestamp, executionLatency,
-                userThreadLatency, failedExecutionException, executionException,
+        EventCounts newEventCounts = eventCounts.plus(eventType);
+        if (newEventCounts == eventCounts) {
+            return this;
+        }
+        return new ExecutionResult(newEventCounts, startTimestamp, executionLatency,
+                userThreadLatency, queueWaitLatency, failedExecutionException, executionException,
                 executionOccurred, isExecutedInThread, collapserKey);
     }
 
     public ExecutionResult addEvent(int executionLatency, HystrixEventType eventType) {
         if (startTimestamp >= 0 && !isResponseRejected()) {
-            return new ExecutionResult(eventCounts.plus(eventType), startTimestamp, executionLatency,
-                    userThreadLatency, failedExecutionException, executionException,
+            EventCounts newEventCounts = eventCounts.plus(eventType);
+            if (newEventCounts == eventCounts && executionLatency == this.executionLatency) {
+                return this;
+            }
+            return new ExecutionResult(newEventCounts, startTimestamp, executionLatency,
+                    userThreadLatency, queueWaitLatency, failedExecutionException, executionException,
                     executionOccurred, isExecutedInThread, collapserKey);
         } else {
             return addEvent(eventType);
@@ -312,6 +421,13 @@ public class ExecutionResult {
         return userThreadLatency;
     }
 
+    /**
+     * @return time in milliseconds spent waiting in the thread-pool queue before execution started, or -1 if not queued in a thread-pool
+     */
+    public int getQueueWaitLatency() {
+        return queueWaitLatency;
+    }
+
     public long getCommandRunStartTimeInNanos() {
         return startTimestamp * 1000 * 1000;
     }
@@ -371,6 +487,7 @@ public class ExecutionResult {
                 ", startTimestamp=" + startTimestamp +
                 ", executionLatency=" + executionLatency +
                 ", userThreadLatency=" + userThreadLatency +
+                ", queueWaitLatency=" + queueWaitLatency +
                 ", executionOccurred=" + executionOccurred +
                 ", isExecutedInThread=" + isExecutedInThread +
                 ", collapserKey=" + collapserKey +
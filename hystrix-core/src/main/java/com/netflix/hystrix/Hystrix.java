@@ -17,6 +17,7 @@ package com.netflix.hystrix;
 
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.netflix.hystrix.strategy.HystrixPlugins;
@@ -33,6 +34,9 @@ public class Hystrix {
 
     private static final Logger logger = LoggerFactory.getLogger(Hystrix.class);
 
+    /* incremented on each reset so state held outside of the registries, such as by a HystrixCommand.Template, knows to resolve it again */
+    private static final AtomicInteger resetCount = new AtomicInteger();
+
     /**
      * Reset state and release resources in use (such as thread-pools).
      * <p>
@@ -72,11 +76,26 @@ public class Hystrix {
         HystrixCollapserMetrics.reset();
         // clear collapsers
         HystrixCollapser.reset();
+        HystrixVirtualThreadBulkhead.Factory.reset();
+        HystrixConcurrencyLimiter.Factory.reset();
+        HystrixAttemptBudget.Factory.reset();
+        HystrixBulkheadPartitions.Factory.reset();
         // clear circuit breakers
         HystrixCircuitBreaker.Factory.reset();
+        HystrixPartitionedCircuitBreaker.Factory.reset();
+        // clear responses cached across requests
+        HystrixResponseCache.reset();
         HystrixPlugins.reset();
         HystrixPropertiesFactory.reset();
         currentCommand.set(new ConcurrentStack<HystrixCommandKey>());
+        resetCount.incrementAndGet();
+    }
+
+    /**
+     * @return number of times Hystrix has been reset
+     */
+    /* package */static int getResetCount() {
+        return resetCount.get();
     }
 
     private static ThreadLocal<ConcurrentStack<HystrixCommandKey>> currentCommand = new ThreadLocal<ConcurrentStack<HystrixCommandKey>>() {
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.util.OrdinalTable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket limiting the extra executions of {@link HystrixCommand#run()} a {@link HystrixCommandKey} makes on top of its requests, such as
+ * hedges or retries, to a percentage of those requests.
+ * <p>
+ * Each request deposits the configured percentage of a token and each extra execution takes a whole one, so over time the extra executions are
+ * at most that percentage of the requests however slow or broken the dependency gets.  The bucket holds at most {@link #MAX_TOKENS}, which is
+ * the most extra executions that can be made in a burst after a quiet period.  It starts empty.
+ *
+ * @ExcludeFromJavadoc
+ * @ThreadSafe
+ */
+/* package */class HystrixAttemptBudget {
+
+    /* most whole tokens the bucket holds */
+    /* package */ static final int MAX_TOKENS = 10;
+    /* a token is this many hundredths, so that a percentage of one can be deposited exactly */
+    private static final int TOKEN = 100;
+
+    /* in hundredths of a token */
+    private final AtomicInteger balance = new AtomicInteger(0);
+
+    /**
+     * Record a request, depositing the given percentage of a token.
+     *
+     * @param percentage percentage of the requests that may be followed by an extra execution
+     */
+    /* package */ void deposit(int percentage) {
+        if (percentage <= 0) {
+            return;
+        }
+        int current;
+        int next;
+        do {
+            current = balance.get();
+            next = Math.min(MAX_TOKENS * TOKEN, current + percentage);
+        } while (current != next && !balance.compareAndSet(current, next));
+    }
+
+    /**
+     * Take a token for an extra execution if there is one.
+     *
+     * @return true if the extra execution may go ahead
+     */
+    /* package */ boolean tryAcquire() {
+        int current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * @return whole tokens currently in the bucket
+     */
+    /* package */ int getAvailableTokens() {
+        return balance.get() / TOKEN;
+    }
+
+    /**
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    /* package */ static class Factory {
+        // indexed by HystrixCommandKey.Factory.ordinalOf(key) (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+        private static final OrdinalTable<HystrixAttemptBudget> hedgeBudgetsByCommand = new OrdinalTable<HystrixAttemptBudget>();
+        private static final OrdinalTable<HystrixAttemptBudget> retryBudgetsByCommand = new OrdinalTable<HystrixAttemptBudget>();
+
+        /**
+         * Get or create the {@link HystrixAttemptBudget} for hedged executions of a given {@link HystrixCommandKey}.
+         */
+        /* package */ static HystrixAttemptBudget getHedgeBudget(HystrixCommandKey key) {
+            return getInstance(hedgeBudgetsByCommand, key);
+        }
+
+        /**
+         * Get or create the {@link HystrixAttemptBudget} for retries of a given {@link HystrixCommandKey}.
+         */
+        /* package */ static HystrixAttemptBudget getRetryBudget(HystrixCommandKey key) {
+            return getInstance(retryBudgetsByCommand, key);
+        }
+
+        private static HystrixAttemptBudget getInstance(OrdinalTable<HystrixAttemptBudget> budgets, HystrixCommandKey key) {
+            int ordinal = HystrixCommandKey.Factory.ordinalOf(key);
+            HystrixAttemptBudget previouslyCached = budgets.get(ordinal);
+            if (previouslyCached != null) {
+                return previouslyCached;
+            }
+            HystrixAttemptBudget budget = new HystrixAttemptBudget();
+            HystrixAttemptBudget existing = budgets.putIfAbsent(ordinal, budget);
+            return existing == null ? budget : existing;
+        }
+
+        /**
+         * Clears all budgets. If new requests come in instances will be recreated.
+         */
+        /* package */ static void reset() {
+            hedgeBudgetsByCommand.clear();
+            retryBudgetsByCommand.clear();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.AbstractCommand.TryableSemaphore;
+import com.netflix.hystrix.util.OrdinalTable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent executions of a {@link HystrixCommandKey} by partition key, such as a tenant id, used when
+ * {@link HystrixCommandProperties#executionPartitionEnabled()} so that one partition can't take every permit or thread of the command.
+ * <p>
+ * A partition may have at most {@link HystrixCommandProperties#executionPartitionMaxConcurrentRequests()} executions in flight.  Those executions
+ * still need a permit or a thread from the command's semaphore or thread-pool, which all of the partitions share.
+ * <p>
+ * At most {@link HystrixCommandProperties#executionPartitionMaxPartitions()} partitions are tracked, in least recently used order.  Making room for
+ * a new partition forgets the least recently used one without executions in flight, which loses nothing since such a partition has no state.
+ * Partitions with executions in flight are never forgotten, so there can be more of them than the maximum, but only as many as the shared
+ * semaphore or thread-pool lets execute at once.
+ *
+ * @ExcludeFromJavadoc
+ * @ThreadSafe
+ */
+/* package */class HystrixBulkheadPartitions {
+
+    private final HystrixCommandProperties properties;
+    /* access ordered, so the least recently used partition comes first; guarded by itself */
+    private final LinkedHashMap<String, Partition> partitions = new LinkedHashMap<String, Partition>(16, 0.75f, true);
+
+    /* package */ HystrixBulkheadPartitions(HystrixCommandProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Get a {@link TryableSemaphore} for one execution of a partition.  Acquiring it takes a permit from the partition if the partition is below
+     * its limit, and releasing it returns the permit.
+     *
+     * @param partitionKey key of the partition
+     * @return TryableSemaphore for a single execution
+     */
+    /* package */ TryableSemaphore getExecutionSemaphore(String partitionKey) {
+        return new PartitionPermit(partitionKey);
+    }
+
+    /**
+     * Take a permit from a partition, tracking the partition if it isn't already.
+     *
+     * @return the partition, or null if it is at its limit
+     */
+    private Partition tryAcquire(String partitionKey) {
+        int maxConcurrentRequests = properties.executionPartitionMaxConcurrentRequests().get();
+        synchronized (partitions) {
+            Partition partition = partitions.get(partitionKey);
+            if (partition == null) {
+                evictIdlePartitions(properties.executionPartitionMaxPartitions().get() - 1);
+                partition = new Partition();
+                partitions.put(partitionKey, partition);
+            }
+            // counts only grow while holding the lock, so an idle partition can't be evicted while a permit is being taken from it
+            if (partition.count.get() >= maxConcurrentRequests) {
+                return null;
+            }
+            partition.count.incrementAndGet();
+            return partition;
+        }
+    }
+
+    /**
+     * Forget the least recently used partitions without executions in flight until no more than the given number are tracked.  Must be called
+     * holding the lock.
+     */
+    private void evictIdlePartitions(int maxPartitions) {
+        Iterator<Map.Entry<String, Partition>> iterator = partitions.entrySet().iterator();
+        while (partitions.size() > maxPartitions && iterator.hasNext()) {
+            if (iterator.next().getValue().count.get() == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return number of partitions currently tracked
+     */
+    /* package */ int getNumberOfPartitions() {
+        synchronized (partitions) {
+            return partitions.size();
+        }
+    }
+
+    /**
+     * @param partitionKey key of the partition
+     * @return executions of the partition in flight, or 0 if it isn't tracked
+     */
+    /* package */ int getNumberOfPermitsUsed(String partitionKey) {
+        synchronized (partitions) {
+            // get would count as an access and reorder the partitions
+            for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+                if (entry.getKey().equals(partitionKey)) {
+                    return entry.getValue().count.get();
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static class Partition {
+        private final AtomicInteger count = new AtomicInteger(0);
+    }
+
+    /**
+     * A permit for one execution, so that it is returned to the partition it was taken from even if that partition has since been forgotten and
+     * tracked again.
+     */
+    private class PartitionPermit implements TryableSemaphore {
+        private final String partitionKey;
+        private volatile Partition acquired = null;
+
+        private PartitionPermit(String partitionKey) {
+            this.partitionKey = partitionKey;
+        }
+
+        @Override
+        public boolean tryAcquire() {
+            acquired = HystrixBulkheadPartitions.this.tryAcquire(partitionKey);
+            return acquired != null;
+        }
+
+        @Override
+        public void release() {
+            Partition partition = acquired;
+            if (partition != null) {
+                acquired = null;
+                partition.count.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int getNumberOfPermitsUsed() {
+            return HystrixBulkheadPartitions.this.getNumberOfPermitsUsed(partitionKey);
+        }
+    }
+
+    /**
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    /* package */ static class Factory {
+        // indexed by HystrixCommandKey.Factory.ordinalOf(key) (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+        private static final OrdinalTable<HystrixBulkheadPartitions> partitionsByCommand = new OrdinalTable<HystrixBulkheadPartitions>();
+
+        /**
+         * Get or create the {@link HystrixBulkheadPartitions} for a given {@link HystrixCommandKey}.
+         */
+        /* package */ static HystrixBulkheadPartitions getInstance(HystrixCommandKey key, HystrixCommandProperties properties) {
+            int ordinal = HystrixCommandKey.Factory.ordinalOf(key);
+            HystrixBulkheadPartitions previouslyCached = partitionsByCommand.get(ordinal);
+            if (previouslyCached != null) {
+                return previouslyCached;
+            }
+            HystrixBulkheadPartitions partitions = new HystrixBulkheadPartitions(properties);
+            HystrixBulkheadPartitions existing = partitionsByCommand.putIfAbsent(ordinal, partitions);
+            return existing == null ? partitions : existing;
+        }
+
+        /**
+         * Clears all partitions. If new requests come in instances will be recreated.
+         */
+        /* package */ static void reset() {
+            partitionsByCommand.clear();
+        }
+    }
+}
@@ -15,19 +15,25 @@
  */
 package com.netflix.hystrix;
 
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.netflix.hystrix.HystrixCommandMetrics.HealthCounts;
+import com.netflix.hystrix.HystrixCommandProperties.CircuitBreakerImplementation;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.util.HystrixRollingHealthCounter;
+import com.netflix.hystrix.util.OrdinalTable;
 import rx.Subscriber;
 import rx.Subscription;
 
 /**
  * Circuit-breaker logic that is hooked into {@link HystrixCommand} execution and will stop allowing executions if failures have gone past the defined threshold.
  * <p>
- * The default (and only) implementation  will then allow a single retry after a defined sleepWindow until the execution
- * succeeds at which point it will again close the circuit and allow executions again.
+ * The production implementations will then allow a single retry after a defined sleepWindow until the execution
+ * succeeds at which point it will again close the circuit and allow executions again.  Which one is used is chosen by
+ * {@link HystrixCommandProperties#circuitBreakerImplementation()}.
  */
 public interface HystrixCircuitBreaker {
 
@@ -63,13 +69,28 @@ public interface HystrixCircuitBreaker {
      */
     boolean attemptExecution();
 
+    /**
+     * Why a circuit was tripped open, as given to {@link com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier#markCircuitBreakerOpened}.
+     */
+    enum OpenReason {
+        /**
+         * Errors went past {@link HystrixCommandProperties#circuitBreakerErrorThresholdPercentage()}.
+         */
+        ERROR_PERCENTAGE,
+        /**
+         * Calls taking at least {@link HystrixCommandProperties#circuitBreakerSlowCallDurationThresholdInMilliseconds()} went past
+         * {@link HystrixCommandProperties#circuitBreakerSlowCallRateThresholdPercentage()}.
+         */
+        SLOW_CALL_PERCENTAGE
+    }
+
     /**
      * @ExcludeFromJavadoc
      * @ThreadSafe
      */
     class Factory {
-        // String is HystrixCommandKey.name() (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
-        private static ConcurrentHashMap<String, HystrixCircuitBreaker> circuitBreakersByCommand = new ConcurrentHashMap<String, HystrixCircuitBreaker>();
+        // indexed by HystrixCommandKey.Factory.ordinalOf(key) (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+        private static final OrdinalTable<HystrixCircuitBreaker> circuitBreakersByCommand = new OrdinalTable<HystrixCircuitBreaker>();
 
         /**
          * Get the {@link HystrixCircuitBreaker} instance for a given {@link HystrixCommandKey}.
@@ -88,7 +109,8 @@ public interface HystrixCircuitBreaker {
          */
         public static HystrixCircuitBreaker getInstance(HystrixCommandKey key, HystrixCommandGroupKey group, HystrixCommandProperties properties, HystrixCommandMetrics metrics) {
             // this should find it for all but the first time
-            HystrixCircuitBreaker previouslyCached = circuitBreakersByCommand.get(key.name());
+            int ordinal = HystrixCommandKey.Factory.ordinalOf(key);
+            HystrixCircuitBreaker previouslyCached = circuitBreakersByCommand.get(ordinal);
             if (previouslyCached != null) {
                 return previouslyCached;
             }
@@ -96,12 +118,18 @@ public interface HystrixCircuitBreaker {
             // if we get here this is the first time so we need to initialize
 
             // Create and add to the map ... use putIfAbsent to atomically handle the possible race-condition of
-            // 2 threads hitting this point at the same time and let ConcurrentHashMap provide us our thread-safety
+            // 2 threads hitting this point at the same time and let OrdinalTable provide us our thread-safety
             // If 2 threads hit here only one will get added and the other will get a non-null response instead.
-            HystrixCircuitBreaker cbForCommand = circuitBreakersByCommand.putIfAbsent(key.name(), new HystrixCircuitBreakerImpl(key, group, properties, metrics));
+            HystrixCircuitBreaker newCircuitBreaker;
+            if (properties.circuitBreakerImplementation().get() == CircuitBreakerImplementation.SLIDING_WINDOW) {
+                newCircuitBreaker = new HystrixSlidingWindowCircuitBreakerImpl(key, group, properties, metrics);
+            } else {
+                newCircuitBreaker = new HystrixCircuitBreakerImpl(key, group, properties, metrics);
+            }
+            HystrixCircuitBreaker cbForCommand = circuitBreakersByCommand.putIfAbsent(ordinal, newCircuitBreaker);
             if (cbForCommand == null) {
                 // this means the putIfAbsent step just created a new one so let's retrieve and return it
-                return circuitBreakersByCommand.get(key.name());
+                return circuitBreakersByCommand.get(ordinal);
             } else {
                 // this means a race occurred and while attempting to 'put' another one got there before
                 // and we instead retrieved it and will now return it
@@ -117,7 +145,22 @@ public interface HystrixCircuitBreaker {
          * @return {@link HystrixCircuitBreaker} for {@link HystrixCommandKey}
          */
         public static HystrixCircuitBreaker getInstance(HystrixCommandKey key) {
-            return circuitBreakersByCommand.get(key.name());
+            return circuitBreakersByCommand.get(HystrixCommandKey.Factory.ordinalOf(key));
+        }
+
+        /**
+         * Get the reason the circuit breaker for a given {@link HystrixCommandKey} was last tripped open.
+         *
+         * @param key
+         *            {@link HystrixCommandKey} of {@link HystrixCommand}
+         * @return {@link OpenReason} while the circuit is open or half-open, or null if it is closed, was forced open, or there is no circuit breaker
+         */
+        public static OpenReason getOpenReason(HystrixCommandKey key) {
+            HystrixCircuitBreaker circuitBreaker = getInstance(key);
+            if (circuitBreaker instanceof AbstractCircuitBreaker) {
+                return ((AbstractCircuitBreaker) circuitBreaker).getOpenReason();
+            }
+            return null;
         }
 
         /**
@@ -130,14 +173,15 @@ public interface HystrixCircuitBreaker {
 
 
     /**
-     * The default production implementation of {@link HystrixCircuitBreaker}.
-     * 
+     * The OPEN/HALF_OPEN/CLOSED state machine shared by the production implementations of {@link HystrixCircuitBreaker}, which differ only in how
+     * they track health and decide to trip open.
+     *
      * @ExcludeFromJavadoc
      * @ThreadSafe
      */
-    /* package */class HystrixCircuitBreakerImpl implements HystrixCircuitBreaker {
-        private final HystrixCommandProperties properties;
-        private final HystrixCommandMetrics metrics;
+    /* package */abstract class AbstractCircuitBreaker implements HystrixCircuitBreaker {
+        protected final HystrixCommandKey commandKey;
+        protected final HystrixCommandProperties properties;
 
         enum Status {
             CLOSED, OPEN, HALF_OPEN;
@@ -145,73 +189,72 @@ public interface HystrixCircuitBreaker {
 
         private final AtomicReference<Status> status = new AtomicReference<Status>(Status.CLOSED);
         private final AtomicLong circuitOpened = new AtomicLong(-1);
-        private final AtomicReference<Subscription> activeSubscription = new AtomicReference<Subscription>(null);
+        private volatile OpenReason openReason = null;
 
-        protected HystrixCircuitBreakerImpl(HystrixCommandKey key, HystrixCommandGroupKey commandGroup, final HystrixCommandProperties properties, HystrixCommandMetrics metrics) {
+        protected AbstractCircuitBreaker(HystrixCommandKey commandKey, HystrixCommandProperties properties) {
+            this.commandKey = commandKey;
             this.properties = properties;
-            this.metrics = metrics;
-
-            //On a timer, this will set the circuit between OPEN/CLOSED as command executions occur
-            Subscription s = subscribeToStream();
-            activeSubscription.set(s);
         }
 
-        private Subscription subscribeToStream() {
-            /*
-             * This stream will recalculate the OPEN/CLOSED status on every onNext from the health stream
-             */
-            return metrics.getHealthCountsStream()
-                    .observe()
-                    .subscribe(new Subscriber<HealthCounts>() {
-                        @Override
-                        public void onCompleted() {
-
-                        }
-
-                        @Override
-                        public void onError(Throwable e) {
+        /**
+         * Trip the circuit open if the window is past the volume threshold and past either the error or the slow call threshold.
+         *
+         * @param totalRequests requests in the window
+         * @param errorPercentage errors as a percentage of those requests
+         * @param slowCallPercentage slow calls as a percentage of those requests
+         */
+        protected void checkHealth(long totalRequests, int errorPercentage, int slowCallPercentage) {
+            HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+            if (totalRequests < snapshot.circuitBreakerRequestVolumeThreshold()) {
+                // we are not past the minimum volume threshold for the stat window,
+                // so no change to circuit status.
+                // if it was CLOSED, it stays CLOSED
+                // if it was half-open, we need to wait for a successful command execution
+                // if it was open, we need to wait for sleep window to elapse
+                return;
+            }
+            if (errorPercentage >= snapshot.circuitBreakerErrorThresholdPercentage()) {
+                // our failure rate is too high, we need to set the state to OPEN
+                tripOpen(OpenReason.ERROR_PERCENTAGE);
+            } else if (snapshot.circuitBreakerSlowCallDurationThresholdInMilliseconds() > 0
+                    && slowCallPercentage >= snapshot.circuitBreakerSlowCallRateThresholdPercentage()) {
+                // too many calls are succeeding too slowly to be of use, we need to set the state to OPEN
+                tripOpen(OpenReason.SLOW_CALL_PERCENTAGE);
+            }
+        }
 
-                        }
+        /**
+         * Trip the circuit open, unless it is already open or half-open.
+         *
+         * @param reason why the circuit is tripping
+         */
+        protected void tripOpen(OpenReason reason) {
+            if (status.compareAndSet(Status.CLOSED, Status.OPEN)) {
+                openReason = reason;
+                circuitOpened.set(System.currentTimeMillis());
+                HystrixPlugins.getInstance().getEventNotifier().markCircuitBreakerOpened(commandKey, reason);
+            }
+        }
 
-                        @Override
-                        public void onNext(HealthCounts hc) {
-                            // check if we are past the statisticalWindowVolumeThreshold
-                            if (hc.getTotalRequests() < properties.circuitBreakerRequestVolumeThreshold().get()) {
-                                // we are not past the minimum volume threshold for the stat window,
-                                // so no change to circuit status.
-                                // if it was CLOSED, it stays CLOSED
-                                // if it was half-open, we need to wait for a successful command execution
-                                // if it was open, we need to wait for sleep window to elapse
-                            } else {
-                                if (hc.getErrorPercentage() < properties.circuitBreakerErrorThresholdPercentage().get()) {
-                                    //we are not past the minimum error threshold for the stat window,
-                                    // so no change to circuit status.
-                                    // if it was CLOSED, it stays CLOSED
-                                    // if it was half-open, we need to wait for a successful command execution
-                                    // if it was open, we need to wait for sleep window to elapse
-                                } else {
-                                    // our failure rate is too high, we need to set the state to OPEN
-                                    if (status.compareAndSet(Status.CLOSED, Status.OPEN)) {
-                                        circuitOpened.set(System.currentTimeMillis());
-                                    }
-                                }
-                            }
-                        }
-                    });
+        /**
+         * @return why the circuit was last tripped open, or null if it is closed
+         */
+        public OpenReason getOpenReason() {
+            return openReason;
         }
 
+        /**
+         * Invoked by the thread which closes the circuit after a successful single test, so health starts over from 0.
+         */
+        protected abstract void resetHealth();
+
         @Override
         public void markSuccess() {
             if (status.compareAndSet(Status.HALF_OPEN, Status.CLOSED)) {
-                //This thread wins the race to close the circuit - it resets the stream to start it over from 0
-                metrics.resetStream();
-                Subscription previousSubscription = activeSubscription.get();
-                if (previousSubscription != null) {
-                    previousSubscription.unsubscribe();
-                }
-                Subscription newSubscription = subscribeToStream();
-                activeSubscription.set(newSubscription);
+                //This thread wins the race to close the circuit - it resets the health to start it over from 0
+                resetHealth();
                 circuitOpened.set(-1L);
+                openReason = null;
             }
         }
 
@@ -225,10 +268,10 @@ public interface HystrixCircuitBreaker {
 
         @Override
         public boolean isOpen() {
-            if (properties.circuitBreakerForceOpen().get()) {
+            if (properties.snapshot().circuitBreakerForceOpen()) {
                 return true;
             }
-            if (properties.circuitBreakerForceClosed().get()) {
+            if (properties.snapshot().circuitBreakerForceClosed()) {
                 return false;
             }
             return circuitOpened.get() >= 0;
@@ -236,10 +279,10 @@ public interface HystrixCircuitBreaker {
 
         @Override
         public boolean allowRequest() {
-            if (properties.circuitBreakerForceOpen().get()) {
+            if (properties.snapshot().circuitBreakerForceOpen()) {
                 return false;
             }
-            if (properties.circuitBreakerForceClosed().get()) {
+            if (properties.snapshot().circuitBreakerForceClosed()) {
                 return true;
             }
             if (circuitOpened.get() == -1) {
@@ -256,16 +299,16 @@ public interface HystrixCircuitBreaker {
         private boolean isAfterSleepWindow() {
             final long circuitOpenTime = circuitOpened.get();
             final long currentTime = System.currentTimeMillis();
-            final long sleepWindowTime = properties.circuitBreakerSleepWindowInMilliseconds().get();
+            final long sleepWindowTime = properties.snapshot().circuitBreakerSleepWindowInMilliseconds();
             return currentTime > circuitOpenTime + sleepWindowTime;
         }
 
         @Override
         public boolean attemptExecution() {
-            if (properties.circuitBreakerForceOpen().get()) {
+            if (properties.snapshot().circuitBreakerForceOpen()) {
                 return false;
             }
-            if (properties.circuitBreakerForceClosed().get()) {
+            if (properties.snapshot().circuitBreakerForceClosed()) {
                 return true;
             }
             if (circuitOpened.get() == -1) {
@@ -288,6 +331,164 @@ public interface HystrixCircuitBreaker {
         }
     }
 
+    /**
+     * The default production implementation of {@link HystrixCircuitBreaker}, which checks whether to trip on each
+     * snapshot from {@link HystrixCommandMetrics#getHealthCountsStream()}.
+     * 
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    /* package */class HystrixCircuitBreakerImpl extends AbstractCircuitBreaker {
+        private final HystrixCommandMetrics metrics;
+
+        private final AtomicReference<Subscription> activeSubscription = new AtomicReference<Subscription>(null);
+
+        protected HystrixCircuitBreakerImpl(HystrixCommandKey key, HystrixCommandGroupKey commandGroup, final HystrixCommandProperties properties, HystrixCommandMetrics metrics) {
+            super(key, properties);
+            this.metrics = metrics;
+
+            //On a timer, this will set the circuit between OPEN/CLOSED as command executions occur
+            Subscription s = subscribeToStream();
+            activeSubscription.set(s);
+        }
+
+        private Subscription subscribeToStream() {
+            /*
+             * This stream will recalculate the OPEN/CLOSED status on every onNext from the health stream
+             */
+            return metrics.getHealthCountsStream()
+                    .observe()
+                    .subscribe(new Subscriber<HealthCounts>() {
+                        @Override
+                        public void onCompleted() {
+
+                        }
+
+                        @Override
+                        public void onError(Throwable e) {
+
+                        }
+
+                        @Override
+                        public void onNext(HealthCounts hc) {
+                            checkHealth(hc.getTotalRequests(), hc.getErrorPercentage(), hc.getSlowCallPercentage());
+                        }
+                    });
+        }
+
+        @Override
+        protected void resetHealth() {
+            metrics.resetStream();
+            Subscription previousSubscription = activeSubscription.get();
+            if (previousSubscription != null) {
+                previousSubscription.unsubscribe();
+            }
+            Subscription newSubscription = subscribeToStream();
+            activeSubscription.set(newSubscription);
+        }
+    }
+
+    /**
+     * Circuit breaker whose health is counted completion by completion in a {@link HystrixRollingHealthCounter}, tripping on the completion that
+     * takes it past the threshold.  Completions are given to it by {@link #markCompletion}.
+     *
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    /* package */class HystrixRollingHealthCircuitBreaker extends AbstractCircuitBreaker {
+        private final HystrixRollingHealthCounter healthCounter;
+
+        protected HystrixRollingHealthCircuitBreaker(HystrixCommandKey commandKey, HystrixCommandProperties properties) {
+            super(commandKey, properties);
+            this.healthCounter = new HystrixRollingHealthCounter(properties.metricsRollingStatisticalWindowInMilliseconds().get(), properties.metricsRollingStatisticalWindowBuckets().get());
+        }
+
+        /**
+         * Count a completion towards the health of the circuit, using the same events as {@link HealthCounts}, and trip the circuit if that takes it past the threshold.
+         */
+        /* package */ void markCompletion(ExecutionResult.EventCounts eventCounts) {
+            markCompletion(eventCounts, -1);
+        }
+
+        /**
+         * Count a completion towards the health of the circuit, using the same events as {@link HealthCounts}, and trip the circuit if that takes it past the threshold.
+         *
+         * @param executionLatency time in milliseconds spent executing, or -1 if it did not execute
+         */
+        /* package */ void markCompletion(ExecutionResult.EventCounts eventCounts, long executionLatency) {
+            int errors = eventCounts.getCount(HystrixEventType.FAILURE)
+                    + eventCounts.getCount(HystrixEventType.TIMEOUT)
+                    + eventCounts.getCount(HystrixEventType.THREAD_POOL_REJECTED)
+                    + eventCounts.getCount(HystrixEventType.SEMAPHORE_REJECTED)
+                    + eventCounts.getCount(HystrixEventType.RETRY);
+            int total = errors + eventCounts.getCount(HystrixEventType.SUCCESS);
+            if (total == 0) {
+                // short-circuited, or a bad request, neither of which say anything about health
+                return;
+            }
+            int slowCallThreshold = properties.snapshot().circuitBreakerSlowCallDurationThresholdInMilliseconds();
+            boolean slow = slowCallThreshold > 0 && executionLatency >= slowCallThreshold;
+            healthCounter.add(total, errors, slow ? 1 : 0);
+
+            checkHealth(healthCounter.getTotalRequests(), healthCounter.getErrorPercentage(), healthCounter.getSlowCallPercentage());
+        }
+
+        /* package */ HystrixRollingHealthCounter getHealthCounter() {
+            return healthCounter;
+        }
+
+        @Override
+        protected void resetHealth() {
+            healthCounter.reset();
+        }
+    }
+
+    /**
+     * Implementation of {@link HystrixCircuitBreaker} for {@link CircuitBreakerImplementation#SLIDING_WINDOW}.
+     * <p>
+     * Every completion from {@link HystrixCommandCompletionStream} is added to a {@link HystrixRollingHealthCounter} as it happens, and the
+     * trip condition is checked against its running totals straight away, on the thread completing the command.  This trips the circuit on
+     * the completion that takes it past the threshold, instead of up to {@link HystrixCommandProperties#metricsHealthSnapshotIntervalInMilliseconds()}
+     * later, and never sums the whole window.
+     *
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    /* package */class HystrixSlidingWindowCircuitBreakerImpl extends HystrixRollingHealthCircuitBreaker {
+        private final HystrixCommandMetrics metrics;
+
+        protected HystrixSlidingWindowCircuitBreakerImpl(HystrixCommandKey key, HystrixCommandGroupKey commandGroup, final HystrixCommandProperties properties, HystrixCommandMetrics metrics) {
+            super(key, properties);
+            this.metrics = metrics;
+
+            HystrixCommandCompletionStream.getInstance(key)
+                    .observe()
+                    .subscribe(new Subscriber<HystrixCommandCompletion>() {
+                        @Override
+                        public void onCompleted() {
+
+                        }
+
+                        @Override
+                        public void onError(Throwable e) {
+
+                        }
+
+                        @Override
+                        public void onNext(HystrixCommandCompletion completion) {
+                            markCompletion(completion.getEventCounts(), completion.getExecutionLatency());
+                        }
+                    });
+        }
+
+        @Override
+        protected void resetHealth() {
+            super.resetHealth();
+            // keep the health reported in metrics in line with the circuit
+            metrics.resetStream();
+        }
+    }
+
     /**
      * An implementation of the circuit breaker that does nothing.
      * 
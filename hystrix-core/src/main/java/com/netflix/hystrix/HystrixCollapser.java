@@ -158,6 +158,7 @@ public abstract class HystrixCollapser<BatchReturnType, ResponseType, RequestArg
 
                 command.markAsCollapsedCommand(this.getCollapserKey(), requests.size());
                 self.metrics.markBatch(requests.size());
+                self.metrics.markBatchCommand(command.getCommandKey());
 
                 return command.toObservable();
             }
@@ -15,7 +15,9 @@
  */
 package com.netflix.hystrix;
 
-import java.util.concurrent.ConcurrentHashMap;
+import com.netflix.hystrix.util.InternMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A key to represent a {@link HystrixCollapser} for monitoring, circuit-breakers, metrics publishing, caching and other such uses.
@@ -36,8 +38,18 @@ public interface HystrixCollapserKey {
         private Factory() {
         }
 
+        // ordinal of the next key interned, so that per-key state can be held in a com.netflix.hystrix.util.OrdinalTable
+        private static final AtomicInteger nextOrdinal = new AtomicInteger();
+
         // used to intern instances so we don't keep re-creating them millions of times for the same key
-        private static ConcurrentHashMap<String, HystrixCollapserKey> intern = new ConcurrentHashMap<String, HystrixCollapserKey>();
+        private static final InternMap<String, HystrixCollapserKeyDefault> intern
+                = new InternMap<String, HystrixCollapserKeyDefault>(
+                new InternMap.ValueConstructor<String, HystrixCollapserKeyDefault>() {
+                    @Override
+                    public HystrixCollapserKeyDefault create(String key) {
+                        return new HystrixCollapserKeyDefault(key, nextOrdinal.getAndIncrement());
+                    }
+                });
 
         /**
          * Retrieve (or create) an interned HystrixCollapserKey instance for a given name.
@@ -46,19 +58,30 @@ public interface HystrixCollapserKey {
          * @return HystrixCollapserKey instance that is interned (cached) so a given name will always retrieve the same instance.
          */
         public static HystrixCollapserKey asKey(String name) {
-            HystrixCollapserKey k = intern.get(name);
-            if (k == null) {
-                intern.putIfAbsent(name, new HystrixCollapserKeyDefault(name));
+            return intern.interned(name);
+        }
+
+        /**
+         * Dense ordinal of a HystrixCollapserKey, the same for every key with the same name, for indexing per-key state.
+         *
+         * @param key collapser key, which may be implemented outside of this factory (such as by an Enum)
+         * @return ordinal of the interned key with the same name
+         */
+        public static int ordinalOf(HystrixCollapserKey key) {
+            if (key instanceof HystrixCollapserKeyDefault) {
+                return ((HystrixCollapserKeyDefault) key).ordinal;
             }
-            return intern.get(name);
+            return intern.interned(key.name()).ordinal;
         }
 
         private static class HystrixCollapserKeyDefault implements HystrixCollapserKey {
 
-            private String name;
+            private final String name;
+            private final int ordinal;
 
-            private HystrixCollapserKeyDefault(String name) {
+            private HystrixCollapserKeyDefault(String name, int ordinal) {
                 this.name = name;
+                this.ordinal = ordinal;
             }
 
             @Override
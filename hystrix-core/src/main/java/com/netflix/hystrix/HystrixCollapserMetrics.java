@@ -115,6 +115,9 @@ public class HystrixCollapserMetrics extends HystrixMetrics {
     private final CumulativeCollapserEventCounterStream cumulativeCollapserEventCounterStream;
     private final RollingCollapserBatchSizeDistributionStream rollingCollapserBatchSizeDistributionStream;
 
+    private volatile HystrixCommandKey batchCommandKey = null;
+    private volatile int batchWindowInMilliseconds = -1;
+
     /* package */HystrixCollapserMetrics(HystrixCollapserKey key, HystrixCollapserProperties properties) {
         super(null);
         this.collapserKey = key;
@@ -205,4 +208,50 @@ public class HystrixCollapserMetrics extends HystrixMetrics {
 
     public void markShards(int numShards) {
     }
+
+    /**
+     * Record the {@link HystrixCommandKey} of the command batches are executed with, so its latency can be looked up.
+     *
+     * @param commandKey key of the batch command
+     */
+    public void markBatchCommand(HystrixCommandKey commandKey) {
+        if (batchCommandKey != commandKey) {
+            batchCommandKey = commandKey;
+        }
+    }
+
+    /**
+     * Mean latency of the command batches are executed with, as seen by the caller (including any queueing and timeouts), over the rolling percentile window.
+     *
+     * @return mean latency in milliseconds, or -1 if no batch has been executed yet
+     */
+    public int getBatchCommandLatencyMean() {
+        HystrixCommandKey commandKey = batchCommandKey;
+        if (commandKey == null) {
+            return -1;
+        }
+        HystrixCommandMetrics commandMetrics = HystrixCommandMetrics.getInstance(commandKey);
+        if (commandMetrics == null) {
+            return -1;
+        }
+        return commandMetrics.getTotalTimeMean();
+    }
+
+    public void markBatchWindow(int windowInMilliseconds) {
+        this.batchWindowInMilliseconds = windowInMilliseconds;
+    }
+
+    /**
+     * How long batches are currently held for before being executed.  This is {@link HystrixCollapserProperties#timerDelayInMilliseconds()} unless
+     * {@link HystrixCollapserProperties#adaptiveBatchWindowEnabled()}, in which case it is the window most recently chosen for this collapser.
+     *
+     * @return batch window in milliseconds
+     */
+    public int getBatchWindowInMilliseconds() {
+        int window = batchWindowInMilliseconds;
+        if (window < 0 || !properties.adaptiveBatchWindowEnabled().get()) {
+            return properties.timerDelayInMilliseconds().get();
+        }
+        return window;
+    }
 }
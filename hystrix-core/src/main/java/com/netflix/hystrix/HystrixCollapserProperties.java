@@ -35,6 +35,9 @@ public abstract class HystrixCollapserProperties {
     private static final Integer default_maxRequestsInBatch = Integer.MAX_VALUE;
     private static final Integer default_timerDelayInMilliseconds = 10;
     private static final Boolean default_requestCacheEnabled = true;
+    private static final Boolean default_adaptiveBatchWindowEnabled = false;
+    private static final Integer default_adaptiveBatchWindowMinDelayInMilliseconds = 1;
+    private static final Integer default_adaptiveBatchWindowMaxDelayInMilliseconds = 10; // default => no longer than the default timerDelayInMilliseconds
     /* package */ static final Integer default_metricsRollingStatisticalWindow = 10000;// default => statisticalWindow: 10000 = 10 seconds (and default of 10 buckets so each bucket is 1 second)
     private static final Integer default_metricsRollingStatisticalWindowBuckets = 10;// default => statisticalWindowBuckets: 10 = 10 buckets in a 10 second window so each bucket is 1 second
     private static final Boolean default_metricsRollingPercentileEnabled = true;
@@ -45,6 +48,9 @@ public abstract class HystrixCollapserProperties {
     private final HystrixProperty<Integer> maxRequestsInBatch;
     private final HystrixProperty<Integer> timerDelayInMilliseconds;
     private final HystrixProperty<Boolean> requestCacheEnabled;
+    private final HystrixProperty<Boolean> adaptiveBatchWindowEnabled; // whether the batch window adapts to arrival rate and batch command latency
+    private final HystrixProperty<Integer> adaptiveBatchWindowMinDelayInMilliseconds; // shortest batch window when adaptive
+    private final HystrixProperty<Integer> adaptiveBatchWindowMaxDelayInMilliseconds; // longest batch window when adaptive
     private final HystrixProperty<Integer> metricsRollingStatisticalWindowInMilliseconds; // milliseconds back that will be tracked
     private final HystrixProperty<Integer> metricsRollingStatisticalWindowBuckets; // number of buckets in the statisticalWindow
     private final HystrixProperty<Boolean> metricsRollingPercentileEnabled; // Whether monitoring should be enabled
@@ -64,6 +70,9 @@ public abstract class HystrixCollapserProperties {
         this.maxRequestsInBatch = getProperty(propertyPrefix, key, "maxRequestsInBatch", builder.getMaxRequestsInBatch(), default_maxRequestsInBatch);
         this.timerDelayInMilliseconds = getProperty(propertyPrefix, key, "timerDelayInMilliseconds", builder.getTimerDelayInMilliseconds(), default_timerDelayInMilliseconds);
         this.requestCacheEnabled = getProperty(propertyPrefix, key, "requestCache.enabled", builder.getRequestCacheEnabled(), default_requestCacheEnabled);
+        this.adaptiveBatchWindowEnabled = getProperty(propertyPrefix, key, "adaptiveBatchWindow.enabled", builder.getAdaptiveBatchWindowEnabled(), default_adaptiveBatchWindowEnabled);
+        this.adaptiveBatchWindowMinDelayInMilliseconds = getProperty(propertyPrefix, key, "adaptiveBatchWindow.minDelayInMilliseconds", builder.getAdaptiveBatchWindowMinDelayInMilliseconds(), default_adaptiveBatchWindowMinDelayInMilliseconds);
+        this.adaptiveBatchWindowMaxDelayInMilliseconds = getProperty(propertyPrefix, key, "adaptiveBatchWindow.maxDelayInMilliseconds", builder.getAdaptiveBatchWindowMaxDelayInMilliseconds(), default_adaptiveBatchWindowMaxDelayInMilliseconds);
         this.metricsRollingStatisticalWindowInMilliseconds = getProperty(propertyPrefix, key, "metrics.rollingStats.timeInMilliseconds", builder.getMetricsRollingStatisticalWindowInMilliseconds(), default_metricsRollingStatisticalWindow);
         this.metricsRollingStatisticalWindowBuckets = getProperty(propertyPrefix, key, "metrics.rollingStats.numBuckets", builder.getMetricsRollingStatisticalWindowBuckets(), default_metricsRollingStatisticalWindowBuckets);
         this.metricsRollingPercentileEnabled = getProperty(propertyPrefix, key, "metrics.rollingPercentile.enabled", builder.getMetricsRollingPercentileEnabled(), default_metricsRollingPercentileEnabled);
@@ -127,6 +136,38 @@ public abstract class HystrixCollapserProperties {
         return timerDelayInMilliseconds;
     }
 
+    /**
+     * Whether the batch window adapts to the rate requests arrive at and the latency of the batch command, instead of always being {@link #timerDelayInMilliseconds()}.
+     * <p>
+     * When enabled a batch is held for about as long as the batch command takes to run, bounded by {@link #adaptiveBatchWindowMinDelayInMilliseconds()} and
+     * {@link #adaptiveBatchWindowMaxDelayInMilliseconds()}, and is executed early once it holds as many requests as are expected to arrive in that window.
+     * The chosen window is available from {@link HystrixCollapserMetrics#getBatchWindowInMilliseconds()}.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> adaptiveBatchWindowEnabled() {
+        return adaptiveBatchWindowEnabled;
+    }
+
+    /**
+     * The shortest time a batch is held for when {@link #adaptiveBatchWindowEnabled()}.  This is also how often the batch is checked, so it is the
+     * granularity the window is chosen at.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> adaptiveBatchWindowMinDelayInMilliseconds() {
+        return adaptiveBatchWindowMinDelayInMilliseconds;
+    }
+
+    /**
+     * The longest time a batch is held for when {@link #adaptiveBatchWindowEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> adaptiveBatchWindowMaxDelayInMilliseconds() {
+        return adaptiveBatchWindowMaxDelayInMilliseconds;
+    }
+
     /**
      * Duration of statistical rolling window in milliseconds. This is passed into {@link HystrixRollingNumber} inside {@link HystrixCommandMetrics}.
      *
@@ -217,6 +258,9 @@ public abstract class HystrixCollapserProperties {
         private Integer maxRequestsInBatch = null;
         private Integer timerDelayInMilliseconds = null;
         private Boolean requestCacheEnabled = null;
+        private Boolean adaptiveBatchWindowEnabled = null;
+        private Integer adaptiveBatchWindowMinDelayInMilliseconds = null;
+        private Integer adaptiveBatchWindowMaxDelayInMilliseconds = null;
         private Integer metricsRollingStatisticalWindowInMilliseconds = null;
         private Integer metricsRollingStatisticalWindowBuckets = null;
         private Integer metricsRollingPercentileBucketSize = null;
@@ -247,6 +291,18 @@ public abstract class HystrixCollapserProperties {
             return requestCacheEnabled;
         }
 
+        public Boolean getAdaptiveBatchWindowEnabled() {
+            return adaptiveBatchWindowEnabled;
+        }
+
+        public Integer getAdaptiveBatchWindowMinDelayInMilliseconds() {
+            return adaptiveBatchWindowMinDelayInMilliseconds;
+        }
+
+        public Integer getAdaptiveBatchWindowMaxDelayInMilliseconds() {
+            return adaptiveBatchWindowMaxDelayInMilliseconds;
+        }
+
         public Integer getMetricsRollingStatisticalWindowInMilliseconds() {
             return metricsRollingStatisticalWindowInMilliseconds;
         }
@@ -295,6 +351,21 @@ public abstract class HystrixCollapserProperties {
             return this;
         }
 
+        public Setter withAdaptiveBatchWindowEnabled(boolean value) {
+            this.adaptiveBatchWindowEnabled = value;
+            return this;
+        }
+
+        public Setter withAdaptiveBatchWindowMinDelayInMilliseconds(int value) {
+            this.adaptiveBatchWindowMinDelayInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withAdaptiveBatchWindowMaxDelayInMilliseconds(int value) {
+            this.adaptiveBatchWindowMaxDelayInMilliseconds = value;
+            return this;
+        }
+
         public Setter withMetricsRollingStatisticalWindowInMilliseconds(int value) {
             this.metricsRollingStatisticalWindowInMilliseconds = value;
             return this;
@@ -15,6 +15,7 @@
  */
 package com.netflix.hystrix;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -30,6 +31,7 @@ import rx.functions.Action0;
 import com.netflix.hystrix.exception.HystrixBadRequestException;
 import com.netflix.hystrix.exception.HystrixRuntimeException;
 import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
 import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 import rx.functions.Func0;
@@ -132,6 +134,21 @@ public abstract class HystrixCommand<R> extends AbstractCommand<R> implements Hy
     protected HystrixCommand(Setter setter) {
         // use 'null' to specify use the default
         this(setter.groupKey, setter.commandKey, setter.threadPoolKey, null, null, setter.commandPropertiesDefaults, setter.threadPoolPropertiesDefaults, null, null, null, null, null);
+        this.declaredPriority = setter.priority;
+    }
+
+    /**
+     * Construct a {@link HystrixCommand} from a {@link Template}, which resolves the {@link HystrixCommandProperties}, {@link HystrixCommandMetrics},
+     * {@link HystrixCircuitBreaker}, {@link HystrixThreadPool} and plugins for its {@link HystrixCommandKey} once instead of for every instance.
+     * <p>
+     * This is the cheapest way to construct commands which are created often, such as on every request, from a {@link Template} held in a static field.
+     *
+     * @param template
+     *            {@link Template} shared by the commands created from it
+     */
+    protected HystrixCommand(Template template) {
+        super(template);
+        this.declaredPriority = template.priority;
     }
 
     /**
@@ -168,6 +185,7 @@ public abstract class HystrixCommand<R> extends AbstractCommand<R> implements Hy
         protected HystrixThreadPoolKey threadPoolKey;
         protected HystrixCommandProperties.Setter commandPropertiesDefaults;
         protected HystrixThreadPoolProperties.Setter threadPoolPropertiesDefaults;
+        protected HystrixPriority priority;
 
         /**
          * Setter factory method containing required values.
@@ -261,6 +279,78 @@ public abstract class HystrixCommand<R> extends AbstractCommand<R> implements Hy
             return this;
         }
 
+        /**
+         * Optional
+         *
+         * @param priority
+         *            {@link HystrixPriority} with which this command competes for the queue of its {@link HystrixThreadPool} when
+         *            {@link HystrixThreadPoolProperties#queuePriorityEnabled()}.
+         *            <p>
+         *            By default this is the priority of the {@link HystrixRequestContext}, or {@link HystrixPriority#NORMAL} if it has none.
+         * @return Setter for fluent interface via method chaining
+         */
+        public Setter andPriority(HystrixPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+    }
+
+    /**
+     * Arguments to the {@link HystrixCommand} constructor from a {@link Setter}, along with the per-key state they resolve to, shared by every command
+     * constructed with {@link HystrixCommand#HystrixCommand(Template)}.
+     * <p>
+     * The state is resolved when the first command is constructed, so if no {@link HystrixCommandKey} is set it is derived from the class of that
+     * command.  It is resolved again after {@link Hystrix#reset()}, or if {@link HystrixCommandProperties#circuitBreakerEnabled()} or
+     * {@link HystrixCommandProperties#executionIsolationThreadPoolKeyOverride()} change.
+     * <p>
+     * Example:
+     * <pre> {@code
+     *  private static final HystrixCommand.Template TEMPLATE = new HystrixCommand.Template(
+     *          Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("GroupName"))
+     *                  .andCommandKey(HystrixCommandKey.Factory.asKey("CommandName")));
+     *
+     *  public CommandName(String argument) {
+     *      super(TEMPLATE);
+     *      this.argument = argument;
+     *  }
+     * } </pre>
+     *
+     * @ThreadSafe
+     */
+    final public static class Template {
+
+        private final HystrixCommandGroupKey groupKey;
+        private final HystrixCommandKey commandKey;
+        private final HystrixThreadPoolKey threadPoolKey;
+        private final HystrixCommandProperties.Setter commandPropertiesDefaults;
+        private final HystrixThreadPoolProperties.Setter threadPoolPropertiesDefaults;
+        private final HystrixPriority priority;
+
+        private volatile Prototype prototype;
+
+        /**
+         * @param setter
+         *            arguments for the commands constructed from this, which are copied so later changes to the {@link Setter} have no effect
+         */
+        public Template(Setter setter) {
+            this.groupKey = setter.groupKey;
+            this.commandKey = setter.commandKey;
+            this.threadPoolKey = setter.threadPoolKey;
+            this.commandPropertiesDefaults = setter.commandPropertiesDefaults;
+            this.threadPoolPropertiesDefaults = setter.threadPoolPropertiesDefaults;
+            this.priority = setter.priority;
+        }
+
+        /* package */Prototype getPrototype(Class<?> commandClass) {
+            Prototype p = prototype;
+            if (p == null || !p.isCurrent()) {
+                // concurrent callers may each resolve it, which is harmless as the registries ensure they all get the same state
+                p = new Prototype(groupKey, commandKey, threadPoolKey, commandPropertiesDefaults, threadPoolPropertiesDefaults, commandClass);
+                prototype = p;
+            }
+            return p;
+        }
     }
 
 	private final AtomicReference<Thread> executionThread = new AtomicReference<Thread>();
@@ -290,7 +380,7 @@ public abstract class HystrixCommand<R> extends AbstractCommand<R> implements Hy
      * @return R or throw UnsupportedOperationException if not implemented
      */
     protected R getFallback() {
-        throw new UnsupportedOperationException("No fallback available.");
+        throw HystrixFailFastExceptions.noFallback(HystrixFailFastExceptions.isStackless(getProperties()));
     }
 
     @Override
@@ -329,6 +419,9 @@ public abstract class HystrixCommand<R> extends AbstractCommand<R> implements Hy
 
     /**
      * Used for synchronous execution of command.
+     * <p>
+     * A command that runs on the calling thread is executed without subscribing to {@link #toObservable()} when
+     * {@link HystrixCommandProperties#executionIsolationSemaphoreSynchronousExecutionEnabled()} allows it.
      * 
      * @return R
      *         Result of {@link #run()} execution or a fallback from {@link #getFallback()} if the command fails for any reason.
@@ -341,6 +434,19 @@ public abstract class HystrixCommand<R> extends AbstractCommand<R> implements Hy
      */
     public R execute() {
         try {
+            if (isSynchronousExecutionEnabled()) {
+                return executeOnCallingThread(new Callable<R>() {
+                    @Override
+                    public R call() throws Exception {
+                        return run();
+                    }
+                }, new Callable<R>() {
+                    @Override
+                    public R call() {
+                        return getFallback();
+                    }
+                });
+            }
             return queue().get();
         } catch (Exception e) {
             throw Exceptions.sneakyThrow(decomposeException(e));
@@ -17,6 +17,8 @@ package com.netflix.hystrix;
 
 import com.netflix.hystrix.util.InternMap;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A key to represent a {@link HystrixCommand} for monitoring, circuit-breakers, metrics publishing, caching and other such uses.
  * <p>
@@ -27,13 +29,16 @@ public interface HystrixCommandKey extends HystrixKey {
         private Factory() {
         }
 
+        // ordinal of the next key interned, so that per-key state can be held in a com.netflix.hystrix.util.OrdinalTable
+        private static final AtomicInteger nextOrdinal = new AtomicInteger();
+
         // used to intern instances so we don't keep re-creating them millions of times for the same key
         private static final InternMap<String, HystrixCommandKeyDefault> intern
                 = new InternMap<String, HystrixCommandKeyDefault>(
                 new InternMap.ValueConstructor<String, HystrixCommandKeyDefault>() {
                     @Override
                     public HystrixCommandKeyDefault create(String key) {
-                        return new HystrixCommandKeyDefault(key);
+                        return new HystrixCommandKeyDefault(key, nextOrdinal.getAndIncrement());
                     }
                 });
 
@@ -48,9 +53,25 @@ public interface HystrixCommandKey extends HystrixKey {
             return intern.interned(name);
         }
 
+        /**
+         * Dense ordinal of a HystrixCommandKey, the same for every key with the same name, for indexing per-key state.
+         *
+         * @param key command key, which may be implemented outside of this factory (such as by an Enum)
+         * @return ordinal of the interned key with the same name
+         */
+        public static int ordinalOf(HystrixCommandKey key) {
+            if (key instanceof HystrixCommandKeyDefault) {
+                return ((HystrixCommandKeyDefault) key).ordinal;
+            }
+            return intern.interned(key.name()).ordinal;
+        }
+
         private static class HystrixCommandKeyDefault extends HystrixKey.HystrixKeyDefault implements HystrixCommandKey {
-            public HystrixCommandKeyDefault(String name) {
+            private final int ordinal;
+
+            public HystrixCommandKeyDefault(String name, int ordinal) {
                 super(name);
+                this.ordinal = ordinal;
             }
         }
 
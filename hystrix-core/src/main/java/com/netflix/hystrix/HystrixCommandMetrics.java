@@ -16,6 +16,7 @@
 package com.netflix.hystrix;
 
 import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandEventDispatcher;
 import com.netflix.hystrix.metric.HystrixThreadEventStream;
 import com.netflix.hystrix.metric.consumer.CumulativeCommandEventCounterStream;
 import com.netflix.hystrix.metric.consumer.HealthCountsStream;
@@ -26,14 +27,13 @@ import com.netflix.hystrix.metric.consumer.RollingCommandUserLatencyDistribution
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier;
 import com.netflix.hystrix.util.HystrixRollingNumberEvent;
+import com.netflix.hystrix.util.OrdinalTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.functions.Func0;
 import rx.functions.Func2;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -81,8 +81,8 @@ public class HystrixCommandMetrics extends HystrixMetrics {
         }
     };
 
-    // String is HystrixCommandKey.name() (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
-    private static final ConcurrentHashMap<String, HystrixCommandMetrics> metrics = new ConcurrentHashMap<String, HystrixCommandMetrics>();
+    // indexed by HystrixCommandKey.Factory.ordinalOf(key) (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+    private static final OrdinalTable<HystrixCommandMetrics> metrics = new OrdinalTable<HystrixCommandMetrics>();
 
     /**
      * Get or create the {@link HystrixCommandMetrics} instance for a given {@link HystrixCommandKey}.
@@ -116,12 +116,13 @@ public class HystrixCommandMetrics extends HystrixMetrics {
      */
     public static HystrixCommandMetrics getInstance(HystrixCommandKey key, HystrixCommandGroupKey commandGroup, HystrixThreadPoolKey threadPoolKey, HystrixCommandProperties properties) {
         // attempt to retrieve from cache first
-        HystrixCommandMetrics commandMetrics = metrics.get(key.name());
+        int ordinal = HystrixCommandKey.Factory.ordinalOf(key);
+        HystrixCommandMetrics commandMetrics = metrics.get(ordinal);
         if (commandMetrics != null) {
             return commandMetrics;
         } else {
             synchronized (HystrixCommandMetrics.class) {
-                HystrixCommandMetrics existingMetrics = metrics.get(key.name());
+                HystrixCommandMetrics existingMetrics = metrics.get(ordinal);
                 if (existingMetrics != null) {
                     return existingMetrics;
                 } else {
@@ -132,7 +133,7 @@ public class HystrixCommandMetrics extends HystrixMetrics {
                         nonNullThreadPoolKey = threadPoolKey;
                     }
                     HystrixCommandMetrics newCommandMetrics = new HystrixCommandMetrics(key, commandGroup, nonNullThreadPoolKey, properties, HystrixPlugins.getInstance().getEventNotifier());
-                    metrics.putIfAbsent(key.name(), newCommandMetrics);
+                    metrics.putIfAbsent(ordinal, newCommandMetrics);
                     return newCommandMetrics;
                 }
             }
@@ -147,7 +148,7 @@ public class HystrixCommandMetrics extends HystrixMetrics {
      * @return {@link HystrixCommandMetrics}
      */
     public static HystrixCommandMetrics getInstance(HystrixCommandKey key) {
-        return metrics.get(key.name());
+        return metrics.get(HystrixCommandKey.Factory.ordinalOf(key));
     }
 
     /**
@@ -156,7 +157,7 @@ public class HystrixCommandMetrics extends HystrixMetrics {
      * @return {@code Collection<HystrixCommandMetrics>}
      */
     public static Collection<HystrixCommandMetrics> getInstances() {
-        return Collections.unmodifiableCollection(metrics.values());
+        return metrics.values();
     }
 
     /**
@@ -174,6 +175,7 @@ public class HystrixCommandMetrics extends HystrixMetrics {
     private final HystrixCommandGroupKey group;
     private final HystrixThreadPoolKey threadPoolKey;
     private final AtomicInteger concurrentExecutionCount = new AtomicInteger();
+    private final HystrixCommandEventDispatcher directEventDispatcher; // null when events go through HystrixThreadEventStream
 
     private HealthCountsStream healthCountsStream;
     private final RollingCommandEventCounterStream rollingCommandEventCounterStream;
@@ -189,6 +191,12 @@ public class HystrixCommandMetrics extends HystrixMetrics {
         this.threadPoolKey = threadPoolKey;
         this.properties = properties;
 
+        if (isDirectEventDispatchEnabled()) {
+            directEventDispatcher = HystrixCommandEventDispatcher.forCommand(key);
+        } else {
+            directEventDispatcher = null;
+        }
+
         healthCountsStream = HealthCountsStream.getInstance(key, properties);
         rollingCommandEventCounterStream = RollingCommandEventCounterStream.getInstance(key, properties);
         cumulativeCommandEventCounterStream = CumulativeCommandEventCounterStream.getInstance(key, properties);
@@ -198,6 +206,15 @@ public class HystrixCommandMetrics extends HystrixMetrics {
         rollingCommandMaxConcurrencyStream = RollingCommandMaxConcurrencyStream.getInstance(key, properties);
     }
 
+    /**
+     * Whether command start/completion events skip the per-thread {@link HystrixThreadEventStream} and get written
+     * synchronously to the sharded streams via a {@link HystrixCommandEventDispatcher}.  Looked up once per command key,
+     * when its metrics get created.
+     */
+    private static boolean isDirectEventDispatchEnabled() {
+        return HystrixPlugins.getInstance().getDynamicProperties().getBoolean("hystrix.metrics.directEventDispatch.enabled", false).get();
+    }
+
     /* package */ synchronized void resetStream() {
         healthCountsStream.unsubscribe();
         HealthCountsStream.removeByKey(key);
@@ -331,13 +348,36 @@ public class HystrixCommandMetrics extends HystrixMetrics {
         return concurrentExecutionCount.get();
     }
 
+    /**
+     * Current number of concurrent executions permitted by the adaptive concurrency limit.
+     * <p>
+     * See {@link HystrixCommandProperties#executionAdaptiveConcurrencyLimitEnabled()}.
+     *
+     * @return int, or -1 if the adaptive concurrency limit isn't in use for this command
+     */
+    public int getConcurrencyLimit() {
+        HystrixConcurrencyLimiter limiter = HystrixConcurrencyLimiter.Factory.getInstance(key);
+        if (limiter == null) {
+            return -1;
+        }
+        return limiter.getLimit();
+    }
+
     /* package-private */ void markCommandStart(HystrixCommandKey commandKey, HystrixThreadPoolKey threadPoolKey, HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy) {
         int currentCount = concurrentExecutionCount.incrementAndGet();
-        HystrixThreadEventStream.getInstance().commandExecutionStarted(commandKey, threadPoolKey, isolationStrategy, currentCount);
+        if (directEventDispatcher != null) {
+            directEventDispatcher.commandExecutionStarted(commandKey, threadPoolKey, isolationStrategy, currentCount);
+        } else {
+            HystrixThreadEventStream.getInstance().commandExecutionStarted(commandKey, threadPoolKey, isolationStrategy, currentCount);
+        }
     }
 
     /* package-private */ void markCommandDone(ExecutionResult executionResult, HystrixCommandKey commandKey, HystrixThreadPoolKey threadPoolKey, boolean executionStarted) {
-        HystrixThreadEventStream.getInstance().executionDone(executionResult, commandKey, threadPoolKey);
+        if (directEventDispatcher != null) {
+            directEventDispatcher.executionDone(executionResult, commandKey, threadPoolKey);
+        } else {
+            HystrixThreadEventStream.getInstance().executionDone(executionResult, commandKey, threadPoolKey);
+        }
         if (executionStarted) {
             concurrentExecutionCount.decrementAndGet();
         }
@@ -357,6 +397,7 @@ public class HystrixCommandMetrics extends HystrixMetrics {
      * <li>{@link HystrixEventType#TIMEOUT}
      * <li>{@link HystrixEventType#THREAD_POOL_REJECTED}
      * <li>{@link HystrixEventType#SEMAPHORE_REJECTED}
+     * <li>{@link HystrixEventType#RETRY} - each retry follows a failed attempt, which counts as a failure
      * </ul><p>
      * The following are not included in either attempts/failures:
      * <p><ul>
@@ -392,14 +433,23 @@ public class HystrixCommandMetrics extends HystrixMetrics {
         private final long totalCount;
         private final long errorCount;
         private final int errorPercentage;
+        private final long slowCallCount;
+        private final int slowCallPercentage;
 
         HealthCounts(long total, long error) {
+            this(total, error, 0);
+        }
+
+        HealthCounts(long total, long error, long slowCalls) {
             this.totalCount = total;
             this.errorCount = error;
+            this.slowCallCount = slowCalls;
             if (totalCount > 0) {
                 this.errorPercentage = (int) ((double) errorCount / totalCount * 100);
+                this.slowCallPercentage = (int) ((double) slowCallCount / totalCount * 100);
             } else {
                 this.errorPercentage = 0;
+                this.slowCallPercentage = 0;
             }
         }
 
@@ -417,19 +467,39 @@ public class HystrixCommandMetrics extends HystrixMetrics {
             return errorPercentage;
         }
 
+        /**
+         * @return number of requests that took at least {@link HystrixCommandProperties#circuitBreakerSlowCallDurationThresholdInMilliseconds()}
+         */
+        public long getSlowCallCount() {
+            return slowCallCount;
+        }
+
+        public int getSlowCallPercentage() {
+            return slowCallPercentage;
+        }
+
+        /**
+         * @param eventTypeCounts counts indexed by {@link HystrixEventType#ordinal()}, optionally followed by a count of slow calls at
+         *                        {@link HealthCountsStream#SLOW_CALL_INDEX}
+         */
         public HealthCounts plus(long[] eventTypeCounts) {
             long updatedTotalCount = totalCount;
             long updatedErrorCount = errorCount;
+            long updatedSlowCallCount = slowCallCount;
 
             long successCount = eventTypeCounts[HystrixEventType.SUCCESS.ordinal()];
             long failureCount = eventTypeCounts[HystrixEventType.FAILURE.ordinal()];
             long timeoutCount = eventTypeCounts[HystrixEventType.TIMEOUT.ordinal()];
             long threadPoolRejectedCount = eventTypeCounts[HystrixEventType.THREAD_POOL_REJECTED.ordinal()];
             long semaphoreRejectedCount = eventTypeCounts[HystrixEventType.SEMAPHORE_REJECTED.ordinal()];
+            long retryCount = eventTypeCounts[HystrixEventType.RETRY.ordinal()];
 
-            updatedTotalCount += (successCount + failureCount + timeoutCount + threadPoolRejectedCount + semaphoreRejectedCount);
-            updatedErrorCount += (failureCount + timeoutCount + threadPoolRejectedCount + semaphoreRejectedCount);
-            return new HealthCounts(updatedTotalCount, updatedErrorCount);
+            updatedTotalCount += (successCount + failureCount + timeoutCount + threadPoolRejectedCount + semaphoreRejectedCount + retryCount);
+            updatedErrorCount += (failureCount + timeoutCount + threadPoolRejectedCount + semaphoreRejectedCount + retryCount);
+            if (eventTypeCounts.length > HealthCountsStream.SLOW_CALL_INDEX) {
+                updatedSlowCallCount += eventTypeCounts[HealthCountsStream.SLOW_CALL_INDEX];
+            }
+            return new HealthCounts(updatedTotalCount, updatedErrorCount, updatedSlowCallCount);
         }
 
         public static HealthCounts empty() {
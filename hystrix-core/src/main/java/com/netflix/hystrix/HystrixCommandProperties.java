@@ -44,8 +44,13 @@ public abstract class HystrixCommandProperties {
     private static final Integer default_circuitBreakerRequestVolumeThreshold = 20;// default => statisticalWindowVolumeThreshold: 20 requests in 10 seconds must occur before statistics matter
     private static final Integer default_circuitBreakerSleepWindowInMilliseconds = 5000;// default => sleepWindow: 5000 = 5 seconds that we will sleep before trying again after tripping the circuit
     private static final Integer default_circuitBreakerErrorThresholdPercentage = 50;// default => errorThresholdPercentage = 50 = if 50%+ of requests in 10 seconds are failures or latent then we will trip the circuit
+    private static final Integer default_circuitBreakerSlowCallDurationThresholdInMilliseconds = 0;// default => slowCallDurationThreshold = 0 = no call is slow, so the circuit only trips on errors
+    private static final Integer default_circuitBreakerSlowCallRateThresholdPercentage = 50;// default => slowCallRateThreshold = 50 = if 50%+ of requests in 10 seconds are slow then we will trip the circuit
     private static final Boolean default_circuitBreakerForceOpen = false;// default => forceCircuitOpen = false (we want to allow traffic)
     /* package */ static final Boolean default_circuitBreakerForceClosed = false;// default => ignoreErrors = false 
+    private static final CircuitBreakerImplementation default_circuitBreakerImplementation = CircuitBreakerImplementation.HEALTH_SNAPSHOT;
+    private static final Boolean default_circuitBreakerPartitionEnabled = false;
+    private static final Integer default_circuitBreakerPartitionMaxPartitions = 1000;
     private static final Integer default_executionTimeoutInMilliseconds = 1000; // default => executionTimeoutInMilliseconds: 1000 = 1 second
     private static final Boolean default_executionTimeoutEnabled = true;
     private static final ExecutionIsolationStrategy default_executionIsolationStrategy = ExecutionIsolationStrategy.THREAD;
@@ -53,9 +58,29 @@ public abstract class HystrixCommandProperties {
     private static final Boolean default_executionIsolationThreadInterruptOnFutureCancel = false;
     private static final Boolean default_metricsRollingPercentileEnabled = true;
     private static final Boolean default_requestCacheEnabled = true;
+    private static final Boolean default_responseCacheEnabled = false;
+    private static final Integer default_responseCacheTimeToLiveInMilliseconds = 60000; // default => 1 minute
+    private static final Integer default_responseCacheStaleWhileRevalidateInMilliseconds = 0; // default => never serve stale responses
+    private static final Integer default_responseCacheMaxWeight = 10000;
     private static final Integer default_fallbackIsolationSemaphoreMaxConcurrentRequests = 10;
     private static final Boolean default_fallbackEnabled = true;
     private static final Integer default_executionIsolationSemaphoreMaxConcurrentRequests = 10;
+    private static final Boolean default_executionAdaptiveConcurrencyLimitEnabled = false;
+    private static final Integer default_executionAdaptiveConcurrencyLimitMinLimit = 1;
+    private static final Integer default_executionAdaptiveConcurrencyLimitMaxLimit = 200;
+    private static final Boolean default_executionHedgeEnabled = false;
+    private static final Integer default_executionHedgeDelayPercentile = 95;
+    private static final Integer default_executionHedgeMinimumDelayInMilliseconds = 10;
+    private static final Integer default_executionHedgeBudgetPercentage = 10;
+    private static final Integer default_executionRetryMaxAttempts = 1;
+    private static final Integer default_executionRetryBackoffInMilliseconds = 20;
+    private static final Integer default_executionRetryMaxBackoffInMilliseconds = 500;
+    private static final Integer default_executionRetryBudgetPercentage = 10;
+    private static final Boolean default_executionPartitionEnabled = false;
+    private static final Integer default_executionPartitionMaxConcurrentRequests = 5;
+    private static final Integer default_executionPartitionMaxPartitions = 1000;
+    private static final Boolean default_executionIsolationSemaphoreSynchronousExecutionEnabled = true;
+    private static final Boolean default_executionStacklessExceptionsEnabled = false;
     private static final Boolean default_requestLogEnabled = true;
     private static final Boolean default_circuitBreakerEnabled = true;
     private static final Integer default_metricsRollingPercentileWindow = 60000; // default to 1 minute for RollingPercentile 
@@ -68,13 +93,34 @@ public abstract class HystrixCommandProperties {
     private final HystrixProperty<Integer> circuitBreakerSleepWindowInMilliseconds; // milliseconds after tripping circuit before allowing retry
     private final HystrixProperty<Boolean> circuitBreakerEnabled; // Whether circuit breaker should be enabled.
     private final HystrixProperty<Integer> circuitBreakerErrorThresholdPercentage; // % of 'marks' that must be failed to trip the circuit
+    private final HystrixProperty<Integer> circuitBreakerSlowCallDurationThresholdInMilliseconds; // execution latency at which a call counts as slow
+    private final HystrixProperty<Integer> circuitBreakerSlowCallRateThresholdPercentage; // % of 'marks' that must be slow to trip the circuit
     private final HystrixProperty<Boolean> circuitBreakerForceOpen; // a property to allow forcing the circuit open (stopping all requests)
     private final HystrixProperty<Boolean> circuitBreakerForceClosed; // a property to allow ignoring errors and therefore never trip 'open' (ie. allow all traffic through)
+    private final HystrixProperty<CircuitBreakerImplementation> circuitBreakerImplementation; // how the circuit breaker decides to trip
+    private final HystrixProperty<Boolean> circuitBreakerPartitionEnabled; // Whether executions with a partition key have a circuit breaker per partition
+    private final HystrixProperty<Integer> circuitBreakerPartitionMaxPartitions; // most partition circuit breakers kept at once
     private final HystrixProperty<ExecutionIsolationStrategy> executionIsolationStrategy; // Whether a command should be executed in a separate thread or not.
     private final HystrixProperty<Integer> executionTimeoutInMilliseconds; // Timeout value in milliseconds for a command
     private final HystrixProperty<Boolean> executionTimeoutEnabled; //Whether timeout should be triggered
     private final HystrixProperty<String> executionIsolationThreadPoolKeyOverride; // What thread-pool this command should run in (if running on a separate thread).
     private final HystrixProperty<Integer> executionIsolationSemaphoreMaxConcurrentRequests; // Number of permits for execution semaphore
+    private final HystrixProperty<Boolean> executionAdaptiveConcurrencyLimitEnabled; // Whether concurrent executions are limited by a limit adapted to latency
+    private final HystrixProperty<Integer> executionAdaptiveConcurrencyLimitMinLimit; // lowest the adaptive concurrency limit will go
+    private final HystrixProperty<Integer> executionAdaptiveConcurrencyLimitMaxLimit; // highest the adaptive concurrency limit will go
+    private final HystrixProperty<Boolean> executionHedgeEnabled; // Whether a slow execution of an idempotent command is hedged with a second one
+    private final HystrixProperty<Integer> executionHedgeDelayPercentile; // percentile of execution latency after which a hedge is started
+    private final HystrixProperty<Integer> executionHedgeMinimumDelayInMilliseconds; // shortest time a hedge waits for
+    private final HystrixProperty<Integer> executionHedgeBudgetPercentage; // most hedges as a percentage of executions
+    private final HystrixProperty<Integer> executionRetryMaxAttempts; // most executions of run() for one command, including the first
+    private final HystrixProperty<Integer> executionRetryBackoffInMilliseconds; // base of the exponential backoff between attempts
+    private final HystrixProperty<Integer> executionRetryMaxBackoffInMilliseconds; // longest backoff between attempts
+    private final HystrixProperty<Integer> executionRetryBudgetPercentage; // most retries as a percentage of successful executions
+    private final HystrixProperty<Boolean> executionPartitionEnabled; // Whether concurrent executions are also limited per partition key
+    private final HystrixProperty<Integer> executionPartitionMaxConcurrentRequests; // most concurrent executions of one partition
+    private final HystrixProperty<Integer> executionPartitionMaxPartitions; // most partitions tracked at once
+    private final HystrixProperty<Boolean> executionIsolationSemaphoreSynchronousExecutionEnabled; // Whether execute() may run a semaphore-isolated command without the Observable chain
+    private final HystrixProperty<Boolean> executionStacklessExceptionsEnabled; // Whether failing fast skips capturing stack traces
     private final HystrixProperty<Integer> fallbackIsolationSemaphoreMaxConcurrentRequests; // Number of permits for fallback semaphore
     private final HystrixProperty<Boolean> fallbackEnabled; // Whether fallback should be attempted.
     private final HystrixProperty<Boolean> executionIsolationThreadInterruptOnTimeout; // Whether an underlying Future/Thread (when runInSeparateThread == true) should be interrupted after a timeout
@@ -88,6 +134,12 @@ public abstract class HystrixCommandProperties {
     private final HystrixProperty<Integer> metricsHealthSnapshotIntervalInMilliseconds; // time between health snapshots
     private final HystrixProperty<Boolean> requestLogEnabled; // whether command request logging is enabled.
     private final HystrixProperty<Boolean> requestCacheEnabled; // Whether request caching is enabled.
+    private final HystrixProperty<Boolean> responseCacheEnabled; // Whether responses are cached across requests
+    private final HystrixProperty<Integer> responseCacheTimeToLiveInMilliseconds; // how long a cached response is fresh for
+    private final HystrixProperty<Integer> responseCacheStaleWhileRevalidateInMilliseconds; // how long after that a cached response can be served while it is refreshed
+    private final HystrixProperty<Integer> responseCacheMaxWeight; // total weight of cached responses before they are evicted
+    private volatile Snapshot snapshot; // values of the properties read on each execution, built on first use
+    private volatile boolean snapshotCacheable = true; // false if a property can't tell us when it changes
 
     /**
      * Isolation strategy to use when executing a {@link HystrixCommand}.
@@ -95,10 +147,25 @@ public abstract class HystrixCommandProperties {
      * <ul>
      * <li>THREAD: Execute the {@link HystrixCommand#run()} method on a separate thread and restrict concurrent executions using the thread-pool size.</li>
      * <li>SEMAPHORE: Execute the {@link HystrixCommand#run()} method on the calling thread and restrict concurrent executions using the semaphore permit count.</li>
+     * <li>VIRTUAL_THREAD: Execute the {@link HystrixCommand#run()} method on a new virtual thread and restrict concurrent executions using the permit count of the {@link HystrixVirtualThreadBulkhead}
+     * for the {@link HystrixThreadPoolKey}.</li>
      * </ul>
      */
     public static enum ExecutionIsolationStrategy {
-        THREAD, SEMAPHORE
+        THREAD, SEMAPHORE, VIRTUAL_THREAD
+    }
+
+    /**
+     * How the {@link HystrixCircuitBreaker} decides whether to trip open.
+     * <p>
+     * <ul>
+     * <li>HEALTH_SNAPSHOT: Check the error percentage each time {@link HystrixCommandMetrics#getHealthCountsStream()} emits a snapshot of the rolling window,
+     * every {@link #metricsHealthSnapshotIntervalInMilliseconds()}.</li>
+     * <li>SLIDING_WINDOW: Check the error percentage as each command completes, from running totals over the rolling window that are updated incrementally.</li>
+     * </ul>
+     */
+    public static enum CircuitBreakerImplementation {
+        HEALTH_SNAPSHOT, SLIDING_WINDOW
     }
 
     protected HystrixCommandProperties(HystrixCommandKey key) {
@@ -116,8 +183,13 @@ public abstract class HystrixCommandProperties {
         this.circuitBreakerRequestVolumeThreshold = getProperty(propertyPrefix, key, "circuitBreaker.requestVolumeThreshold", builder.getCircuitBreakerRequestVolumeThreshold(), default_circuitBreakerRequestVolumeThreshold);
         this.circuitBreakerSleepWindowInMilliseconds = getProperty(propertyPrefix, key, "circuitBreaker.sleepWindowInMilliseconds", builder.getCircuitBreakerSleepWindowInMilliseconds(), default_circuitBreakerSleepWindowInMilliseconds);
         this.circuitBreakerErrorThresholdPercentage = getProperty(propertyPrefix, key, "circuitBreaker.errorThresholdPercentage", builder.getCircuitBreakerErrorThresholdPercentage(), default_circuitBreakerErrorThresholdPercentage);
+        this.circuitBreakerSlowCallDurationThresholdInMilliseconds = getProperty(propertyPrefix, key, "circuitBreaker.slowCallDurationThresholdInMilliseconds", builder.getCircuitBreakerSlowCallDurationThresholdInMilliseconds(), default_circuitBreakerSlowCallDurationThresholdInMilliseconds);
+        this.circuitBreakerSlowCallRateThresholdPercentage = getProperty(propertyPrefix, key, "circuitBreaker.slowCallRateThresholdPercentage", builder.getCircuitBreakerSlowCallRateThresholdPercentage(), default_circuitBreakerSlowCallRateThresholdPercentage);
         this.circuitBreakerForceOpen = getProperty(propertyPrefix, key, "circuitBreaker.forceOpen", builder.getCircuitBreakerForceOpen(), default_circuitBreakerForceOpen);
         this.circuitBreakerForceClosed = getProperty(propertyPrefix, key, "circuitBreaker.forceClosed", builder.getCircuitBreakerForceClosed(), default_circuitBreakerForceClosed);
+        this.circuitBreakerImplementation = getProperty(propertyPrefix, key, "circuitBreaker.implementation", builder.getCircuitBreakerImplementation(), default_circuitBreakerImplementation);
+        this.circuitBreakerPartitionEnabled = getProperty(propertyPrefix, key, "circuitBreaker.partition.enabled", builder.getCircuitBreakerPartitionEnabled(), default_circuitBreakerPartitionEnabled);
+        this.circuitBreakerPartitionMaxPartitions = getProperty(propertyPrefix, key, "circuitBreaker.partition.maxPartitions", builder.getCircuitBreakerPartitionMaxPartitions(), default_circuitBreakerPartitionMaxPartitions);
         this.executionIsolationStrategy = getProperty(propertyPrefix, key, "execution.isolation.strategy", builder.getExecutionIsolationStrategy(), default_executionIsolationStrategy);
         //this property name is now misleading.  //TODO figure out a good way to deprecate this property name
         this.executionTimeoutInMilliseconds = getProperty(propertyPrefix, key, "execution.isolation.thread.timeoutInMilliseconds", builder.getExecutionIsolationThreadTimeoutInMilliseconds(), default_executionTimeoutInMilliseconds);
@@ -125,6 +197,22 @@ public abstract class HystrixCommandProperties {
         this.executionIsolationThreadInterruptOnTimeout = getProperty(propertyPrefix, key, "execution.isolation.thread.interruptOnTimeout", builder.getExecutionIsolationThreadInterruptOnTimeout(), default_executionIsolationThreadInterruptOnTimeout);
         this.executionIsolationThreadInterruptOnFutureCancel = getProperty(propertyPrefix, key, "execution.isolation.thread.interruptOnFutureCancel", builder.getExecutionIsolationThreadInterruptOnFutureCancel(), default_executionIsolationThreadInterruptOnFutureCancel);
         this.executionIsolationSemaphoreMaxConcurrentRequests = getProperty(propertyPrefix, key, "execution.isolation.semaphore.maxConcurrentRequests", builder.getExecutionIsolationSemaphoreMaxConcurrentRequests(), default_executionIsolationSemaphoreMaxConcurrentRequests);
+        this.executionAdaptiveConcurrencyLimitEnabled = getProperty(propertyPrefix, key, "execution.adaptiveConcurrencyLimit.enabled", builder.getExecutionAdaptiveConcurrencyLimitEnabled(), default_executionAdaptiveConcurrencyLimitEnabled);
+        this.executionAdaptiveConcurrencyLimitMinLimit = getProperty(propertyPrefix, key, "execution.adaptiveConcurrencyLimit.minLimit", builder.getExecutionAdaptiveConcurrencyLimitMinLimit(), default_executionAdaptiveConcurrencyLimitMinLimit);
+        this.executionAdaptiveConcurrencyLimitMaxLimit = getProperty(propertyPrefix, key, "execution.adaptiveConcurrencyLimit.maxLimit", builder.getExecutionAdaptiveConcurrencyLimitMaxLimit(), default_executionAdaptiveConcurrencyLimitMaxLimit);
+        this.executionHedgeEnabled = getProperty(propertyPrefix, key, "execution.hedge.enabled", builder.getExecutionHedgeEnabled(), default_executionHedgeEnabled);
+        this.executionHedgeDelayPercentile = getProperty(propertyPrefix, key, "execution.hedge.delayPercentile", builder.getExecutionHedgeDelayPercentile(), default_executionHedgeDelayPercentile);
+        this.executionHedgeMinimumDelayInMilliseconds = getProperty(propertyPrefix, key, "execution.hedge.minimumDelayInMilliseconds", builder.getExecutionHedgeMinimumDelayInMilliseconds(), default_executionHedgeMinimumDelayInMilliseconds);
+        this.executionHedgeBudgetPercentage = getProperty(propertyPrefix, key, "execution.hedge.budgetPercentage", builder.getExecutionHedgeBudgetPercentage(), default_executionHedgeBudgetPercentage);
+        this.executionRetryMaxAttempts = getProperty(propertyPrefix, key, "execution.retry.maxAttempts", builder.getExecutionRetryMaxAttempts(), default_executionRetryMaxAttempts);
+        this.executionRetryBackoffInMilliseconds = getProperty(propertyPrefix, key, "execution.retry.backoffInMilliseconds", builder.getExecutionRetryBackoffInMilliseconds(), default_executionRetryBackoffInMilliseconds);
+        this.executionRetryMaxBackoffInMilliseconds = getProperty(propertyPrefix, key, "execution.retry.maxBackoffInMilliseconds", builder.getExecutionRetryMaxBackoffInMilliseconds(), default_executionRetryMaxBackoffInMilliseconds);
+        this.executionRetryBudgetPercentage = getProperty(propertyPrefix, key, "execution.retry.budgetPercentage", builder.getExecutionRetryBudgetPercentage(), default_executionRetryBudgetPercentage);
+        this.executionPartitionEnabled = getProperty(propertyPrefix, key, "execution.partition.enabled", builder.getExecutionPartitionEnabled(), default_executionPartitionEnabled);
+        this.executionPartitionMaxConcurrentRequests = getProperty(propertyPrefix, key, "execution.partition.maxConcurrentRequests", builder.getExecutionPartitionMaxConcurrentRequests(), default_executionPartitionMaxConcurrentRequests);
+        this.executionPartitionMaxPartitions = getProperty(propertyPrefix, key, "execution.partition.maxPartitions", builder.getExecutionPartitionMaxPartitions(), default_executionPartitionMaxPartitions);
+        this.executionIsolationSemaphoreSynchronousExecutionEnabled = getProperty(propertyPrefix, key, "execution.isolation.semaphore.synchronousExecutionEnabled", builder.getExecutionIsolationSemaphoreSynchronousExecutionEnabled(), default_executionIsolationSemaphoreSynchronousExecutionEnabled);
+        this.executionStacklessExceptionsEnabled = getProperty(propertyPrefix, key, "execution.stacklessExceptions.enabled", builder.getExecutionStacklessExceptionsEnabled(), default_executionStacklessExceptionsEnabled);
         this.fallbackIsolationSemaphoreMaxConcurrentRequests = getProperty(propertyPrefix, key, "fallback.isolation.semaphore.maxConcurrentRequests", builder.getFallbackIsolationSemaphoreMaxConcurrentRequests(), default_fallbackIsolationSemaphoreMaxConcurrentRequests);
         this.fallbackEnabled = getProperty(propertyPrefix, key, "fallback.enabled", builder.getFallbackEnabled(), default_fallbackEnabled);
         this.metricsRollingStatisticalWindowInMilliseconds = getProperty(propertyPrefix, key, "metrics.rollingStats.timeInMilliseconds", builder.getMetricsRollingStatisticalWindowInMilliseconds(), default_metricsRollingStatisticalWindow);
@@ -135,6 +223,10 @@ public abstract class HystrixCommandProperties {
         this.metricsRollingPercentileBucketSize = getProperty(propertyPrefix, key, "metrics.rollingPercentile.bucketSize", builder.getMetricsRollingPercentileBucketSize(), default_metricsRollingPercentileBucketSize);
         this.metricsHealthSnapshotIntervalInMilliseconds = getProperty(propertyPrefix, key, "metrics.healthSnapshot.intervalInMilliseconds", builder.getMetricsHealthSnapshotIntervalInMilliseconds(), default_metricsHealthSnapshotIntervalInMilliseconds);
         this.requestCacheEnabled = getProperty(propertyPrefix, key, "requestCache.enabled", builder.getRequestCacheEnabled(), default_requestCacheEnabled);
+        this.responseCacheEnabled = getProperty(propertyPrefix, key, "responseCache.enabled", builder.getResponseCacheEnabled(), default_responseCacheEnabled);
+        this.responseCacheTimeToLiveInMilliseconds = getProperty(propertyPrefix, key, "responseCache.timeToLiveInMilliseconds", builder.getResponseCacheTimeToLiveInMilliseconds(), default_responseCacheTimeToLiveInMilliseconds);
+        this.responseCacheStaleWhileRevalidateInMilliseconds = getProperty(propertyPrefix, key, "responseCache.staleWhileRevalidateInMilliseconds", builder.getResponseCacheStaleWhileRevalidateInMilliseconds(), default_responseCacheStaleWhileRevalidateInMilliseconds);
+        this.responseCacheMaxWeight = getProperty(propertyPrefix, key, "responseCache.maxWeight", builder.getResponseCacheMaxWeight(), default_responseCacheMaxWeight);
         this.requestLogEnabled = getProperty(propertyPrefix, key, "requestLog.enabled", builder.getRequestLogEnabled(), default_requestLogEnabled);
 
         // threadpool doesn't have a global override, only instance level makes sense
@@ -166,6 +258,32 @@ public abstract class HystrixCommandProperties {
         return circuitBreakerErrorThresholdPercentage;
     }
 
+    /**
+     * Execution latency in milliseconds at or above which a call counts as slow towards {@link #circuitBreakerSlowCallRateThresholdPercentage()},
+     * whether or not it succeeded.  Calls that were rejected or short-circuited never ran, so are never slow.
+     * <p>
+     * A value of 0 or less means no call is slow, and the circuit only trips on {@link #circuitBreakerErrorThresholdPercentage()}.  This lets a
+     * dependency that has slowed down without failing or timing out be cut off before the threads waiting on it pile up.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> circuitBreakerSlowCallDurationThresholdInMilliseconds() {
+        return circuitBreakerSlowCallDurationThresholdInMilliseconds;
+    }
+
+    /**
+     * Slow call percentage threshold (as whole number such as 50) at which point the circuit breaker will trip open and reject requests, when
+     * {@link #circuitBreakerSlowCallDurationThresholdInMilliseconds()} is set.
+     * <p>
+     * Like the error percentage, this is only checked once there are {@link #circuitBreakerRequestVolumeThreshold()} requests in the window.  A
+     * circuit tripped for this reason is reported with {@link HystrixCircuitBreaker.OpenReason#SLOW_CALL_PERCENTAGE}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> circuitBreakerSlowCallRateThresholdPercentage() {
+        return circuitBreakerSlowCallRateThresholdPercentage;
+    }
+
     /**
      * If true the {@link HystrixCircuitBreaker#allowRequest()} will always return true to allow requests regardless of the error percentage from {@link HystrixCommandMetrics#getHealthCounts()}.
      * <p>
@@ -177,6 +295,41 @@ public abstract class HystrixCommandProperties {
         return circuitBreakerForceClosed;
     }
 
+    /**
+     * How the {@link HystrixCircuitBreaker} decides whether to trip open.  This is read when the circuit breaker is created.
+     * <p>
+     * With {@link CircuitBreakerImplementation#SLIDING_WINDOW} the circuit trips on the completion that takes the error percentage past
+     * {@link #circuitBreakerErrorThresholdPercentage()}, rather than on the next health snapshot.
+     *
+     * @return {@code HystrixProperty<CircuitBreakerImplementation>}
+     */
+    public HystrixProperty<CircuitBreakerImplementation> circuitBreakerImplementation() {
+        return circuitBreakerImplementation;
+    }
+
+    /**
+     * Whether executions with a partition key, such as a shard or host from {@link HystrixCommand#getPartitionKey()}, use a circuit breaker of
+     * their partition instead of the one of the command, so that a partition that is failing is short-circuited without the others.
+     * <p>
+     * The circuit breaker of each partition trips like {@link CircuitBreakerImplementation#SLIDING_WINDOW}, on the completion that takes the error
+     * percentage of the partition past {@link #circuitBreakerErrorThresholdPercentage()}.  See {@link HystrixPartitionedCircuitBreaker}.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> circuitBreakerPartitionEnabled() {
+        return circuitBreakerPartitionEnabled;
+    }
+
+    /**
+     * Most partitions with a circuit breaker at once when {@link #circuitBreakerPartitionEnabled()}.  Beyond this the circuit breakers of the
+     * least recently used partitions are forgotten.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> circuitBreakerPartitionMaxPartitions() {
+        return circuitBreakerPartitionMaxPartitions;
+    }
+
     /**
      * If true the {@link HystrixCircuitBreaker#allowRequest()} will always return false, causing the circuit to be open (tripped) and reject all requests.
      * <p>
@@ -219,12 +372,199 @@ public abstract class HystrixCommandProperties {
         return executionIsolationSemaphoreMaxConcurrentRequests;
     }
 
+    /**
+     * Whether concurrent executions of {@link HystrixCommand#run()} are limited by a limit that rises and falls with the latency of this command, instead of
+     * only by the static semaphore permit count or thread-pool size.
+     * <p>
+     * The limit starts at the static limit for the {@link #executionIsolationStrategy()} and is adjusted each time the rolling latency distribution
+     * rolls over: it is lowered when the mean execution latency grows well beyond its baseline and raised while it does not.  Requests beyond the
+     * limit are rejected before they queue, as {@link HystrixEventType#SEMAPHORE_REJECTED} whichever the isolation strategy, so that a shared
+     * thread-pool is not charged for commands it never saw.  It always stays between {@link #executionAdaptiveConcurrencyLimitMinLimit()}
+     * and {@link #executionAdaptiveConcurrencyLimitMaxLimit()}, and the current value is available from {@link HystrixCommandMetrics#getConcurrencyLimit()}.
+     * <p>
+     * The limit takes the place of the execution semaphore, which is taken once per command execution before it is scheduled, and is not checked by
+     * the thread-pool itself.  So it only limits the commands of this key: other commands sharing the thread-pool are not limited by it, hedges and
+     * retries of an execution run under the permit the execution already holds, and a command constructed with its own execution semaphore is limited
+     * by that semaphore instead.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> executionAdaptiveConcurrencyLimitEnabled() {
+        return executionAdaptiveConcurrencyLimitEnabled;
+    }
+
+    /**
+     * Lowest the adaptive concurrency limit will go when {@link #executionAdaptiveConcurrencyLimitEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionAdaptiveConcurrencyLimitMinLimit() {
+        return executionAdaptiveConcurrencyLimitMinLimit;
+    }
+
+    /**
+     * Highest the adaptive concurrency limit will go when {@link #executionAdaptiveConcurrencyLimitEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionAdaptiveConcurrencyLimitMaxLimit() {
+        return executionAdaptiveConcurrencyLimitMaxLimit;
+    }
+
+    /**
+     * Whether an execution of an idempotent {@link HystrixCommand} that is still running after {@link #executionHedgeDelayPercentile()} of its
+     * recent latencies is hedged by a second execution of {@link HystrixCommand#run()} in the same thread-pool.  The first one to succeed is used
+     * and the other is cancelled, so the command only fails if the original execution fails and its hedge, when there is one, fails too.
+     * <p>
+     * It only applies to commands that override {@link HystrixCommand#isIdempotent()} to return true and that are isolated in a thread.  Hedges
+     * are limited to {@link #executionHedgeBudgetPercentage()} of executions so that they cannot add much load to a dependency that is already slow.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> executionHedgeEnabled() {
+        return executionHedgeEnabled;
+    }
+
+    /**
+     * Percentile of the rolling execution latency of this command after which a hedge is started when {@link #executionHedgeEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionHedgeDelayPercentile() {
+        return executionHedgeDelayPercentile;
+    }
+
+    /**
+     * Shortest time an execution runs before it is hedged when {@link #executionHedgeEnabled()}, which is also the delay used until there are
+     * latencies to take {@link #executionHedgeDelayPercentile()} of.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionHedgeMinimumDelayInMilliseconds() {
+        return executionHedgeMinimumDelayInMilliseconds;
+    }
+
+    /**
+     * Most hedged executions that can be started, as a percentage of the executions of this command, when {@link #executionHedgeEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionHedgeBudgetPercentage() {
+        return executionHedgeBudgetPercentage;
+    }
+
+    /**
+     * Most times {@link HystrixCommand#run()} is executed for one command, including the first, when it fails with an exception for which
+     * {@link HystrixCommand#isRetryable(Throwable)} is true.  1 disables retries.
+     * <p>
+     * Each retry waits for a random time up to {@link #executionRetryBackoffInMilliseconds()} doubled for each previous retry, capped at
+     * {@link #executionRetryMaxBackoffInMilliseconds()}.  The retries count towards the timeout of the command, and are limited to
+     * {@link #executionRetryBudgetPercentage()} of its successful executions so that they can't multiply the load on a failing dependency.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionRetryMaxAttempts() {
+        return executionRetryMaxAttempts;
+    }
+
+    /**
+     * Longest wait before the first retry when {@link #executionRetryMaxAttempts()} is more than 1.  It doubles for each retry after that.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionRetryBackoffInMilliseconds() {
+        return executionRetryBackoffInMilliseconds;
+    }
+
+    /**
+     * Longest wait before any retry when {@link #executionRetryMaxAttempts()} is more than 1.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionRetryMaxBackoffInMilliseconds() {
+        return executionRetryMaxBackoffInMilliseconds;
+    }
+
+    /**
+     * Most retries that can be made, as a percentage of the recent successful executions of this command, when {@link #executionRetryMaxAttempts()}
+     * is more than 1.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionRetryBudgetPercentage() {
+        return executionRetryBudgetPercentage;
+    }
+
+    /**
+     * Whether executions with a partition key, such as a tenant id from {@link HystrixCommand#getPartitionKey()}, are limited to
+     * {@link #executionPartitionMaxConcurrentRequests()} per partition as well as by the semaphore or thread-pool they share.
+     * <p>
+     * This keeps one partition from taking every permit or thread of the command and getting every other partition rejected, without a
+     * {@link HystrixThreadPoolKey} per partition.  An execution its partition turns away is rejected as {@link HystrixEventType#SEMAPHORE_REJECTED}
+     * whichever the isolation strategy, so that a shared thread-pool is not charged for it, and is published to
+     * {@link com.netflix.hystrix.metric.HystrixPartitionRejectionStream}.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> executionPartitionEnabled() {
+        return executionPartitionEnabled;
+    }
+
+    /**
+     * Most concurrent executions of one partition when {@link #executionPartitionEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionPartitionMaxConcurrentRequests() {
+        return executionPartitionMaxConcurrentRequests;
+    }
+
+    /**
+     * Most partitions whose concurrent executions are tracked at once when {@link #executionPartitionEnabled()}.  Beyond this the least recently
+     * used partitions without executions in flight are forgotten, so the memory used stays bounded however many partition keys there are.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> executionPartitionMaxPartitions() {
+        return executionPartitionMaxPartitions;
+    }
+
+    /**
+     * Whether {@link HystrixCommand#execute()} runs a command on the calling thread with plain method calls, rather than by subscribing to
+     * {@link HystrixCommand#toObservable()} and waiting on the result.
+     * <p>
+     * The circuit-breaker, semaphore, metrics, hooks and fallback behave the same either way.  It only applies when {@link #executionIsolationStrategy()} ==
+     * SEMAPHORE, {@link #executionTimeoutEnabled()} is false, neither {@link #requestCacheEnabled()} nor {@link #responseCacheEnabled()} is in effect
+     * and {@link #executionRetryMaxAttempts()} is 1.
+     * 
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> executionIsolationSemaphoreSynchronousExecutionEnabled() {
+        return executionIsolationSemaphoreSynchronousExecutionEnabled;
+    }
+
+    /**
+     * Whether the exceptions signalling that this command was short-circuited, rejected or timed out are created without stack traces.
+     * <p>
+     * Those carrying nothing specific to the execution are allocated once and reused, and the {@link com.netflix.hystrix.exception.HystrixRuntimeException}
+     * thrown for them doesn't capture its stack either, so that failing fast stays cheap when a dependency is overloaded.  Setting the
+     * "hystrix.stacklessExceptions.debug" property to true restores the stack traces for all commands.
+     * 
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> executionStacklessExceptionsEnabled() {
+        return executionStacklessExceptionsEnabled;
+    }
+
     /**
      * What isolation strategy {@link HystrixCommand#run()} will be executed with.
      * <p>
      * If {@link ExecutionIsolationStrategy#THREAD} then it will be executed on a separate thread and concurrent requests limited by the number of threads in the thread-pool.
      * <p>
      * If {@link ExecutionIsolationStrategy#SEMAPHORE} then it will be executed on the calling thread and concurrent requests limited by the semaphore count.
+     * <p>
+     * If {@link ExecutionIsolationStrategy#VIRTUAL_THREAD} then it will be executed on a new virtual thread and concurrent requests limited by
+     * {@link HystrixThreadPoolProperties#virtualThreadMaxConcurrentRequests()}.
      * 
      * @return {@code HystrixProperty<Boolean>}
      */
@@ -417,6 +757,45 @@ public abstract class HystrixCommandProperties {
         return requestCacheEnabled;
     }
 
+    /**
+     * Whether {@link HystrixCommand#getCacheKey()} should be used with {@link HystrixResponseCache} to share successful responses across requests.
+     * 
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> responseCacheEnabled() {
+        return responseCacheEnabled;
+    }
+
+    /**
+     * Time in milliseconds a response in {@link HystrixResponseCache} is returned for without executing the command again.
+     * 
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> responseCacheTimeToLiveInMilliseconds() {
+        return responseCacheTimeToLiveInMilliseconds;
+    }
+
+    /**
+     * Time in milliseconds after {@link #responseCacheTimeToLiveInMilliseconds()} that a response in {@link HystrixResponseCache} is still returned,
+     * while the command is executed in the background to refresh it.
+     * 
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> responseCacheStaleWhileRevalidateInMilliseconds() {
+        return responseCacheStaleWhileRevalidateInMilliseconds;
+    }
+
+    /**
+     * Total weight of the responses {@link HystrixResponseCache} holds for this command before it starts evicting them.
+     * <p>
+     * See {@link HystrixCommand#getResponseCacheWeight} for how a response is weighed.
+     * 
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> responseCacheMaxWeight() {
+        return responseCacheMaxWeight;
+    }
+
     /**
      * Whether {@link HystrixCommand} execution and events should be logged to {@link HystrixRequestLog}.
      * 
@@ -426,6 +805,57 @@ public abstract class HystrixCommandProperties {
         return requestLogEnabled;
     }
 
+    /**
+     * The values of the properties read on every execution, so that they come from plain fields instead of walking the chain of dynamic
+     * properties each time.
+     * <p>
+     * The snapshot is replaced when any of the dynamic properties behind it changes.  If an accessor has been overridden to return a
+     * {@link HystrixProperty} that can't notify of changes, a new snapshot is built on every call instead.
+     *
+     * @return {@code Snapshot}
+     */
+    public Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s;
+        }
+        if (!snapshotCacheable) {
+            return new Snapshot(this);
+        }
+        return initSnapshot();
+    }
+
+    private synchronized Snapshot initSnapshot() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        HystrixProperty<?>[] properties = Snapshot.propertiesOf(this);
+        for (HystrixProperty<?> property : properties) {
+            if (!(property instanceof HystrixDynamicProperty)) {
+                snapshotCacheable = false;
+                return new Snapshot(this);
+            }
+        }
+        // register before reading the values so that no change can be missed in between
+        Runnable refresh = new Runnable() {
+
+            @Override
+            public void run() {
+                refreshSnapshot();
+            }
+
+        };
+        for (HystrixProperty<?> property : properties) {
+            ((HystrixDynamicProperty<?>) property).addCallback(refresh);
+        }
+        snapshot = new Snapshot(this);
+        return snapshot;
+    }
+
+    private synchronized void refreshSnapshot() {
+        snapshot = new Snapshot(this);
+    }
+
     private static HystrixProperty<Boolean> getProperty(String propertyPrefix, HystrixCommandKey key, String instanceProperty, Boolean builderOverrideValue, Boolean defaultValue) {
         return forBoolean()
                 .add(propertyPrefix + ".command." + key.name() + "." + instanceProperty, builderOverrideValue)
@@ -453,10 +883,14 @@ public abstract class HystrixCommandProperties {
 
     }
 
+    private static HystrixProperty<CircuitBreakerImplementation> getProperty(final String propertyPrefix, final HystrixCommandKey key, final String instanceProperty, final CircuitBreakerImplementation builderOverrideValue, final CircuitBreakerImplementation defaultValue) {
+        return new EnumHystrixProperty<CircuitBreakerImplementation>(CircuitBreakerImplementation.class, builderOverrideValue, key, propertyPrefix, defaultValue, instanceProperty);
+    }
+
     /**
      * HystrixProperty that converts a String to ExecutionIsolationStrategy so we remain TypeSafe.
      */
-    private static final class ExecutionIsolationStrategyHystrixProperty implements HystrixProperty<ExecutionIsolationStrategy> {
+    private static final class ExecutionIsolationStrategyHystrixProperty implements HystrixDynamicProperty<ExecutionIsolationStrategy> {
         private final HystrixDynamicProperty<String> property;
         private volatile ExecutionIsolationStrategy value;
         private final ExecutionIsolationStrategy defaultValue;
@@ -492,6 +926,17 @@ public abstract class HystrixCommandProperties {
             return value;
         }
 
+        @Override
+        public String getName() {
+            return property.getName();
+        }
+
+        @Override
+        public void addCallback(Runnable callback) {
+            // runs after the callback that parses the new value
+            property.addCallback(callback);
+        }
+
         private void parseProperty() {
             try {
                 value = ExecutionIsolationStrategy.valueOf(property.get());
@@ -503,6 +948,282 @@ public abstract class HystrixCommandProperties {
         }
     }
 
+    /**
+     * HystrixProperty that converts a String to an enum so we remain TypeSafe.
+     */
+    private static final class EnumHystrixProperty<T extends Enum<T>> implements HystrixDynamicProperty<T> {
+        private final Class<T> enumType;
+        private final HystrixDynamicProperty<String> property;
+        private volatile T value;
+        private final T defaultValue;
+
+        private EnumHystrixProperty(Class<T> enumType, T builderOverrideValue, HystrixCommandKey key, String propertyPrefix, T defaultValue, String instanceProperty) {
+            this.enumType = enumType;
+            this.defaultValue = defaultValue;
+            String overrideValue = null;
+            if (builderOverrideValue != null) {
+                overrideValue = builderOverrideValue.name();
+            }
+            property = forString()
+                    .add(propertyPrefix + ".command." + key.name() + "." + instanceProperty, overrideValue)
+                    .add(propertyPrefix + ".command.default." + instanceProperty, defaultValue.name())
+                    .build();
+
+            // initialize the enum value from the property
+            parseProperty();
+
+            // use a callback to handle changes so we only handle the parse cost on updates rather than every fetch
+            property.addCallback(new Runnable() {
+
+                @Override
+                public void run() {
+                    // when the property value changes we'll update the value
+                    parseProperty();
+                }
+
+            });
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return property.getName();
+        }
+
+        @Override
+        public void addCallback(Runnable callback) {
+            // runs after the callback that parses the new value
+            property.addCallback(callback);
+        }
+
+        private void parseProperty() {
+            try {
+                value = Enum.valueOf(enumType, property.get());
+            } catch (Exception e) {
+                logger.error("Unable to derive " + enumType.getSimpleName() + " from property value: " + property.get(), e);
+                // use the default value
+                value = defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Immutable values of the {@link HystrixCommandProperties} that are read on every execution.  See {@link HystrixCommandProperties#snapshot()}.
+     * <p>
+     * Each value is as described on the {@link HystrixCommandProperties} accessor of the same name.
+     */
+    public static final class Snapshot {
+        private final boolean circuitBreakerEnabled;
+        private final boolean circuitBreakerForceOpen;
+        private final boolean circuitBreakerForceClosed;
+        private final int circuitBreakerRequestVolumeThreshold;
+        private final int circuitBreakerErrorThresholdPercentage;
+        private final int circuitBreakerSlowCallDurationThresholdInMilliseconds;
+        private final int circuitBreakerSlowCallRateThresholdPercentage;
+        private final int circuitBreakerSleepWindowInMilliseconds;
+        private final boolean circuitBreakerPartitionEnabled;
+        private final ExecutionIsolationStrategy executionIsolationStrategy;
+        private final String executionIsolationThreadPoolKeyOverride;
+        private final boolean executionIsolationThreadInterruptOnTimeout;
+        private final int executionIsolationSemaphoreMaxConcurrentRequests;
+        private final boolean executionIsolationSemaphoreSynchronousExecutionEnabled;
+        private final boolean executionTimeoutEnabled;
+        private final int executionTimeoutInMilliseconds;
+        private final boolean executionAdaptiveConcurrencyLimitEnabled;
+        private final boolean executionHedgeEnabled;
+        private final int executionHedgeDelayPercentile;
+        private final int executionHedgeMinimumDelayInMilliseconds;
+        private final int executionHedgeBudgetPercentage;
+        private final int executionRetryMaxAttempts;
+        private final int executionRetryBackoffInMilliseconds;
+        private final int executionRetryMaxBackoffInMilliseconds;
+        private final int executionRetryBudgetPercentage;
+        private final boolean executionPartitionEnabled;
+        private final boolean fallbackEnabled;
+        private final boolean requestCacheEnabled;
+        private final boolean responseCacheEnabled;
+        private final boolean requestLogEnabled;
+
+        private Snapshot(HystrixCommandProperties p) {
+            this.circuitBreakerEnabled = valueOf(p.circuitBreakerEnabled(), default_circuitBreakerEnabled);
+            this.circuitBreakerForceOpen = valueOf(p.circuitBreakerForceOpen(), default_circuitBreakerForceOpen);
+            this.circuitBreakerForceClosed = valueOf(p.circuitBreakerForceClosed(), default_circuitBreakerForceClosed);
+            this.circuitBreakerRequestVolumeThreshold = valueOf(p.circuitBreakerRequestVolumeThreshold(), default_circuitBreakerRequestVolumeThreshold);
+            this.circuitBreakerErrorThresholdPercentage = valueOf(p.circuitBreakerErrorThresholdPercentage(), default_circuitBreakerErrorThresholdPercentage);
+            this.circuitBreakerSlowCallDurationThresholdInMilliseconds = valueOf(p.circuitBreakerSlowCallDurationThresholdInMilliseconds(), default_circuitBreakerSlowCallDurationThresholdInMilliseconds);
+            this.circuitBreakerSlowCallRateThresholdPercentage = valueOf(p.circuitBreakerSlowCallRateThresholdPercentage(), default_circuitBreakerSlowCallRateThresholdPercentage);
+            this.circuitBreakerSleepWindowInMilliseconds = valueOf(p.circuitBreakerSleepWindowInMilliseconds(), default_circuitBreakerSleepWindowInMilliseconds);
+            this.circuitBreakerPartitionEnabled = valueOf(p.circuitBreakerPartitionEnabled(), default_circuitBreakerPartitionEnabled);
+            this.executionIsolationStrategy = valueOf(p.executionIsolationStrategy(), default_executionIsolationStrategy);
+            this.executionIsolationThreadPoolKeyOverride = p.executionIsolationThreadPoolKeyOverride().get();
+            this.executionIsolationThreadInterruptOnTimeout = valueOf(p.executionIsolationThreadInterruptOnTimeout(), default_executionIsolationThreadInterruptOnTimeout);
+            this.executionIsolationSemaphoreMaxConcurrentRequests = valueOf(p.executionIsolationSemaphoreMaxConcurrentRequests(), default_executionIsolationSemaphoreMaxConcurrentRequests);
+            this.executionIsolationSemaphoreSynchronousExecutionEnabled = valueOf(p.executionIsolationSemaphoreSynchronousExecutionEnabled(), default_executionIsolationSemaphoreSynchronousExecutionEnabled);
+            this.executionTimeoutEnabled = valueOf(p.executionTimeoutEnabled(), default_executionTimeoutEnabled);
+            this.executionTimeoutInMilliseconds = valueOf(p.executionTimeoutInMilliseconds(), default_executionTimeoutInMilliseconds);
+            this.executionAdaptiveConcurrencyLimitEnabled = valueOf(p.executionAdaptiveConcurrencyLimitEnabled(), default_executionAdaptiveConcurrencyLimitEnabled);
+            this.executionHedgeEnabled = valueOf(p.executionHedgeEnabled(), default_executionHedgeEnabled);
+            this.executionHedgeDelayPercentile = valueOf(p.executionHedgeDelayPercentile(), default_executionHedgeDelayPercentile);
+            this.executionHedgeMinimumDelayInMilliseconds = valueOf(p.executionHedgeMinimumDelayInMilliseconds(), default_executionHedgeMinimumDelayInMilliseconds);
+            this.executionHedgeBudgetPercentage = valueOf(p.executionHedgeBudgetPercentage(), default_executionHedgeBudgetPercentage);
+            this.executionRetryMaxAttempts = valueOf(p.executionRetryMaxAttempts(), default_executionRetryMaxAttempts);
+            this.executionRetryBackoffInMilliseconds = valueOf(p.executionRetryBackoffInMilliseconds(), default_executionRetryBackoffInMilliseconds);
+            this.executionRetryMaxBackoffInMilliseconds = valueOf(p.executionRetryMaxBackoffInMilliseconds(), default_executionRetryMaxBackoffInMilliseconds);
+            this.executionRetryBudgetPercentage = valueOf(p.executionRetryBudgetPercentage(), default_executionRetryBudgetPercentage);
+            this.executionPartitionEnabled = valueOf(p.executionPartitionEnabled(), default_executionPartitionEnabled);
+            this.fallbackEnabled = valueOf(p.fallbackEnabled(), default_fallbackEnabled);
+            this.requestCacheEnabled = valueOf(p.requestCacheEnabled(), default_requestCacheEnabled);
+            this.responseCacheEnabled = valueOf(p.responseCacheEnabled(), default_responseCacheEnabled);
+            this.requestLogEnabled = valueOf(p.requestLogEnabled(), default_requestLogEnabled);
+        }
+
+        /**
+         * The properties a snapshot is built from, which must be kept in step with the constructor.
+         */
+        private static HystrixProperty<?>[] propertiesOf(HystrixCommandProperties p) {
+            return new HystrixProperty<?>[] {
+                    p.circuitBreakerEnabled(), p.circuitBreakerForceOpen(), p.circuitBreakerForceClosed(), p.circuitBreakerRequestVolumeThreshold(),
+                    p.circuitBreakerErrorThresholdPercentage(), p.circuitBreakerSlowCallDurationThresholdInMilliseconds(), p.circuitBreakerSlowCallRateThresholdPercentage(),
+                    p.circuitBreakerSleepWindowInMilliseconds(), p.circuitBreakerPartitionEnabled(), p.executionIsolationStrategy(),
+                    p.executionIsolationThreadPoolKeyOverride(), p.executionIsolationThreadInterruptOnTimeout(), p.executionIsolationSemaphoreMaxConcurrentRequests(),
+                    p.executionIsolationSemaphoreSynchronousExecutionEnabled(), p.executionTimeoutEnabled(), p.executionTimeoutInMilliseconds(),
+                    p.executionAdaptiveConcurrencyLimitEnabled(), p.executionHedgeEnabled(), p.executionHedgeDelayPercentile(), p.executionHedgeMinimumDelayInMilliseconds(),
+                    p.executionHedgeBudgetPercentage(), p.executionRetryMaxAttempts(), p.executionRetryBackoffInMilliseconds(), p.executionRetryMaxBackoffInMilliseconds(),
+                    p.executionRetryBudgetPercentage(), p.executionPartitionEnabled(), p.fallbackEnabled(), p.requestCacheEnabled(), p.responseCacheEnabled(), p.requestLogEnabled()
+            };
+        }
+
+        // a property that has no value gets the default rather than failing every execution
+        private static <T> T valueOf(HystrixProperty<T> property, T defaultValue) {
+            T value = property.get();
+            return value == null ? defaultValue : value;
+        }
+
+        public boolean circuitBreakerEnabled() {
+            return circuitBreakerEnabled;
+        }
+
+        public boolean circuitBreakerForceOpen() {
+            return circuitBreakerForceOpen;
+        }
+
+        public boolean circuitBreakerForceClosed() {
+            return circuitBreakerForceClosed;
+        }
+
+        public int circuitBreakerRequestVolumeThreshold() {
+            return circuitBreakerRequestVolumeThreshold;
+        }
+
+        public int circuitBreakerErrorThresholdPercentage() {
+            return circuitBreakerErrorThresholdPercentage;
+        }
+
+        public int circuitBreakerSlowCallDurationThresholdInMilliseconds() {
+            return circuitBreakerSlowCallDurationThresholdInMilliseconds;
+        }
+
+        public int circuitBreakerSlowCallRateThresholdPercentage() {
+            return circuitBreakerSlowCallRateThresholdPercentage;
+        }
+
+        public int circuitBreakerSleepWindowInMilliseconds() {
+            return circuitBreakerSleepWindowInMilliseconds;
+        }
+
+        public boolean circuitBreakerPartitionEnabled() {
+            return circuitBreakerPartitionEnabled;
+        }
+
+        public ExecutionIsolationStrategy executionIsolationStrategy() {
+            return executionIsolationStrategy;
+        }
+
+        public String executionIsolationThreadPoolKeyOverride() {
+            return executionIsolationThreadPoolKeyOverride;
+        }
+
+        public boolean executionIsolationThreadInterruptOnTimeout() {
+            return executionIsolationThreadInterruptOnTimeout;
+        }
+
+        public int executionIsolationSemaphoreMaxConcurrentRequests() {
+            return executionIsolationSemaphoreMaxConcurrentRequests;
+        }
+
+        public boolean executionIsolationSemaphoreSynchronousExecutionEnabled() {
+            return executionIsolationSemaphoreSynchronousExecutionEnabled;
+        }
+
+        public boolean executionTimeoutEnabled() {
+            return executionTimeoutEnabled;
+        }
+
+        public int executionTimeoutInMilliseconds() {
+            return executionTimeoutInMilliseconds;
+        }
+
+        public boolean executionAdaptiveConcurrencyLimitEnabled() {
+            return executionAdaptiveConcurrencyLimitEnabled;
+        }
+
+        public boolean executionHedgeEnabled() {
+            return executionHedgeEnabled;
+        }
+
+        public int executionHedgeDelayPercentile() {
+            return executionHedgeDelayPercentile;
+        }
+
+        public int executionHedgeMinimumDelayInMilliseconds() {
+            return executionHedgeMinimumDelayInMilliseconds;
+        }
+
+        public int executionHedgeBudgetPercentage() {
+            return executionHedgeBudgetPercentage;
+        }
+
+        public int executionRetryMaxAttempts() {
+            return executionRetryMaxAttempts;
+        }
+
+        public int executionRetryBackoffInMilliseconds() {
+            return executionRetryBackoffInMilliseconds;
+        }
+
+        public int executionRetryMaxBackoffInMilliseconds() {
+            return executionRetryMaxBackoffInMilliseconds;
+        }
+
+        public int executionRetryBudgetPercentage() {
+            return executionRetryBudgetPercentage;
+        }
+
+        public boolean executionPartitionEnabled() {
+            return executionPartitionEnabled;
+        }
+
+        public boolean fallbackEnabled() {
+            return fallbackEnabled;
+        }
+
+        public boolean requestCacheEnabled() {
+            return requestCacheEnabled;
+        }
+
+        public boolean responseCacheEnabled() {
+            return responseCacheEnabled;
+        }
+
+        public boolean requestLogEnabled() {
+            return requestLogEnabled;
+        }
+    }
+
     /**
      * Factory method to retrieve the default Setter.
      */
@@ -538,11 +1259,32 @@ public abstract class HystrixCommandProperties {
 
         private Boolean circuitBreakerEnabled = null;
         private Integer circuitBreakerErrorThresholdPercentage = null;
+        private Integer circuitBreakerSlowCallDurationThresholdInMilliseconds = null;
+        private Integer circuitBreakerSlowCallRateThresholdPercentage = null;
         private Boolean circuitBreakerForceClosed = null;
+        private CircuitBreakerImplementation circuitBreakerImplementation = null;
+        private Boolean circuitBreakerPartitionEnabled = null;
+        private Integer circuitBreakerPartitionMaxPartitions = null;
         private Boolean circuitBreakerForceOpen = null;
         private Integer circuitBreakerRequestVolumeThreshold = null;
         private Integer circuitBreakerSleepWindowInMilliseconds = null;
         private Integer executionIsolationSemaphoreMaxConcurrentRequests = null;
+        private Boolean executionAdaptiveConcurrencyLimitEnabled = null;
+        private Integer executionAdaptiveConcurrencyLimitMinLimit = null;
+        private Integer executionAdaptiveConcurrencyLimitMaxLimit = null;
+        private Boolean executionHedgeEnabled = null;
+        private Integer executionHedgeDelayPercentile = null;
+        private Integer executionHedgeMinimumDelayInMilliseconds = null;
+        private Integer executionHedgeBudgetPercentage = null;
+        private Integer executionRetryMaxAttempts = null;
+        private Integer executionRetryBackoffInMilliseconds = null;
+        private Integer executionRetryMaxBackoffInMilliseconds = null;
+        private Integer executionRetryBudgetPercentage = null;
+        private Boolean executionPartitionEnabled = null;
+        private Integer executionPartitionMaxConcurrentRequests = null;
+        private Integer executionPartitionMaxPartitions = null;
+        private Boolean executionIsolationSemaphoreSynchronousExecutionEnabled = null;
+        private Boolean executionStacklessExceptionsEnabled = null;
         private ExecutionIsolationStrategy executionIsolationStrategy = null;
         private Boolean executionIsolationThreadInterruptOnTimeout = null;
         private Boolean executionIsolationThreadInterruptOnFutureCancel = null;
@@ -559,6 +1301,10 @@ public abstract class HystrixCommandProperties {
         private Integer metricsRollingStatisticalWindowInMilliseconds = null;
         private Integer metricsRollingStatisticalWindowBuckets = null;
         private Boolean requestCacheEnabled = null;
+        private Boolean responseCacheEnabled = null;
+        private Integer responseCacheTimeToLiveInMilliseconds = null;
+        private Integer responseCacheStaleWhileRevalidateInMilliseconds = null;
+        private Integer responseCacheMaxWeight = null;
         private Boolean requestLogEnabled = null;
 
         /* package */ Setter() {
@@ -572,10 +1318,30 @@ public abstract class HystrixCommandProperties {
             return circuitBreakerErrorThresholdPercentage;
         }
 
+        public Integer getCircuitBreakerSlowCallDurationThresholdInMilliseconds() {
+            return circuitBreakerSlowCallDurationThresholdInMilliseconds;
+        }
+
+        public Integer getCircuitBreakerSlowCallRateThresholdPercentage() {
+            return circuitBreakerSlowCallRateThresholdPercentage;
+        }
+
         public Boolean getCircuitBreakerForceClosed() {
             return circuitBreakerForceClosed;
         }
 
+        public CircuitBreakerImplementation getCircuitBreakerImplementation() {
+            return circuitBreakerImplementation;
+        }
+
+        public Boolean getCircuitBreakerPartitionEnabled() {
+            return circuitBreakerPartitionEnabled;
+        }
+
+        public Integer getCircuitBreakerPartitionMaxPartitions() {
+            return circuitBreakerPartitionMaxPartitions;
+        }
+
         public Boolean getCircuitBreakerForceOpen() {
             return circuitBreakerForceOpen;
         }
@@ -592,6 +1358,70 @@ public abstract class HystrixCommandProperties {
             return executionIsolationSemaphoreMaxConcurrentRequests;
         }
 
+        public Boolean getExecutionAdaptiveConcurrencyLimitEnabled() {
+            return executionAdaptiveConcurrencyLimitEnabled;
+        }
+
+        public Integer getExecutionAdaptiveConcurrencyLimitMinLimit() {
+            return executionAdaptiveConcurrencyLimitMinLimit;
+        }
+
+        public Integer getExecutionAdaptiveConcurrencyLimitMaxLimit() {
+            return executionAdaptiveConcurrencyLimitMaxLimit;
+        }
+
+        public Boolean getExecutionHedgeEnabled() {
+            return executionHedgeEnabled;
+        }
+
+        public Integer getExecutionHedgeDelayPercentile() {
+            return executionHedgeDelayPercentile;
+        }
+
+        public Integer getExecutionHedgeMinimumDelayInMilliseconds() {
+            return executionHedgeMinimumDelayInMilliseconds;
+        }
+
+        public Integer getExecutionHedgeBudgetPercentage() {
+            return executionHedgeBudgetPercentage;
+        }
+
+        public Integer getExecutionRetryMaxAttempts() {
+            return executionRetryMaxAttempts;
+        }
+
+        public Integer getExecutionRetryBackoffInMilliseconds() {
+            return executionRetryBackoffInMilliseconds;
+        }
+
+        public Integer getExecutionRetryMaxBackoffInMilliseconds() {
+            return executionRetryMaxBackoffInMilliseconds;
+        }
+
+        public Integer getExecutionRetryBudgetPercentage() {
+            return executionRetryBudgetPercentage;
+        }
+
+        public Boolean getExecutionPartitionEnabled() {
+            return executionPartitionEnabled;
+        }
+
+        public Integer getExecutionPartitionMaxConcurrentRequests() {
+            return executionPartitionMaxConcurrentRequests;
+        }
+
+        public Integer getExecutionPartitionMaxPartitions() {
+            return executionPartitionMaxPartitions;
+        }
+
+        public Boolean getExecutionIsolationSemaphoreSynchronousExecutionEnabled() {
+            return executionIsolationSemaphoreSynchronousExecutionEnabled;
+        }
+
+        public Boolean getExecutionStacklessExceptionsEnabled() {
+            return executionStacklessExceptionsEnabled;
+        }
+
         public ExecutionIsolationStrategy getExecutionIsolationStrategy() {
             return executionIsolationStrategy;
         }
@@ -660,6 +1490,22 @@ public abstract class HystrixCommandProperties {
             return requestCacheEnabled;
         }
 
+        public Boolean getResponseCacheEnabled() {
+            return responseCacheEnabled;
+        }
+
+        public Integer getResponseCacheTimeToLiveInMilliseconds() {
+            return responseCacheTimeToLiveInMilliseconds;
+        }
+
+        public Integer getResponseCacheStaleWhileRevalidateInMilliseconds() {
+            return responseCacheStaleWhileRevalidateInMilliseconds;
+        }
+
+        public Integer getResponseCacheMaxWeight() {
+            return responseCacheMaxWeight;
+        }
+
         public Boolean getRequestLogEnabled() {
             return requestLogEnabled;
         }
@@ -674,11 +1520,36 @@ public abstract class HystrixCommandProperties {
             return this;
         }
 
+        public Setter withCircuitBreakerSlowCallDurationThresholdInMilliseconds(int value) {
+            this.circuitBreakerSlowCallDurationThresholdInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withCircuitBreakerSlowCallRateThresholdPercentage(int value) {
+            this.circuitBreakerSlowCallRateThresholdPercentage = value;
+            return this;
+        }
+
         public Setter withCircuitBreakerForceClosed(boolean value) {
             this.circuitBreakerForceClosed = value;
             return this;
         }
 
+        public Setter withCircuitBreakerImplementation(CircuitBreakerImplementation value) {
+            this.circuitBreakerImplementation = value;
+            return this;
+        }
+
+        public Setter withCircuitBreakerPartitionEnabled(boolean value) {
+            this.circuitBreakerPartitionEnabled = value;
+            return this;
+        }
+
+        public Setter withCircuitBreakerPartitionMaxPartitions(int value) {
+            this.circuitBreakerPartitionMaxPartitions = value;
+            return this;
+        }
+
         public Setter withCircuitBreakerForceOpen(boolean value) {
             this.circuitBreakerForceOpen = value;
             return this;
@@ -699,6 +1570,86 @@ public abstract class HystrixCommandProperties {
             return this;
         }
 
+        public Setter withExecutionAdaptiveConcurrencyLimitEnabled(boolean value) {
+            this.executionAdaptiveConcurrencyLimitEnabled = value;
+            return this;
+        }
+
+        public Setter withExecutionAdaptiveConcurrencyLimitMinLimit(int value) {
+            this.executionAdaptiveConcurrencyLimitMinLimit = value;
+            return this;
+        }
+
+        public Setter withExecutionAdaptiveConcurrencyLimitMaxLimit(int value) {
+            this.executionAdaptiveConcurrencyLimitMaxLimit = value;
+            return this;
+        }
+
+        public Setter withExecutionHedgeEnabled(boolean value) {
+            this.executionHedgeEnabled = value;
+            return this;
+        }
+
+        public Setter withExecutionHedgeDelayPercentile(int value) {
+            this.executionHedgeDelayPercentile = value;
+            return this;
+        }
+
+        public Setter withExecutionHedgeMinimumDelayInMilliseconds(int value) {
+            this.executionHedgeMinimumDelayInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withExecutionHedgeBudgetPercentage(int value) {
+            this.executionHedgeBudgetPercentage = value;
+            return this;
+        }
+
+        public Setter withExecutionRetryMaxAttempts(int value) {
+            this.executionRetryMaxAttempts = value;
+            return this;
+        }
+
+        public Setter withExecutionRetryBackoffInMilliseconds(int value) {
+            this.executionRetryBackoffInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withExecutionRetryMaxBackoffInMilliseconds(int value) {
+            this.executionRetryMaxBackoffInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withExecutionRetryBudgetPercentage(int value) {
+            this.executionRetryBudgetPercentage = value;
+            return this;
+        }
+
+        public Setter withExecutionPartitionEnabled(boolean value) {
+            this.executionPartitionEnabled = value;
+            return this;
+        }
+
+        public Setter withExecutionPartitionMaxConcurrentRequests(int value) {
+            this.executionPartitionMaxConcurrentRequests = value;
+            return this;
+        }
+
+        public Setter withExecutionPartitionMaxPartitions(int value) {
+            this.executionPartitionMaxPartitions = value;
+            return this;
+        }
+
+        public Setter withExecutionIsolationSemaphoreSynchronousExecutionEnabled(boolean value) {
+            this.executionIsolationSemaphoreSynchronousExecutionEnabled = value;
+            return this;
+        }
+
+        public Setter withExecutionStacklessExceptionsEnabled(boolean value) {
+            this.executionStacklessExceptionsEnabled = value;
+            return this;
+        }
+
         public Setter withExecutionIsolationStrategy(ExecutionIsolationStrategy value) {
             this.executionIsolationStrategy = value;
             return this;
@@ -783,6 +1734,26 @@ public abstract class HystrixCommandProperties {
             return this;
         }
 
+        public Setter withResponseCacheEnabled(boolean value) {
+            this.responseCacheEnabled = value;
+            return this;
+        }
+
+        public Setter withResponseCacheTimeToLiveInMilliseconds(int value) {
+            this.responseCacheTimeToLiveInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withResponseCacheStaleWhileRevalidateInMilliseconds(int value) {
+            this.responseCacheStaleWhileRevalidateInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withResponseCacheMaxWeight(int value) {
+            this.responseCacheMaxWeight = value;
+            return this;
+        }
+
         public Setter withRequestLogEnabled(boolean value) {
             this.requestLogEnabled = value;
             return this;
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.AbstractCommand.TryableSemaphore;
+import com.netflix.hystrix.metric.CachedValuesHistogram;
+import com.netflix.hystrix.metric.consumer.RollingCommandLatencyDistributionStream;
+import rx.Subscriber;
+import rx.Subscription;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for a {@link HystrixCommandKey} that adapts to the latency of its executions, used in place of the static semaphore permit count
+ * or thread-pool size when {@link HystrixCommandProperties#executionAdaptiveConcurrencyLimitEnabled()}.
+ * <p>
+ * The limit is adjusted by the gradient between a baseline latency and the current one each time {@link RollingCommandLatencyDistributionStream}
+ * emits.  While the mean latency stays within {@link #LATENCY_TOLERANCE} of the baseline the limit grows by its square root, so it finds headroom
+ * quickly when small and cautiously when large.  Beyond that the limit is scaled down by the gradient, by up to half at a time, so load is shed as
+ * soon as requests start to queue downstream rather than once they time out.  The limit is not raised while fewer than half of the permits were in
+ * use, since the latency then says nothing about whether more concurrency could be handled.
+ * <p>
+ * The baseline is the lowest mean latency seen, drifting slowly towards the current latency so that a lasting change in the dependency is
+ * eventually accepted as its new normal.
+ *
+ * @ExcludeFromJavadoc
+ * @ThreadSafe
+ */
+/* package */class HystrixConcurrencyLimiter implements TryableSemaphore {
+
+    /* latency can grow to this multiple of the baseline before the limit is lowered */
+    /* package */ static final double LATENCY_TOLERANCE = 1.5;
+    /* fraction of the way the baseline moves towards a higher latency on each update */
+    /* package */ static final double BASELINE_DRIFT = 0.05;
+
+    private final HystrixCommandProperties properties;
+    private final AtomicInteger count = new AtomicInteger(0);
+    /* most permits in use at once since the limit was last updated */
+    private final AtomicInteger maxCount = new AtomicInteger(0);
+    private final Subscription subscription;
+
+    private volatile int limit;
+    /* only accessed from the latency stream's emissions, which are serialized */
+    private double baselineLatency = -1;
+
+    /* package */ HystrixConcurrencyLimiter(HystrixCommandKey key, HystrixCommandProperties properties, int initialLimit) {
+        this.properties = properties;
+        this.limit = clamp(initialLimit, properties.executionAdaptiveConcurrencyLimitMinLimit().get(), properties.executionAdaptiveConcurrencyLimitMaxLimit().get());
+        this.subscription = RollingCommandLatencyDistributionStream.getInstance(key, properties)
+                .observe()
+                .subscribe(new Subscriber<CachedValuesHistogram>() {
+                    @Override
+                    public void onCompleted() {
+
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+
+                    }
+
+                    @Override
+                    public void onNext(CachedValuesHistogram latencies) {
+                        if (latencies.getTotalCount() > 0) {
+                            update(latencies.getMean());
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        int currentCount = count.incrementAndGet();
+        if (currentCount > limit) {
+            count.decrementAndGet();
+            return false;
+        }
+        int max = maxCount.get();
+        while (currentCount > max && !maxCount.compareAndSet(max, currentCount)) {
+            max = maxCount.get();
+        }
+        return true;
+    }
+
+    @Override
+    public void release() {
+        count.decrementAndGet();
+    }
+
+    @Override
+    public int getNumberOfPermitsUsed() {
+        return count.get();
+    }
+
+    /**
+     * @return number of concurrent executions currently permitted
+     */
+    /* package */ int getLimit() {
+        return limit;
+    }
+
+    /* package */ void update(int meanLatency) {
+        double latency = Math.max(1, meanLatency);
+        if (baselineLatency < 0 || latency < baselineLatency) {
+            baselineLatency = latency;
+        } else {
+            baselineLatency += (latency - baselineLatency) * BASELINE_DRIFT;
+        }
+        int maxInFlight = maxCount.getAndSet(count.get());
+        limit = computeLimit(limit, maxInFlight, baselineLatency, latency,
+                properties.executionAdaptiveConcurrencyLimitMinLimit().get(), properties.executionAdaptiveConcurrencyLimitMaxLimit().get());
+    }
+
+    /* package */ void unsubscribe() {
+        subscription.unsubscribe();
+    }
+
+    /**
+     * @param limit current limit
+     * @param maxInFlight most permits in use at once since the limit was last computed
+     * @param baselineLatency latency the dependency has when it isn't overloaded
+     * @param latency current latency
+     * @param minLimit lowest limit allowed
+     * @param maxLimit highest limit allowed
+     * @return new limit
+     */
+    /* package */ static int computeLimit(int limit, int maxInFlight, double baselineLatency, double latency, int minLimit, int maxLimit) {
+        double gradient = Math.max(0.5, Math.min(1.0, LATENCY_TOLERANCE * baselineLatency / latency));
+        double newLimit;
+        if (gradient < 1.0) {
+            newLimit = limit * gradient;
+        } else if (maxInFlight * 2 < limit) {
+            newLimit = limit;
+        } else {
+            newLimit = limit + Math.sqrt(limit);
+        }
+        return clamp((int) newLimit, minLimit, maxLimit);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(Math.max(min, max), value));
+    }
+
+    /**
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    /* package */ static class Factory {
+        // String is HystrixCommandKey.name() (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+        private static final ConcurrentHashMap<String, HystrixConcurrencyLimiter> limitersByCommand = new ConcurrentHashMap<String, HystrixConcurrencyLimiter>();
+
+        /**
+         * Get or create the {@link HystrixConcurrencyLimiter} for a given {@link HystrixCommandKey}.
+         *
+         * @param initialLimit limit to start from if this creates the limiter
+         */
+        /* package */ static HystrixConcurrencyLimiter getInstance(HystrixCommandKey key, HystrixCommandProperties properties, int initialLimit) {
+            HystrixConcurrencyLimiter previouslyCached = limitersByCommand.get(key.name());
+            if (previouslyCached != null) {
+                return previouslyCached;
+            }
+            HystrixConcurrencyLimiter limiter = new HystrixConcurrencyLimiter(key, properties, initialLimit);
+            HystrixConcurrencyLimiter existing = limitersByCommand.putIfAbsent(key.name(), limiter);
+            if (existing == null) {
+                return limiter;
+            } else {
+                // lost the race, so stop the one we created listening to latencies
+                limiter.unsubscribe();
+                return existing;
+            }
+        }
+
+        /**
+         * Get the {@link HystrixConcurrencyLimiter} for a given {@link HystrixCommandKey} or null if none exists.
+         */
+        /* package */ static HystrixConcurrencyLimiter getInstance(HystrixCommandKey key) {
+            return limitersByCommand.get(key.name());
+        }
+
+        /**
+         * Clears all limiters. If new requests come in instances will be recreated.
+         */
+        /* package */ static void reset() {
+            for (HystrixConcurrencyLimiter limiter : limitersByCommand.values()) {
+                limiter.unsubscribe();
+            }
+            limitersByCommand.clear();
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.netflix.hystrix;
 
+import com.netflix.hystrix.util.HystrixTimer;
+
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -40,6 +42,14 @@ public class HystrixCounters {
         return concurrentThreadsExecuting.get();
     }
 
+    /**
+     * Return how late {@link HystrixTimer} listeners, such as command timeouts, have fired over the last 10 seconds
+     * @return maximum lag of {@link HystrixTimer} listeners in milliseconds
+     */
+    public static long getRollingMaxTimerTickLagInMilliseconds() {
+        return HystrixTimer.getInstance().getRollingMaxTickLagInMilliseconds();
+    }
+
     /**
      * Return the number of unique {@link HystrixCommand}s that have been registered
      * @return number of unique {@link HystrixCommand}s that have been registered
@@ -44,7 +44,15 @@ public enum HystrixEventType {
     RESPONSE_FROM_CACHE(true),
     CANCELLED(true),
     COLLAPSED(false),
-    COMMAND_MAX_ACTIVE(false);
+    COMMAND_MAX_ACTIVE(false),
+    RESPONSE_CACHE_HIT(false),
+    RESPONSE_CACHE_MISS(false),
+    RESPONSE_CACHE_EVICTION(false),
+    THREAD_POOL_DROPPED(false),
+    DEADLINE_EXCEEDED(false),
+    HEDGE(false),
+    HEDGE_WIN(false),
+    RETRY(false);
 
     private final boolean isTerminal;
 
@@ -106,7 +114,7 @@ public enum HystrixEventType {
     }
 
     public enum ThreadPool {
-        EXECUTED, REJECTED;
+        EXECUTED, REJECTED, DROPPED;
 
         public static ThreadPool from(HystrixRollingNumberEvent event) {
             switch (event) {
@@ -124,6 +132,9 @@ public enum HystrixEventType {
                 case TIMEOUT: return EXECUTED;
                 case BAD_REQUEST: return EXECUTED;
                 case THREAD_POOL_REJECTED: return REJECTED;
+                case THREAD_POOL_DROPPED: return DROPPED;
+                case HEDGE: return EXECUTED;
+                case RETRY: return EXECUTED;
                 default: return null;
             }
         }
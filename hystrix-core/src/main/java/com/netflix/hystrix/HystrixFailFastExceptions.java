@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.config.DynamicBooleanProperty;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.hystrix.exception.HystrixQueueDropException;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
+import com.netflix.hystrix.exception.HystrixTimeoutException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Exceptions signalling that a command failed fast: it was short-circuited, rejected, dropped from a queue, timed out or ran out of time before it started.
+ * <p>
+ * For commands with {@link HystrixCommandProperties#executionStacklessExceptionsEnabled()} these are preallocated without a stack trace, since
+ * they carry nothing specific to an execution, and a {@link HystrixRuntimeException} for one of these failures is created without capturing its
+ * stack.  Otherwise, or if the "hystrix.stacklessExceptions.debug" property is true, a new exception with a stack trace is created each time.
+ */
+/* package */class HystrixFailFastExceptions {
+
+    private static final DynamicBooleanProperty debug = DynamicPropertyFactory.getInstance().getBooleanProperty("hystrix.stacklessExceptions.debug", false);
+
+    private static final String SHORT_CIRCUITED = "Hystrix circuit short-circuited and is OPEN";
+    private static final String SEMAPHORE_REJECTED = "could not acquire a semaphore for execution";
+    private static final String CONCURRENCY_LIMIT_REJECTED = "Rejected command because the adaptive concurrency limit has been reached.";
+    private static final String PARTITION_REJECTED = "Rejected command because its partition is at its maxConcurrentRequests limit.";
+    private static final String QUEUE_DROPPED = "Dropped command because it waited in the thread-pool queue for longer than the queue allows.";
+    private static final String DEADLINE_EXCEEDED = "Deadline of the request has been exceeded.";
+    private static final String NO_FALLBACK = "No fallback available.";
+
+    private static final RuntimeException shortCircuited = withoutStackTrace(new RuntimeException(SHORT_CIRCUITED, null));
+    private static final RuntimeException semaphoreRejected = withoutStackTrace(new RuntimeException(SEMAPHORE_REJECTED, null));
+    private static final RejectedExecutionException concurrencyLimitRejected = withoutStackTrace(new RejectedExecutionException(CONCURRENCY_LIMIT_REJECTED, null));
+    private static final RejectedExecutionException partitionRejected = withoutStackTrace(new RejectedExecutionException(PARTITION_REJECTED, null));
+    private static final HystrixQueueDropException queueDropped = withoutStackTrace(new HystrixQueueDropException(QUEUE_DROPPED, null));
+    private static final HystrixTimeoutException timeoutSignal = withoutStackTrace(new HystrixTimeoutException());
+    private static final TimeoutException timedOut = withoutStackTrace(new TimeoutException());
+    private static final TimeoutException deadlineExceeded = withoutStackTrace(new TimeoutException(DEADLINE_EXCEEDED));
+    private static final UnsupportedOperationException noFallback = withoutStackTrace(new UnsupportedOperationException(NO_FALLBACK, null));
+
+    private HystrixFailFastExceptions() {
+    }
+
+    /**
+     * @return true if failing fast should not capture stack traces for a command with these properties
+     */
+    /* package */static boolean isStackless(HystrixCommandProperties properties) {
+        return properties.executionStacklessExceptionsEnabled().get() && !debug.get();
+    }
+
+    /* package */static RuntimeException shortCircuited(boolean stackless) {
+        return stackless ? shortCircuited : new RuntimeException(SHORT_CIRCUITED);
+    }
+
+    /* package */static RuntimeException semaphoreRejected(boolean stackless) {
+        return stackless ? semaphoreRejected : new RuntimeException(SEMAPHORE_REJECTED);
+    }
+
+    /* package */static RejectedExecutionException concurrencyLimitRejected(boolean stackless) {
+        return stackless ? concurrencyLimitRejected : new RejectedExecutionException(CONCURRENCY_LIMIT_REJECTED);
+    }
+
+    /* package */static RejectedExecutionException partitionRejected(boolean stackless) {
+        return stackless ? partitionRejected : new RejectedExecutionException(PARTITION_REJECTED);
+    }
+
+    /* package */static HystrixQueueDropException queueDropped(boolean stackless) {
+        return stackless ? queueDropped : new HystrixQueueDropException(QUEUE_DROPPED);
+    }
+
+    /* package */static HystrixTimeoutException timeoutSignal(boolean stackless) {
+        return stackless ? timeoutSignal : new HystrixTimeoutException();
+    }
+
+    /* package */static TimeoutException timedOut(boolean stackless) {
+        return stackless ? timedOut : new TimeoutException();
+    }
+
+    /* package */static TimeoutException deadlineExceeded(boolean stackless) {
+        return stackless ? deadlineExceeded : new TimeoutException(DEADLINE_EXCEEDED);
+    }
+
+    /* package */static UnsupportedOperationException noFallback(boolean stackless) {
+        return stackless ? noFallback : new UnsupportedOperationException(NO_FALLBACK);
+    }
+
+    /* package */static HystrixRuntimeException hystrixRuntimeException(boolean stackless, FailureType failureType, Class<? extends HystrixInvokable> commandClass,
+                                                                         String message, Throwable cause, Throwable fallbackException) {
+        if (stackless && failureType != FailureType.COMMAND_EXCEPTION && failureType != FailureType.BAD_REQUEST_EXCEPTION) {
+            return new HystrixRuntimeException(failureType, commandClass, message, cause, fallbackException, false);
+        }
+        return new HystrixRuntimeException(failureType, commandClass, message, cause, fallbackException);
+    }
+
+    /**
+     * Clear the stack trace of an exception to be shared, and set its cause so that it can't be changed.
+     */
+    private static <T extends Throwable> T withoutStackTrace(T t) {
+        if (t.getCause() == null) {
+            try {
+                t.initCause(null);
+            } catch (IllegalStateException alreadySet) {
+                // constructed with a null cause
+            }
+        }
+        t.setStackTrace(new StackTraceElement[0]);
+        return t;
+    }
+}
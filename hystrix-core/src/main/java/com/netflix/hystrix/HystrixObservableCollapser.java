@@ -162,6 +162,7 @@ public abstract class HystrixObservableCollapser<K, BatchReturnType, ResponseTyp
                 // mark the number of requests being collapsed together
                 command.markAsCollapsedCommand(this.getCollapserKey(), requests.size());
                 self.metrics.markBatch(requests.size());
+                self.metrics.markBatchCommand(command.getCommandKey());
                 return command.toObservable();
             }
 
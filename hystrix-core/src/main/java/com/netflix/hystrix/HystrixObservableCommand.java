@@ -244,7 +244,7 @@ public abstract class HystrixObservableCommand<R> extends AbstractCommand<R> imp
      * @return R or UnsupportedOperationException if not implemented
      */
     protected Observable<R> resumeWithFallback() {
-        return Observable.error(new UnsupportedOperationException("No fallback available."));
+        return Observable.error(HystrixFailFastExceptions.noFallback(HystrixFailFastExceptions.isStackless(getProperties())));
     }
 
     @Override
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCircuitBreaker.HystrixRollingHealthCircuitBreaker;
+import com.netflix.hystrix.util.OrdinalTable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circuit breakers by partition key, such as a shard or host, for a {@link HystrixCommandKey} with
+ * {@link HystrixCommandProperties#circuitBreakerPartitionEnabled()}, so that a failing partition is short-circuited while the other partitions of
+ * the command carry on.  Executions without a partition key keep using the {@link HystrixCircuitBreaker} of the command.
+ * <p>
+ * The health of each partition is counted completion by completion in its own {@link com.netflix.hystrix.util.HystrixRollingHealthCounter},
+ * which holds three counters per bucket, and its circuit trips on the completion that takes it past
+ * {@link HystrixCommandProperties#circuitBreakerErrorThresholdPercentage()} or {@link HystrixCommandProperties#circuitBreakerSlowCallRateThresholdPercentage()}.
+ * <p>
+ * At most {@link HystrixCommandProperties#circuitBreakerPartitionMaxPartitions()} partitions have a circuit breaker at once, in least recently
+ * used order, so the memory used stays bounded however many partition keys there are.  A partition that has been idle for longest is forgotten
+ * to make room for a new one, and starts over closed, with no health, if it is used again.
+ *
+ * @ThreadSafe
+ */
+public class HystrixPartitionedCircuitBreaker {
+
+    private final HystrixCommandKey commandKey;
+    private final HystrixCommandProperties properties;
+    /* access ordered, so the least recently used partition comes first; guarded by itself */
+    private final LinkedHashMap<String, HystrixRollingHealthCircuitBreaker> circuitBreakers;
+
+    /* package */ HystrixPartitionedCircuitBreaker(HystrixCommandKey commandKey, final HystrixCommandProperties properties) {
+        this.commandKey = commandKey;
+        this.properties = properties;
+        this.circuitBreakers = new LinkedHashMap<String, HystrixRollingHealthCircuitBreaker>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HystrixRollingHealthCircuitBreaker> eldest) {
+                return size() > properties.circuitBreakerPartitionMaxPartitions().get();
+            }
+        };
+    }
+
+    /**
+     * Get or create the circuit breaker of a partition.
+     *
+     * @param partitionKey key of the partition
+     * @return circuit breaker of the partition, which must be given the completions of its executions
+     */
+    /* package */ HystrixRollingHealthCircuitBreaker getCircuitBreaker(String partitionKey) {
+        synchronized (circuitBreakers) {
+            HystrixRollingHealthCircuitBreaker circuitBreaker = circuitBreakers.get(partitionKey);
+            if (circuitBreaker == null) {
+                circuitBreaker = new HystrixRollingHealthCircuitBreaker(commandKey, properties);
+                circuitBreakers.put(partitionKey, circuitBreaker);
+            }
+            return circuitBreaker;
+        }
+    }
+
+    /**
+     * @return number of partitions that currently have a circuit breaker
+     */
+    public int getNumberOfPartitions() {
+        synchronized (circuitBreakers) {
+            return circuitBreakers.size();
+        }
+    }
+
+    /**
+     * @return keys of the partitions whose circuit is currently open, least recently used first
+     */
+    public List<String> getOpenPartitions() {
+        List<String> openPartitions = new ArrayList<String>();
+        synchronized (circuitBreakers) {
+            // iterating doesn't count as an access, so this leaves the order alone
+            for (Map.Entry<String, HystrixRollingHealthCircuitBreaker> entry : circuitBreakers.entrySet()) {
+                if (entry.getValue().isOpen()) {
+                    openPartitions.add(entry.getKey());
+                }
+            }
+        }
+        return openPartitions;
+    }
+
+    /**
+     * Whether the circuit of a partition is currently open.  This doesn't count as a use of the partition.
+     *
+     * @param partitionKey key of the partition
+     * @return true if the partition has a circuit breaker and it is open
+     */
+    public boolean isOpen(String partitionKey) {
+        synchronized (circuitBreakers) {
+            for (Map.Entry<String, HystrixRollingHealthCircuitBreaker> entry : circuitBreakers.entrySet()) {
+                if (entry.getKey().equals(partitionKey)) {
+                    return entry.getValue().isOpen();
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @ExcludeFromJavadoc
+     * @ThreadSafe
+     */
+    public static class Factory {
+        // indexed by HystrixCommandKey.Factory.ordinalOf(key) (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+        private static final OrdinalTable<HystrixPartitionedCircuitBreaker> circuitBreakersByCommand = new OrdinalTable<HystrixPartitionedCircuitBreaker>();
+
+        /**
+         * Get or create the {@link HystrixPartitionedCircuitBreaker} for a given {@link HystrixCommandKey}.
+         */
+        /* package */ static HystrixPartitionedCircuitBreaker getInstance(HystrixCommandKey key, HystrixCommandProperties properties) {
+            int ordinal = HystrixCommandKey.Factory.ordinalOf(key);
+            HystrixPartitionedCircuitBreaker previouslyCached = circuitBreakersByCommand.get(ordinal);
+            if (previouslyCached != null) {
+                return previouslyCached;
+            }
+            HystrixPartitionedCircuitBreaker circuitBreaker = new HystrixPartitionedCircuitBreaker(key, properties);
+            HystrixPartitionedCircuitBreaker existing = circuitBreakersByCommand.putIfAbsent(ordinal, circuitBreaker);
+            return existing == null ? circuitBreaker : existing;
+        }
+
+        /**
+         * Get the {@link HystrixPartitionedCircuitBreaker} for a given {@link HystrixCommandKey} or null if none of its executions has had a
+         * partition circuit breaker.
+         *
+         * @param key
+         *            {@link HystrixCommandKey} of the command
+         * @return {@link HystrixPartitionedCircuitBreaker} for {@link HystrixCommandKey}
+         */
+        public static HystrixPartitionedCircuitBreaker getInstance(HystrixCommandKey key) {
+            return circuitBreakersByCommand.get(HystrixCommandKey.Factory.ordinalOf(key));
+        }
+
+        /**
+         * Clears all partitioned circuit breakers. If new requests come in instances will be recreated.
+         */
+        /* package */ static void reset() {
+            circuitBreakersByCommand.clear();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.strategy.concurrency.HystrixPriorityQueue;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+
+/**
+ * Priority class of a {@link HystrixCommand} competing with other commands for the queue of its {@link HystrixThreadPool}.
+ * <p>
+ * A command gets its priority from {@link HystrixCommand.Setter#andPriority}, or else from {@link HystrixRequestContext#setPriority}, or else it
+ * is {@link #NORMAL}.  The priority only has an effect on a thread-pool with {@link HystrixThreadPoolProperties#queuePriorityEnabled()}, whose
+ * {@link HystrixPriorityQueue} hands out queued commands in proportion to the weight of their priority, and which rejects lower priorities
+ * while its queue is still short enough to accept higher ones.
+ */
+public enum HystrixPriority {
+    /**
+     * Interactive requests whose callers are waiting on them.
+     */
+    HIGH,
+    /**
+     * The default priority.
+     */
+    NORMAL,
+    /**
+     * Background work such as batch jobs or prefetching, which should give way to other commands sharing the thread-pool.
+     */
+    LOW
+}
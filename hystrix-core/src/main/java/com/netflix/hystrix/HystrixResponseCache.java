@@ -0,0 +1,388 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of successful responses shared across requests, for a {@link HystrixCommandKey}, keyed by {@link HystrixCommand#getCacheKey()}.
+ * <p>
+ * Unlike {@link HystrixRequestCache}, which de-duplicates commands within a {@link com.netflix.hystrix.strategy.concurrency.HystrixRequestContext},
+ * responses live here until they expire or are evicted, so they are returned to any request.  It is enabled by
+ * {@link HystrixCommandProperties#responseCacheEnabled()}.
+ * <p>
+ * A response is fresh for {@link HystrixCommandProperties#responseCacheTimeToLiveInMilliseconds()}, and is then returned for a further
+ * {@link HystrixCommandProperties#responseCacheStaleWhileRevalidateInMilliseconds()} while one command executes to refresh it.  The refresh runs
+ * on {@link #getRefreshExecutor()}, so the caller that starts it gets the stale response straight away.
+ * <p>
+ * Once the responses weigh more than {@link HystrixCommandProperties#responseCacheMaxWeight()}, the least recently used are evicted.  A new response
+ * only displaces one that is used at least as often, judged by a count-min sketch of how often each key is looked up (TinyLFU), so that a burst of
+ * keys seen once does not flush the responses that are in steady use.
+ *
+ * @ThreadSafe
+ */
+public class HystrixResponseCache {
+
+    // String is HystrixCommandKey.name() (we can't use HystrixCommandKey directly as we can't guarantee it implements hashcode/equals correctly)
+    private static final ConcurrentHashMap<String, HystrixResponseCache> caches = new ConcurrentHashMap<String, HystrixResponseCache>();
+
+    /* package */ static final int REFRESH_THREADS = 4;
+    /* package */ static final int REFRESH_QUEUE_SIZE = 1000;
+
+    private final HystrixCommandProperties properties;
+    private final ConcurrentHashMap<String, Entry<?>> entries = new ConcurrentHashMap<String, Entry<?>>();
+    /* least recently used first, guarded by evictionLock */
+    private final LinkedHashMap<String, Entry<?>> accessOrder = new LinkedHashMap<String, Entry<?>>(16, 0.75f, true);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final FrequencySketch sketch;
+
+    /* package */ HystrixResponseCache(HystrixCommandProperties properties) {
+        this.properties = properties;
+        this.sketch = new FrequencySketch(properties.responseCacheMaxWeight().get());
+    }
+
+    /**
+     * Get or create the {@link HystrixResponseCache} for a given {@link HystrixCommandKey}.
+     *
+     * @param key command key
+     * @param properties properties of the command, only used if this creates the cache
+     * @return {@link HystrixResponseCache}
+     */
+    public static HystrixResponseCache getInstance(HystrixCommandKey key, HystrixCommandProperties properties) {
+        HystrixResponseCache c = caches.get(key.name());
+        if (c == null) {
+            HystrixResponseCache newResponseCache = new HystrixResponseCache(properties);
+            HystrixResponseCache existing = caches.putIfAbsent(key.name(), newResponseCache);
+            if (existing == null) {
+                // we won so use the new one
+                c = newResponseCache;
+            } else {
+                // we lost so use the existing
+                c = existing;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Get the {@link HystrixResponseCache} for a given {@link HystrixCommandKey} or null if none exists.
+     *
+     * @param key command key
+     * @return {@link HystrixResponseCache} or null
+     */
+    public static HystrixResponseCache getInstance(HystrixCommandKey key) {
+        return caches.get(key.name());
+    }
+
+    /**
+     * Executor that stale responses are refreshed on, shared by all caches.  It has {@link #REFRESH_THREADS} daemon threads, which are only kept
+     * while there are refreshes, and rejects refreshes once {@link #REFRESH_QUEUE_SIZE} are waiting.
+     *
+     * @return {@link Executor}
+     */
+    /* package */ static Executor getRefreshExecutor() {
+        return RefreshExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Clears all caches. If new requests come in instances will be recreated.
+     */
+    /* package */ static void reset() {
+        caches.clear();
+    }
+
+    /**
+     * Look up a response, counting the access towards the key's frequency whether or not the response is there.
+     *
+     * @param cacheKey key as defined by {@link HystrixCommand#getCacheKey()}
+     * @return response, which may be stale, or null if there is none that can still be returned
+     */
+    // suppressing warnings because we are using a raw Entry since it's in a heterogeneous ConcurrentHashMap cache
+    @SuppressWarnings({ "unchecked" })
+    /* package */<T> Entry<T> get(String cacheKey) {
+        sketch.increment(cacheKey);
+        Entry<T> entry = (Entry<T>) entries.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.getState(properties) == State.EXPIRED) {
+            remove(cacheKey, entry);
+            return null;
+        }
+        // recency is best-effort, a lookup which would have to wait for a writer doesn't bother to record it
+        if (evictionLock.tryLock()) {
+            try {
+                accessOrder.get(cacheKey);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Store a response, replacing any already stored for the key, and evict others to make room if needed.
+     * <p>
+     * A response for a new key is not stored if it is not looked up more often than the responses it would evict.
+     *
+     * @param cacheKey key as defined by {@link HystrixCommand#getCacheKey()}
+     * @param values values emitted by the command
+     * @param weight weight of the response
+     * @return number of responses evicted
+     */
+    /* package */<T> int put(String cacheKey, List<T> values, int weight) {
+        long maxWeight = properties.responseCacheMaxWeight().get();
+        if (weight > maxWeight) {
+            return 0;
+        }
+        Entry<T> entry = new Entry<T>(values, weight, System.currentTimeMillis());
+        int evictions = 0;
+        evictionLock.lock();
+        try {
+            Entry<?> existing = entries.put(cacheKey, entry);
+            accessOrder.put(cacheKey, entry);
+            totalWeight.addAndGet(weight);
+            if (existing != null) {
+                totalWeight.addAndGet(-existing.weight);
+            }
+
+            Iterator<Map.Entry<String, Entry<?>>> leastRecentlyUsed = accessOrder.entrySet().iterator();
+            while (totalWeight.get() > maxWeight) {
+                Map.Entry<String, Entry<?>> victim = leastRecentlyUsed.next();
+                if (victim.getKey().equals(cacheKey)) {
+                    continue;
+                }
+                // a refreshed response is already in use, so only new keys have to earn their place
+                if (existing == null && sketch.frequency(cacheKey) <= sketch.frequency(victim.getKey())) {
+                    entries.remove(cacheKey);
+                    accessOrder.remove(cacheKey);
+                    totalWeight.addAndGet(-weight);
+                    break;
+                }
+                leastRecentlyUsed.remove();
+                entries.remove(victim.getKey());
+                totalWeight.addAndGet(-victim.getValue().weight);
+                evictions++;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        return evictions;
+    }
+
+    /**
+     * Clear the response for a given cacheKey.
+     *
+     * @param cacheKey key as defined by {@link HystrixCommand#getCacheKey()}
+     */
+    public void clear(String cacheKey) {
+        Entry<?> entry = entries.get(cacheKey);
+        if (entry != null) {
+            remove(cacheKey, entry);
+        }
+    }
+
+    /**
+     * @return number of responses stored
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return total weight of the responses stored
+     */
+    public long getWeight() {
+        return totalWeight.get();
+    }
+
+    private void remove(String cacheKey, Entry<?> entry) {
+        evictionLock.lock();
+        try {
+            if (entries.remove(cacheKey, entry)) {
+                accessOrder.remove(cacheKey);
+                totalWeight.addAndGet(-entry.weight);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /* package */ enum State {
+        FRESH, STALE, EXPIRED
+    }
+
+    /**
+     * Values a command emitted on a successful execution.
+     */
+    /* package */ static class Entry<T> {
+        private final List<T> values;
+        private final int weight;
+        private final long writeTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private Entry(List<T> values, int weight, long writeTime) {
+            this.values = Collections.unmodifiableList(values);
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+
+        /* package */ List<T> getValues() {
+            return values;
+        }
+
+        /* package */ State getState(HystrixCommandProperties properties) {
+            long age = System.currentTimeMillis() - writeTime;
+            int timeToLive = properties.responseCacheTimeToLiveInMilliseconds().get();
+            if (age < timeToLive) {
+                return State.FRESH;
+            } else if (age < timeToLive + properties.responseCacheStaleWhileRevalidateInMilliseconds().get()) {
+                return State.STALE;
+            } else {
+                return State.EXPIRED;
+            }
+        }
+
+        /**
+         * @return true if the caller should refresh this stale response, false if another is already doing so
+         */
+        /* package */ boolean startRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        /**
+         * Allow another caller to refresh this response, if the refresh failed.
+         */
+        /* package */ void refreshFailed() {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Creates the refresh executor when it is first used.
+     */
+    private static class RefreshExecutorHolder {
+        private static final ThreadPoolExecutor EXECUTOR;
+
+        static {
+            EXECUTOR = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE), new ThreadFactory() {
+                final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "HystrixResponseCache-Refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Count-min sketch of how often keys are looked up, with 4 bit counters which are all halved once enough have been counted, so that
+     * frequencies reflect recent use.
+     */
+    private static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        /* DEPTH rows of width counters, 16 to a long */
+        private final AtomicLongArray table;
+        private final int width;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int expectedEntries) {
+            int w = 16;
+            while (w < expectedEntries && w < (1 << 24)) {
+                w <<= 1;
+            }
+            this.width = w;
+            this.sampleSize = 10 * w;
+            this.table = new AtomicLongArray(DEPTH * w / 16);
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                added |= tryIncrement(counterIndex(hash, i));
+            }
+            if (added && additions.incrementAndGet() == sampleSize) {
+                halve();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                int counter = counterIndex(hash, i);
+                frequency = Math.min(frequency, (int) ((table.get(counter >>> 4) >>> ((counter & 15) << 2)) & 15L));
+            }
+            return frequency;
+        }
+
+        private int counterIndex(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return row * width + (h & (width - 1));
+        }
+
+        private boolean tryIncrement(int counter) {
+            int slot = counter >>> 4;
+            int shift = (counter & 15) << 2;
+            while (true) {
+                long value = table.get(slot);
+                if (((value >>> shift) & 15L) == 15L) {
+                    return false;
+                }
+                if (table.compareAndSet(slot, value, value + (1L << shift))) {
+                    return true;
+                }
+            }
+        }
+
+        private void halve() {
+            for (int i = 0; i < table.length(); i++) {
+                long value;
+                do {
+                    value = table.get(i);
+                } while (!table.compareAndSet(i, value, (value >>> 1) & HALF_MASK));
+            }
+            additions.addAndGet(-sampleSize / 2);
+        }
+    }
+}
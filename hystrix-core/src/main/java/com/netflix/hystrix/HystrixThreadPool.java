@@ -18,15 +18,16 @@ package com.netflix.hystrix;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
 import com.netflix.hystrix.strategy.concurrency.HystrixContextScheduler;
+import com.netflix.hystrix.strategy.concurrency.HystrixPriorityQueue;
 import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisherFactory;
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesFactory;
+import com.netflix.hystrix.util.OrdinalTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Scheduler;
 import rx.functions.Func0;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -87,10 +88,10 @@ public interface HystrixThreadPool {
      */
     /* package */static class Factory {
         /*
-         * Use the String from HystrixThreadPoolKey.name() instead of the HystrixThreadPoolKey instance as it's just an interface and we can't ensure the object
+         * Use the ordinal of the interned key with the same HystrixThreadPoolKey.name() instead of the HystrixThreadPoolKey instance as it's just an interface and we can't ensure the object
          * we receive implements hashcode/equals correctly and do not want the default hashcode/equals which would create a new threadpool for every object we get even if the name is the same
          */
-        /* package */final static ConcurrentHashMap<String, HystrixThreadPool> threadPools = new ConcurrentHashMap<String, HystrixThreadPool>();
+        /* package */final static OrdinalTable<HystrixThreadPool> threadPools = new OrdinalTable<HystrixThreadPool>();
 
         /**
          * Get the {@link HystrixThreadPool} instance for a given {@link HystrixThreadPoolKey}.
@@ -101,7 +102,7 @@ public interface HystrixThreadPool {
          */
         /* package */static HystrixThreadPool getInstance(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolProperties.Setter propertiesBuilder) {
             // get the key to use instead of using the object itself so that if people forget to implement equals/hashcode things will still work
-            String key = threadPoolKey.name();
+            int key = HystrixThreadPoolKey.Factory.ordinalOf(threadPoolKey);
 
             // this should find it for all but the first time
             HystrixThreadPool previouslyCached = threadPools.get(key);
@@ -111,8 +112,8 @@ public interface HystrixThreadPool {
 
             // if we get here this is the first time so we need to initialize
             synchronized (HystrixThreadPool.class) {
-                if (!threadPools.containsKey(key)) {
-                    threadPools.put(key, new HystrixThreadPoolDefault(threadPoolKey, propertiesBuilder));
+                if (threadPools.get(key) == null) {
+                    threadPools.putIfAbsent(key, new HystrixThreadPoolDefault(threadPoolKey, propertiesBuilder));
                 }
             }
             return threadPools.get(key);
@@ -258,6 +259,9 @@ public interface HystrixThreadPool {
          * still get checked on each invocation.
          * <p>
          * If a SynchronousQueue implementation is used (<code>maxQueueSize</code> <= 0), it always returns 0 as the size so this would always return true.
+         * <p>
+         * If a {@link HystrixPriorityQueue} is used, the threshold is scaled down for the priority of the command being scheduled, so that
+         * lower priorities are rejected first as the queue grows.
          */
         @Override
         public boolean isQueueSpaceAvailable() {
@@ -265,11 +269,22 @@ public interface HystrixThreadPool {
                 // we don't have a queue so we won't look for space but instead
                 // let the thread-pool reject or not
                 return true;
+            } else if (queue instanceof HystrixPriorityQueue) {
+                return queue.size() < getRejectionThreshold(HystrixPriorityQueue.getSchedulingPriority());
             } else {
                 return threadPool.getQueue().size() < properties.queueSizeRejectionThreshold().get();
             }
         }
 
+        private int getRejectionThreshold(HystrixPriority priority) {
+            final int threshold = properties.queueSizeRejectionThreshold().get();
+            switch (priority) {
+                case NORMAL: return threshold * properties.queuePriorityNormalRejectionThresholdPercentage().get() / 100;
+                case LOW: return threshold * properties.queuePriorityLowRejectionThresholdPercentage().get() / 100;
+                default: return threshold;
+            }
+        }
+
     }
 
 }
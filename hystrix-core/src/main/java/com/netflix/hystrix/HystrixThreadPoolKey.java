@@ -17,6 +17,8 @@ package com.netflix.hystrix;
 
 import com.netflix.hystrix.util.InternMap;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A key to represent a {@link HystrixThreadPool} for monitoring, metrics publishing, caching and other such uses.
  * <p>
@@ -27,13 +29,16 @@ public interface HystrixThreadPoolKey extends HystrixKey {
         private Factory() {
         }
 
+        // ordinal of the next key interned, so that per-key state can be held in a com.netflix.hystrix.util.OrdinalTable
+        private static final AtomicInteger nextOrdinal = new AtomicInteger();
+
         // used to intern instances so we don't keep re-creating them millions of times for the same key
-        private static final InternMap<String, HystrixThreadPoolKey> intern
-                = new InternMap<String, HystrixThreadPoolKey>(
-                new InternMap.ValueConstructor<String, HystrixThreadPoolKey>() {
+        private static final InternMap<String, HystrixThreadPoolKeyDefault> intern
+                = new InternMap<String, HystrixThreadPoolKeyDefault>(
+                new InternMap.ValueConstructor<String, HystrixThreadPoolKeyDefault>() {
                     @Override
-                    public HystrixThreadPoolKey create(String key) {
-                        return new HystrixThreadPoolKeyDefault(key);
+                    public HystrixThreadPoolKeyDefault create(String key) {
+                        return new HystrixThreadPoolKeyDefault(key, nextOrdinal.getAndIncrement());
                     }
                 });
 
@@ -47,9 +52,25 @@ public interface HystrixThreadPoolKey extends HystrixKey {
            return intern.interned(name);
         }
 
+        /**
+         * Dense ordinal of a HystrixThreadPoolKey, the same for every key with the same name, for indexing per-key state.
+         *
+         * @param key thread pool key, which may be implemented outside of this factory (such as by an Enum)
+         * @return ordinal of the interned key with the same name
+         */
+        public static int ordinalOf(HystrixThreadPoolKey key) {
+            if (key instanceof HystrixThreadPoolKeyDefault) {
+                return ((HystrixThreadPoolKeyDefault) key).ordinal;
+            }
+            return intern.interned(key.name()).ordinal;
+        }
+
         private static class HystrixThreadPoolKeyDefault extends HystrixKeyDefault implements HystrixThreadPoolKey {
-            public HystrixThreadPoolKeyDefault(String name) {
+            private final int ordinal;
+
+            public HystrixThreadPoolKeyDefault(String name, int ordinal) {
                 super(name);
+                this.ordinal = ordinal;
             }
         }
 
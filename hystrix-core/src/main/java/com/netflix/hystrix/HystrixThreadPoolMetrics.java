@@ -18,7 +18,9 @@ package com.netflix.hystrix;
 import com.netflix.hystrix.metric.HystrixCommandCompletion;
 import com.netflix.hystrix.metric.consumer.CumulativeThreadPoolEventCounterStream;
 import com.netflix.hystrix.metric.consumer.RollingThreadPoolMaxConcurrencyStream;
+import com.netflix.hystrix.metric.consumer.RollingThreadPoolQueueWaitDistributionStream;
 import com.netflix.hystrix.metric.consumer.RollingThreadPoolEventCounterStream;
+import com.netflix.hystrix.util.HystrixRollingNumber;
 import com.netflix.hystrix.util.HystrixRollingNumberEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +44,7 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
     private static final HystrixEventType[] ALL_COMMAND_EVENT_TYPES = HystrixEventType.values();
     private static final HystrixEventType.ThreadPool[] ALL_THREADPOOL_EVENT_TYPES = HystrixEventType.ThreadPool.values();
     private static final int NUMBER_THREADPOOL_EVENT_TYPES = ALL_THREADPOOL_EVENT_TYPES.length;
+    private static final HystrixPriority[] ALL_PRIORITIES = HystrixPriority.values();
 
     // String is HystrixThreadPoolKey.name() (we can't use HystrixThreadPoolKey directly as we can't guarantee it implements hashcode/equals correctly)
     private static final ConcurrentHashMap<String, HystrixThreadPoolMetrics> metrics = new ConcurrentHashMap<String, HystrixThreadPoolMetrics>();
@@ -152,6 +155,9 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
     private final RollingThreadPoolEventCounterStream rollingCounterStream;
     private final CumulativeThreadPoolEventCounterStream cumulativeCounterStream;
     private final RollingThreadPoolMaxConcurrencyStream rollingThreadPoolMaxConcurrencyStream;
+    private final RollingThreadPoolQueueWaitDistributionStream rollingThreadPoolQueueWaitDistributionStream;
+    /* executions, rejections and queue wait of each priority, indexed by HystrixPriority.ordinal() */
+    private final HystrixRollingNumber[] priorityCounters;
 
     private HystrixThreadPoolMetrics(HystrixThreadPoolKey threadPoolKey, ThreadPoolExecutor threadPool, HystrixThreadPoolProperties properties) {
         super(null);
@@ -162,6 +168,12 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
         rollingCounterStream = RollingThreadPoolEventCounterStream.getInstance(threadPoolKey, properties);
         cumulativeCounterStream = CumulativeThreadPoolEventCounterStream.getInstance(threadPoolKey, properties);
         rollingThreadPoolMaxConcurrencyStream = RollingThreadPoolMaxConcurrencyStream.getInstance(threadPoolKey, properties);
+        rollingThreadPoolQueueWaitDistributionStream = RollingThreadPoolQueueWaitDistributionStream.getInstance(threadPoolKey, properties);
+
+        priorityCounters = new HystrixRollingNumber[ALL_PRIORITIES.length];
+        for (int i = 0; i < priorityCounters.length; i++) {
+            priorityCounters[i] = new HystrixRollingNumber(properties.metricsRollingStatisticalWindowInMilliseconds().get(), properties.metricsRollingStatisticalWindowBuckets().get());
+        }
     }
 
     /**
@@ -192,21 +204,31 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
     }
 
     /**
-     * Value from {@link ThreadPoolExecutor#getActiveCount()}
+     * Value from {@link ThreadPoolExecutor#getActiveCount()}, plus {@link HystrixVirtualThreadBulkhead#getActiveCount()} if
+     * commands with this {@link HystrixThreadPoolKey} use {@link HystrixCommandProperties.ExecutionIsolationStrategy#VIRTUAL_THREAD}
      * 
      * @return Number
      */
     public Number getCurrentActiveCount() {
-        return threadPool.getActiveCount();
+        HystrixVirtualThreadBulkhead bulkhead = HystrixVirtualThreadBulkhead.Factory.getInstance(threadPoolKey);
+        if (bulkhead == null) {
+            return threadPool.getActiveCount();
+        }
+        return threadPool.getActiveCount() + bulkhead.getActiveCount();
     }
 
     /**
-     * Value from {@link ThreadPoolExecutor#getCompletedTaskCount()}
+     * Value from {@link ThreadPoolExecutor#getCompletedTaskCount()}, plus {@link HystrixVirtualThreadBulkhead#getCompletedTaskCount()} if
+     * commands with this {@link HystrixThreadPoolKey} use {@link HystrixCommandProperties.ExecutionIsolationStrategy#VIRTUAL_THREAD}
      * 
      * @return Number
      */
     public Number getCurrentCompletedTaskCount() {
-        return threadPool.getCompletedTaskCount();
+        HystrixVirtualThreadBulkhead bulkhead = HystrixVirtualThreadBulkhead.Factory.getInstance(threadPoolKey);
+        if (bulkhead == null) {
+            return threadPool.getCompletedTaskCount();
+        }
+        return threadPool.getCompletedTaskCount() + bulkhead.getCompletedTaskCount();
     }
 
     /**
@@ -246,12 +268,17 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
     }
 
     /**
-     * Value from {@link ThreadPoolExecutor#getTaskCount()}
+     * Value from {@link ThreadPoolExecutor#getTaskCount()}, plus {@link HystrixVirtualThreadBulkhead#getTaskCount()} if
+     * commands with this {@link HystrixThreadPoolKey} use {@link HystrixCommandProperties.ExecutionIsolationStrategy#VIRTUAL_THREAD}
      * 
      * @return Number
      */
     public Number getCurrentTaskCount() {
-        return threadPool.getTaskCount();
+        HystrixVirtualThreadBulkhead bulkhead = HystrixVirtualThreadBulkhead.Factory.getInstance(threadPoolKey);
+        if (bulkhead == null) {
+            return threadPool.getTaskCount();
+        }
+        return threadPool.getTaskCount() + bulkhead.getTaskCount();
     }
 
     /**
@@ -310,6 +337,28 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
         return cumulativeCounterStream.getLatestCount(HystrixEventType.ThreadPool.REJECTED);
     }
 
+    /**
+     * Rolling count of number of commands dropped from the queue during rolling statistical window.  These are also counted as rejected.
+     * <p>
+     * The rolling window is defined by {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowInMilliseconds()}.
+     *
+     * @return rolling count of commands dropped from the queue
+     * @see HystrixThreadPoolProperties#queueCoDelEnabled()
+     */
+    public long getRollingCountThreadsDropped() {
+        return rollingCounterStream.getLatestCount(HystrixEventType.ThreadPool.DROPPED);
+    }
+
+    /**
+     * Cumulative count of number of commands dropped from the queue since the start of the application.  These are also counted as rejected.
+     *
+     * @return cumulative count of commands dropped from the queue
+     * @see HystrixThreadPoolProperties#queueCoDelEnabled()
+     */
+    public long getCumulativeCountThreadsDropped() {
+        return cumulativeCounterStream.getLatestCount(HystrixEventType.ThreadPool.DROPPED);
+    }
+
     public long getRollingCount(HystrixEventType.ThreadPool event) {
         return rollingCounterStream.getLatestCount(event);
     }
@@ -346,6 +395,33 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
         return rollingThreadPoolMaxConcurrencyStream.getLatestRollingMax();
     }
 
+    /**
+     * Retrieve the time (in milliseconds) commands waited in the queue of the thread-pool before a thread started executing them, at a given percentile.
+     * <p>
+     * Unlike subtracting {@link HystrixCommandMetrics#getExecutionTimePercentile} from {@link HystrixCommandMetrics#getTotalTimePercentile}, this
+     * is measured from when the command was queued until a thread picked it up, so it can be used to size the thread-pool by queuing delay.
+     * <p>
+     * The rolling window is defined by {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowInMilliseconds()}.
+     *
+     * @param percentile
+     *            Percentile such as 50, 99, or 99.5.
+     * @return int time in milliseconds
+     */
+    public int getQueueWaitTimePercentile(double percentile) {
+        return rollingThreadPoolQueueWaitDistributionStream.getLatestPercentile(percentile);
+    }
+
+    /**
+     * The mean (average) time (in milliseconds) commands waited in the queue of the thread-pool before a thread started executing them.
+     * <p>
+     * This uses the same backing data as {@link #getQueueWaitTimePercentile};
+     *
+     * @return int time in milliseconds
+     */
+    public int getQueueWaitTimeMean() {
+        return rollingThreadPoolQueueWaitDistributionStream.getLatestMean();
+    }
+
     /**
      * Invoked each time a command is rejected from the thread-pool
      */
@@ -353,6 +429,99 @@ public class HystrixThreadPoolMetrics extends HystrixMetrics {
         concurrentExecutionCount.decrementAndGet();
     }
 
+    /**
+     * Invoked each time a command of the given priority starts executing on a thread of the thread-pool.
+     *
+     * @param priority
+     *            priority of the command
+     * @param queueWaitInMilliseconds
+     *            time the command waited in the queue of the thread-pool
+     */
+    public void markPriorityExecution(HystrixPriority priority, int queueWaitInMilliseconds) {
+        HystrixRollingNumber counter = priorityCounters[priority.ordinal()];
+        counter.increment(HystrixRollingNumberEvent.THREAD_EXECUTION);
+        counter.add(HystrixRollingNumberEvent.THREAD_QUEUE_WAIT_TIME, queueWaitInMilliseconds);
+    }
+
+    /**
+     * Invoked each time a command of the given priority is rejected from the thread-pool.
+     *
+     * @param priority
+     *            priority of the command
+     */
+    public void markPriorityRejection(HystrixPriority priority) {
+        priorityCounters[priority.ordinal()].increment(HystrixRollingNumberEvent.THREAD_POOL_REJECTED);
+    }
+
+    /**
+     * Rolling count of number of threads executed for commands of the given priority during rolling statistical window.
+     * <p>
+     * The rolling window is defined by {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowInMilliseconds()}.
+     *
+     * @param priority
+     *            priority of the commands
+     * @return rolling count of threads executed
+     */
+    public long getRollingCountThreadsExecuted(HystrixPriority priority) {
+        return priorityCounters[priority.ordinal()].getRollingSum(HystrixRollingNumberEvent.THREAD_EXECUTION);
+    }
+
+    /**
+     * Cumulative count of number of threads executed for commands of the given priority since the start of the application.
+     *
+     * @param priority
+     *            priority of the commands
+     * @return cumulative count of threads executed
+     */
+    public long getCumulativeCountThreadsExecuted(HystrixPriority priority) {
+        return priorityCounters[priority.ordinal()].getCumulativeSum(HystrixRollingNumberEvent.THREAD_EXECUTION);
+    }
+
+    /**
+     * Rolling count of number of commands of the given priority rejected during rolling statistical window.
+     * <p>
+     * The rolling window is defined by {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowInMilliseconds()}.
+     *
+     * @param priority
+     *            priority of the commands
+     * @return rolling count of threads rejected
+     * @see HystrixThreadPoolProperties#queuePriorityEnabled()
+     */
+    public long getRollingCountThreadsRejected(HystrixPriority priority) {
+        return priorityCounters[priority.ordinal()].getRollingSum(HystrixRollingNumberEvent.THREAD_POOL_REJECTED);
+    }
+
+    /**
+     * Cumulative count of number of commands of the given priority rejected since the start of the application.
+     *
+     * @param priority
+     *            priority of the commands
+     * @return cumulative count of threads rejected
+     * @see HystrixThreadPoolProperties#queuePriorityEnabled()
+     */
+    public long getCumulativeCountThreadsRejected(HystrixPriority priority) {
+        return priorityCounters[priority.ordinal()].getCumulativeSum(HystrixRollingNumberEvent.THREAD_POOL_REJECTED);
+    }
+
+    /**
+     * The mean (average) time (in milliseconds) commands of the given priority waited in the queue of the thread-pool during rolling statistical
+     * window.
+     * <p>
+     * The rolling window is defined by {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowInMilliseconds()}.
+     *
+     * @param priority
+     *            priority of the commands
+     * @return int time in milliseconds, or 0 if no commands of the priority executed
+     */
+    public int getQueueWaitTimeMean(HystrixPriority priority) {
+        HystrixRollingNumber counter = priorityCounters[priority.ordinal()];
+        long executed = counter.getRollingSum(HystrixRollingNumberEvent.THREAD_EXECUTION);
+        if (executed == 0) {
+            return 0;
+        }
+        return (int) (counter.getRollingSum(HystrixRollingNumberEvent.THREAD_QUEUE_WAIT_TIME) / executed);
+    }
+
     public static Func0<Integer> getCurrentConcurrencyThunk(final HystrixThreadPoolKey threadPoolKey) {
         return new Func0<Integer>() {
             @Override
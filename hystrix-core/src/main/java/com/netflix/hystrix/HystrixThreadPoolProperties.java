@@ -22,7 +22,9 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import com.netflix.hystrix.strategy.concurrency.HystrixCoDelQueue;
 import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
+import com.netflix.hystrix.strategy.concurrency.HystrixPriorityQueue;
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 import com.netflix.hystrix.strategy.properties.HystrixProperty;
 import com.netflix.hystrix.util.HystrixRollingNumber;
@@ -55,6 +57,17 @@ public abstract class HystrixThreadPoolProperties {
                                                                                  //turning this on should be a conscious decision by the user, so we default it to false
 
     static int default_queueSizeRejectionThreshold = 5; // number of items in queue
+    static int default_virtualThreadMaxConcurrentRequests = 10; // number of commands allowed to run at once on virtual threads
+    static boolean default_queueCoDelEnabled = false; // whether the queue drops commands which waited too long, off by default so the queue is a plain FIFO
+    static int default_queueCoDelTargetDelayInMilliseconds = 5; // time a command may wait in an overloaded queue before it is dropped
+    static int default_queueCoDelIntervalInMilliseconds = 100; // time the queue must be non-empty to count as overloaded, and the wait allowed when it is not
+    static boolean default_queueAdaptiveLifoEnabled = true; // whether an overloaded CoDel queue hands out the newest command first
+    static boolean default_queuePriorityEnabled = false; // whether the queue is split by HystrixPriority, off by default so the queue is a plain FIFO
+    static int default_queuePriorityHighWeight = 8; // share of dequeues given to HIGH priority commands while other priorities are also queued
+    static int default_queuePriorityNormalWeight = 4; // share of dequeues given to NORMAL priority commands while other priorities are also queued
+    static int default_queuePriorityLowWeight = 1; // share of dequeues given to LOW priority commands while other priorities are also queued
+    static int default_queuePriorityNormalRejectionThresholdPercentage = 80; // percentage of queueSizeRejectionThreshold a NORMAL priority command may queue up to
+    static int default_queuePriorityLowRejectionThresholdPercentage = 50; // percentage of queueSizeRejectionThreshold a LOW priority command may queue up to
     static int default_threadPoolRollingNumberStatisticalWindow = 10000; // milliseconds for rolling number
     static int default_threadPoolRollingNumberStatisticalWindowBuckets = 10; // number of buckets in rolling number (10 1-second buckets)
 
@@ -64,6 +77,17 @@ public abstract class HystrixThreadPoolProperties {
     private final HystrixProperty<Integer> maxQueueSize;
     private final HystrixProperty<Integer> queueSizeRejectionThreshold;
     private final HystrixProperty<Boolean> allowMaximumSizeToDivergeFromCoreSize;
+    private final HystrixProperty<Integer> virtualThreadMaxConcurrentRequests;
+    private final HystrixProperty<Boolean> queueCoDelEnabled;
+    private final HystrixProperty<Integer> queueCoDelTargetDelayInMilliseconds;
+    private final HystrixProperty<Integer> queueCoDelIntervalInMilliseconds;
+    private final HystrixProperty<Boolean> queueAdaptiveLifoEnabled;
+    private final HystrixProperty<Boolean> queuePriorityEnabled;
+    private final HystrixProperty<Integer> queuePriorityHighWeight;
+    private final HystrixProperty<Integer> queuePriorityNormalWeight;
+    private final HystrixProperty<Integer> queuePriorityLowWeight;
+    private final HystrixProperty<Integer> queuePriorityNormalRejectionThresholdPercentage;
+    private final HystrixProperty<Integer> queuePriorityLowRejectionThresholdPercentage;
 
     private final HystrixProperty<Integer> threadPoolRollingNumberStatisticalWindowInMilliseconds;
     private final HystrixProperty<Integer> threadPoolRollingNumberStatisticalWindowBuckets;
@@ -88,6 +112,17 @@ public abstract class HystrixThreadPoolProperties {
         this.keepAliveTime = getProperty(propertyPrefix, key, "keepAliveTimeMinutes", builder.getKeepAliveTimeMinutes(), default_keepAliveTimeMinutes);
         this.maxQueueSize = getProperty(propertyPrefix, key, "maxQueueSize", builder.getMaxQueueSize(), default_maxQueueSize);
         this.queueSizeRejectionThreshold = getProperty(propertyPrefix, key, "queueSizeRejectionThreshold", builder.getQueueSizeRejectionThreshold(), default_queueSizeRejectionThreshold);
+        this.virtualThreadMaxConcurrentRequests = getProperty(propertyPrefix, key, "virtualThread.maxConcurrentRequests", builder.getVirtualThreadMaxConcurrentRequests(), default_virtualThreadMaxConcurrentRequests);
+        this.queueCoDelEnabled = getProperty(propertyPrefix, key, "queue.coDel.enabled", builder.getQueueCoDelEnabled(), default_queueCoDelEnabled);
+        this.queueCoDelTargetDelayInMilliseconds = getProperty(propertyPrefix, key, "queue.coDel.targetDelayInMilliseconds", builder.getQueueCoDelTargetDelayInMilliseconds(), default_queueCoDelTargetDelayInMilliseconds);
+        this.queueCoDelIntervalInMilliseconds = getProperty(propertyPrefix, key, "queue.coDel.intervalInMilliseconds", builder.getQueueCoDelIntervalInMilliseconds(), default_queueCoDelIntervalInMilliseconds);
+        this.queueAdaptiveLifoEnabled = getProperty(propertyPrefix, key, "queue.adaptiveLifo.enabled", builder.getQueueAdaptiveLifoEnabled(), default_queueAdaptiveLifoEnabled);
+        this.queuePriorityEnabled = getProperty(propertyPrefix, key, "queue.priority.enabled", builder.getQueuePriorityEnabled(), default_queuePriorityEnabled);
+        this.queuePriorityHighWeight = getProperty(propertyPrefix, key, "queue.priority.highWeight", builder.getQueuePriorityHighWeight(), default_queuePriorityHighWeight);
+        this.queuePriorityNormalWeight = getProperty(propertyPrefix, key, "queue.priority.normalWeight", builder.getQueuePriorityNormalWeight(), default_queuePriorityNormalWeight);
+        this.queuePriorityLowWeight = getProperty(propertyPrefix, key, "queue.priority.lowWeight", builder.getQueuePriorityLowWeight(), default_queuePriorityLowWeight);
+        this.queuePriorityNormalRejectionThresholdPercentage = getProperty(propertyPrefix, key, "queue.priority.normalRejectionThresholdPercentage", builder.getQueuePriorityNormalRejectionThresholdPercentage(), default_queuePriorityNormalRejectionThresholdPercentage);
+        this.queuePriorityLowRejectionThresholdPercentage = getProperty(propertyPrefix, key, "queue.priority.lowRejectionThresholdPercentage", builder.getQueuePriorityLowRejectionThresholdPercentage(), default_queuePriorityLowRejectionThresholdPercentage);
         this.threadPoolRollingNumberStatisticalWindowInMilliseconds = getProperty(propertyPrefix, key, "metrics.rollingStats.timeInMilliseconds", builder.getMetricsRollingStatisticalWindowInMilliseconds(), default_threadPoolRollingNumberStatisticalWindow);
         this.threadPoolRollingNumberStatisticalWindowBuckets = getProperty(propertyPrefix, key, "metrics.rollingStats.numBuckets", builder.getMetricsRollingStatisticalWindowBuckets(), default_threadPoolRollingNumberStatisticalWindowBuckets);
     }
@@ -186,6 +221,128 @@ public abstract class HystrixThreadPoolProperties {
         return allowMaximumSizeToDivergeFromCoreSize;
     }
 
+    /**
+     * Number of permits in the {@link HystrixVirtualThreadBulkhead} for this key, which is the number of commands using
+     * {@link HystrixCommandProperties.ExecutionIsolationStrategy#VIRTUAL_THREAD} that may run at once.  Executions beyond that are rejected.
+     * <p>
+     * This has no effect on commands using {@link HystrixCommandProperties.ExecutionIsolationStrategy#THREAD}, and can be changed dynamically.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> virtualThreadMaxConcurrentRequests() {
+        return virtualThreadMaxConcurrentRequests;
+    }
+
+    /**
+     * Whether {@link HystrixConcurrencyStrategy#getBlockingQueue(HystrixThreadPoolKey, HystrixThreadPoolProperties)} provides a
+     * {@link HystrixCoDelQueue}, which drops commands that waited in the queue for too long instead of running them after their callers gave up.
+     * <p>
+     * Dropped commands are rejected with {@link HystrixEventType#THREAD_POOL_DROPPED} as well as {@link HystrixEventType#THREAD_POOL_REJECTED}.
+     * <p>
+     * Like {@link #maxQueueSize()}, this only affects the instantiation of a threadpool, and has no effect if {@link #maxQueueSize()} is not positive.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> queueCoDelEnabled() {
+        return queueCoDelEnabled;
+    }
+
+    /**
+     * Time in milliseconds a command may wait in the queue, while the queue is overloaded, before it is dropped.
+     * <p>
+     * The queue is overloaded when it has not been empty for {@link #queueCoDelIntervalInMilliseconds()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> queueCoDelTargetDelayInMilliseconds() {
+        return queueCoDelTargetDelayInMilliseconds;
+    }
+
+    /**
+     * Time in milliseconds the queue must stay non-empty to be considered overloaded.  This is also how long a command may wait in the queue
+     * while it is not overloaded, so a short burst is absorbed while a standing queue is drained quickly.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> queueCoDelIntervalInMilliseconds() {
+        return queueCoDelIntervalInMilliseconds;
+    }
+
+    /**
+     * Whether a {@link HystrixCoDelQueue} hands out the most recently queued command first while it is overloaded.  The newest commands are the ones whose
+     * callers are still most likely to be waiting, and the oldest are dropped once they exceed {@link #queueCoDelTargetDelayInMilliseconds()}.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> queueAdaptiveLifoEnabled() {
+        return queueAdaptiveLifoEnabled;
+    }
+
+    /**
+     * Whether {@link HystrixConcurrencyStrategy#getBlockingQueue(HystrixThreadPoolKey, HystrixThreadPoolProperties)} provides a
+     * {@link HystrixPriorityQueue}, which keeps a queue for each {@link HystrixPriority} so that low priority commands can't starve high priority
+     * ones sharing the thread-pool.
+     * <p>
+     * This takes precedence over {@link #queueCoDelEnabled()}.  Like {@link #maxQueueSize()}, this only affects the instantiation of a threadpool,
+     * and has no effect if {@link #maxQueueSize()} is not positive.
+     *
+     * @return {@code HystrixProperty<Boolean>}
+     */
+    public HystrixProperty<Boolean> queuePriorityEnabled() {
+        return queuePriorityEnabled;
+    }
+
+    /**
+     * Weight of {@link HystrixPriority#HIGH} commands in a {@link HystrixPriorityQueue}.  While commands of several priorities are queued, each
+     * priority gets a share of the threads that become free in proportion to its weight.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> queuePriorityHighWeight() {
+        return queuePriorityHighWeight;
+    }
+
+    /**
+     * Weight of {@link HystrixPriority#NORMAL} commands in a {@link HystrixPriorityQueue}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     * @see #queuePriorityHighWeight()
+     */
+    public HystrixProperty<Integer> queuePriorityNormalWeight() {
+        return queuePriorityNormalWeight;
+    }
+
+    /**
+     * Weight of {@link HystrixPriority#LOW} commands in a {@link HystrixPriorityQueue}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     * @see #queuePriorityHighWeight()
+     */
+    public HystrixProperty<Integer> queuePriorityLowWeight() {
+        return queuePriorityLowWeight;
+    }
+
+    /**
+     * Percentage of {@link #queueSizeRejectionThreshold()} up to which {@link HystrixPriority#NORMAL} commands are queued when
+     * {@link #queuePriorityEnabled()}.  Beyond it they are rejected, so the rest of the queue is kept for {@link HystrixPriority#HIGH} commands.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> queuePriorityNormalRejectionThresholdPercentage() {
+        return queuePriorityNormalRejectionThresholdPercentage;
+    }
+
+    /**
+     * Percentage of {@link #queueSizeRejectionThreshold()} up to which {@link HystrixPriority#LOW} commands are queued when
+     * {@link #queuePriorityEnabled()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     * @see #queuePriorityNormalRejectionThresholdPercentage()
+     */
+    public HystrixProperty<Integer> queuePriorityLowRejectionThresholdPercentage() {
+        return queuePriorityLowRejectionThresholdPercentage;
+    }
+
     /**
      * Duration of statistical rolling window in milliseconds. This is passed into {@link HystrixRollingNumber} inside each {@link HystrixThreadPoolMetrics} instance.
      * 
@@ -243,6 +400,17 @@ public abstract class HystrixThreadPoolProperties {
         private Integer maxQueueSize = null;
         private Integer queueSizeRejectionThreshold = null;
         private Boolean allowMaximumSizeToDivergeFromCoreSize = null;
+        private Integer virtualThreadMaxConcurrentRequests = null;
+        private Boolean queueCoDelEnabled = null;
+        private Integer queueCoDelTargetDelayInMilliseconds = null;
+        private Integer queueCoDelIntervalInMilliseconds = null;
+        private Boolean queueAdaptiveLifoEnabled = null;
+        private Boolean queuePriorityEnabled = null;
+        private Integer queuePriorityHighWeight = null;
+        private Integer queuePriorityNormalWeight = null;
+        private Integer queuePriorityLowWeight = null;
+        private Integer queuePriorityNormalRejectionThresholdPercentage = null;
+        private Integer queuePriorityLowRejectionThresholdPercentage = null;
         private Integer rollingStatisticalWindowInMilliseconds = null;
         private Integer rollingStatisticalWindowBuckets = null;
 
@@ -273,6 +441,50 @@ public abstract class HystrixThreadPoolProperties {
             return allowMaximumSizeToDivergeFromCoreSize;
         }
 
+        public Integer getVirtualThreadMaxConcurrentRequests() {
+            return virtualThreadMaxConcurrentRequests;
+        }
+
+        public Boolean getQueueCoDelEnabled() {
+            return queueCoDelEnabled;
+        }
+
+        public Integer getQueueCoDelTargetDelayInMilliseconds() {
+            return queueCoDelTargetDelayInMilliseconds;
+        }
+
+        public Integer getQueueCoDelIntervalInMilliseconds() {
+            return queueCoDelIntervalInMilliseconds;
+        }
+
+        public Boolean getQueueAdaptiveLifoEnabled() {
+            return queueAdaptiveLifoEnabled;
+        }
+
+        public Boolean getQueuePriorityEnabled() {
+            return queuePriorityEnabled;
+        }
+
+        public Integer getQueuePriorityHighWeight() {
+            return queuePriorityHighWeight;
+        }
+
+        public Integer getQueuePriorityNormalWeight() {
+            return queuePriorityNormalWeight;
+        }
+
+        public Integer getQueuePriorityLowWeight() {
+            return queuePriorityLowWeight;
+        }
+
+        public Integer getQueuePriorityNormalRejectionThresholdPercentage() {
+            return queuePriorityNormalRejectionThresholdPercentage;
+        }
+
+        public Integer getQueuePriorityLowRejectionThresholdPercentage() {
+            return queuePriorityLowRejectionThresholdPercentage;
+        }
+
         public Integer getMetricsRollingStatisticalWindowInMilliseconds() {
             return rollingStatisticalWindowInMilliseconds;
         }
@@ -311,6 +523,61 @@ public abstract class HystrixThreadPoolProperties {
             return this;
         }
 
+        public Setter withVirtualThreadMaxConcurrentRequests(int value) {
+            this.virtualThreadMaxConcurrentRequests = value;
+            return this;
+        }
+
+        public Setter withQueueCoDelEnabled(boolean value) {
+            this.queueCoDelEnabled = value;
+            return this;
+        }
+
+        public Setter withQueueCoDelTargetDelayInMilliseconds(int value) {
+            this.queueCoDelTargetDelayInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withQueueCoDelIntervalInMilliseconds(int value) {
+            this.queueCoDelIntervalInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withQueueAdaptiveLifoEnabled(boolean value) {
+            this.queueAdaptiveLifoEnabled = value;
+            return this;
+        }
+
+        public Setter withQueuePriorityEnabled(boolean value) {
+            this.queuePriorityEnabled = value;
+            return this;
+        }
+
+        public Setter withQueuePriorityHighWeight(int value) {
+            this.queuePriorityHighWeight = value;
+            return this;
+        }
+
+        public Setter withQueuePriorityNormalWeight(int value) {
+            this.queuePriorityNormalWeight = value;
+            return this;
+        }
+
+        public Setter withQueuePriorityLowWeight(int value) {
+            this.queuePriorityLowWeight = value;
+            return this;
+        }
+
+        public Setter withQueuePriorityNormalRejectionThresholdPercentage(int value) {
+            this.queuePriorityNormalRejectionThresholdPercentage = value;
+            return this;
+        }
+
+        public Setter withQueuePriorityLowRejectionThresholdPercentage(int value) {
+            this.queuePriorityLowRejectionThresholdPercentage = value;
+            return this;
+        }
+
         public Setter withMetricsRollingStatisticalWindowInMilliseconds(int value) {
             this.rollingStatisticalWindowInMilliseconds = value;
             return this;
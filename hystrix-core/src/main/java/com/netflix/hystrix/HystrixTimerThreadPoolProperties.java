@@ -1,9 +1,13 @@
 package com.netflix.hystrix;
 
 import static com.netflix.hystrix.strategy.properties.HystrixPropertiesChainedProperty.forInteger;
+import static com.netflix.hystrix.strategy.properties.HystrixPropertiesChainedProperty.forString;
 
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 import com.netflix.hystrix.strategy.properties.HystrixProperty;
+import com.netflix.hystrix.util.HystrixTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Properties for Hystrix timer thread pool.
@@ -12,7 +16,33 @@ import com.netflix.hystrix.strategy.properties.HystrixProperty;
  */
 public abstract class HystrixTimerThreadPoolProperties {
 
+    private static final Logger logger = LoggerFactory.getLogger(HystrixTimerThreadPoolProperties.class);
+
+    /* defaults */
+    static final TimerImplementation default_implementation = TimerImplementation.SCHEDULED_EXECUTOR;
+    static final Integer default_timingWheelTickDurationInMilliseconds = 1;
+    static final Integer default_timingWheelTicksPerWheel = 512;
+    static final Integer default_fallbackCoreSize = Runtime.getRuntime().availableProcessors();
+    static final Integer default_fallbackMaxQueueSize = 1000;
+
     private final HystrixProperty<Integer> corePoolSize;
+    private final HystrixProperty<TimerImplementation> implementation;
+    private final HystrixProperty<Integer> timingWheelTickDurationInMilliseconds;
+    private final HystrixProperty<Integer> timingWheelTicksPerWheel;
+    private final HystrixProperty<Integer> fallbackCoreSize;
+    private final HystrixProperty<Integer> fallbackMaxQueueSize;
+
+    /**
+     * Backend used by {@link HystrixTimer} to schedule listeners.
+     * <p>
+     * <ul>
+     * <li>SCHEDULED_EXECUTOR: Listeners are scheduled on a {@link java.util.concurrent.ScheduledThreadPoolExecutor}.  Scheduling and cancelling is O(log n) in the number of outstanding listeners and contends on a single lock.</li>
+     * <li>TIMING_WHEEL: Listeners are scheduled on a hashed timing wheel.  Scheduling and cancelling is O(1) and lock-free, at the cost of deadlines being rounded up to the next tick of the wheel.</li>
+     * </ul>
+     */
+    public static enum TimerImplementation {
+        SCHEDULED_EXECUTOR, TIMING_WHEEL
+    }
 
     protected HystrixTimerThreadPoolProperties() {
         this(new Setter().withCoreSize(Runtime.getRuntime().availableProcessors()));
@@ -20,6 +50,11 @@ public abstract class HystrixTimerThreadPoolProperties {
 
     protected HystrixTimerThreadPoolProperties(Setter setter) {
         this.corePoolSize = getProperty("hystrix", "coreSize", setter.getCoreSize());
+        this.implementation = getImplementationProperty("hystrix", "implementation", setter.getImplementation(), default_implementation);
+        this.timingWheelTickDurationInMilliseconds = getProperty("hystrix", "timingWheel.tickDurationInMilliseconds", setter.getTimingWheelTickDurationInMilliseconds(), default_timingWheelTickDurationInMilliseconds);
+        this.timingWheelTicksPerWheel = getProperty("hystrix", "timingWheel.ticksPerWheel", setter.getTimingWheelTicksPerWheel(), default_timingWheelTicksPerWheel);
+        this.fallbackCoreSize = getProperty("hystrix", "fallback.coreSize", setter.getFallbackCoreSize(), default_fallbackCoreSize);
+        this.fallbackMaxQueueSize = getProperty("hystrix", "fallback.maxQueueSize", setter.getFallbackMaxQueueSize(), default_fallbackMaxQueueSize);
     }
 
     private static HystrixProperty<Integer> getProperty(String propertyPrefix, String instanceProperty, Integer defaultValue) {
@@ -29,10 +64,83 @@ public abstract class HystrixTimerThreadPoolProperties {
                 .build();
     }
 
+    private static HystrixProperty<Integer> getProperty(String propertyPrefix, String instanceProperty, Integer builderOverrideValue, Integer defaultValue) {
+        return getProperty(propertyPrefix, instanceProperty, builderOverrideValue != null ? builderOverrideValue : defaultValue);
+    }
+
+    private static HystrixProperty<TimerImplementation> getImplementationProperty(String propertyPrefix, String instanceProperty, TimerImplementation builderOverrideValue, final TimerImplementation defaultValue) {
+        final HystrixProperty<String> property = forString()
+                .add(propertyPrefix + ".timer.threadpool.default." + instanceProperty, (builderOverrideValue != null ? builderOverrideValue : defaultValue).name())
+                .build();
+        return new HystrixProperty<TimerImplementation>() {
+
+            @Override
+            public TimerImplementation get() {
+                try {
+                    return TimerImplementation.valueOf(property.get());
+                } catch (Exception e) {
+                    logger.error("Unable to derive TimerImplementation from property value: " + property.get(), e);
+                    return defaultValue;
+                }
+            }
+
+        };
+    }
+
     public HystrixProperty<Integer> getCorePoolSize() {
         return corePoolSize;
     }
 
+    /**
+     * Which {@link TimerImplementation} {@link HystrixTimer} uses.  This is read when the timer is started, so a change only takes effect after {@link HystrixTimer#reset()}.
+     *
+     * @return {@code HystrixProperty<TimerImplementation>}
+     */
+    public HystrixProperty<TimerImplementation> getImplementation() {
+        return implementation;
+    }
+
+    /**
+     * Duration of one tick of the wheel when using {@link TimerImplementation#TIMING_WHEEL}.  Deadlines are rounded up to the end of the tick they fall in.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> getTimingWheelTickDurationInMilliseconds() {
+        return timingWheelTickDurationInMilliseconds;
+    }
+
+    /**
+     * Number of buckets in the wheel when using {@link TimerImplementation#TIMING_WHEEL}, rounded up to a power of 2.
+     * <p>
+     * Listeners with an interval longer than one revolution of the wheel are kept in their bucket for multiple revolutions.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> getTimingWheelTicksPerWheel() {
+        return timingWheelTicksPerWheel;
+    }
+
+    /**
+     * Number of threads {@link HystrixTimer#execute(Runnable)} hands work to, such as the fallback of a timed-out command, so that it does not hold up
+     * the timer threads.  With 0 the work is done on the timer thread that ticked.  This is read when the timer is started, so a change only takes
+     * effect after {@link HystrixTimer#reset()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> getFallbackCoreSize() {
+        return fallbackCoreSize;
+    }
+
+    /**
+     * Maximum number of tasks queued for the threads of {@link #getFallbackCoreSize()}.  Once full, work is done on the timer thread that ticked.
+     * With 0 nothing is queued.  This is read when the timer is started, so a change only takes effect after {@link HystrixTimer#reset()}.
+     *
+     * @return {@code HystrixProperty<Integer>}
+     */
+    public HystrixProperty<Integer> getFallbackMaxQueueSize() {
+        return fallbackMaxQueueSize;
+    }
+
     /**
      * Factory method to retrieve the default Setter.
      */
@@ -49,13 +157,19 @@ public abstract class HystrixTimerThreadPoolProperties {
      * <p>
      * <pre> {@code
      * HystrixTimerThreadPoolProperties.Setter()
-     *           .withCoreSize(10);
+     *           .withCoreSize(10)
+     *           .withImplementation(TimerImplementation.TIMING_WHEEL);
      * } </pre>
      *
      * @NotThreadSafe
      */
     public static class Setter {
         private Integer coreSize = null;
+        private TimerImplementation implementation = null;
+        private Integer timingWheelTickDurationInMilliseconds = null;
+        private Integer timingWheelTicksPerWheel = null;
+        private Integer fallbackCoreSize = null;
+        private Integer fallbackMaxQueueSize = null;
 
         private Setter() {
         }
@@ -64,9 +178,54 @@ public abstract class HystrixTimerThreadPoolProperties {
             return coreSize;
         }
 
+        public TimerImplementation getImplementation() {
+            return implementation;
+        }
+
+        public Integer getTimingWheelTickDurationInMilliseconds() {
+            return timingWheelTickDurationInMilliseconds;
+        }
+
+        public Integer getTimingWheelTicksPerWheel() {
+            return timingWheelTicksPerWheel;
+        }
+
+        public Integer getFallbackCoreSize() {
+            return fallbackCoreSize;
+        }
+
+        public Integer getFallbackMaxQueueSize() {
+            return fallbackMaxQueueSize;
+        }
+
         public Setter withCoreSize(int value) {
             this.coreSize = value;
             return this;
         }
+
+        public Setter withImplementation(TimerImplementation value) {
+            this.implementation = value;
+            return this;
+        }
+
+        public Setter withTimingWheelTickDurationInMilliseconds(int value) {
+            this.timingWheelTickDurationInMilliseconds = value;
+            return this;
+        }
+
+        public Setter withTimingWheelTicksPerWheel(int value) {
+            this.timingWheelTicksPerWheel = value;
+            return this;
+        }
+
+        public Setter withFallbackCoreSize(int value) {
+            this.fallbackCoreSize = value;
+            return this;
+        }
+
+        public Setter withFallbackMaxQueueSize(int value) {
+            this.fallbackMaxQueueSize = value;
+            return this;
+        }
     }
 }
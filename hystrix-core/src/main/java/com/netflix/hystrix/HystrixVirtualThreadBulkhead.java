@@ -0,0 +1,188 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
+import com.netflix.hystrix.strategy.concurrency.HystrixContextScheduler;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesFactory;
+import rx.Scheduler;
+import rx.functions.Func0;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead used to execute {@link HystrixCommand#run()} on virtual threads when configured to do so with
+ * {@link HystrixCommandProperties#executionIsolationStrategy()} set to {@link ExecutionIsolationStrategy#VIRTUAL_THREAD}.
+ * <p>
+ * Each execution runs on a new thread from {@link HystrixConcurrencyStrategy#getVirtualThreadFactory(HystrixThreadPoolKey)}.  Nothing is
+ * pooled or queued.  Instead, each {@link HystrixThreadPoolKey} has a permit count ({@link HystrixThreadPoolProperties#virtualThreadMaxConcurrentRequests()})
+ * and an execution that can't get a permit is rejected, exactly like one rejected by a full {@link HystrixThreadPool}.
+ * <p>
+ * Since virtual threads are cheap, this allows many more concurrent blocking executions than a thread-pool of platform threads,
+ * while still bounding the concurrency against each dependency.
+ * <p>
+ * The active and completed counts of the bulkhead are included in {@link HystrixThreadPoolMetrics} for the same {@link HystrixThreadPoolKey}.
+ *
+ * @ThreadSafe
+ */
+public class HystrixVirtualThreadBulkhead {
+
+    private final HystrixThreadPoolKey threadPoolKey;
+    private final HystrixThreadPoolProperties properties;
+    private final ThreadFactory threadFactory;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong taskCount = new AtomicLong();
+    private final AtomicLong completedTaskCount = new AtomicLong();
+
+    /* package */ HystrixVirtualThreadBulkhead(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolProperties properties, ThreadFactory threadFactory) {
+        this.threadPoolKey = threadPoolKey;
+        this.properties = properties;
+        this.threadFactory = threadFactory;
+    }
+
+    public HystrixThreadPoolKey getThreadPoolKey() {
+        return threadPoolKey;
+    }
+
+    /**
+     * Scheduler which runs each scheduled action on a new thread, if a permit is available.
+     *
+     * @param shouldInterruptThread whether the thread should be interrupted when the action is unsubscribed from (on timeout)
+     * @return Scheduler
+     */
+    public Scheduler getScheduler(Func0<Boolean> shouldInterruptThread) {
+        return new HystrixContextScheduler(HystrixPlugins.getInstance().getConcurrencyStrategy(), this, shouldInterruptThread);
+    }
+
+    /**
+     * Take a permit, if fewer than {@link HystrixThreadPoolProperties#virtualThreadMaxConcurrentRequests()} are currently taken.
+     * <p>
+     * Every successful call must be matched by a call to {@link #release()}.
+     *
+     * @return whether a permit was taken
+     */
+    public boolean tryAcquire() {
+        final int limit = properties.virtualThreadMaxConcurrentRequests().get();
+        while (true) {
+            int current = activeCount.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (activeCount.compareAndSet(current, current + 1)) {
+                taskCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a permit taken by {@link #tryAcquire()}.
+     */
+    public void release() {
+        activeCount.decrementAndGet();
+        completedTaskCount.incrementAndGet();
+    }
+
+    /**
+     * Create the (unstarted) thread to run a single execution on.
+     *
+     * @param r execution
+     * @return unstarted Thread
+     */
+    public Thread newThread(Runnable r) {
+        return threadFactory.newThread(r);
+    }
+
+    /**
+     * @return number of permits currently taken
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return number of permits ever taken
+     */
+    public long getTaskCount() {
+        return taskCount.get();
+    }
+
+    /**
+     * @return number of permits ever released
+     */
+    public long getCompletedTaskCount() {
+        return completedTaskCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixVirtualThreadBulkhead(" + threadPoolKey.name() + ")[" + activeCount.get() + " active]";
+    }
+
+    /**
+     * @ExcludeFromJavadoc
+     */
+    /* package */ static class Factory {
+        // String is HystrixThreadPoolKey.name() (we can't use HystrixThreadPoolKey directly as we can't guarantee it implements hashcode/equals correctly)
+        private static final ConcurrentHashMap<String, HystrixVirtualThreadBulkhead> bulkheads = new ConcurrentHashMap<String, HystrixVirtualThreadBulkhead>();
+
+        /**
+         * Get or create the {@link HystrixVirtualThreadBulkhead} instance for a given {@link HystrixThreadPoolKey}.
+         * <p>
+         * This is thread-safe and ensures only 1 {@link HystrixVirtualThreadBulkhead} per {@link HystrixThreadPoolKey}.
+         *
+         * @return {@link HystrixVirtualThreadBulkhead} instance
+         */
+        /* package */ static HystrixVirtualThreadBulkhead getInstance(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolProperties.Setter propertiesBuilder) {
+            HystrixVirtualThreadBulkhead previouslyCached = bulkheads.get(threadPoolKey.name());
+            if (previouslyCached != null) {
+                return previouslyCached;
+            }
+
+            synchronized (HystrixVirtualThreadBulkhead.class) {
+                HystrixVirtualThreadBulkhead existing = bulkheads.get(threadPoolKey.name());
+                if (existing != null) {
+                    return existing;
+                }
+                HystrixThreadPoolProperties properties = HystrixPropertiesFactory.getThreadPoolProperties(threadPoolKey, propertiesBuilder);
+                ThreadFactory threadFactory = HystrixPlugins.getInstance().getConcurrencyStrategy().getVirtualThreadFactory(threadPoolKey);
+                HystrixVirtualThreadBulkhead bulkhead = new HystrixVirtualThreadBulkhead(threadPoolKey, properties, threadFactory);
+                bulkheads.put(threadPoolKey.name(), bulkhead);
+                return bulkhead;
+            }
+        }
+
+        /**
+         * Get the {@link HystrixVirtualThreadBulkhead} instance for a given {@link HystrixThreadPoolKey} or null if none has been created.
+         */
+        /* package */ static HystrixVirtualThreadBulkhead getInstance(HystrixThreadPoolKey threadPoolKey) {
+            return bulkheads.get(threadPoolKey.name());
+        }
+
+        /**
+         * Clears all bulkheads.  Threads already running are left to complete.
+         */
+        /* package */ static void reset() {
+            bulkheads.clear();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.collapser;
+
+import com.netflix.hystrix.HystrixCollapserMetrics;
+import com.netflix.hystrix.HystrixCollapserProperties;
+import com.netflix.hystrix.HystrixEventType;
+
+/**
+ * Chooses how long a {@link RequestCollapser} holds a batch for when {@link HystrixCollapserProperties#adaptiveBatchWindowEnabled()}, and how many
+ * requests make the batch full enough to execute early.
+ * <p>
+ * The window is about as long as the batch command takes to run, so that roughly one batch is in flight at a time, bounded by the min and max delay
+ * properties.  If fewer than one request is expected to arrive within the max delay, a request is unlikely to be joined by another so the batch is
+ * only held for the min delay.  A batch is full enough once it holds as many requests as are expected to arrive within the window.
+ * <p>
+ * The arrival rate is the rolling count of {@link HystrixEventType.Collapser#ADDED_TO_BATCH}, the same events the batch size distribution is built from,
+ * and the batch command latency is the mean total latency of the command batches were last executed with.
+ */
+/* package */ class AdaptiveBatchWindow {
+
+    private final HystrixCollapserMetrics metrics;
+    private final HystrixCollapserProperties properties;
+
+    private volatile int windowInMilliseconds;
+    private volatile int targetBatchSize;
+
+    /* package */ AdaptiveBatchWindow(HystrixCollapserMetrics metrics, HystrixCollapserProperties properties) {
+        this.metrics = metrics;
+        this.properties = properties;
+        update();
+    }
+
+    /**
+     * Choose the window and target batch size again from the latest metrics.
+     */
+    /* package */ void update() {
+        int minDelay = Math.max(1, properties.adaptiveBatchWindowMinDelayInMilliseconds().get());
+        int maxDelay = Math.max(minDelay, properties.adaptiveBatchWindowMaxDelayInMilliseconds().get());
+        double arrivalsPerMillisecond = (double) metrics.getRollingCount(HystrixEventType.Collapser.ADDED_TO_BATCH)
+                / properties.metricsRollingStatisticalWindowInMilliseconds().get();
+
+        int window = computeWindow(arrivalsPerMillisecond, metrics.getBatchCommandLatencyMean(), properties.timerDelayInMilliseconds().get(), minDelay, maxDelay);
+        targetBatchSize = computeTargetBatchSize(arrivalsPerMillisecond, window, properties.maxRequestsInBatch().get());
+        windowInMilliseconds = window;
+        metrics.markBatchWindow(window);
+    }
+
+    /* package */ int getWindowInMilliseconds() {
+        return windowInMilliseconds;
+    }
+
+    /* package */ int getTargetBatchSize() {
+        return targetBatchSize;
+    }
+
+    /**
+     * @param arrivalsPerMillisecond rate requests are added to batches
+     * @param batchLatency mean latency of the batch command, or -1 if not known yet
+     * @param timerDelay window to fall back to while the batch command latency is not known
+     * @param minDelay shortest window
+     * @param maxDelay longest window
+     * @return window in milliseconds
+     */
+    /* package */ static int computeWindow(double arrivalsPerMillisecond, int batchLatency, int timerDelay, int minDelay, int maxDelay) {
+        if (arrivalsPerMillisecond * maxDelay < 1) {
+            return minDelay;
+        }
+        int window = batchLatency < 0 ? timerDelay : batchLatency;
+        return Math.min(maxDelay, Math.max(minDelay, window));
+    }
+
+    /**
+     * @param arrivalsPerMillisecond rate requests are added to batches
+     * @param window window the batch is held for
+     * @param maxRequestsInBatch size at which a batch always executes
+     * @return number of requests at which a batch executes without waiting for the rest of the window
+     */
+    /* package */ static int computeTargetBatchSize(double arrivalsPerMillisecond, int window, int maxRequestsInBatch) {
+        double expectedArrivals = Math.ceil(arrivalsPerMillisecond * window);
+        // a batch of 1 isn't a batch, so always wait for a second request
+        return (int) Math.min(maxRequestsInBatch, Math.max(2, expectedArrivals));
+    }
+}
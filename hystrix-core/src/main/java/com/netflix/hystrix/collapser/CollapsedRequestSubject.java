@@ -50,6 +50,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
     private final Observable<T> subjectWithAccounting;
 
     private volatile int outstandingSubscriptions = 0;
+    private volatile boolean removedFromBatch = false;
 
     public CollapsedRequestSubject(final R arg, final RequestBatch<?, T, R> containingBatch) {
         if (arg == RequestCollapser.NULL_SENTINEL) {
@@ -69,7 +70,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
                     public void call() {
                         outstandingSubscriptions--;
                         if (outstandingSubscriptions == 0) {
-                            containingBatch.remove(arg);
+                            containingBatch.remove(arg, CollapsedRequestSubject.this);
                         }
                     }
                 });
@@ -175,6 +176,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
         }
     }
 
+    /**
+     * Mark that this request should no longer be executed as part of its batch, because nothing is subscribed to it.
+     */
+    /* package */ void markRemovedFromBatch() {
+        removedFromBatch = true;
+    }
+
+    /* package */ boolean isRemovedFromBatch() {
+        return removedFromBatch;
+    }
+
     private boolean isTerminated() {
         return (subject.hasCompleted() || subject.hasThrowable());
     }
@@ -15,11 +15,15 @@
  */
 package com.netflix.hystrix.collapser;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +37,13 @@ import com.netflix.hystrix.HystrixCollapserProperties;
 
 /**
  * A batch of requests collapsed together by a RequestCollapser instance. When full or time has expired it will execute and stop accepting further submissions.
+ * <p>
+ * Offers don't take any lock.  Each offer claims the next slot of the batch with a single atomic increment and then publishes its request
+ * into that slot.  Starting the batch seals it by swapping the slot counter for a negative value, so later offers are turned away, and then
+ * waits for the offers that already claimed a slot to publish into it.
+ * <p>
+ * Duplicate arguments are resolved as they are offered only when request caching is on, since each duplicate then needs to be handed the
+ * Observable of the first.  When request caching is off, the duplicates are found when the batch is started, and fail then.
  * 
  * @param <BatchReturnType>
  * @param <ResponseType>
@@ -42,20 +53,32 @@ public class RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestBatch.class);
 
+    /* the slot counter is swapped for this when the batch is started or shutdown, and stays negative however many offers arrive after */
+    private static final int SEALED = Integer.MIN_VALUE;
+    /* published into a claimed slot when the offer didn't add a request to the batch after all */
+    private static final Object EMPTY_SLOT = new Object();
+    /* slots are held in segments, each twice the size of the previous, so they are allocated as the batch grows */
+    private static final int FIRST_SEGMENT_SHIFT = 4;
+    private static final int NUM_SEGMENTS = 32 - FIRST_SEGMENT_SHIFT;
+
     private final HystrixCollapserBridge<BatchReturnType, ResponseType, RequestArgumentType> commandCollapser;
     private final int maxBatchSize;
-    private final AtomicBoolean batchStarted = new AtomicBoolean();
-
-    private final ConcurrentMap<RequestArgumentType, CollapsedRequest<ResponseType, RequestArgumentType>> argumentMap =
-            new ConcurrentHashMap<RequestArgumentType, CollapsedRequest<ResponseType, RequestArgumentType>>();
-    private final HystrixCollapserProperties properties;
 
-    private ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicReferenceArray<AtomicReferenceArray<Object>> segments = new AtomicReferenceArray<AtomicReferenceArray<Object>>(NUM_SEGMENTS);
+    /* only used to find duplicates as they are offered, which is only needed when request caching is on */
+    private final ConcurrentMap<RequestArgumentType, CollapsedRequestSubject<ResponseType, RequestArgumentType>> argumentMap;
+    /* written by whichever offer claims the first slot */
+    private volatile long firstRequestTime = -1;
 
     public RequestBatch(HystrixCollapserProperties properties, HystrixCollapserBridge<BatchReturnType, ResponseType, RequestArgumentType> commandCollapser, int maxBatchSize) {
-        this.properties = properties;
         this.commandCollapser = commandCollapser;
         this.maxBatchSize = maxBatchSize;
+        if (properties.requestCacheEnabled().get()) {
+            this.argumentMap = new ConcurrentHashMap<RequestArgumentType, CollapsedRequestSubject<ResponseType, RequestArgumentType>>();
+        } else {
+            this.argumentMap = null;
+        }
     }
 
     /**
@@ -63,82 +86,144 @@ public class RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> {
      */
     public Observable<ResponseType> offer(RequestArgumentType arg) {
         /* short-cut - if the batch is started we reject the offer */
-        if (batchStarted.get()) {
+        if (nextSlot.get() < 0) {
             return null;
         }
 
-        /*
-         * The 'read' just means non-exclusive even though we are writing.
+        /**
+         * If the argument already exists in the batch, then there are 2 options:
+         * A) If request caching is ON (the default): only keep 1 argument in the batch and let all responses
+         * be hooked up to that argument
+         * B) If request caching is OFF: return an error to all duplicate argument requests (done in {@link #sealAndCollectRequests()})
+         *
+         * This maintains the invariant that each batch has no duplicate arguments.  This prevents the impossible
+         * logic (in a user-provided mapResponseToRequests for HystrixCollapser and the internals of HystrixObservableCollapser)
+         * of trying to figure out which argument of a set of duplicates should get attached to a response.
+         *
+         * See https://github.com/Netflix/Hystrix/pull/1176 for further discussion.
          */
-        if (batchLock.readLock().tryLock()) {
-            try {
-                /* double-check now that we have the lock - if the batch is started we reject the offer */
-                if (batchStarted.get()) {
-                    return null;
-                }
+        if (argumentMap != null) {
+            CollapsedRequestSubject<ResponseType, RequestArgumentType> existing = argumentMap.get(arg);
+            if (existing != null) {
+                return existing.toObservable();
+            }
+        }
 
-                if (argumentMap.size() >= maxBatchSize) {
-                    return null;
-                } else {
-                    CollapsedRequestSubject<ResponseType, RequestArgumentType> collapsedRequest =
-                            new CollapsedRequestSubject<ResponseType, RequestArgumentType>(arg, this);
-                    final CollapsedRequestSubject<ResponseType, RequestArgumentType> existing = (CollapsedRequestSubject<ResponseType, RequestArgumentType>) argumentMap.putIfAbsent(arg, collapsedRequest);
-                    /**
-                     * If the argument already exists in the batch, then there are 2 options:
-                     * A) If request caching is ON (the default): only keep 1 argument in the batch and let all responses
-                     * be hooked up to that argument
-                     * B) If request caching is OFF: return an error to all duplicate argument requests
-                     *
-                     * This maintains the invariant that each batch has no duplicate arguments.  This prevents the impossible
-                     * logic (in a user-provided mapResponseToRequests for HystrixCollapser and the internals of HystrixObservableCollapser)
-                     * of trying to figure out which argument of a set of duplicates should get attached to a response.
-                     *
-                     * See https://github.com/Netflix/Hystrix/pull/1176 for further discussion.
-                     */
-                    if (existing != null) {
-                        boolean requestCachingEnabled = properties.requestCacheEnabled().get();
-                        if (requestCachingEnabled) {
-                            return existing.toObservable();
-                        } else {
-                            return Observable.error(new IllegalArgumentException("Duplicate argument in collapser batch : [" + arg + "]  This is not supported.  Please turn request-caching on for HystrixCollapser:" + commandCollapser.getCollapserKey().name() + " or prevent duplicates from making it into the batch!"));
-                        }
-                    } else {
-                        return collapsedRequest.toObservable();
-                    }
+        final int slot = nextSlot.getAndIncrement();
+        if (slot < 0 || slot >= maxBatchSize) {
+            /* started, or full */
+            return null;
+        }
 
+        if (slot == 0) {
+            firstRequestTime = System.currentTimeMillis();
+        }
+
+        /* once a slot is claimed, something must be published into it as the thread starting the batch waits for it */
+        Object published = EMPTY_SLOT;
+        try {
+            CollapsedRequestSubject<ResponseType, RequestArgumentType> collapsedRequest =
+                    new CollapsedRequestSubject<ResponseType, RequestArgumentType>(arg, this);
+            if (argumentMap != null) {
+                CollapsedRequestSubject<ResponseType, RequestArgumentType> existing = argumentMap.putIfAbsent(arg, collapsedRequest);
+                if (existing != null) {
+                    return existing.toObservable();
                 }
-            } finally {
-                batchLock.readLock().unlock();
             }
-        } else {
-            return null;
+            published = collapsedRequest;
+            return collapsedRequest.toObservable();
+        } finally {
+            publish(slot, published);
         }
     }
 
     /**
      * Best-effort attempt to remove an argument from a batch.  This may get invoked when a cancellation occurs somewhere downstream.
-     * This method finds the argument in the batch, and removes it.
+     * This method marks the request so it is left out when the batch is started.
      *
      * @param arg argument to remove from batch
+     * @param collapsedRequest request created for the argument by this batch
      */
-    /* package-private */ void remove(RequestArgumentType arg) {
-        if (batchStarted.get()) {
+    /* package-private */ void remove(RequestArgumentType arg, CollapsedRequestSubject<ResponseType, RequestArgumentType> collapsedRequest) {
+        if (nextSlot.get() < 0) {
             //nothing we can do
             return;
         }
 
-        if (batchLock.readLock().tryLock()) {
-            try {
-                /* double-check now that we have the lock - if the batch is started, deleting is useless */
-                if (batchStarted.get()) {
-                    return;
+        collapsedRequest.markRemovedFromBatch();
+        if (argumentMap != null) {
+            argumentMap.remove(arg, collapsedRequest);
+        }
+    }
+
+    private void publish(int slot, Object value) {
+        int segmentIndex = segmentIndexFor(slot);
+        AtomicReferenceArray<Object> segment = segments.get(segmentIndex);
+        if (segment == null) {
+            segments.compareAndSet(segmentIndex, null, new AtomicReferenceArray<Object>((1 << FIRST_SEGMENT_SHIFT) << segmentIndex));
+            segment = segments.get(segmentIndex);
+        }
+        segment.set(offsetInSegment(slot, segmentIndex), value);
+    }
+
+    private static int segmentIndexFor(int slot) {
+        return 31 - Integer.numberOfLeadingZeros((slot >>> FIRST_SEGMENT_SHIFT) + 1);
+    }
+
+    private static int offsetInSegment(int slot, int segmentIndex) {
+        return slot - (((1 << segmentIndex) - 1) << FIRST_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Stop accepting offers, wait for the offers in progress to publish their requests, and collect the requests still in the batch.
+     * <p>
+     * If request caching is off, duplicates of an argument already collected fail here.
+     *
+     * @return requests in the batch, or null if the batch had already been sealed
+     */
+    @SuppressWarnings("unchecked")
+    private List<CollapsedRequest<ResponseType, RequestArgumentType>> sealAndCollectRequests() {
+        final int claimed = nextSlot.getAndSet(SEALED);
+        if (claimed < 0) {
+            return null;
+        }
+        final int size = Math.min(claimed, maxBatchSize);
+        final List<CollapsedRequest<ResponseType, RequestArgumentType>> requests = new ArrayList<CollapsedRequest<ResponseType, RequestArgumentType>>(size);
+        final Map<RequestArgumentType, CollapsedRequestSubject<ResponseType, RequestArgumentType>> arguments =
+                argumentMap == null ? new HashMap<RequestArgumentType, CollapsedRequestSubject<ResponseType, RequestArgumentType>>(size * 2) : null;
+
+        for (int slot = 0; slot < size; slot++) {
+            int segmentIndex = segmentIndexFor(slot);
+            int offset = offsetInSegment(slot, segmentIndex);
+            Object value;
+            while (true) {
+                /* the offer claimed the slot before we sealed, so it's only a few instructions away from publishing */
+                AtomicReferenceArray<Object> segment = segments.get(segmentIndex);
+                value = segment == null ? null : segment.get(offset);
+                if (value != null) {
+                    break;
                 }
+                Thread.yield();
+            }
+            if (value == EMPTY_SLOT) {
+                continue;
+            }
 
-                argumentMap.remove(arg);
-            } finally {
-                batchLock.readLock().unlock();
+            CollapsedRequestSubject<ResponseType, RequestArgumentType> collapsedRequest = (CollapsedRequestSubject<ResponseType, RequestArgumentType>) value;
+            if (collapsedRequest.isRemovedFromBatch()) {
+                continue;
+            }
+            if (arguments != null) {
+                RequestArgumentType arg = collapsedRequest.getArgument();
+                if (arguments.containsKey(arg)) {
+                    collapsedRequest.setExceptionIfResponseNotReceived(new IllegalArgumentException("Duplicate argument in collapser batch : [" + arg + "]  This is not supported.  Please turn request-caching on for HystrixCollapser:" + commandCollapser.getCollapserKey().name() + " or prevent duplicates from making it into the batch!"));
+                    continue;
+                }
+                arguments.put(arg, collapsedRequest);
             }
+            requests.add(collapsedRequest);
         }
+        return requests;
     }
 
     /**
@@ -157,14 +242,18 @@ public class RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> {
         /*
          * - check that we only execute once since there's multiple paths to do so (timer, waiting thread or max batch size hit)
          * - close the gate so 'offer' can no longer be invoked and we turn those threads away so they create a new batch
+         * - wait for 'offer' threads that got in before the gate closed, so 'requests' is complete
          */
-        if (batchStarted.compareAndSet(false, true)) {
-            /* wait for 'offer'/'remove' threads to finish before executing the batch so 'requests' is complete */
-            batchLock.writeLock().lock();
+        final List<CollapsedRequest<ResponseType, RequestArgumentType>> requests = sealAndCollectRequests();
+        if (requests != null) {
+            if (requests.isEmpty()) {
+                // everything offered was removed or rejected as a duplicate
+                return;
+            }
 
             try {
                 // shard batches
-                Collection<Collection<CollapsedRequest<ResponseType, RequestArgumentType>>> shards = commandCollapser.shardRequests(argumentMap.values());
+                Collection<Collection<CollapsedRequest<ResponseType, RequestArgumentType>>> shards = commandCollapser.shardRequests(requests);
                 // for each shard execute its requests 
                 for (final Collection<CollapsedRequest<ResponseType, RequestArgumentType>> shardRequests : shards) {
                     try {
@@ -187,7 +276,7 @@ public class RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> {
                                 }
                                 logger.debug("Exception mapping responses to requests.", e);
                                 // if a failure occurs we want to pass that exception to all of the Futures that we've returned
-                                for (CollapsedRequest<ResponseType, RequestArgumentType> request : argumentMap.values()) {
+                                for (CollapsedRequest<ResponseType, RequestArgumentType> request : requests) {
                                     try {
                                         ((CollapsedRequestSubject<ResponseType, RequestArgumentType>) request).setExceptionIfResponseNotReceived(ee);
                                     } catch (IllegalStateException e2) {
@@ -235,55 +324,63 @@ public class RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> {
             } catch (Exception e) {
                 logger.error("Exception while sharding requests.", e);
                 // same error handling as we do around the shards, but this is a wider net in case the shardRequest method fails
-                for (CollapsedRequest<ResponseType, RequestArgumentType> request : argumentMap.values()) {
+                for (CollapsedRequest<ResponseType, RequestArgumentType> request : requests) {
                     try {
                         request.setException(e);
                     } catch (IllegalStateException e2) {
                         logger.debug("Failed trying to setException on CollapsedRequest", e2);
                     }
                 }
-            } finally {
-                batchLock.writeLock().unlock();
             }
         }
     }
 
     public void shutdown() {
-        // take the 'batchStarted' state so offers and execution will not be triggered elsewhere
-        if (batchStarted.compareAndSet(false, true)) {
-            // get the write lock so offers are synced with this (we don't really need to unlock as this is a one-shot deal to shutdown)
-            batchLock.writeLock().lock();
-            try {
-                // if we win the 'start' and once we have the lock we can now shut it down otherwise another thread will finish executing this batch
-                if (argumentMap.size() > 0) {
-                    logger.warn("Requests still exist in queue but will not be executed due to RequestCollapser shutdown: " + argumentMap.size(), new IllegalStateException());
-                    /*
-                     * In the event that there is a concurrency bug or thread scheduling prevents the timer from ticking we need to handle this so the Future.get() calls do not block.
-                     * 
-                     * I haven't been able to reproduce this use case on-demand but when stressing a machine saw this occur briefly right after the JVM paused (logs stopped scrolling).
-                     * 
-                     * This safety-net just prevents the CollapsedRequestFutureImpl.get() from waiting on the CountDownLatch until its max timeout.
-                     */
-                    for (CollapsedRequest<ResponseType, RequestArgumentType> request : argumentMap.values()) {
-                        try {
-                            ((CollapsedRequestSubject<ResponseType, RequestArgumentType>) request).setExceptionIfResponseNotReceived(new IllegalStateException("Requests not executed before shutdown."));
-                        } catch (Exception e) {
-                            logger.debug("Failed to setException on CollapsedRequestFutureImpl instances.", e);
-                        }
-                        /**
-                         * https://github.com/Netflix/Hystrix/issues/78 Include more info when collapsed requests remain in queue
-                         */
-                        logger.warn("Request still in queue but not be executed due to RequestCollapser shutdown. Argument => " + request.getArgument() + "   Request Object => " + request, new IllegalStateException());
+        // seal the batch so offers and execution will not be triggered elsewhere
+        final List<CollapsedRequest<ResponseType, RequestArgumentType>> requests = sealAndCollectRequests();
+        if (requests != null) {
+            // if we win the 'start' we can now shut it down otherwise another thread will finish executing this batch
+            if (requests.size() > 0) {
+                logger.warn("Requests still exist in queue but will not be executed due to RequestCollapser shutdown: " + requests.size(), new IllegalStateException());
+                /*
+                 * In the event that there is a concurrency bug or thread scheduling prevents the timer from ticking we need to handle this so the Future.get() calls do not block.
+                 * 
+                 * I haven't been able to reproduce this use case on-demand but when stressing a machine saw this occur briefly right after the JVM paused (logs stopped scrolling).
+                 * 
+                 * This safety-net just prevents the CollapsedRequestFutureImpl.get() from waiting on the CountDownLatch until its max timeout.
+                 */
+                for (CollapsedRequest<ResponseType, RequestArgumentType> request : requests) {
+                    try {
+                        ((CollapsedRequestSubject<ResponseType, RequestArgumentType>) request).setExceptionIfResponseNotReceived(new IllegalStateException("Requests not executed before shutdown."));
+                    } catch (Exception e) {
+                        logger.debug("Failed to setException on CollapsedRequestFutureImpl instances.", e);
                     }
-
+                    /**
+                     * https://github.com/Netflix/Hystrix/issues/78 Include more info when collapsed requests remain in queue
+                     */
+                    logger.warn("Request still in queue but not be executed due to RequestCollapser shutdown. Argument => " + request.getArgument() + "   Request Object => " + request, new IllegalStateException());
                 }
-            } finally {
-                batchLock.writeLock().unlock();
+
             }
         }
     }
 
+    /**
+     * @return number of requests offered to the batch, including any since removed (or, if request caching is off, to be rejected as duplicates)
+     */
     public int getSize() {
-        return argumentMap.size();
+        int claimed = nextSlot.get();
+        if (claimed < 0) {
+            // sealed, so what was in the batch has been taken out to be executed
+            return 0;
+        }
+        return Math.min(claimed, maxBatchSize);
+    }
+
+    /**
+     * @return time in milliseconds the first request was offered to the batch, or -1 if none has been
+     */
+    /* package-private */ long getFirstRequestTime() {
+        return firstRequestTime;
     }
 }
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import rx.Observable;
 
+import com.netflix.hystrix.HystrixCollapserMetrics;
 import com.netflix.hystrix.HystrixCollapserProperties;
 import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
 import com.netflix.hystrix.strategy.concurrency.HystrixContextCallable;
@@ -51,6 +52,8 @@ public class RequestCollapser<BatchReturnType, ResponseType, RequestArgumentType
     private final CollapserTimer timer;
     private final HystrixCollapserProperties properties;
     private final HystrixConcurrencyStrategy concurrencyStrategy;
+    // null unless the adaptive batch window was enabled when this was created
+    private final AdaptiveBatchWindow adaptiveBatchWindow;
 
     /**
      * @param commandCollapser collapser which will create the batched requests and demultiplex the results
@@ -63,11 +66,18 @@ public class RequestCollapser<BatchReturnType, ResponseType, RequestArgumentType
         this.concurrencyStrategy = concurrencyStrategy;
         this.properties = properties;
         this.timer = timer;
+        if (properties.adaptiveBatchWindowEnabled().get()) {
+            this.adaptiveBatchWindow = new AdaptiveBatchWindow(HystrixCollapserMetrics.getInstance(commandCollapser.getCollapserKey(), properties), properties);
+        } else {
+            this.adaptiveBatchWindow = null;
+        }
         batch.set(new RequestBatch<BatchReturnType, ResponseType, RequestArgumentType>(properties, commandCollapser, properties.maxRequestsInBatch().get()));
     }
 
     /**
      * Submit a request to a batch. If the batch maxSize is hit trigger the batch immediately.
+     * <p>
+     * With the adaptive batch window, the batch is also triggered as soon as it holds as many requests as are expected to arrive within the window.
      * 
      * @param arg argument to a {@link RequestCollapser}
      * @return Observable<ResponseType>
@@ -98,6 +108,10 @@ public class RequestCollapser<BatchReturnType, ResponseType, RequestArgumentType
             }
             // it will always get an Observable unless we hit the max batch size
             if (response != null) {
+                if (adaptiveBatchWindow != null && b.getSize() >= adaptiveBatchWindow.getTargetBatchSize()) {
+                    // full enough, so there's no point holding it for the rest of the window
+                    createNewBatchAndExecutePreviousIfNeeded(b);
+                }
                 return response;
             } else {
                 // this batch can't accept requests so create a new one and set it if another thread doesn't beat us
@@ -151,7 +165,7 @@ public class RequestCollapser<BatchReturnType, ResponseType, RequestArgumentType
                         RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> currentBatch = batch.get();
                         // 1) it can be null if it got shutdown
                         // 2) we don't execute this batch if it has no requests and let it wait until next tick to be executed
-                        if (currentBatch != null && currentBatch.getSize() > 0) {
+                        if (currentBatch != null && currentBatch.getSize() > 0 && isBatchWindowOver(currentBatch)) {
                             // do execution within context of wrapped Callable
                             createNewBatchAndExecutePreviousIfNeeded(currentBatch);
                         }
@@ -176,8 +190,29 @@ public class RequestCollapser<BatchReturnType, ResponseType, RequestArgumentType
             }
         }
 
+        /**
+         * Without the adaptive batch window, every tick is the end of the window.  With it, ticks come every min delay and the window
+         * is chosen again on each one.
+         */
+        private boolean isBatchWindowOver(RequestBatch<BatchReturnType, ResponseType, RequestArgumentType> currentBatch) {
+            if (adaptiveBatchWindow == null) {
+                return true;
+            }
+            adaptiveBatchWindow.update();
+            long firstRequestTime = currentBatch.getFirstRequestTime();
+            if (firstRequestTime < 0) {
+                // the first offer is still being published, so it has only just arrived
+                return false;
+            }
+            return currentBatch.getSize() >= adaptiveBatchWindow.getTargetBatchSize()
+                    || System.currentTimeMillis() - firstRequestTime >= adaptiveBatchWindow.getWindowInMilliseconds();
+        }
+
         @Override
         public int getIntervalTimeInMilliseconds() {
+            if (adaptiveBatchWindow != null) {
+                return Math.max(1, properties.adaptiveBatchWindowMinDelayInMilliseconds().get());
+            }
             return properties.timerDelayInMilliseconds().get();
         }
 
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.exception;
+
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.concurrency.HystrixCoDelQueue;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An exception representing a command that was dropped by a {@link HystrixCoDelQueue} because it waited in the queue of its thread-pool for
+ * longer than the queue allows.  The command was never run.
+ * <p>
+ * This is a {@link RejectedExecutionException}, so a dropped command is treated as a thread-pool rejection.
+ * See {@link HystrixThreadPoolProperties#queueCoDelEnabled()}.
+ */
+public class HystrixQueueDropException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 2806397640196430781L;
+
+    public HystrixQueueDropException(String message) {
+        super(message);
+    }
+
+    public HystrixQueueDropException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -49,6 +49,18 @@ public class HystrixRuntimeException extends RuntimeException {
         this.fallbackException = fallbackException;
     }
 
+    /**
+     * @param writableStackTrace
+     *            false to skip filling in the stack trace, which is expensive, for failures where it would not be looked at
+     */
+    public HystrixRuntimeException(FailureType failureCause, Class<? extends HystrixInvokable> commandClass, String message, Throwable cause, Throwable fallbackException,
+                                   boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+        this.failureCause = failureCause;
+        this.commandClass = commandClass;
+        this.fallbackException = fallbackException;
+    }
+
     /**
      * The type of failure that caused this exception to be thrown.
      * 
@@ -84,6 +84,10 @@ public class HystrixCommandCompletion extends HystrixCommandEvent {
         return executionResult.getUserThreadLatency();
     }
 
+    public long getQueueWaitLatency() {
+        return executionResult.getQueueWaitLatency();
+    }
+
     @Override
     public boolean didCommandExecute() {
         return executionResult.executionOccurred();
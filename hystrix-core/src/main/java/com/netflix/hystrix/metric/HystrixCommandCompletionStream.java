@@ -16,14 +16,12 @@
 package com.netflix.hystrix.metric;
 
 import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.util.OrdinalTable;
 import rx.Observable;
 import rx.subjects.PublishSubject;
 import rx.subjects.SerializedSubject;
 import rx.subjects.Subject;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 /**
  * Per-Command stream of {@link HystrixCommandCompletion}s.  This gets written to by {@link HystrixThreadEventStream}s.
  * Events are emitted synchronously in the same thread that performs the command execution.
@@ -34,18 +32,19 @@ public class HystrixCommandCompletionStream implements HystrixEventStream<Hystri
     private final Subject<HystrixCommandCompletion, HystrixCommandCompletion> writeOnlySubject;
     private final Observable<HystrixCommandCompletion> readOnlyStream;
 
-    private static final ConcurrentMap<String, HystrixCommandCompletionStream> streams = new ConcurrentHashMap<String, HystrixCommandCompletionStream>();
+    private static final OrdinalTable<HystrixCommandCompletionStream> streams = new OrdinalTable<HystrixCommandCompletionStream>();
 
     public static HystrixCommandCompletionStream getInstance(HystrixCommandKey commandKey) {
-        HystrixCommandCompletionStream initialStream = streams.get(commandKey.name());
+        int ordinal = HystrixCommandKey.Factory.ordinalOf(commandKey);
+        HystrixCommandCompletionStream initialStream = streams.get(ordinal);
         if (initialStream != null) {
             return initialStream;
         } else {
             synchronized (HystrixCommandCompletionStream.class) {
-                HystrixCommandCompletionStream existingStream = streams.get(commandKey.name());
+                HystrixCommandCompletionStream existingStream = streams.get(ordinal);
                 if (existingStream == null) {
                     HystrixCommandCompletionStream newStream = new HystrixCommandCompletionStream(commandKey);
-                    streams.putIfAbsent(commandKey.name(), newStream);
+                    streams.putIfAbsent(ordinal, newStream);
                     return newStream;
                 } else {
                     return existingStream;
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+
+/**
+ * Per-Command writer of command events directly into the sharded streams.
+ * <p>
+ * This is the synchronous alternative to going through {@link HystrixThreadEventStream}.  The sharded streams for
+ * the command are resolved once, when the dispatcher is created, and the thread-pool streams are resolved the first
+ * time they are needed (and again only if the command changes the thread-pool it uses).  No per-thread state is
+ * created, and every write goes straight to the sharded stream on the calling thread.
+ * <p>
+ * The sharded streams written to are the same as those written to by {@link HystrixThreadEventStream}:
+ * <ul>
+ *     <li>{@link HystrixCommandCompletionStream}</li>
+ *     <li>{@link HystrixCommandStartStream}</li>
+ *     <li>{@link HystrixThreadPoolCompletionStream}</li>
+ *     <li>{@link HystrixThreadPoolStartStream}</li>
+ * </ul>
+ */
+public class HystrixCommandEventDispatcher {
+    private final HystrixCommandKey commandKey;
+    private final HystrixCommandStartStream commandStartStream;
+    private final HystrixCommandCompletionStream commandCompletionStream;
+
+    private volatile ThreadPoolStreams threadPoolStreams;
+
+    public static HystrixCommandEventDispatcher forCommand(HystrixCommandKey commandKey) {
+        return new HystrixCommandEventDispatcher(commandKey);
+    }
+
+    /* package */ HystrixCommandEventDispatcher(HystrixCommandKey commandKey) {
+        this.commandKey = commandKey;
+        this.commandStartStream = HystrixCommandStartStream.getInstance(commandKey);
+        this.commandCompletionStream = HystrixCommandCompletionStream.getInstance(commandKey);
+    }
+
+    public void commandExecutionStarted(HystrixCommandKey commandKey, HystrixThreadPoolKey threadPoolKey,
+                                        HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy, int currentConcurrency) {
+        HystrixCommandExecutionStarted event = new HystrixCommandExecutionStarted(commandKey, threadPoolKey, isolationStrategy, currentConcurrency);
+        commandStartStream.write(event);
+
+        if (event.isExecutedInThread()) {
+            getThreadPoolStreams(threadPoolKey).startStream.write(event);
+        }
+    }
+
+    public void executionDone(ExecutionResult executionResult, HystrixCommandKey commandKey, HystrixThreadPoolKey threadPoolKey) {
+        HystrixCommandCompletion event = HystrixCommandCompletion.from(executionResult, commandKey, threadPoolKey);
+        commandCompletionStream.write(event);
+
+        if (event.isExecutedInThread() || event.isResponseThreadPoolRejected()) {
+            getThreadPoolStreams(threadPoolKey).completionStream.write(event);
+        }
+    }
+
+    private ThreadPoolStreams getThreadPoolStreams(HystrixThreadPoolKey threadPoolKey) {
+        ThreadPoolStreams current = threadPoolStreams;
+        if (current != null && (current.threadPoolKey == threadPoolKey || current.threadPoolKey.name().equals(threadPoolKey.name()))) {
+            return current;
+        }
+        //first use, or the thread-pool key was overridden since we last looked
+        ThreadPoolStreams resolved = new ThreadPoolStreams(threadPoolKey);
+        threadPoolStreams = resolved;
+        return resolved;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixCommandEventDispatcher(" + commandKey.name() + ")";
+    }
+
+    private static class ThreadPoolStreams {
+        private final HystrixThreadPoolKey threadPoolKey;
+        private final HystrixThreadPoolStartStream startStream;
+        private final HystrixThreadPoolCompletionStream completionStream;
+
+        ThreadPoolStreams(HystrixThreadPoolKey threadPoolKey) {
+            this.threadPoolKey = threadPoolKey;
+            this.startStream = HystrixThreadPoolStartStream.getInstance(threadPoolKey);
+            this.completionStream = HystrixThreadPoolCompletionStream.getInstance(threadPoolKey);
+        }
+    }
+}
@@ -41,7 +41,8 @@ public class HystrixCommandExecutionStarted extends HystrixCommandEvent {
 
     @Override
     public boolean isExecutedInThread() {
-        return isolationStrategy == HystrixCommandProperties.ExecutionIsolationStrategy.THREAD;
+        return isolationStrategy == HystrixCommandProperties.ExecutionIsolationStrategy.THREAD ||
+                isolationStrategy == HystrixCommandProperties.ExecutionIsolationStrategy.VIRTUAL_THREAD;
     }
 
     @Override
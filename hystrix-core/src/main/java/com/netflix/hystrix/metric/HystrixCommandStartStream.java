@@ -16,14 +16,12 @@
 package com.netflix.hystrix.metric;
 
 import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.util.OrdinalTable;
 import rx.Observable;
 import rx.subjects.PublishSubject;
 import rx.subjects.SerializedSubject;
 import rx.subjects.Subject;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 /**
  * Per-Command stream of {@link HystrixCommandExecutionStarted}s.  This gets written to by {@link HystrixThreadEventStream}s.
  * Events are emitted synchronously in the same thread that performs the command execution.
@@ -34,18 +32,19 @@ public class HystrixCommandStartStream implements HystrixEventStream<HystrixComm
     private final Subject<HystrixCommandExecutionStarted, HystrixCommandExecutionStarted> writeOnlySubject;
     private final Observable<HystrixCommandExecutionStarted> readOnlyStream;
 
-    private static final ConcurrentMap<String, HystrixCommandStartStream> streams = new ConcurrentHashMap<String, HystrixCommandStartStream>();
+    private static final OrdinalTable<HystrixCommandStartStream> streams = new OrdinalTable<HystrixCommandStartStream>();
 
     public static HystrixCommandStartStream getInstance(HystrixCommandKey commandKey) {
-        HystrixCommandStartStream initialStream = streams.get(commandKey.name());
+        int ordinal = HystrixCommandKey.Factory.ordinalOf(commandKey);
+        HystrixCommandStartStream initialStream = streams.get(ordinal);
         if (initialStream != null) {
             return initialStream;
         } else {
             synchronized (HystrixCommandStartStream.class) {
-                HystrixCommandStartStream existingStream = streams.get(commandKey.name());
+                HystrixCommandStartStream existingStream = streams.get(ordinal);
                 if (existingStream == null) {
                     HystrixCommandStartStream newStream = new HystrixCommandStartStream(commandKey);
-                    streams.putIfAbsent(commandKey.name(), newStream);
+                    streams.putIfAbsent(ordinal, newStream);
                     return newStream;
                 } else {
                     return existingStream;
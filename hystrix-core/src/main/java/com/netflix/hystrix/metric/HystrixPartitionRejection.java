@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric;
+
+import com.netflix.hystrix.HystrixCommandKey;
+
+/**
+ * Data class that gets fed to {@link HystrixPartitionRejectionStream} when an execution is rejected because its partition is at its limit.
+ */
+public class HystrixPartitionRejection implements HystrixEvent {
+    private final HystrixCommandKey commandKey;
+    private final String partitionKey;
+
+    public HystrixPartitionRejection(HystrixCommandKey commandKey, String partitionKey) {
+        this.commandKey = commandKey;
+        this.partitionKey = partitionKey;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixPartitionRejection(" + commandKey.name() + ", " + partitionKey + ")";
+    }
+}
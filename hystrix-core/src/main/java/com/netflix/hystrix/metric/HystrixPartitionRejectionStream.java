@@ -0,0 +1,80 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.util.OrdinalTable;
+import rx.Observable;
+import rx.subjects.PublishSubject;
+import rx.subjects.SerializedSubject;
+import rx.subjects.Subject;
+
+/**
+ * Per-Command stream of {@link HystrixPartitionRejection}s.  This gets written to when an execution is rejected by its partition.
+ * Events are emitted synchronously in the same thread that attempted the command execution.
+ */
+public class HystrixPartitionRejectionStream implements HystrixEventStream<HystrixPartitionRejection> {
+    private final HystrixCommandKey commandKey;
+
+    private final Subject<HystrixPartitionRejection, HystrixPartitionRejection> writeOnlySubject;
+    private final Observable<HystrixPartitionRejection> readOnlyStream;
+
+    private static final OrdinalTable<HystrixPartitionRejectionStream> streams = new OrdinalTable<HystrixPartitionRejectionStream>();
+
+    public static HystrixPartitionRejectionStream getInstance(HystrixCommandKey commandKey) {
+        int ordinal = HystrixCommandKey.Factory.ordinalOf(commandKey);
+        HystrixPartitionRejectionStream initialStream = streams.get(ordinal);
+        if (initialStream != null) {
+            return initialStream;
+        } else {
+            synchronized (HystrixPartitionRejectionStream.class) {
+                HystrixPartitionRejectionStream existingStream = streams.get(ordinal);
+                if (existingStream == null) {
+                    HystrixPartitionRejectionStream newStream = new HystrixPartitionRejectionStream(commandKey);
+                    streams.putIfAbsent(ordinal, newStream);
+                    return newStream;
+                } else {
+                    return existingStream;
+                }
+            }
+        }
+    }
+
+    HystrixPartitionRejectionStream(final HystrixCommandKey commandKey) {
+        this.commandKey = commandKey;
+
+        this.writeOnlySubject = new SerializedSubject<HystrixPartitionRejection, HystrixPartitionRejection>(PublishSubject.<HystrixPartitionRejection>create());
+        this.readOnlyStream = writeOnlySubject.share();
+    }
+
+    public static void reset() {
+        streams.clear();
+    }
+
+    public void write(HystrixPartitionRejection event) {
+        writeOnlySubject.onNext(event);
+    }
+
+    @Override
+    public Observable<HystrixPartitionRejection> observe() {
+        return readOnlyStream;
+    }
+
+    @Override
+    public String toString() {
+        return "HystrixPartitionRejectionStream(" + commandKey.name() + ")";
+    }
+}
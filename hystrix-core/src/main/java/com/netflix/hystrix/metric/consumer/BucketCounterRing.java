@@ -0,0 +1,233 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric.consumer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated ring of time-buckets, each holding a fixed-width array of counters.
+ * <p>
+ * Writers add directly into the bucket for the current time, which is derived from a clock rather than from a timer.
+ * The first writer (or reader) to observe that the clock has crossed into a new bucket claims the ring slot and zeroes it.
+ * Each bucket is striped, so that concurrent writers on different threads mostly update different cache lines.
+ * Nothing gets allocated on the write path.
+ * <p>
+ * The ring only retains a handful of buckets: the one currently being written and the most recent completed ones.
+ * A consumer is expected to drain each completed bucket (via {@link #readBucket(long, long[])}) shortly after it completes,
+ * and do any rolling aggregation on its own.  A bucket which is not read within {@link #RING_SIZE} - 1 bucket-widths of
+ * completing will be overwritten and reported as empty.
+ * <p>
+ * Like {@link com.netflix.hystrix.util.HystrixRollingNumber}, this is optimized for writes.  An increment which races
+ * with the rotation of its slot into a new bucket may be lost.
+ *
+ * @ThreadSafe
+ */
+public final class BucketCounterRing {
+
+    /* package */ static final int RING_SIZE = 4;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final int LONGS_PER_CACHE_LINE = 8;
+    private static final int NO_BUCKET = -1;
+
+    private static final int DEFAULT_NUM_STRIPES = Math.min(4, nextPowerOfTwo(Runtime.getRuntime().availableProcessors()));
+    private static final Time ACTUAL_TIME = new ActualTime();
+
+    private static final ThreadLocal<long[]> scratchCounts = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[0];
+        }
+    };
+
+    private final Time time;
+    private final long origin;
+    private final int bucketSizeInMs;
+    private final int width;
+    private final int stride;
+    private final int numStripes;
+    private final int stripeMask;
+
+    private final AtomicLongArray bucketIndexes;
+    private final AtomicLongArray counters;
+
+    public BucketCounterRing(int bucketSizeInMs, int width) {
+        this(ACTUAL_TIME, bucketSizeInMs, width, DEFAULT_NUM_STRIPES);
+    }
+
+    /* package for testing */ BucketCounterRing(Time time, int bucketSizeInMs, int width, int numStripes) {
+        if (bucketSizeInMs <= 0) {
+            throw new IllegalArgumentException("Bucket size must be positive : " + bucketSizeInMs);
+        }
+        if (Integer.bitCount(numStripes) != 1) {
+            throw new IllegalArgumentException("Number of stripes must be a power of 2 : " + numStripes);
+        }
+        this.time = time;
+        this.bucketSizeInMs = bucketSizeInMs;
+        this.width = width;
+        this.stride = ((width + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE) * LONGS_PER_CACHE_LINE;
+        this.numStripes = numStripes;
+        this.stripeMask = numStripes - 1;
+        //offset bucket boundaries by half a bucket, so that a consumer ticking every bucketSizeInMs from now
+        //lands in the middle of a bucket and is tolerant of timer jitter in either direction
+        this.origin = time.getCurrentTimeInMillis() - (bucketSizeInMs / 2);
+
+        this.bucketIndexes = new AtomicLongArray(RING_SIZE);
+        for (int i = 0; i < RING_SIZE; i++) {
+            bucketIndexes.set(i, NO_BUCKET);
+        }
+        this.counters = new AtomicLongArray(RING_SIZE * numStripes * stride);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getBucketSizeInMs() {
+        return bucketSizeInMs;
+    }
+
+    /**
+     * Index of the bucket that writes currently go into.  Indices increase by 1 every bucketSizeInMs.
+     *
+     * @return current bucket index
+     */
+    public long getCurrentBucketIndex() {
+        return (time.getCurrentTimeInMillis() - origin) / bucketSizeInMs;
+    }
+
+    /**
+     * Add delta to the counter at the given position of the current bucket.
+     *
+     * @param position counter position, in [0, width)
+     * @param delta amount to add
+     */
+    public void add(int position, long delta) {
+        counters.getAndAdd(offsetForWrite() + position, delta);
+    }
+
+    /**
+     * Add all non-zero entries of counts into the current bucket.
+     *
+     * @param counts counts to add, indexed by counter position.  Only the first width entries are read.
+     */
+    public void addAll(long[] counts) {
+        final int offset = offsetForWrite();
+        final int n = Math.min(width, counts.length);
+        for (int i = 0; i < n; i++) {
+            long count = counts[i];
+            if (count != 0) {
+                counters.getAndAdd(offset + i, count);
+            }
+        }
+    }
+
+    /**
+     * Returns a per-thread, zeroed array of at least width entries for staging counts before calling {@link #addAll(long[])}.
+     * The array must not be retained past the subsequent {@link #addAll(long[])}/{@link #releaseScratch(long[])} pair.
+     *
+     * @return zeroed scratch array
+     */
+    public long[] acquireScratch() {
+        long[] scratch = scratchCounts.get();
+        if (scratch.length < width) {
+            scratch = new long[width];
+            scratchCounts.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * Zero the scratch array handed out by {@link #acquireScratch()} so that it may be reused.
+     *
+     * @param scratch array previously returned by {@link #acquireScratch()}
+     */
+    public void releaseScratch(long[] scratch) {
+        for (int i = 0; i < width; i++) {
+            scratch[i] = 0L;
+        }
+    }
+
+    /**
+     * Sum the stripes of the given bucket into dest.
+     *
+     * @param bucketIndex index of bucket to read
+     * @param dest array of at least width entries that the bucket gets copied into (overwriting existing values)
+     * @return true if the bucket was present in the ring, false if it was never written or has already been overwritten
+     * (in which case dest is zeroed)
+     */
+    public boolean readBucket(long bucketIndex, long[] dest) {
+        final int slot = (int) (bucketIndex & RING_MASK);
+        for (int i = 0; i < width; i++) {
+            dest[i] = 0L;
+        }
+        if (bucketIndexes.get(slot) != bucketIndex) {
+            return false;
+        }
+        final int slotOffset = slot * numStripes * stride;
+        for (int s = 0; s < numStripes; s++) {
+            final int stripeOffset = slotOffset + s * stride;
+            for (int i = 0; i < width; i++) {
+                dest[i] += counters.get(stripeOffset + i);
+            }
+        }
+        if (bucketIndexes.get(slot) != bucketIndex) {
+            //rotated out from under us while we were reading
+            for (int i = 0; i < width; i++) {
+                dest[i] = 0L;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private int offsetForWrite() {
+        final long bucketIndex = getCurrentBucketIndex();
+        final int slot = (int) (bucketIndex & RING_MASK);
+        final long slotBucketIndex = bucketIndexes.get(slot);
+        if (slotBucketIndex != bucketIndex) {
+            rotate(slot, slotBucketIndex, bucketIndex);
+        }
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        return (slot * numStripes + stripe) * stride;
+    }
+
+    private void rotate(int slot, long expectedBucketIndex, long newBucketIndex) {
+        if (expectedBucketIndex < newBucketIndex && bucketIndexes.compareAndSet(slot, expectedBucketIndex, newBucketIndex)) {
+            final int slotOffset = slot * numStripes * stride;
+            final int slotEnd = slotOffset + numStripes * stride;
+            for (int i = slotOffset; i < slotEnd; i++) {
+                counters.set(i, 0L);
+            }
+        }
+        //otherwise, some other thread won the race to rotate this slot
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        int highestOneBit = Integer.highestOneBit(Math.max(1, n));
+        return highestOneBit == n ? n : highestOneBit << 1;
+    }
+
+    /* package */ interface Time {
+        long getCurrentTimeInMillis();
+    }
+
+    private static class ActualTime implements Time {
+        @Override
+        public long getCurrentTimeInMillis() {
+            return System.currentTimeMillis();
+        }
+    }
+}
@@ -17,26 +17,57 @@ package com.netflix.hystrix.metric.consumer;
 
 import com.netflix.hystrix.metric.HystrixEvent;
 import com.netflix.hystrix.metric.HystrixEventStream;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.Subscriber;
 import rx.Subscription;
+import rx.functions.Action0;
 import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.functions.Func2;
 import rx.subjects.BehaviorSubject;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Abstract class that imposes a bucketing structure and provides streams of buckets
+ * <p>
+ * Buckets are built by one of the {@link BucketEngine}s, chosen by the "hystrix.metrics.bucketEngine" property at
+ * the time the stream is constructed.  Either way, the stream of buckets looks the same to the subclasses.
  *
  * @param <Event> type of raw data that needs to get summarized into a bucket
  * @param <Bucket> type of data contained in each bucket
  * @param <Output> type of data emitted to stream subscribers (often is the same as A but does not have to be)
  */
 public abstract class BucketedCounterStream<Event extends HystrixEvent, Bucket, Output> {
+    private static final Logger logger = LoggerFactory.getLogger(BucketedCounterStream.class);
+
+    /**
+     * Mechanism used to turn a stream of raw events into a stream of buckets.
+     * <p>
+     * <ul>
+     * <li>RX_WINDOW: Each bucket is an Rx window over the input stream, reduced into a new bucket.</li>
+     * <li>RING: Events are written into a preallocated {@link BucketCounterRing} as they arrive, and completed buckets
+     * are read out of the ring once per bucketSizeInMs.  Only applies to streams with long[] buckets, other streams
+     * always use RX_WINDOW.</li>
+     * </ul>
+     * <p>
+     * Both engines read events from {@link HystrixEventStream#observe()}, so RING saves the windowing and reducing but
+     * not the serialization of the input stream: every write to a sharded stream (such as {@link com.netflix.hystrix.metric.HystrixCommandCompletionStream})
+     * still goes through its SerializedSubject, which is the same whether events arrive through
+     * {@link com.netflix.hystrix.metric.HystrixThreadEventStream} or the direct event dispatch.  Contended writes to one
+     * command key are therefore still serialized before they reach the ring.
+     */
+    public enum BucketEngine {
+        RX_WINDOW, RING
+    }
+
     protected final int numBuckets;
     protected final Observable<Bucket> bucketedStream;
     protected final AtomicReference<Subscription> subscription = new AtomicReference<Subscription>(null);
@@ -60,16 +91,112 @@ public abstract class BucketedCounterStream<Event extends HystrixEvent, Bucket,
             emptyEventCountsToStart.add(getEmptyBucketSummary());
         }
 
-        this.bucketedStream = Observable.defer(new Func0<Observable<Bucket>>() {
-            @Override
-            public Observable<Bucket> call() {
-                return inputEventStream
-                        .observe()
-                        .window(bucketSizeInMs, TimeUnit.MILLISECONDS) //bucket it by the counter window so we can emit to the next operator in time chunks, not on every OnNext
-                        .flatMap(reduceBucketToSummary)                //for a given bucket, turn it into a long array containing counts of event types
-                        .startWith(emptyEventCountsToStart);           //start it with empty arrays to make consumer logic as generic as possible (windows are always full)
-            }
-        });
+        final Bucket emptyBucket = getEmptyBucketSummary();
+        if (getConfiguredBucketEngine() == BucketEngine.RING && emptyBucket instanceof long[]) {
+            this.bucketedStream = Observable.defer(new RingBucketSource(inputEventStream, bucketSizeInMs, ((long[]) emptyBucket).length, appendRawEventToBucket))
+                    .startWith(emptyEventCountsToStart);
+        } else {
+            this.bucketedStream = Observable.defer(new Func0<Observable<Bucket>>() {
+                @Override
+                public Observable<Bucket> call() {
+                    return inputEventStream
+                            .observe()
+                            .window(bucketSizeInMs, TimeUnit.MILLISECONDS) //bucket it by the counter window so we can emit to the next operator in time chunks, not on every OnNext
+                            .flatMap(reduceBucketToSummary)                //for a given bucket, turn it into a long array containing counts of event types
+                            .startWith(emptyEventCountsToStart);           //start it with empty arrays to make consumer logic as generic as possible (windows are always full)
+                }
+            });
+        }
+    }
+
+    /* package */ static BucketEngine getConfiguredBucketEngine() {
+        String engineName = HystrixPlugins.getInstance().getDynamicProperties().getString("hystrix.metrics.bucketEngine", BucketEngine.RX_WINDOW.name()).get();
+        try {
+            return BucketEngine.valueOf(engineName);
+        } catch (Exception e) {
+            logger.error("Unable to derive BucketEngine from property value: " + engineName, e);
+            return BucketEngine.RX_WINDOW;
+        }
+    }
+
+    /**
+     * Source of buckets for {@link BucketEngine#RING}.  Each subscription gets its own {@link BucketCounterRing}, which
+     * is written to for as long as the subscription lasts.  The ring takes concurrent writes, but it is fed by the
+     * serialized input stream, see {@link BucketEngine}.
+     */
+    private class RingBucketSource implements Func0<Observable<Bucket>> {
+        private final HystrixEventStream<Event> inputEventStream;
+        private final int bucketSizeInMs;
+        private final int width;
+        private final Func2<long[], Event, long[]> appendRawEventToBucket;
+
+        @SuppressWarnings("unchecked")
+        RingBucketSource(HystrixEventStream<Event> inputEventStream, int bucketSizeInMs, int width, Func2<Bucket, Event, Bucket> appendRawEventToBucket) {
+            this.inputEventStream = inputEventStream;
+            this.bucketSizeInMs = bucketSizeInMs;
+            this.width = width;
+            //only constructed when Bucket is long[]
+            this.appendRawEventToBucket = (Func2<long[], Event, long[]>) appendRawEventToBucket;
+        }
+
+        @Override
+        public Observable<Bucket> call() {
+            final BucketCounterRing ring = new BucketCounterRing(bucketSizeInMs, width);
+            final long[] nextBucketToEmit = new long[] { ring.getCurrentBucketIndex() };
+
+            final Subscription writeSubscription = inputEventStream.observe().unsafeSubscribe(new Subscriber<Event>() {
+                @Override
+                public void onCompleted() {
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                }
+
+                @Override
+                public void onNext(Event event) {
+                    long[] scratch = ring.acquireScratch();
+                    try {
+                        appendRawEventToBucket.call(scratch, event);
+                        ring.addAll(scratch);
+                    } finally {
+                        ring.releaseScratch(scratch);
+                    }
+                }
+            });
+
+            return Observable.interval(bucketSizeInMs, TimeUnit.MILLISECONDS)
+                    .concatMap(new Func1<Long, Observable<Bucket>>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Observable<Bucket> call(Long tick) {
+                            //ticks are serialized, so nextBucketToEmit is only ever touched by one thread at a time
+                            final long currentBucket = ring.getCurrentBucketIndex();
+                            if (nextBucketToEmit[0] >= currentBucket) {
+                                return Observable.empty();
+                            } else if (nextBucketToEmit[0] == currentBucket - 1) {
+                                long[] bucket = new long[width];
+                                ring.readBucket(nextBucketToEmit[0]++, bucket);
+                                return Observable.just((Bucket) bucket);
+                            } else {
+                                //we fell behind (timer jitter or GC), so catch up with every completed bucket
+                                List<Bucket> buckets = new ArrayList<Bucket>();
+                                while (nextBucketToEmit[0] < currentBucket) {
+                                    long[] bucket = new long[width];
+                                    ring.readBucket(nextBucketToEmit[0]++, bucket);
+                                    buckets.add((Bucket) bucket);
+                                }
+                                return Observable.from(Collections.unmodifiableList(buckets));
+                            }
+                        }
+                    })
+                    .doOnUnsubscribe(new Action0() {
+                        @Override
+                        public void call() {
+                            writeSubscription.unsubscribe();
+                        }
+                    });
+        }
     }
 
     abstract Bucket getEmptyBucketSummary();
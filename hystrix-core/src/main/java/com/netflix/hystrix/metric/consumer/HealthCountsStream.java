@@ -21,6 +21,7 @@ import com.netflix.hystrix.HystrixCommandProperties;
 import com.netflix.hystrix.HystrixEventType;
 import com.netflix.hystrix.metric.HystrixCommandCompletion;
 import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesFactory;
 import rx.functions.Func2;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,6 +38,9 @@ import java.util.concurrent.ConcurrentMap;
  * These values are stable - there's no peeking into a bucket until it is emitted
  *
  * These values get produced and cached in this class.  This value (the latest observed value) may be queried using {@link #getLatest()}.
+ *
+ * Each bucket holds a count per {@link HystrixEventType}, followed by a count of the executions that took at least
+ * {@link HystrixCommandProperties#circuitBreakerSlowCallDurationThresholdInMilliseconds()} at {@link #SLOW_CALL_INDEX}.
  */
 public class HealthCountsStream extends BucketedRollingCounterStream<HystrixCommandCompletion, long[], HystrixCommandMetrics.HealthCounts> {
 
@@ -44,6 +48,11 @@ public class HealthCountsStream extends BucketedRollingCounterStream<HystrixComm
 
     private static final int NUM_EVENT_TYPES = HystrixEventType.values().length;
 
+    /**
+     * Index of the count of slow calls in a bucket, after the count of each {@link HystrixEventType}.
+     */
+    public static final int SLOW_CALL_INDEX = NUM_EVENT_TYPES;
+
     private static final Func2<HystrixCommandMetrics.HealthCounts, long[], HystrixCommandMetrics.HealthCounts> healthCheckAccumulator = new Func2<HystrixCommandMetrics.HealthCounts, long[], HystrixCommandMetrics.HealthCounts>() {
         @Override
         public HystrixCommandMetrics.HealthCounts call(HystrixCommandMetrics.HealthCounts healthCounts, long[] bucketEventCounts) {
@@ -59,10 +68,14 @@ public class HealthCountsStream extends BucketedRollingCounterStream<HystrixComm
         }
         final int numHealthCountBuckets = properties.metricsRollingStatisticalWindowInMilliseconds().get() / healthCountBucketSizeInMs;
 
-        return getInstance(commandKey, numHealthCountBuckets, healthCountBucketSizeInMs);
+        return getInstance(commandKey, properties, numHealthCountBuckets, healthCountBucketSizeInMs);
     }
 
     public static HealthCountsStream getInstance(HystrixCommandKey commandKey, int numBuckets, int bucketSizeInMs) {
+        return getInstance(commandKey, null, numBuckets, bucketSizeInMs);
+    }
+
+    private static HealthCountsStream getInstance(HystrixCommandKey commandKey, HystrixCommandProperties properties, int numBuckets, int bucketSizeInMs) {
         HealthCountsStream initialStream = streams.get(commandKey.name());
         if (initialStream != null) {
             return initialStream;
@@ -72,7 +85,7 @@ public class HealthCountsStream extends BucketedRollingCounterStream<HystrixComm
                 HealthCountsStream existingStream = streams.get(commandKey.name());
                 if (existingStream == null) {
                     HealthCountsStream newStream = new HealthCountsStream(commandKey, numBuckets, bucketSizeInMs,
-                            HystrixCommandMetrics.appendEventToBucket);
+                            appendEventToBucket(commandKey, properties));
 
                     streams.putIfAbsent(commandKey.name(), newStream);
                     healthStream = newStream;
@@ -85,6 +98,34 @@ public class HealthCountsStream extends BucketedRollingCounterStream<HystrixComm
         }
     }
 
+    /**
+     * Counts the events of a completion as {@link HystrixCommandMetrics#appendEventToBucket} does, and whether it was slow.
+     *
+     * @param properties properties of the command, or null to look them up on the first completion, by which time the command has created them
+     */
+    private static Func2<long[], HystrixCommandCompletion, long[]> appendEventToBucket(final HystrixCommandKey commandKey, final HystrixCommandProperties properties) {
+        return new Func2<long[], HystrixCommandCompletion, long[]>() {
+            private volatile HystrixCommandProperties commandProperties = properties;
+
+            @Override
+            public long[] call(long[] initialCountArray, HystrixCommandCompletion execution) {
+                HystrixCommandMetrics.appendEventToBucket.call(initialCountArray, execution);
+
+                HystrixCommandProperties _commandProperties = commandProperties;
+                if (_commandProperties == null) {
+                    _commandProperties = HystrixPropertiesFactory.getCommandProperties(commandKey, null);
+                    commandProperties = _commandProperties;
+                }
+                int slowCallThreshold = _commandProperties.snapshot().circuitBreakerSlowCallDurationThresholdInMilliseconds();
+                if (slowCallThreshold > 0 && execution.getExecutionLatency() >= slowCallThreshold
+                        && !execution.getEventCounts().contains(HystrixEventType.BAD_REQUEST)) {
+                    initialCountArray[SLOW_CALL_INDEX]++;
+                }
+                return initialCountArray;
+            }
+        };
+    }
+
     public static void reset() {
         streams.clear();
     }
@@ -100,7 +141,7 @@ public class HealthCountsStream extends BucketedRollingCounterStream<HystrixComm
 
     @Override
     long[] getEmptyBucketSummary() {
-        return new long[NUM_EVENT_TYPES];
+        return new long[NUM_EVENT_TYPES + 1];
     }
 
     @Override
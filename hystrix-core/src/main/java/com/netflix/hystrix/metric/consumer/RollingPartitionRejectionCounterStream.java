@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric.consumer;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.metric.HystrixPartitionRejection;
+import com.netflix.hystrix.metric.HystrixPartitionRejectionStream;
+import rx.functions.Func2;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maintains a stream of rejection counts by partition key for a given Command.
+ * There is a rolling window abstraction on this stream.
+ * The counts are calculated over a window of t1 milliseconds.  This window has b buckets.
+ * Therefore, a new set of counts is produced every t2 (=t1/b) milliseconds
+ * t1 = {@link HystrixCommandProperties#metricsRollingStatisticalWindowInMilliseconds()}
+ * b = {@link HystrixCommandProperties#metricsRollingStatisticalWindowBuckets()}
+ *
+ * Only partitions with a rejection in the window have a count, so the size of each value is bounded by the partitions that were rejected
+ * rather than by every partition seen.
+ *
+ * These values get produced and cached in this class.  This value (the latest observed value) may be queried using {@link #getLatest(String)}.
+ */
+public class RollingPartitionRejectionCounterStream extends BucketedRollingCounterStream<HystrixPartitionRejection, Map<String, Long>, Map<String, Long>> {
+
+    private static final ConcurrentMap<String, RollingPartitionRejectionCounterStream> streams = new ConcurrentHashMap<String, RollingPartitionRejectionCounterStream>();
+
+    private static final Func2<Map<String, Long>, HystrixPartitionRejection, Map<String, Long>> appendRejectionToBucket = new Func2<Map<String, Long>, HystrixPartitionRejection, Map<String, Long>>() {
+        @Override
+        public Map<String, Long> call(Map<String, Long> bucket, HystrixPartitionRejection rejection) {
+            //each bucket is only written to by the thread reducing its window
+            Long count = bucket.get(rejection.getPartitionKey());
+            bucket.put(rejection.getPartitionKey(), count == null ? 1L : count + 1);
+            return bucket;
+        }
+    };
+
+    private static final Func2<Map<String, Long>, Map<String, Long>, Map<String, Long>> reduceBucket = new Func2<Map<String, Long>, Map<String, Long>, Map<String, Long>>() {
+        @Override
+        public Map<String, Long> call(Map<String, Long> cumulative, Map<String, Long> bucket) {
+            //the scan seed is shared by every window, so the sum has to be a new map
+            Map<String, Long> sum = new HashMap<String, Long>(cumulative);
+            for (Map.Entry<String, Long> entry : bucket.entrySet()) {
+                Long count = sum.get(entry.getKey());
+                sum.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+            }
+            return Collections.unmodifiableMap(sum);
+        }
+    };
+
+    public static RollingPartitionRejectionCounterStream getInstance(HystrixCommandKey commandKey, HystrixCommandProperties properties) {
+        final int counterMetricWindow = properties.metricsRollingStatisticalWindowInMilliseconds().get();
+        final int numCounterBuckets = properties.metricsRollingStatisticalWindowBuckets().get();
+        final int counterBucketSizeInMs = counterMetricWindow / numCounterBuckets;
+
+        return getInstance(commandKey, numCounterBuckets, counterBucketSizeInMs);
+    }
+
+    public static RollingPartitionRejectionCounterStream getInstance(HystrixCommandKey commandKey, int numBuckets, int bucketSizeInMs) {
+        RollingPartitionRejectionCounterStream initialStream = streams.get(commandKey.name());
+        if (initialStream != null) {
+            return initialStream;
+        } else {
+            synchronized (RollingPartitionRejectionCounterStream.class) {
+                RollingPartitionRejectionCounterStream existingStream = streams.get(commandKey.name());
+                if (existingStream == null) {
+                    RollingPartitionRejectionCounterStream newStream = new RollingPartitionRejectionCounterStream(commandKey, numBuckets, bucketSizeInMs);
+                    streams.putIfAbsent(commandKey.name(), newStream);
+                    return newStream;
+                } else {
+                    return existingStream;
+                }
+            }
+        }
+    }
+
+    public static void reset() {
+        streams.clear();
+    }
+
+    private RollingPartitionRejectionCounterStream(HystrixCommandKey commandKey, int numCounterBuckets, int counterBucketSizeInMs) {
+        super(HystrixPartitionRejectionStream.getInstance(commandKey), numCounterBuckets, counterBucketSizeInMs, appendRejectionToBucket, reduceBucket);
+    }
+
+    @Override
+    Map<String, Long> getEmptyBucketSummary() {
+        return new HashMap<String, Long>();
+    }
+
+    @Override
+    Map<String, Long> getEmptyOutputValue() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @param partitionKey partition to get the rejections of
+     * @return rejections of the partition in the rolling window
+     */
+    public long getLatest(String partitionKey) {
+        Long count = getLatest().get(partitionKey);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric.consumer;
+
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixThreadPoolCompletionStream;
+import org.HdrHistogram.Histogram;
+import rx.functions.Func2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maintains a stream of distributions of the time commands wait in the queue of a given ThreadPool before a thread starts executing them.
+ * There is a rolling window abstraction on this stream.
+ * The queue-wait distribution object is calculated over a window of t1 milliseconds.  This window has b buckets.
+ * Therefore, a new set of counters is produced every t2 (=t1/b) milliseconds
+ * t1 = {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowInMilliseconds()}
+ * b = {@link HystrixThreadPoolProperties#metricsRollingStatisticalWindowBuckets()}
+ *
+ * These values are stable - there's no peeking into a bucket until it is emitted
+ *
+ * The only queue-waits which get included in the distribution are for those commands which were picked up by a thread of the pool.
+ * Commands which were rejected, or which timed out before reaching a thread, are not included.
+ *
+ * These values get produced and cached in this class.
+ */
+public class RollingThreadPoolQueueWaitDistributionStream extends RollingDistributionStream<HystrixCommandCompletion> {
+    private static final ConcurrentMap<String, RollingThreadPoolQueueWaitDistributionStream> streams = new ConcurrentHashMap<String, RollingThreadPoolQueueWaitDistributionStream>();
+
+    private static final Func2<Histogram, HystrixCommandCompletion, Histogram> addValuesToBucket = new Func2<Histogram, HystrixCommandCompletion, Histogram>() {
+        @Override
+        public Histogram call(Histogram initialDistribution, HystrixCommandCompletion event) {
+            if (event.isExecutedInThread() && event.getQueueWaitLatency() > -1) {
+                initialDistribution.recordValue(event.getQueueWaitLatency());
+            }
+            return initialDistribution;
+        }
+    };
+
+    public static RollingThreadPoolQueueWaitDistributionStream getInstance(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolProperties properties) {
+        final int counterMetricWindow = properties.metricsRollingStatisticalWindowInMilliseconds().get();
+        final int numCounterBuckets = properties.metricsRollingStatisticalWindowBuckets().get();
+        final int counterBucketSizeInMs = counterMetricWindow / numCounterBuckets;
+
+        return getInstance(threadPoolKey, numCounterBuckets, counterBucketSizeInMs);
+    }
+
+    public static RollingThreadPoolQueueWaitDistributionStream getInstance(HystrixThreadPoolKey threadPoolKey, int numBuckets, int bucketSizeInMs) {
+        RollingThreadPoolQueueWaitDistributionStream initialStream = streams.get(threadPoolKey.name());
+        if (initialStream != null) {
+            return initialStream;
+        } else {
+            synchronized (RollingThreadPoolQueueWaitDistributionStream.class) {
+                RollingThreadPoolQueueWaitDistributionStream existingStream = streams.get(threadPoolKey.name());
+                if (existingStream == null) {
+                    RollingThreadPoolQueueWaitDistributionStream newStream = new RollingThreadPoolQueueWaitDistributionStream(threadPoolKey, numBuckets, bucketSizeInMs);
+                    streams.putIfAbsent(threadPoolKey.name(), newStream);
+                    return newStream;
+                } else {
+                    return existingStream;
+                }
+            }
+        }
+    }
+
+    public static void reset() {
+        streams.clear();
+    }
+
+    private RollingThreadPoolQueueWaitDistributionStream(HystrixThreadPoolKey threadPoolKey, int numBuckets, int bucketSizeInMs) {
+        super(HystrixThreadPoolCompletionStream.getInstance(threadPoolKey), numBuckets, bucketSizeInMs, addValuesToBucket);
+    }
+}
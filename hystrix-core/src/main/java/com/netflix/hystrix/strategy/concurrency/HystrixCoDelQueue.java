@@ -0,0 +1,334 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.strategy.concurrency;
+
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.exception.HystrixQueueDropException;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded {@link BlockingQueue} for a {@link ThreadPoolExecutor} with Controlled-Delay (CoDel) semantics and adaptive LIFO ordering.
+ * <p>
+ * The queue is overloaded once it has not been empty for {@link HystrixThreadPoolProperties#queueCoDelIntervalInMilliseconds()}.  A task
+ * is dropped when a thread takes it from the queue after it waited for longer than
+ * {@link HystrixThreadPoolProperties#queueCoDelTargetDelayInMilliseconds()} while the queue is overloaded, or for longer than the interval
+ * otherwise.  Expired tasks are handed out first, oldest first, so they leave the queue as soon as a thread is free.
+ * <p>
+ * While the queue is overloaded and {@link HystrixThreadPoolProperties#queueAdaptiveLifoEnabled()} is true, the most recently queued task is
+ * handed out next rather than the oldest, since its caller is the most likely to still be waiting.  Otherwise the queue is FIFO.
+ * <p>
+ * A dropped task is still returned to the thread that takes it, as a {@link ThreadPoolExecutor} has no way to discard a task it has dequeued.
+ * Instead {@link #isCurrentTaskDropped()} is true on that thread while it runs the task, and a Hystrix command checks it before it runs so
+ * that it fails with a {@link HystrixQueueDropException} instead.  Other tasks run as normal.
+ */
+public class HystrixCoDelQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final ThreadLocal<boolean[]> currentTaskDropped = new ThreadLocal<boolean[]>() {
+        @Override
+        protected boolean[] initialValue() {
+            return new boolean[1];
+        }
+    };
+
+    private final int capacity;
+    private final HystrixProperty<Integer> targetDelayInMilliseconds;
+    private final HystrixProperty<Integer> intervalInMilliseconds;
+    private final HystrixProperty<Boolean> adaptiveLifoEnabled;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+    /* last time the queue was seen empty, guarded by lock */
+    private long lastEmptyTime = System.nanoTime();
+
+    public HystrixCoDelQueue(int capacity, HystrixThreadPoolProperties properties) {
+        this(capacity, properties.queueCoDelTargetDelayInMilliseconds(), properties.queueCoDelIntervalInMilliseconds(), properties.queueAdaptiveLifoEnabled());
+    }
+
+    public HystrixCoDelQueue(int capacity, HystrixProperty<Integer> targetDelayInMilliseconds, HystrixProperty<Integer> intervalInMilliseconds, HystrixProperty<Boolean> adaptiveLifoEnabled) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive : " + capacity);
+        }
+        this.capacity = capacity;
+        this.targetDelayInMilliseconds = targetDelayInMilliseconds;
+        this.intervalInMilliseconds = intervalInMilliseconds;
+        this.adaptiveLifoEnabled = adaptiveLifoEnabled;
+    }
+
+    /**
+     * Whether the task the current thread last took from a {@link HystrixCoDelQueue} was dropped.  This is cleared once read, so it is only
+     * true for the first check made while running a dropped task.
+     *
+     * @return true if the current thread is running a task that should not be executed
+     */
+    public static boolean isCurrentTaskDropped() {
+        boolean[] dropped = currentTaskDropped.get();
+        if (dropped[0]) {
+            dropped[0] = false;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (entries.size() >= capacity) {
+                return false;
+            }
+            long now = System.nanoTime();
+            if (entries.isEmpty()) {
+                lastEmptyTime = now;
+            }
+            entries.addLast(new Entry(task, now));
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        // only a ThreadPoolExecutor uses this queue, and it never blocks to add
+        if (!offer(task)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(task);
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return entries.isEmpty() ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the next task and record on the current thread whether it was dropped.  Must be called holding the lock, with the queue non-empty.
+     */
+    private Runnable dequeue() {
+        long now = System.nanoTime();
+        boolean overloaded = now - lastEmptyTime > TimeUnit.MILLISECONDS.toNanos(intervalInMilliseconds.get());
+        long maxDelay = TimeUnit.MILLISECONDS.toNanos(overloaded ? targetDelayInMilliseconds.get() : intervalInMilliseconds.get());
+
+        Entry entry;
+        boolean dropped;
+        if (now - entries.peekFirst().enqueueTime > maxDelay) {
+            entry = entries.pollFirst();
+            dropped = true;
+        } else if (overloaded && adaptiveLifoEnabled.get()) {
+            entry = entries.pollLast();
+            dropped = false;
+        } else {
+            entry = entries.pollFirst();
+            dropped = false;
+        }
+        if (entries.isEmpty()) {
+            lastEmptyTime = now;
+        }
+        currentTaskDropped.get()[0] = dropped;
+        return entry.task;
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            Entry entry = entries.peekFirst();
+            return entry == null ? null : entry.task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                if (o.equals(iterator.next().task)) {
+                    iterator.remove();
+                    if (entries.isEmpty()) {
+                        lastEmptyTime = System.nanoTime();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && !entries.isEmpty()) {
+                c.add(entries.pollFirst().task);
+                n++;
+            }
+            if (entries.isEmpty()) {
+                lastEmptyTime = System.nanoTime();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the queued tasks, oldest first.  {@link Iterator#remove()} removes the task from the queue.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        final List<Runnable> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<Runnable>(entries.size());
+            for (Entry entry : entries) {
+                snapshot.add(entry.task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<Runnable>() {
+            private int next = 0;
+            private Runnable last = null;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.size();
+            }
+
+            @Override
+            public Runnable next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot.get(next++);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                HystrixCoDelQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private static class Entry {
+        private final Runnable task;
+        private final long enqueueTime;
+
+        private Entry(Runnable task, long enqueueTime) {
+            this.task = task;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+}
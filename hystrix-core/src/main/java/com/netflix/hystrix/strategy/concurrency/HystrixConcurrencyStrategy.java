@@ -16,9 +16,11 @@
 package com.netflix.hystrix.strategy.concurrency;
 
 import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
 import com.netflix.hystrix.HystrixThreadPool;
 import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.HystrixVirtualThreadBulkhead;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.properties.HystrixProperty;
 import com.netflix.hystrix.util.PlatformSpecific;
@@ -97,8 +99,7 @@ public abstract class HystrixConcurrencyStrategy {
         final boolean allowMaximumSizeToDivergeFromCoreSize = threadPoolProperties.getAllowMaximumSizeToDivergeFromCoreSize().get();
         final int dynamicCoreSize = threadPoolProperties.coreSize().get();
         final int keepAliveTime = threadPoolProperties.keepAliveTimeMinutes().get();
-        final int maxQueueSize = threadPoolProperties.maxQueueSize().get();
-        final BlockingQueue<Runnable> workQueue = getBlockingQueue(maxQueueSize);
+        final BlockingQueue<Runnable> workQueue = getBlockingQueue(threadPoolKey, threadPoolProperties);
 
         if (allowMaximumSizeToDivergeFromCoreSize) {
             final int dynamicMaximumSize = threadPoolProperties.maximumSize().get();
@@ -115,6 +116,32 @@ public abstract class HystrixConcurrencyStrategy {
         }
     }
 
+    /**
+     * Factory method to provide the {@link ThreadFactory} that {@link HystrixVirtualThreadBulkhead} gets a new thread from for every
+     * execution of a command using {@link ExecutionIsolationStrategy#VIRTUAL_THREAD}.
+     * <p>
+     * Threads from this factory are never pooled, and concurrency is limited by {@link HystrixThreadPoolProperties#virtualThreadMaxConcurrentRequests()}
+     * rather than by a pool size.
+     * <p>
+     * <b>Default Implementation</b>
+     * <p>
+     * Virtual threads named hystrix-{threadPoolKey}-virtual-{n}.  If the JVM does not support virtual threads, daemon platform threads
+     * are created instead (the same as for {@link #getThreadPool}), and a warning is logged.
+     *
+     * @param threadPoolKey
+     *            {@link HystrixThreadPoolKey} representing the {@link HystrixVirtualThreadBulkhead} that threads will be created for.
+     * @return {@link ThreadFactory} to create 1 thread per command execution
+     */
+    public ThreadFactory getVirtualThreadFactory(final HystrixThreadPoolKey threadPoolKey) {
+        if (PlatformSpecific.isVirtualThreadSupported()) {
+            return PlatformSpecific.getVirtualThreadFactory("hystrix-" + threadPoolKey.name() + "-virtual-");
+        } else {
+            logger.warn("Virtual threads are not supported by this JVM.  Commands using VIRTUAL_THREAD isolation with HystrixThreadPoolKey : " +
+                    threadPoolKey.name() + " will each run on a new platform thread instead.");
+            return getThreadFactory(threadPoolKey);
+        }
+    }
+
     private static ThreadFactory getThreadFactory(final HystrixThreadPoolKey threadPoolKey) {
         if (!PlatformSpecific.isAppEngineStandardEnvironment()) {
             return new ThreadFactory() {
@@ -163,6 +190,33 @@ public abstract class HystrixConcurrencyStrategy {
         }
     }
 
+    /**
+     * Factory method to provide instance of {@code BlockingQueue<Runnable>} used for each {@link ThreadPoolExecutor} as constructed in
+     * {@link #getThreadPool(HystrixThreadPoolKey, HystrixThreadPoolProperties)}.
+     * <p>
+     * <b>Default Implementation</b>
+     * <p>
+     * Implementation returns a {@link HystrixPriorityQueue} of {@link HystrixThreadPoolProperties#maxQueueSize()} when
+     * {@link HystrixThreadPoolProperties#queuePriorityEnabled()} is true and maxQueueSize > 0, else a {@link HystrixCoDelQueue} of maxQueueSize when
+     * {@link HystrixThreadPoolProperties#queueCoDelEnabled()} is true and maxQueueSize > 0, or otherwise the queue from {@link #getBlockingQueue(int)}.
+     *
+     * @param threadPoolKey
+     *            {@link HystrixThreadPoolKey} representing the {@link HystrixThreadPool} that the queue will be used for.
+     * @param threadPoolProperties
+     *            properties of the {@link HystrixThreadPool}
+     * @return instance of {@code BlockingQueue<Runnable>}
+     */
+    public BlockingQueue<Runnable> getBlockingQueue(HystrixThreadPoolKey threadPoolKey, HystrixThreadPoolProperties threadPoolProperties) {
+        final int maxQueueSize = threadPoolProperties.maxQueueSize().get();
+        if (maxQueueSize > 0 && threadPoolProperties.queuePriorityEnabled().get()) {
+            return new HystrixPriorityQueue(maxQueueSize, threadPoolProperties);
+        } else if (maxQueueSize > 0 && threadPoolProperties.queueCoDelEnabled().get()) {
+            return new HystrixCoDelQueue(maxQueueSize, threadPoolProperties);
+        } else {
+            return getBlockingQueue(maxQueueSize);
+        }
+    }
+
     /**
      * Provides an opportunity to wrap/decorate a {@code Callable<T>} before execution.
      * <p>
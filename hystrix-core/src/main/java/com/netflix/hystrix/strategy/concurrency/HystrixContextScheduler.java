@@ -24,6 +24,7 @@ import rx.internal.schedulers.ScheduledAction;
 import rx.subscriptions.*;
 
 import com.netflix.hystrix.HystrixThreadPool;
+import com.netflix.hystrix.HystrixVirtualThreadBulkhead;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 
 /**
@@ -32,6 +33,13 @@ import com.netflix.hystrix.strategy.HystrixPlugins;
  */
 public class HystrixContextScheduler extends Scheduler {
 
+    private static final ThreadLocal<long[]> queueWaitOfCurrentAction = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[] { -1 };
+        }
+    };
+
     private final HystrixConcurrencyStrategy concurrencyStrategy;
     private final Scheduler actualScheduler;
     private final HystrixThreadPool threadPool;
@@ -63,11 +71,27 @@ public class HystrixContextScheduler extends Scheduler {
         this.actualScheduler = new ThreadPoolScheduler(threadPool, shouldInterruptThread);
     }
 
+    public HystrixContextScheduler(HystrixConcurrencyStrategy concurrencyStrategy, HystrixVirtualThreadBulkhead bulkhead, Func0<Boolean> shouldInterruptThread) {
+        this.concurrencyStrategy = concurrencyStrategy;
+        this.threadPool = null;
+        this.actualScheduler = new VirtualThreadScheduler(bulkhead, shouldInterruptThread);
+    }
+
     @Override
     public Worker createWorker() {
         return new HystrixContextSchedulerWorker(actualScheduler.createWorker());
     }
 
+    /**
+     * Time the action running on the current thread spent in the queue of its {@link HystrixThreadPool}, from being scheduled until a
+     * thread of the pool picked it up.
+     *
+     * @return time in nanoseconds, or -1 if the current thread is not running an action scheduled on a {@link HystrixThreadPool}
+     */
+    public static long getQueueWaitOfCurrentActionInNanos() {
+        return queueWaitOfCurrentAction.get()[0];
+    }
+
     private class HystrixContextSchedulerWorker extends Worker {
 
         private final Worker worker;
@@ -163,7 +187,7 @@ public class HystrixContextScheduler extends Scheduler {
             }
 
             // This is internal RxJava API but it is too useful.
-            ScheduledAction sa = new ScheduledAction(action);
+            ScheduledAction sa = new ScheduledAction(new QueueWaitRecordingAction(action));
 
             subscription.add(sa);
             sa.addParent(subscription);
@@ -181,13 +205,129 @@ public class HystrixContextScheduler extends Scheduler {
         }
     }
 
+    /**
+     * Records the time from when an action is enqueued until a thread of the pool runs it, for {@link #getQueueWaitOfCurrentActionInNanos()}.
+     */
+    private static class QueueWaitRecordingAction implements Action0 {
+
+        private final Action0 actual;
+        private final long enqueueTime = System.nanoTime();
+
+        QueueWaitRecordingAction(Action0 actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void call() {
+            long[] queueWait = queueWaitOfCurrentAction.get();
+            queueWait[0] = System.nanoTime() - enqueueTime;
+            try {
+                actual.call();
+            } finally {
+                queueWait[0] = -1;
+            }
+        }
+    }
+
+    private static class VirtualThreadScheduler extends Scheduler {
+
+        private final HystrixVirtualThreadBulkhead bulkhead;
+        private final Func0<Boolean> shouldInterruptThread;
+
+        public VirtualThreadScheduler(HystrixVirtualThreadBulkhead bulkhead, Func0<Boolean> shouldInterruptThread) {
+            this.bulkhead = bulkhead;
+            this.shouldInterruptThread = shouldInterruptThread;
+        }
+
+        @Override
+        public Worker createWorker() {
+            return new VirtualThreadWorker(bulkhead, shouldInterruptThread);
+        }
+
+    }
+
+    /**
+     * Runs each action on a new thread from the {@link HystrixVirtualThreadBulkhead}, holding one of its permits from the time the
+     * action is scheduled until the thread exits.
+     * <p>
+     * There is no queue: if no permit is available, scheduling throws {@link RejectedExecutionException}, the same as a full thread-pool.
+     */
+    private static class VirtualThreadWorker extends Worker {
+
+        private final HystrixVirtualThreadBulkhead bulkhead;
+        private final CompositeSubscription subscription = new CompositeSubscription();
+        private final Func0<Boolean> shouldInterruptThread;
+
+        public VirtualThreadWorker(HystrixVirtualThreadBulkhead bulkhead, Func0<Boolean> shouldInterruptThread) {
+            this.bulkhead = bulkhead;
+            this.shouldInterruptThread = shouldInterruptThread;
+        }
+
+        @Override
+        public void unsubscribe() {
+            subscription.unsubscribe();
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return subscription.isUnsubscribed();
+        }
+
+        @Override
+        public Subscription schedule(final Action0 action) {
+            if (subscription.isUnsubscribed()) {
+                // don't schedule, we are unsubscribed
+                return Subscriptions.unsubscribed();
+            }
+
+            if (!bulkhead.tryAcquire()) {
+                throw new RejectedExecutionException("Rejected command because virtual-thread bulkhead is at its maxConcurrentRequests limit.");
+            }
+
+            // This is internal RxJava API but it is too useful.
+            ScheduledAction sa = new ScheduledAction(action);
+
+            subscription.add(sa);
+            sa.addParent(subscription);
+
+            final FutureTask<?> f = new FutureTask<Object>(sa, null);
+            Thread thread;
+            try {
+                thread = bulkhead.newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            // a no-op if the action was unsubscribed from before the thread got to run it
+                            f.run();
+                        } finally {
+                            bulkhead.release();
+                        }
+                    }
+                });
+                thread.start();
+            } catch (Throwable t) {
+                bulkhead.release();
+                subscription.remove(sa);
+                throw new RejectedExecutionException("Unable to start thread for command", t);
+            }
+            sa.add(new FutureCompleterWithConfigurableInterrupt(f, shouldInterruptThread, null));
+
+            return sa;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            throw new IllegalStateException("Hystrix does not support delayed scheduling");
+        }
+    }
+
     /**
      * Very similar to rx.internal.schedulers.ScheduledAction.FutureCompleter, but with configurable interrupt behavior
      */
     private static class FutureCompleterWithConfigurableInterrupt implements Subscription {
         private final FutureTask<?> f;
         private final Func0<Boolean> shouldInterruptThread;
-        private final ThreadPoolExecutor executor;
+        private final ThreadPoolExecutor executor; // null when f was not submitted to a ThreadPoolExecutor
 
         private FutureCompleterWithConfigurableInterrupt(FutureTask<?> f, Func0<Boolean> shouldInterruptThread, ThreadPoolExecutor executor) {
             this.f = f;
@@ -197,7 +337,9 @@ public class HystrixContextScheduler extends Scheduler {
 
         @Override
         public void unsubscribe() {
-            executor.remove(f);
+            if (executor != null) {
+                executor.remove(f);
+            }
             if (shouldInterruptThread.call()) {
                 f.cancel(true);
             } else {
@@ -0,0 +1,407 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.strategy.concurrency;
+
+import com.netflix.hystrix.HystrixPriority;
+import com.netflix.hystrix.HystrixThreadPool;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded {@link BlockingQueue} for a {@link ThreadPoolExecutor} with a FIFO queue for each {@link HystrixPriority} and weighted fair dequeueing.
+ * <p>
+ * While tasks of several priorities are queued, each priority is handed out in proportion to its weight, such as
+ * {@link HystrixThreadPoolProperties#queuePriorityHighWeight()}, using smooth weighted round-robin so that the priorities are interleaved rather
+ * than handed out in runs.  A priority with nothing queued takes no share, so a single priority gets every thread that becomes free.  Every
+ * priority keeps a weight of at least 1, so low priority tasks are delayed by a burst of high priority ones but never starved.
+ * <p>
+ * A {@link ThreadPoolExecutor} only hands the queue a {@link Runnable}, so the priority of a task is the one given to {@link #withPriority} for
+ * the {@link Scheduler} that is scheduling it on the current thread, or {@link HystrixPriority#NORMAL} for tasks submitted in any other way.
+ * The same priority is available from {@link #getSchedulingPriority()} while the {@link HystrixThreadPool} decides whether to reject the task.
+ */
+public class HystrixPriorityQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final HystrixPriority[] ALL_PRIORITIES = HystrixPriority.values();
+
+    private static final ThreadLocal<HystrixPriority[]> schedulingPriority = new ThreadLocal<HystrixPriority[]>() {
+        @Override
+        protected HystrixPriority[] initialValue() {
+            return new HystrixPriority[1];
+        }
+    };
+
+    private final int capacity;
+    private final HystrixProperty<Integer>[] weights;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    /* indexed by HystrixPriority.ordinal(), guarded by lock */
+    private final ArrayDeque<Runnable>[] queues;
+    /* credit of each priority for smooth weighted round-robin, indexed by HystrixPriority.ordinal(), guarded by lock */
+    private final int[] credits = new int[ALL_PRIORITIES.length];
+    /* guarded by lock */
+    private int count = 0;
+
+    public HystrixPriorityQueue(int capacity, HystrixThreadPoolProperties properties) {
+        this(capacity, properties.queuePriorityHighWeight(), properties.queuePriorityNormalWeight(), properties.queuePriorityLowWeight());
+    }
+
+    @SuppressWarnings("unchecked")
+    public HystrixPriorityQueue(int capacity, HystrixProperty<Integer> highWeight, HystrixProperty<Integer> normalWeight, HystrixProperty<Integer> lowWeight) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive : " + capacity);
+        }
+        this.capacity = capacity;
+        this.weights = new HystrixProperty[ALL_PRIORITIES.length];
+        this.weights[HystrixPriority.HIGH.ordinal()] = highWeight;
+        this.weights[HystrixPriority.NORMAL.ordinal()] = normalWeight;
+        this.weights[HystrixPriority.LOW.ordinal()] = lowWeight;
+        this.queues = new ArrayDeque[ALL_PRIORITIES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<Runnable>();
+        }
+    }
+
+    /**
+     * Wrap a {@link Scheduler} so that the tasks it schedules are queued with the given priority by any {@link HystrixPriorityQueue}.  This
+     * relies on the wrapped scheduler submitting a task to its executor on the thread that schedules it, as the {@link Scheduler} of a
+     * {@link HystrixThreadPool} does.
+     *
+     * @param scheduler
+     *            {@link Scheduler} to wrap
+     * @param priority
+     *            priority of the tasks scheduled
+     * @return {@link Scheduler} scheduling with the given priority
+     */
+    public static Scheduler withPriority(final Scheduler scheduler, final HystrixPriority priority) {
+        return new Scheduler() {
+            @Override
+            public Worker createWorker() {
+                return new PriorityWorker(scheduler.createWorker(), priority);
+            }
+        };
+    }
+
+    /**
+     * Priority of the task that is being scheduled on the current thread by a {@link Scheduler} from {@link #withPriority}.
+     *
+     * @return the priority, or {@link HystrixPriority#NORMAL} if the current thread is not scheduling a task that way
+     */
+    public static HystrixPriority getSchedulingPriority() {
+        HystrixPriority priority = schedulingPriority.get()[0];
+        return priority == null ? HystrixPriority.NORMAL : priority;
+    }
+
+    /**
+     * Number of queued tasks with the given priority.
+     *
+     * @param priority
+     *            priority to count the tasks of
+     * @return number of tasks
+     */
+    public int size(HystrixPriority priority) {
+        lock.lock();
+        try {
+            return queues[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            queues[getSchedulingPriority().ordinal()].addLast(task);
+            count++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        // only a ThreadPoolExecutor uses this queue, and it never blocks to add
+        if (!offer(task)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(task);
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the next task by smooth weighted round-robin over the priorities with queued tasks.  Must be called holding the lock, with the
+     * queue non-empty.
+     */
+    private Runnable dequeue() {
+        int totalWeight = 0;
+        int next = -1;
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].isEmpty()) {
+                credits[i] = 0;
+            } else {
+                int weight = Math.max(1, weights[i].get());
+                totalWeight += weight;
+                credits[i] += weight;
+                if (next < 0 || credits[i] > credits[next]) {
+                    next = i;
+                }
+            }
+        }
+        credits[next] -= totalWeight;
+        count--;
+        return queues[next].pollFirst();
+    }
+
+    /**
+     * The task at the head of the highest priority with queued tasks, which is not necessarily the next to be handed out.
+     */
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            for (ArrayDeque<Runnable> queue : queues) {
+                if (!queue.isEmpty()) {
+                    return queue.peekFirst();
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            for (ArrayDeque<Runnable> queue : queues) {
+                if (queue.removeFirstOccurrence(o)) {
+                    count--;
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && count > 0) {
+                c.add(dequeue());
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the queued tasks, highest priority first.  {@link Iterator#remove()} removes the task from the queue.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        final List<Runnable> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<Runnable>(count);
+            for (ArrayDeque<Runnable> queue : queues) {
+                snapshot.addAll(queue);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<Runnable>() {
+            private int next = 0;
+            private Runnable last = null;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.size();
+            }
+
+            @Override
+            public Runnable next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot.get(next++);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                HystrixPriorityQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Sets the scheduling priority of the current thread while the wrapped {@link Scheduler.Worker} schedules a task.
+     */
+    private static class PriorityWorker extends Scheduler.Worker {
+
+        private final Scheduler.Worker worker;
+        private final HystrixPriority priority;
+
+        private PriorityWorker(Scheduler.Worker worker, HystrixPriority priority) {
+            this.worker = worker;
+            this.priority = priority;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            HystrixPriority[] current = schedulingPriority.get();
+            HystrixPriority previous = current[0];
+            current[0] = priority;
+            try {
+                return worker.schedule(action);
+            } finally {
+                current[0] = previous;
+            }
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            HystrixPriority[] current = schedulingPriority.get();
+            HystrixPriority previous = current[0];
+            current[0] = priority;
+            try {
+                return worker.schedule(action, delayTime, unit);
+            } finally {
+                current[0] = previous;
+            }
+        }
+
+        @Override
+        public void unsubscribe() {
+            worker.unsubscribe();
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return worker.isUnsubscribed();
+        }
+    }
+}
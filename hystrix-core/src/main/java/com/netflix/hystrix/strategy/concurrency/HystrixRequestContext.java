@@ -17,9 +17,12 @@ package com.netflix.hystrix.strategy.concurrency;
 
 import java.io.Closeable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import com.netflix.hystrix.HystrixCollapser;
 import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixPriority;
 import com.netflix.hystrix.HystrixRequestCache;
 import com.netflix.hystrix.HystrixRequestLog;
 
@@ -31,6 +34,8 @@ import com.netflix.hystrix.HystrixRequestLog;
  * <li>request scoped caching as in {@link HystrixRequestCache} for de-duping {@link HystrixCommand} executions</li>
  * <li>request scoped log of all events as in {@link HystrixRequestLog}</li>
  * <li>automated batching of {@link HystrixCommand} executions within the scope of a request as in {@link HystrixCollapser}</li>
+ * <li>a deadline for the whole request, which bounds the timeout of each {@link HystrixCommand} executed within it (see {@link #setDeadline})</li>
+ * <li>a priority for the {@link HystrixCommand} executions of the request that do not declare their own (see {@link #setPriority})</li>
  * </ul>
  * <p>
  * If those features are not used then this does not need to be used. If those features are used then this must be initialized or a custom implementation of {@link HystrixRequestVariable} must be
@@ -118,11 +123,84 @@ public class HystrixRequestContext implements Closeable {
      */
     /* package */ConcurrentHashMap<HystrixRequestVariableDefault<?>, HystrixRequestVariableDefault.LazyInitializer<?>> state = new ConcurrentHashMap<HystrixRequestVariableDefault<?>, HystrixRequestVariableDefault.LazyInitializer<?>>();
 
+    /*
+     * Deadline of the request as a System.nanoTime() value, or null if the request has none.
+     *
+     * Like the state above, this is shared by every thread the context is copied to.
+     */
+    private volatile Long deadline = null;
+
+    /*
+     * Priority of the commands executed within the request that do not declare one, or null for HystrixPriority.NORMAL.
+     */
+    private volatile HystrixPriority priority = null;
+
     // instantiation should occur via static factory methods.
     private HystrixRequestContext() {
 
     }
 
+    /**
+     * Set a deadline for the request, after the given time from now.
+     * <p>
+     * Commands executed within this context, on this thread or on any thread the context is copied to (such as by {@link HystrixContextRunnable}
+     * and {@link HystrixContextCallable}), time out when the deadline is reached if that is sooner than their
+     * {@link HystrixCommandProperties#executionTimeoutInMilliseconds()}.  A command started after the deadline is not executed.
+     *
+     * @param timeout
+     *            time from now until the deadline
+     * @param unit
+     *            unit of the timeout
+     */
+    public void setDeadline(long timeout, TimeUnit unit) {
+        deadline = System.nanoTime() + unit.toNanos(timeout);
+    }
+
+    /**
+     * Remove the deadline of the request, if it has one.
+     */
+    public void clearDeadline() {
+        deadline = null;
+    }
+
+    /**
+     * @return true if {@link #setDeadline} has been called for the request, and the deadline has not been cleared
+     */
+    public boolean hasDeadline() {
+        return deadline != null;
+    }
+
+    /**
+     * Time left until the deadline of the request.
+     *
+     * @return time in milliseconds, 0 or less if the deadline has passed, or {@link Long#MAX_VALUE} if the request has no deadline
+     */
+    public long getRemainingTimeInMilliseconds() {
+        Long d = deadline;
+        if (d == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(d - System.nanoTime());
+    }
+
+    /**
+     * Set the priority with which commands executed within this context, on this thread or on any thread the context is copied to, are
+     * queued for their thread-pool.  A priority given by {@link HystrixCommand.Setter#andPriority} takes precedence.
+     *
+     * @param priority
+     *            priority of the request, or null to use {@link HystrixPriority#NORMAL}
+     */
+    public void setPriority(HystrixPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * @return priority set by {@link #setPriority}, or null if none was set
+     */
+    public HystrixPriority getPriority() {
+        return priority;
+    }
+
     /**
      * Shutdown {@link HystrixRequestVariableDefault} objects in this context.
      * <p>
@@ -17,6 +17,7 @@ package com.netflix.hystrix.strategy.eventnotifier;
 
 import java.util.List;
 
+import com.netflix.hystrix.HystrixCircuitBreaker;
 import com.netflix.hystrix.HystrixCommandKey;
 import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
 import com.netflix.hystrix.HystrixEventType;
@@ -69,4 +70,20 @@ public abstract class HystrixEventNotifier {
         // do nothing
     }
 
+    /**
+     * Called when the circuit breaker of a command, or of one of its partitions, trips open because of its health.
+     * <p>
+     * Will not get called when the circuit is forced open, or re-opens after a failed test request from the half-open state.
+     * <p>
+     * <b>Default Implementation: </b> Does nothing
+     * 
+     * @param key
+     *            {@link HystrixCommandKey} of command instance.
+     * @param reason
+     *            {@link HystrixCircuitBreaker.OpenReason} the threshold the command went past
+     */
+    public void markCircuitBreakerOpened(HystrixCommandKey key, HystrixCircuitBreaker.OpenReason reason) {
+        // do nothing
+    }
+
 }
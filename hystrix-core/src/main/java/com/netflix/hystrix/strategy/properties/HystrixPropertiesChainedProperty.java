@@ -18,6 +18,7 @@ package com.netflix.hystrix.strategy.properties;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -67,7 +68,7 @@ public abstract class HystrixPropertiesChainedProperty {
         public ChainLink() {
             next = null;
             pReference = new AtomicReference<ChainLink<T>>(this);
-            callbacks = new ArrayList<Runnable>();
+            callbacks = new CopyOnWriteArrayList<Runnable>();
         }
 
         /**
@@ -76,17 +77,14 @@ public abstract class HystrixPropertiesChainedProperty {
         public ChainLink(ChainLink<T> nextProperty) {
             next = nextProperty;
             pReference = new AtomicReference<ChainLink<T>>(next);
-            callbacks = new ArrayList<Runnable>();
+            callbacks = new CopyOnWriteArrayList<Runnable>();
         }
 
         protected void checkAndFlip() {
             // in case this is the end node
             if (next == null) {
                 pReference.set(this);
-                return;
-            }
-
-            if (this.isValueAcceptable()) {
+            } else if (this.isValueAcceptable()) {
                 logger.debug("Flipping property: {} to use its current value: {}", getName(), getValue());
                 pReference.set(this);
             } else {
@@ -223,6 +221,13 @@ public abstract class HystrixPropertiesChainedProperty {
         public ChainProperty(HystrixDynamicProperty<T> sProperty) {
             super();
             sProp = sProperty;
+            sProp.addCallback(new Runnable() {
+                @Override
+                public void run() {
+                    logger.debug("Property changed: '{} = {}'", getName(), getValue());
+                    checkAndFlip();
+                }
+            });
         }
 
 
@@ -237,6 +242,13 @@ public abstract class HystrixPropertiesChainedProperty {
                     checkAndFlip();
                 }
             });
+            // a change further down the chain changes the value of this property too if it has none of its own
+            next.addCallback(new Runnable() {
+                @Override
+                public void run() {
+                    checkAndFlip();
+                }
+            });
             checkAndFlip();
         }
 
@@ -26,6 +26,7 @@ import com.netflix.hystrix.HystrixThreadPool;
 import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolProperties;
 import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.util.OrdinalTable;
 
 /**
  * Factory for retrieving properties implementations.
@@ -42,12 +43,17 @@ public class HystrixPropertiesFactory {
      */
     public static void reset() {
         commandProperties.clear();
+        commandPropertiesByOrdinal.clear();
         threadPoolProperties.clear();
+        threadPoolPropertiesByOrdinal.clear();
         collapserProperties.clear();
+        collapserPropertiesByOrdinal.clear();
     }
 
     // String is CommandKey.name() (we can't use CommandKey directly as we can't guarantee it implements hashcode/equals correctly)
     private static final ConcurrentHashMap<String, HystrixCommandProperties> commandProperties = new ConcurrentHashMap<String, HystrixCommandProperties>();
+    // indexed by HystrixCommandKey.Factory.ordinalOf(key), which stands in for the name the default strategy uses as the cache key
+    private static final OrdinalTable<HystrixCommandProperties> commandPropertiesByOrdinal = new OrdinalTable<HystrixCommandProperties>();
 
     /**
      * Get an instance of {@link HystrixCommandProperties} with the given factory {@link HystrixPropertiesStrategy} implementation for each {@link HystrixCommand} instance.
@@ -60,6 +66,20 @@ public class HystrixPropertiesFactory {
      */
     public static HystrixCommandProperties getCommandProperties(HystrixCommandKey key, HystrixCommandProperties.Setter builder) {
         HystrixPropertiesStrategy hystrixPropertiesStrategy = HystrixPlugins.getInstance().getPropertiesStrategy();
+        if (hystrixPropertiesStrategy == HystrixPropertiesStrategyDefault.getInstance()) {
+            // the default strategy caches by key name, so the ordinal of the key finds the same instance without hashing the name
+            int ordinal = HystrixCommandKey.Factory.ordinalOf(key);
+            HystrixCommandProperties properties = commandPropertiesByOrdinal.get(ordinal);
+            if (properties == null) {
+                properties = getCommandProperties(hystrixPropertiesStrategy, key, builder);
+                commandPropertiesByOrdinal.putIfAbsent(ordinal, properties);
+            }
+            return properties;
+        }
+        return getCommandProperties(hystrixPropertiesStrategy, key, builder);
+    }
+
+    private static HystrixCommandProperties getCommandProperties(HystrixPropertiesStrategy hystrixPropertiesStrategy, HystrixCommandKey key, HystrixCommandProperties.Setter builder) {
         String cacheKey = hystrixPropertiesStrategy.getCommandPropertiesCacheKey(key, builder);
         if (cacheKey != null) {
             HystrixCommandProperties properties = commandProperties.get(cacheKey);
@@ -87,6 +107,8 @@ public class HystrixPropertiesFactory {
 
     // String is ThreadPoolKey.name() (we can't use ThreadPoolKey directly as we can't guarantee it implements hashcode/equals correctly)
     private static final ConcurrentHashMap<String, HystrixThreadPoolProperties> threadPoolProperties = new ConcurrentHashMap<String, HystrixThreadPoolProperties>();
+    // indexed by HystrixThreadPoolKey.Factory.ordinalOf(key), which stands in for the name the default strategy uses as the cache key
+    private static final OrdinalTable<HystrixThreadPoolProperties> threadPoolPropertiesByOrdinal = new OrdinalTable<HystrixThreadPoolProperties>();
 
     /**
      * Get an instance of {@link HystrixThreadPoolProperties} with the given factory {@link HystrixPropertiesStrategy} implementation for each {@link HystrixThreadPool} instance.
@@ -99,6 +121,20 @@ public class HystrixPropertiesFactory {
      */
     public static HystrixThreadPoolProperties getThreadPoolProperties(HystrixThreadPoolKey key, HystrixThreadPoolProperties.Setter builder) {
         HystrixPropertiesStrategy hystrixPropertiesStrategy = HystrixPlugins.getInstance().getPropertiesStrategy();
+        if (hystrixPropertiesStrategy == HystrixPropertiesStrategyDefault.getInstance()) {
+            // the default strategy caches by key name, so the ordinal of the key finds the same instance without hashing the name
+            int ordinal = HystrixThreadPoolKey.Factory.ordinalOf(key);
+            HystrixThreadPoolProperties properties = threadPoolPropertiesByOrdinal.get(ordinal);
+            if (properties == null) {
+                properties = getThreadPoolProperties(hystrixPropertiesStrategy, key, builder);
+                threadPoolPropertiesByOrdinal.putIfAbsent(ordinal, properties);
+            }
+            return properties;
+        }
+        return getThreadPoolProperties(hystrixPropertiesStrategy, key, builder);
+    }
+
+    private static HystrixThreadPoolProperties getThreadPoolProperties(HystrixPropertiesStrategy hystrixPropertiesStrategy, HystrixThreadPoolKey key, HystrixThreadPoolProperties.Setter builder) {
         String cacheKey = hystrixPropertiesStrategy.getThreadPoolPropertiesCacheKey(key, builder);
         if (cacheKey != null) {
             HystrixThreadPoolProperties properties = threadPoolProperties.get(cacheKey);
@@ -126,6 +162,8 @@ public class HystrixPropertiesFactory {
 
     // String is CollapserKey.name() (we can't use CollapserKey directly as we can't guarantee it implements hashcode/equals correctly)
     private static final ConcurrentHashMap<String, HystrixCollapserProperties> collapserProperties = new ConcurrentHashMap<String, HystrixCollapserProperties>();
+    // indexed by HystrixCollapserKey.Factory.ordinalOf(key), which stands in for the name the default strategy uses as the cache key
+    private static final OrdinalTable<HystrixCollapserProperties> collapserPropertiesByOrdinal = new OrdinalTable<HystrixCollapserProperties>();
 
     /**
      * Get an instance of {@link HystrixCollapserProperties} with the given factory {@link HystrixPropertiesStrategy} implementation for each {@link HystrixCollapserKey} instance.
@@ -138,6 +176,20 @@ public class HystrixPropertiesFactory {
      */
     public static HystrixCollapserProperties getCollapserProperties(HystrixCollapserKey key, HystrixCollapserProperties.Setter builder) {
         HystrixPropertiesStrategy hystrixPropertiesStrategy = HystrixPlugins.getInstance().getPropertiesStrategy();
+        if (hystrixPropertiesStrategy == HystrixPropertiesStrategyDefault.getInstance()) {
+            // the default strategy caches by key name, so the ordinal of the key finds the same instance without hashing the name
+            int ordinal = HystrixCollapserKey.Factory.ordinalOf(key);
+            HystrixCollapserProperties properties = collapserPropertiesByOrdinal.get(ordinal);
+            if (properties == null) {
+                properties = getCollapserProperties(hystrixPropertiesStrategy, key, builder);
+                collapserPropertiesByOrdinal.putIfAbsent(ordinal, properties);
+            }
+            return properties;
+        }
+        return getCollapserProperties(hystrixPropertiesStrategy, key, builder);
+    }
+
+    private static HystrixCollapserProperties getCollapserProperties(HystrixPropertiesStrategy hystrixPropertiesStrategy, HystrixCollapserKey key, HystrixCollapserProperties.Setter builder) {
         String cacheKey = hystrixPropertiesStrategy.getCollapserPropertiesCacheKey(key, builder);
         if (cacheKey != null) {
             HystrixCollapserProperties properties = collapserProperties.get(cacheKey);
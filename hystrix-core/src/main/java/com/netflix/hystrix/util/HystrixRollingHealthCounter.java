@@ -0,0 +1,205 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling count of requests, errors and slow calls over a window broken into buckets, like {@link HystrixRollingNumber}, but optimized for reads instead of writes.
+ * <p>
+ * Running totals over the whole window are kept alongside the buckets.  Each write adds to its bucket and to the totals, and when a bucket falls out
+ * of the window whatever it held is subtracted from the totals as it is cleared for reuse.  So reading the totals is O(1), no matter how many
+ * buckets there are, which lets the health of a circuit be checked on every request instead of on a periodic snapshot.
+ * <p>
+ * Buckets are rolled by whichever read or write first notices the time has moved into a new bucket.
+ *
+ * @ThreadSafe
+ */
+public class HystrixRollingHealthCounter {
+
+    private static final HystrixRollingNumber.Time ACTUAL_TIME = new HystrixRollingNumber.Time() {
+        @Override
+        public long getCurrentTimeInMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final HystrixRollingNumber.Time time;
+    private final int bucketSizeInMilliseconds;
+    private final int numberOfBuckets;
+
+    /* counts per bucket */
+    private static final int WIDTH = 3;
+
+    /* request count of bucket i at [WIDTH * i], error count at [WIDTH * i + 1], slow call count at [WIDTH * i + 2] */
+    private final AtomicLongArray bucketCounts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong slowCallCount = new AtomicLong();
+    /* start time of the newest bucket */
+    private final AtomicLong currentBucketStart;
+
+    public HystrixRollingHealthCounter(int timeInMilliseconds, int numberOfBuckets) {
+        this(ACTUAL_TIME, timeInMilliseconds, numberOfBuckets);
+    }
+
+    /* package for testing */ HystrixRollingHealthCounter(HystrixRollingNumber.Time time, int timeInMilliseconds, int numberOfBuckets) {
+        if (timeInMilliseconds % numberOfBuckets != 0) {
+            throw new IllegalArgumentException("The timeInMilliseconds must divide equally into numberOfBuckets. For example 1000/10 is ok, 1000/11 is not.");
+        }
+        this.time = time;
+        this.numberOfBuckets = numberOfBuckets;
+        this.bucketSizeInMilliseconds = timeInMilliseconds / numberOfBuckets;
+        this.bucketCounts = new AtomicLongArray(WIDTH * numberOfBuckets);
+        this.currentBucketStart = new AtomicLong(bucketStart(time.getCurrentTimeInMillis()));
+    }
+
+    /**
+     * Record requests in the current bucket.
+     *
+     * @param count number of requests
+     * @param errors how many of those requests were errors
+     */
+    public void add(long count, long errors) {
+        add(count, errors, 0);
+    }
+
+    /**
+     * Record requests in the current bucket.
+     *
+     * @param count number of requests
+     * @param errors how many of those requests were errors
+     * @param slowCalls how many of those requests were slow, whether or not they were errors
+     */
+    public void add(long count, long errors, long slowCalls) {
+        long start = roll();
+        int index = bucketIndex(start);
+        bucketCounts.addAndGet(WIDTH * index, count);
+        totalCount.addAndGet(count);
+        if (errors > 0) {
+            bucketCounts.addAndGet(WIDTH * index + 1, errors);
+            errorCount.addAndGet(errors);
+        }
+        if (slowCalls > 0) {
+            bucketCounts.addAndGet(WIDTH * index + 2, slowCalls);
+            slowCallCount.addAndGet(slowCalls);
+        }
+    }
+
+    /**
+     * @return number of requests in the window
+     */
+    public long getTotalRequests() {
+        roll();
+        return totalCount.get();
+    }
+
+    /**
+     * @return number of errors in the window
+     */
+    public long getErrorCount() {
+        roll();
+        return errorCount.get();
+    }
+
+    /**
+     * @return errors as a percentage of requests in the window (as a whole number such as 50), or 0 if there were no requests
+     */
+    public int getErrorPercentage() {
+        roll();
+        long total = totalCount.get();
+        if (total <= 0) {
+            return 0;
+        }
+        return (int) ((double) errorCount.get() / total * 100);
+    }
+
+    /**
+     * @return number of slow calls in the window
+     */
+    public long getSlowCallCount() {
+        roll();
+        return slowCallCount.get();
+    }
+
+    /**
+     * @return slow calls as a percentage of requests in the window (as a whole number such as 50), or 0 if there were no requests
+     */
+    public int getSlowCallPercentage() {
+        roll();
+        long total = totalCount.get();
+        if (total <= 0) {
+            return 0;
+        }
+        return (int) ((double) slowCallCount.get() / total * 100);
+    }
+
+    /**
+     * Clear all buckets, starting the window over from 0.
+     */
+    public void reset() {
+        for (int i = 0; i < numberOfBuckets; i++) {
+            clearBucket(i);
+        }
+    }
+
+    /**
+     * Clear the buckets which have fallen out of the window since it was last rolled.
+     *
+     * @return start time of the current bucket
+     */
+    private long roll() {
+        long start = bucketStart(time.getCurrentTimeInMillis());
+        long current = currentBucketStart.get();
+        while (start > current) {
+            if (currentBucketStart.compareAndSet(current, start)) {
+                // every bucket after the previous newest one, up to and including the new one, last held data a window ago
+                long expired = Math.min(numberOfBuckets, (start - current) / bucketSizeInMilliseconds);
+                for (long i = 0; i < expired; i++) {
+                    clearBucket(bucketIndex(start - i * bucketSizeInMilliseconds));
+                }
+                return start;
+            }
+            current = currentBucketStart.get();
+        }
+        return start;
+    }
+
+    private void clearBucket(int index) {
+        // subtract exactly what was taken out of the bucket so concurrent writes are never lost from the totals
+        long count = bucketCounts.getAndSet(WIDTH * index, 0);
+        if (count != 0) {
+            totalCount.addAndGet(-count);
+        }
+        long errors = bucketCounts.getAndSet(WIDTH * index + 1, 0);
+        if (errors != 0) {
+            errorCount.addAndGet(-errors);
+        }
+        long slowCalls = bucketCounts.getAndSet(WIDTH * index + 2, 0);
+        if (slowCalls != 0) {
+            slowCallCount.addAndGet(-slowCalls);
+        }
+    }
+
+    private long bucketStart(long timeInMillis) {
+        return timeInMillis - timeInMillis % bucketSizeInMilliseconds;
+    }
+
+    private int bucketIndex(long bucketStart) {
+        return (int) ((bucketStart / bucketSizeInMilliseconds) % numberOfBuckets);
+    }
+}
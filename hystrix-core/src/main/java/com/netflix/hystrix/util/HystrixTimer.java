@@ -17,6 +17,8 @@ package com.netflix.hystrix.util;
 
 import com.netflix.hystrix.HystrixCollapser;
 import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixTimerThreadPoolProperties;
+import com.netflix.hystrix.HystrixTimerThreadPoolProperties.TimerImplementation;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 import org.slf4j.Logger;
@@ -24,15 +26,27 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Timer used by {@link HystrixCommand} to timeout async executions and {@link HystrixCollapser} to trigger batch executions.
+ * <p>
+ * Listeners are scheduled on a {@link ScheduledThreadPoolExecutor} or on a {@link HystrixTimingWheel}, depending on
+ * {@link HystrixTimerThreadPoolProperties#getImplementation()}.
+ * <p>
+ * Work triggered by a tick that may take a while, such as the fallback of a timed-out command, is handed to a separate bounded pool via
+ * {@link #execute(Runnable)} so that it doesn't delay the ticks of other listeners.  How late listeners tick is tracked by
+ * {@link #getRollingMaxTickLagInMilliseconds()}.
  */
 public class HystrixTimer {
 
@@ -40,6 +54,8 @@ public class HystrixTimer {
 
     private static HystrixTimer INSTANCE = new HystrixTimer();
 
+    private final HystrixRollingNumber tickLag = new HystrixRollingNumber(10000, 10);
+
     private HystrixTimer() {
         // private to prevent public instantiation
     }
@@ -62,6 +78,13 @@ public class HystrixTimer {
         if (ex != null && ex.getThreadPool() != null) {
             ex.getThreadPool().shutdownNow();
         }
+        if (ex != null && ex.getTimingWheel() != null) {
+            ex.getTimingWheel().shutdown();
+        }
+        if (ex != null && ex.getFallbackThreadPool() != null) {
+            // let work already handed off finish, as a timed-out command is waiting on it
+            ex.getFallbackThreadPool().shutdown();
+        }
     }
 
     /* package */ AtomicReference<ScheduledExecutor> executor = new AtomicReference<ScheduledExecutor>();
@@ -91,10 +114,21 @@ public class HystrixTimer {
         startThreadIfNeeded();
         // add the listener
 
+        HystrixTimingWheel timingWheel = executor.get().getTimingWheel();
+        if (timingWheel != null) {
+            return timingWheel.schedule(listener);
+        }
+
+        final long intervalInNanos = TimeUnit.MILLISECONDS.toNanos(listener.getIntervalTimeInMilliseconds());
         Runnable r = new Runnable() {
 
+            /* only accessed by the thread ticking the listener */
+            private long nextTickTime = System.nanoTime() + intervalInNanos;
+
             @Override
             public void run() {
+                markTickLag(System.nanoTime() - nextTickTime);
+                nextTickTime += intervalInNanos;
                 try {
                     listener.tick();
                 } catch (Exception e) {
@@ -107,6 +141,42 @@ public class HystrixTimer {
         return new TimerReference(listener, f);
     }
 
+    /**
+     * Run work triggered by a {@link TimerListener#tick()} on the fallback threads of the timer, sized by
+     * {@link HystrixTimerThreadPoolProperties#getFallbackCoreSize()}.
+     * <p>
+     * If there are no fallback threads, or they are saturated, the work is run on the calling thread instead.
+     *
+     * @param work
+     *            work which may block, such as executing a fallback
+     */
+    public void execute(Runnable work) {
+        ScheduledExecutor ex = executor.get();
+        ThreadPoolExecutor fallbackThreadPool = ex == null ? null : ex.getFallbackThreadPool();
+        if (fallbackThreadPool != null) {
+            try {
+                fallbackThreadPool.execute(work);
+                return;
+            } catch (RejectedExecutionException e) {
+                logger.debug("Fallback threads of HystrixTimer are saturated, running on the timer thread instead");
+            }
+        }
+        work.run();
+    }
+
+    /**
+     * How late listeners have ticked over the last 10 seconds.  A high value means the timer threads are held up, so timeouts are firing late.
+     *
+     * @return maximum time between when a listener was due to tick and when it ticked, in milliseconds
+     */
+    public long getRollingMaxTickLagInMilliseconds() {
+        return tickLag.getRollingMaxValue(HystrixRollingNumberEvent.TIMER_TICK_LAG_MAX);
+    }
+
+    /* package */ void markTickLag(long lagInNanos) {
+        tickLag.updateRollingMax(HystrixRollingNumberEvent.TIMER_TICK_LAG_MAX, TimeUnit.NANOSECONDS.toMillis(Math.max(0, lagInNanos)));
+    }
+
     private static class TimerReference extends SoftReference<TimerListener> {
 
         private final ScheduledFuture<?> f;
@@ -142,6 +212,8 @@ public class HystrixTimer {
 
     /* package */ static class ScheduledExecutor {
         /* package */ volatile ScheduledThreadPoolExecutor executor;
+        /* package */ volatile HystrixTimingWheel timingWheel;
+        /* package */ volatile ThreadPoolExecutor fallbackExecutor;
         private volatile boolean initialized;
 
         /**
@@ -150,33 +222,64 @@ public class HystrixTimer {
         public void initialize() {
 
             HystrixPropertiesStrategy propertiesStrategy = HystrixPlugins.getInstance().getPropertiesStrategy();
-            int coreSize = propertiesStrategy.getTimerThreadPoolProperties().getCorePoolSize().get();
+            HystrixTimerThreadPoolProperties properties = propertiesStrategy.getTimerThreadPoolProperties();
+            int coreSize = properties.getCorePoolSize().get();
+            ThreadFactory threadFactory = getThreadFactory("HystrixTimer-");
 
-            ThreadFactory threadFactory = null;
-            if (!PlatformSpecific.isAppEngineStandardEnvironment()) {
-                threadFactory = new ThreadFactory() {
-                    final AtomicInteger counter = new AtomicInteger();
-
-                    @Override
-                    public Thread newThread(Runnable r) {
-                        Thread thread = new Thread(r, "HystrixTimer-" + counter.incrementAndGet());
-                        thread.setDaemon(true);
-                        return thread;
-                    }
-
-                };
+            if (properties.getImplementation().get() == TimerImplementation.TIMING_WHEEL) {
+                timingWheel = new HystrixTimingWheel(properties.getTimingWheelTickDurationInMilliseconds().get(),
+                        properties.getTimingWheelTicksPerWheel().get(), coreSize, threadFactory);
             } else {
-                threadFactory = PlatformSpecific.getAppEngineThreadFactory();
+                executor = new ScheduledThreadPoolExecutor(coreSize, threadFactory);
             }
 
-            executor = new ScheduledThreadPoolExecutor(coreSize, threadFactory);
+            int fallbackCoreSize = properties.getFallbackCoreSize().get();
+            if (fallbackCoreSize > 0) {
+                int maxQueueSize = properties.getFallbackMaxQueueSize().get();
+                BlockingQueue<Runnable> queue = maxQueueSize > 0 ? new LinkedBlockingQueue<Runnable>(maxQueueSize) : new SynchronousQueue<Runnable>();
+                fallbackExecutor = new ThreadPoolExecutor(fallbackCoreSize, fallbackCoreSize, 0L, TimeUnit.MILLISECONDS, queue, getThreadFactory("HystrixTimer-Fallback-"));
+            }
             initialized = true;
         }
 
+        private static ThreadFactory getThreadFactory(final String namePrefix) {
+            if (PlatformSpecific.isAppEngineStandardEnvironment()) {
+                return PlatformSpecific.getAppEngineThreadFactory();
+            }
+            return new ThreadFactory() {
+                final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, namePrefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+
+            };
+        }
+
+        /**
+         * @return the executor listeners are scheduled on, or null when using {@link TimerImplementation#TIMING_WHEEL}
+         */
         public ScheduledThreadPoolExecutor getThreadPool() {
             return executor;
         }
 
+        /**
+         * @return the wheel listeners are scheduled on, or null when using {@link TimerImplementation#SCHEDULED_EXECUTOR}
+         */
+        /* package */ HystrixTimingWheel getTimingWheel() {
+            return timingWheel;
+        }
+
+        /**
+         * @return the executor {@link HystrixTimer#execute(Runnable)} hands work to, or null if it runs work on the calling thread
+         */
+        /* package */ ThreadPoolExecutor getFallbackThreadPool() {
+            return fallbackExecutor;
+        }
+
         public boolean isInitialized() {
             return initialized;
         }
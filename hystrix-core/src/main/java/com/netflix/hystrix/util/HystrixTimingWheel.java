@@ -0,0 +1,256 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.util;
+
+import com.netflix.hystrix.HystrixTimerThreadPoolProperties.TimerImplementation;
+import com.netflix.hystrix.util.HystrixTimer.TimerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hashed timing wheel backing {@link HystrixTimer} when configured with {@link TimerImplementation#TIMING_WHEEL}.
+ * <p>
+ * Scheduling pushes the listener onto a lock-free stack, and cancelling sets a flag on it, so both are O(1) no matter how many
+ * listeners are outstanding.  A single wheel thread drains the stack into the bucket each deadline hashes to, and every tick
+ * walks one bucket, dropping cancelled listeners and handing expired ones to the tick threads.  Buckets are only touched by
+ * the wheel thread, so they need no synchronization.
+ * <p>
+ * Listeners fire at the end of the tick their deadline falls in, so they may fire up to one tick late (never early).  Like
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor#scheduleAtFixedRate}, a listener that is still scheduled after
+ * ticking is put back on the wheel one interval after its previous deadline.
+ */
+/* package */ class HystrixTimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HystrixTimingWheel.class);
+
+    private final long tickDurationInNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final long startTime;
+
+    private final AtomicReference<Timeout> pending = new AtomicReference<Timeout>();
+    private final ThreadPoolExecutor tickExecutor;
+    private final Thread wheelThread;
+    private volatile boolean shutdown = false;
+
+    /* only accessed by the wheel thread */
+    private long currentTick = 0;
+
+    /* package */ HystrixTimingWheel(int tickDurationInMilliseconds, int ticksPerWheel, int tickThreads, ThreadFactory threadFactory) {
+        if (tickDurationInMilliseconds <= 0) {
+            throw new IllegalArgumentException("tickDurationInMilliseconds must be greater than 0 : " + tickDurationInMilliseconds);
+        }
+        if (ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("ticksPerWheel must be greater than 0 : " + ticksPerWheel);
+        }
+        this.tickDurationInNanos = TimeUnit.MILLISECONDS.toNanos(tickDurationInMilliseconds);
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.tickExecutor = new ThreadPoolExecutor(tickThreads, tickThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        this.startTime = System.nanoTime();
+        this.wheelThread = threadFactory.newThread(new Runnable() {
+
+            @Override
+            public void run() {
+                runWheel();
+            }
+
+        });
+        this.wheelThread.start();
+    }
+
+    /**
+     * Schedule a listener to tick every {@link TimerListener#getIntervalTimeInMilliseconds()} until the returned reference is cleared.
+     */
+    /* package */ Timeout schedule(TimerListener listener) {
+        long intervalInNanos = TimeUnit.MILLISECONDS.toNanos(listener.getIntervalTimeInMilliseconds());
+        Timeout timeout = new Timeout(this, listener, intervalInNanos, System.nanoTime() - startTime + intervalInNanos);
+        push(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stop the wheel.  Listeners which have not yet ticked are dropped.
+     */
+    /* package */ void shutdown() {
+        shutdown = true;
+        wheelThread.interrupt();
+        tickExecutor.shutdownNow();
+    }
+
+    /* package */ boolean isShutdown() {
+        return shutdown;
+    }
+
+    /* package */ int getBucketCount() {
+        return buckets.length;
+    }
+
+    private void push(Timeout timeout) {
+        Timeout head;
+        do {
+            head = pending.get();
+            timeout.nextPending = head;
+        } while (!pending.compareAndSet(head, timeout));
+    }
+
+    private void runWheel() {
+        while (!shutdown) {
+            long tickDeadline = waitForNextTick();
+            if (tickDeadline < 0) {
+                break;
+            }
+            transferPending();
+            expire((int) (currentTick & mask), tickDeadline);
+            currentTick++;
+        }
+    }
+
+    /**
+     * Sleep until the end of the current tick.
+     *
+     * @return time since start at the end of the tick, or -1 if shutdown while waiting
+     */
+    private long waitForNextTick() {
+        long tickDeadline = tickDurationInNanos * (currentTick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            long sleepTimeInMilliseconds = (tickDeadline - now + 999999) / 1000000;
+            if (sleepTimeInMilliseconds <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepTimeInMilliseconds);
+            } catch (InterruptedException e) {
+                if (shutdown) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout = pending.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (!timeout.cancelled) {
+                long deadlineTick = timeout.deadline / tickDurationInNanos;
+                timeout.remainingRounds = (deadlineTick - currentTick) >> Integer.numberOfTrailingZeros(buckets.length);
+                // a deadline that has already passed goes in the current bucket, to be fired straight away
+                int index = (int) (Math.max(deadlineTick, currentTick) & mask);
+                timeout.next = buckets[index];
+                buckets[index] = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    private void expire(int index, long tickDeadline) {
+        Timeout previous = null;
+        Timeout timeout = buckets[index];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean remove = false;
+            if (timeout.cancelled) {
+                remove = true;
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                remove = true;
+                try {
+                    tickExecutor.execute(timeout);
+                } catch (RejectedExecutionException e) {
+                    // shutting down
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+
+            if (remove) {
+                timeout.next = null;
+                if (previous == null) {
+                    buckets[index] = next;
+                } else {
+                    previous.next = next;
+                }
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * A scheduled listener.  Clearing the reference cancels it.
+     */
+    /* package */ static class Timeout extends SoftReference<TimerListener> implements Runnable {
+        private final HystrixTimingWheel wheel;
+        private final long intervalInNanos;
+        private volatile boolean cancelled = false;
+
+        /* only accessed by the wheel thread, or the tick thread running this timeout */
+        private long deadline;
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout nextPending;
+
+        Timeout(HystrixTimingWheel wheel, TimerListener referent, long intervalInNanos, long deadline) {
+            super(referent);
+            this.wheel = wheel;
+            this.intervalInNanos = intervalInNanos;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            TimerListener listener = get();
+            if (cancelled || listener == null) {
+                return;
+            }
+            HystrixTimer.getInstance().markTickLag(System.nanoTime() - wheel.startTime - deadline);
+            try {
+                listener.tick();
+            } catch (Exception e) {
+                logger.error("Failed while ticking TimerListener", e);
+            }
+            if (!cancelled && !wheel.shutdown) {
+                deadline += intervalInNanos;
+                wheel.push(this);
+            }
+        }
+
+        @Override
+        public void clear() {
+            cancelled = true;
+            super.clear();
+        }
+
+        /* package */ boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
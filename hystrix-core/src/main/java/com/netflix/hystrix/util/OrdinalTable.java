@@ -0,0 +1,117 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-key state indexed by the dense ordinal interned keys are given, such as {@link com.netflix.hystrix.HystrixCommandKey.Factory#ordinalOf}.
+ * <p>
+ * Looking up state is a single array load, rather than hashing the key's name into a {@link java.util.concurrent.ConcurrentHashMap}.  Writes are
+ * serialized and grow the array by copying it, which is cheap since keys are few and are only added the first time each is used.
+ *
+ * @ThreadSafe
+ */
+public class OrdinalTable<V> {
+
+    private volatile AtomicReferenceArray<V> values = new AtomicReferenceArray<V>(16);
+
+    /**
+     * @param ordinal ordinal of the key
+     * @return value for the key, or null if there is none
+     */
+    public V get(int ordinal) {
+        AtomicReferenceArray<V> current = values;
+        return ordinal < current.length() ? current.get(ordinal) : null;
+    }
+
+    /**
+     * Store a value for the key unless it already has one.
+     *
+     * @param ordinal ordinal of the key
+     * @param value value to store
+     * @return value already stored for the key, or null if the given value was stored
+     */
+    public synchronized V putIfAbsent(int ordinal, V value) {
+        ensureCapacity(ordinal);
+        V existing = values.get(ordinal);
+        if (existing == null) {
+            values.set(ordinal, value);
+        }
+        return existing;
+    }
+
+    /**
+     * Remove the value for the key if it is the given one.
+     *
+     * @param ordinal ordinal of the key
+     * @param value value expected to be stored
+     * @return true if the value was removed
+     */
+    public synchronized boolean remove(int ordinal, V value) {
+        return ordinal < values.length() && values.compareAndSet(ordinal, value, null);
+    }
+
+    /**
+     * @return values stored, in ordinal order
+     */
+    public List<V> values() {
+        AtomicReferenceArray<V> current = values;
+        List<V> list = new ArrayList<V>();
+        for (int i = 0; i < current.length(); i++) {
+            V value = current.get(i);
+            if (value != null) {
+                list.add(value);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return number of values stored
+     */
+    public int size() {
+        return values().size();
+    }
+
+    /**
+     * Remove all values.
+     */
+    public synchronized void clear() {
+        values = new AtomicReferenceArray<V>(values.length());
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("ordinal must be >= 0, was " + ordinal);
+        }
+        AtomicReferenceArray<V> current = values;
+        if (ordinal >= current.length()) {
+            int length = current.length();
+            while (ordinal >= length) {
+                length <<= 1;
+            }
+            AtomicReferenceArray<V> grown = new AtomicReferenceArray<V>(length);
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            values = grown;
+        }
+    }
+}
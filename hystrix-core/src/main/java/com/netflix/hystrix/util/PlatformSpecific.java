@@ -20,6 +20,7 @@ import java.util.concurrent.ThreadFactory;
 
 public class PlatformSpecific {
     private final Platform platform;
+    private final boolean virtualThreadsSupported;
 
     private enum Platform {
         STANDARD, APPENGINE_STANDARD, APPENGINE_FLEXIBLE
@@ -29,6 +30,7 @@ public class PlatformSpecific {
 
     private PlatformSpecific() {
         platform = determinePlatformReflectively();
+        virtualThreadsSupported = determineVirtualThreadSupportReflectively();
     }
 
     public static boolean isAppEngineStandardEnvironment() {
@@ -39,6 +41,15 @@ public class PlatformSpecific {
         return INSTANCE.platform == Platform.APPENGINE_FLEXIBLE || INSTANCE.platform == Platform.APPENGINE_STANDARD;
     }
 
+    /**
+     * Whether this JVM can create virtual threads (JDK 21+, or earlier JDKs with preview features enabled).
+     *
+     * @return true if {@link #getVirtualThreadFactory(String)} can be used
+     */
+    public static boolean isVirtualThreadSupported() {
+        return INSTANCE.virtualThreadsSupported;
+    }
+
     /*
      * This detection mechanism is from Guava - specifically
      * http://docs.guava-libraries.googlecode.com/git/javadoc/src-html/com/google/common/util/concurrent/MoreExecutors.html#line.766
@@ -73,6 +84,49 @@ public class PlatformSpecific {
         }
     }
 
+    /*
+     * Thread.ofVirtual() only exists from JDK 19, and throws if it is still a preview feature that hasn't been enabled
+     */
+    private static boolean determineVirtualThreadSupportReflectively() {
+        try {
+            Thread.class.getMethod("ofVirtual").invoke(null);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Factory of virtual threads whose names are the given prefix followed by a counter starting at 1.
+     *
+     * @param namePrefix prefix of thread names
+     * @return ThreadFactory of virtual threads
+     * @throws UnsupportedOperationException if {@link #isVirtualThreadSupported()} is false
+     */
+    public static ThreadFactory getVirtualThreadFactory(String namePrefix) {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Couldn't invoke Thread.ofVirtual", e);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Couldn't invoke Thread.ofVirtual", e);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Couldn't invoke Thread.ofVirtual", e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     public static ThreadFactory getAppEngineThreadFactory() {
         try {
             return (ThreadFactory) Class.forName("com.google.appengine.api.ThreadManager")
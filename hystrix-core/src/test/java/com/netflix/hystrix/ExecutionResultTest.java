@@ -0,0 +1,98 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutionResultTest {
+
+    @Test
+    public void testEventCountsFromEventTypes() {
+        ExecutionResult.EventCounts eventCounts = ExecutionResult.from(HystrixEventType.EMIT, HystrixEventType.EMIT,
+                HystrixEventType.SUCCESS, HystrixEventType.COLLAPSED).getEventCounts();
+        assertTrue(eventCounts.contains(HystrixEventType.SUCCESS));
+        assertTrue(eventCounts.contains(HystrixEventType.EMIT));
+        assertFalse(eventCounts.contains(HystrixEventType.FAILURE));
+        assertEquals(2, eventCounts.getCount(HystrixEventType.EMIT));
+        assertEquals(1, eventCounts.getCount(HystrixEventType.COLLAPSED));
+        assertEquals(1, eventCounts.getCount(HystrixEventType.SUCCESS));
+        assertEquals(0, eventCounts.getCount(HystrixEventType.FALLBACK_EMIT));
+        assertEquals(0, eventCounts.getCount(HystrixEventType.EXCEPTION_THROWN));
+    }
+
+    @Test
+    public void testExceptionThrownCountedFromExceptionProducingEvents() {
+        ExecutionResult result = ExecutionResult.from(HystrixEventType.TIMEOUT).addEvent(HystrixEventType.FALLBACK_MISSING);
+        assertEquals(1, result.getEventCounts().getCount(HystrixEventType.EXCEPTION_THROWN));
+        assertTrue(result.containsTerminalEvent());
+        assertEquals(0, ExecutionResult.from(HystrixEventType.TIMEOUT).getEventCounts().getCount(HystrixEventType.EXCEPTION_THROWN));
+        assertFalse(ExecutionResult.from(HystrixEventType.TIMEOUT).containsTerminalEvent());
+    }
+
+    @Test
+    public void testAddEventEqualsFromEventTypes() {
+        ExecutionResult added = ExecutionResult.from()
+                .addEvent(HystrixEventType.FALLBACK_EMIT)
+                .addEvent(HystrixEventType.FAILURE)
+                .addEvent(HystrixEventType.FALLBACK_EMIT)
+                .addEvent(HystrixEventType.FALLBACK_SUCCESS);
+        ExecutionResult from = ExecutionResult.from(HystrixEventType.FAILURE, HystrixEventType.FALLBACK_EMIT,
+                HystrixEventType.FALLBACK_EMIT, HystrixEventType.FALLBACK_SUCCESS);
+        assertEquals(from.getEventCounts(), added.getEventCounts());
+        assertEquals(from.getEventCounts().hashCode(), added.getEventCounts().hashCode());
+        assertEquals(2, added.getEventCounts().getCount(HystrixEventType.FALLBACK_EMIT));
+        assertEquals(from.getOrderedList(), added.getOrderedList());
+    }
+
+    @Test
+    public void testContainsAnyOfBitSet() {
+        ExecutionResult.EventCounts eventCounts = ExecutionResult.from(HystrixEventType.SHORT_CIRCUITED).getEventCounts();
+        BitSet rejections = new BitSet();
+        rejections.set(HystrixEventType.THREAD_POOL_REJECTED.ordinal());
+        rejections.set(HystrixEventType.SEMAPHORE_REJECTED.ordinal());
+        assertFalse(eventCounts.containsAnyOf(rejections));
+        rejections.set(HystrixEventType.SHORT_CIRCUITED.ordinal());
+        assertTrue(eventCounts.containsAnyOf(rejections));
+        assertFalse(eventCounts.containsAnyOf(new BitSet()));
+    }
+
+    @Test
+    public void testRepeatedTransitionsDoNotCopy() {
+        ExecutionResult success = ExecutionResult.from().setExecutedInThread().setExecutionOccurred().addEvent(HystrixEventType.SUCCESS);
+        assertSame(success, success.setExecutedInThread());
+        assertSame(success, success.setExecutionOccurred());
+        assertSame(success, success.addEvent(HystrixEventType.SUCCESS));
+        assertNotSame(success, success.addEvent(HystrixEventType.EMIT));
+        assertNotSame(success, success.setNotExecutedInThread());
+        assertFalse(success.setNotExecutedInThread().isExecutedInThread());
+    }
+
+    @Test
+    public void testSingleEventCountsShared() {
+        ExecutionResult.EventCounts first = ExecutionResult.from().addEvent(HystrixEventType.SUCCESS).getEventCounts();
+        ExecutionResult.EventCounts second = ExecutionResult.from().addEvent(HystrixEventType.SUCCESS).getEventCounts();
+        assertSame(first, second);
+        assertEquals(ExecutionResult.from(HystrixEventType.SUCCESS).getEventCounts(), first);
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.AbstractCommand.TryableSemaphore;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.metric.HystrixPartitionRejectionStream;
+import com.netflix.hystrix.metric.consumer.RollingPartitionRejectionCounterStream;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCommandDefault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixBulkheadPartitionsTest {
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        HystrixPartitionRejectionStream.reset();
+        RollingPartitionRejectionCounterStream.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        RollingPartitionRejectionCounterStream.reset();
+        HystrixPartitionRejectionStream.reset();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testPartitionLimit() {
+        HystrixBulkheadPartitions partitions = new HystrixBulkheadPartitions(properties("PartitionLimit", 2, 10));
+        TryableSemaphore a1 = partitions.getExecutionSemaphore("a");
+        TryableSemaphore a2 = partitions.getExecutionSemaphore("a");
+        TryableSemaphore a3 = partitions.getExecutionSemaphore("a");
+        TryableSemaphore b1 = partitions.getExecutionSemaphore("b");
+
+        assertTrue(a1.tryAcquire());
+        assertTrue(a2.tryAcquire());
+        assertFalse(a3.tryAcquire());
+        assertTrue(b1.tryAcquire());
+        assertEquals(2, partitions.getNumberOfPermitsUsed("a"));
+
+        a1.release();
+        // releasing twice returns a single permit
+        a1.release();
+        assertEquals(1, partitions.getNumberOfPermitsUsed("a"));
+        assertTrue(a3.tryAcquire());
+    }
+
+    @Test
+    public void testIdlePartitionsAreEvicted() {
+        HystrixBulkheadPartitions partitions = new HystrixBulkheadPartitions(properties("IdlePartitionsAreEvicted", 1, 2));
+        TryableSemaphore a = partitions.getExecutionSemaphore("a");
+        assertTrue(a.tryAcquire());
+        TryableSemaphore b = partitions.getExecutionSemaphore("b");
+        assertTrue(b.tryAcquire());
+        b.release();
+
+        // b is the only idle partition, so it makes room for c even though a was used less recently
+        assertTrue(partitions.getExecutionSemaphore("c").tryAcquire());
+        assertEquals(2, partitions.getNumberOfPartitions());
+        assertEquals(1, partitions.getNumberOfPermitsUsed("a"));
+        assertEquals(0, partitions.getNumberOfPermitsUsed("b"));
+
+        // with no idle partition to evict, busy ones are kept over the limit
+        assertTrue(partitions.getExecutionSemaphore("d").tryAcquire());
+        assertEquals(3, partitions.getNumberOfPartitions());
+        assertFalse(partitions.getExecutionSemaphore("a").tryAcquire());
+
+        a.release();
+        // a permit taken before its partition was evicted is returned to that partition, not a new one
+        assertTrue(partitions.getExecutionSemaphore("e").tryAcquire());
+        assertEquals(3, partitions.getNumberOfPartitions());
+        assertEquals(0, partitions.getNumberOfPermitsUsed("a"));
+    }
+
+    @Test
+    public void testNoisyPartitionIsRejectedWithSemaphoreIsolation() throws Exception {
+        String name = "NoisyPartitionSemaphore";
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> noisy = startBlocked(name, ExecutionIsolationStrategy.SEMAPHORE, "noisy", 2, release);
+
+        PartitionCommand rejected = new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, "noisy", null);
+        assertEquals(Integer.valueOf(-1), rejected.execute());
+        assertTrue(rejected.isResponseSemaphoreRejected());
+
+        PartitionCommand quiet = new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, "quiet", null);
+        assertEquals(Integer.valueOf(1), quiet.execute());
+        PartitionCommand unpartitioned = new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, null, null);
+        assertEquals(Integer.valueOf(1), unpartitioned.execute());
+
+        release.countDown();
+        for (Future<Integer> f : noisy) {
+            assertEquals(Integer.valueOf(1), f.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(Integer.valueOf(1), new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, "noisy", null).execute());
+    }
+
+    @Test
+    public void testNoisyPartitionIsRejectedWithThreadIsolation() throws Exception {
+        String name = "NoisyPartitionThread";
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> noisy = startBlocked(name, ExecutionIsolationStrategy.THREAD, "noisy", 2, release);
+
+        PartitionCommand rejected = new PartitionCommand(name, ExecutionIsolationStrategy.THREAD, "noisy", null);
+        assertEquals(Integer.valueOf(-1), rejected.execute());
+        // turned away by its partition, not by the thread-pool the partitions share
+        assertTrue(rejected.isResponseSemaphoreRejected());
+        assertFalse(rejected.isResponseThreadPoolRejected());
+
+        PartitionCommand quiet = new PartitionCommand(name, ExecutionIsolationStrategy.THREAD, "quiet", null);
+        assertEquals(Integer.valueOf(1), quiet.execute());
+
+        release.countDown();
+        for (Future<Integer> f : noisy) {
+            assertEquals(Integer.valueOf(1), f.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testRejectionsAreCountedByPartition() throws Exception {
+        String name = "RejectionsAreCounted";
+        RollingPartitionRejectionCounterStream stream = RollingPartitionRejectionCounterStream.getInstance(HystrixCommandKey.Factory.asKey(name), 10, 100);
+        stream.startCachingStreamValuesIfUnstarted();
+
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> noisy = startBlocked(name, ExecutionIsolationStrategy.SEMAPHORE, "noisy", 2, release);
+        for (int i = 0; i < 3; i++) {
+            new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, "noisy", null).execute();
+        }
+        new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, "quiet", null).execute();
+        release.countDown();
+        for (Future<Integer> f : noisy) {
+            f.get(1, TimeUnit.SECONDS);
+        }
+
+        Thread.sleep(250);
+        assertEquals(3, stream.getLatest("noisy"));
+        assertEquals(0, stream.getLatest("quiet"));
+    }
+
+    @Test
+    public void testDisabledIgnoresPartitionKey() {
+        String name = "PartitionsDisabled";
+        for (int i = 0; i < 3; i++) {
+            PartitionCommand command = new PartitionCommand(name, ExecutionIsolationStrategy.SEMAPHORE, "noisy", null, false);
+            assertEquals(Integer.valueOf(1), command.execute());
+        }
+    }
+
+    /**
+     * Start executions of a partition that stay in run() until released, returning once they are all running.
+     */
+    private static List<Future<Integer>> startBlocked(String name, ExecutionIsolationStrategy isolationStrategy, String partitionKey, int count,
+                                                      CountDownLatch release) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(count);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < count; i++) {
+            PartitionCommand command = new PartitionCommand(name, isolationStrategy, partitionKey, release);
+            command.running = running;
+            // a semaphore-isolated command runs on the subscribing thread
+            futures.add(command.toObservable().subscribeOn(Schedulers.newThread()).toBlocking().toFuture());
+        }
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        return futures;
+    }
+
+    private static HystrixCommandProperties properties(String name, int maxConcurrentRequests, int maxPartitions) {
+        return new HystrixPropertiesCommandDefault(HystrixCommandKey.Factory.asKey(name), HystrixCommandProperties.Setter()
+                .withExecutionPartitionEnabled(true)
+                .withExecutionPartitionMaxConcurrentRequests(maxConcurrentRequests)
+                .withExecutionPartitionMaxPartitions(maxPartitions));
+    }
+
+    private static class PartitionCommand extends HystrixCommand<Integer> {
+        private final String partitionKey;
+        private final CountDownLatch release;
+        private volatile CountDownLatch running = null;
+
+        PartitionCommand(String name, ExecutionIsolationStrategy isolationStrategy, String partitionKey, CountDownLatch release) {
+            this(name, isolationStrategy, partitionKey, release, true);
+        }
+
+        /**
+         * @param release latch to wait for before returning, or null to return straight away
+         */
+        PartitionCommand(String name, ExecutionIsolationStrategy isolationStrategy, String partitionKey, CountDownLatch release, boolean partitionEnabled) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Partition"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(isolationStrategy)
+                            .withExecutionIsolationSemaphoreMaxConcurrentRequests(10)
+                            .withExecutionTimeoutEnabled(false)
+                            .withExecutionPartitionEnabled(partitionEnabled)
+                            .withExecutionPartitionMaxConcurrentRequests(2)
+                            .withCircuitBreakerEnabled(false))
+                    .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter().withCoreSize(10)));
+            this.partitionKey = partitionKey;
+            this.release = release;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            if (running != null) {
+                running.countDown();
+            }
+            if (release != null) {
+                release.await();
+            }
+            return 1;
+        }
+
+        @Override
+        protected Integer getFallback() {
+            return -1;
+        }
+
+        @Override
+        protected String getPartitionKey() {
+            return partitionKey;
+        }
+    }
+}
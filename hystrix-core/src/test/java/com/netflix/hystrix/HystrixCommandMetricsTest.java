@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import com.hystrix.junit.HystrixRequestContextRule;
+import com.netflix.config.ConfigurationManager;
 import com.netflix.hystrix.exception.HystrixBadRequestException;
 import org.junit.Before;
 import org.junit.Rule;
@@ -140,6 +141,30 @@ public class HystrixCommandMetricsTest {
         }
     }
 
+    @Test
+    public void testGetErrorPercentageWithDirectEventDispatch() {
+        ConfigurationManager.getConfigInstance().setProperty("hystrix.metrics.directEventDispatch.enabled", true);
+        String key = "cmd-metrics-direct";
+        try {
+            HystrixCommand<Boolean> cmd1 = new SuccessCommand(key, 1);
+            HystrixCommandMetrics metrics = cmd1.metrics;
+            cmd1.execute();
+            Thread.sleep(100);
+            assertEquals(0, metrics.getHealthCounts().getErrorPercentage());
+
+            HystrixCommand<Boolean> cmd2 = new FailureCommand(key, 1);
+            cmd2.execute();
+            Thread.sleep(100);
+            assertEquals(50, metrics.getHealthCounts().getErrorPercentage());
+            assertEquals(0, metrics.getCurrentConcurrentExecutionCount());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Error occurred: " + e.getMessage());
+        } finally {
+            ConfigurationManager.getConfigInstance().clearProperty("hystrix.metrics.directEventDispatch.enabled");
+        }
+    }
+
     @Test
     public void testCurrentConcurrentExecutionCount() throws InterruptedException {
         String key = "cmd-metrics-C";
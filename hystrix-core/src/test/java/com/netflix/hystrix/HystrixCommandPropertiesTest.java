@@ -16,11 +16,14 @@
 package com.netflix.hystrix;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import org.junit.After;
 import org.junit.Test;
 
 import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.HystrixCommandProperties.CircuitBreakerImplementation;
 import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
 import com.netflix.hystrix.HystrixCommandProperties.Setter;
 import com.netflix.hystrix.strategy.properties.HystrixProperty;
@@ -97,6 +100,11 @@ public class HystrixCommandPropertiesTest {
                 return HystrixProperty.Factory.asProperty(builder.getCircuitBreakerSleepWindowInMilliseconds());
             }
 
+            @Override
+            public HystrixProperty<CircuitBreakerImplementation> circuitBreakerImplementation() {
+                return HystrixProperty.Factory.asProperty(builder.getCircuitBreakerImplementation());
+            }
+
             @Override
             public HystrixProperty<Integer> executionIsolationSemaphoreMaxConcurrentRequests() {
                 return HystrixProperty.Factory.asProperty(builder.getExecutionIsolationSemaphoreMaxConcurrentRequests());
@@ -356,4 +364,50 @@ public class HystrixCommandPropertiesTest {
         ConfigurationManager.getConfigInstance().clearProperty("unitTestPrefix.command.TEST.threadPoolKeyOverride");
     }
 
+    @Test
+    public void testSnapshotFollowsGlobalDynamicOverride() throws Exception {
+        HystrixCommandProperties properties = new TestPropertiesCommand(TestKey.TEST, new HystrixCommandProperties.Setter(), "unitTestPrefix");
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+        assertEquals(false, snapshot.circuitBreakerForceClosed());
+        // nothing changed so the same snapshot is used
+        assertSame(snapshot, properties.snapshot());
+
+        ConfigurationManager.getConfigInstance().setProperty("unitTestPrefix.command.default.circuitBreaker.forceClosed", true);
+        assertEquals(true, properties.snapshot().circuitBreakerForceClosed());
+
+        ConfigurationManager.getConfigInstance().setProperty("unitTestPrefix.command.TEST.circuitBreaker.forceClosed", false);
+        assertEquals(false, properties.snapshot().circuitBreakerForceClosed());
+
+        ConfigurationManager.getConfigInstance().clearProperty("unitTestPrefix.command.TEST.circuitBreaker.forceClosed");
+        assertEquals(true, properties.snapshot().circuitBreakerForceClosed());
+
+        // cleanup
+        ConfigurationManager.getConfigInstance().clearProperty("unitTestPrefix.command.default.circuitBreaker.forceClosed");
+        assertEquals(false, properties.snapshot().circuitBreakerForceClosed());
+    }
+
+    @Test
+    public void testSnapshotFollowsEnumGlobalDynamicOverride() throws Exception {
+        HystrixCommandProperties properties = new TestPropertiesCommand(TestKey.TEST, new HystrixCommandProperties.Setter(), "unitTestPrefix");
+        assertEquals(ExecutionIsolationStrategy.THREAD, properties.snapshot().executionIsolationStrategy());
+
+        ConfigurationManager.getConfigInstance().setProperty("unitTestPrefix.command.default.execution.isolation.strategy", "SEMAPHORE");
+        assertEquals(ExecutionIsolationStrategy.SEMAPHORE, properties.executionIsolationStrategy().get());
+        assertEquals(ExecutionIsolationStrategy.SEMAPHORE, properties.snapshot().executionIsolationStrategy());
+
+        // cleanup
+        ConfigurationManager.getConfigInstance().clearProperty("unitTestPrefix.command.default.execution.isolation.strategy");
+    }
+
+    @Test
+    public void testSnapshotOfStaticPropertiesIsNotCached() {
+        HystrixCommandProperties properties = asMock(getUnitTestPropertiesSetter().withCircuitBreakerForceOpen(true));
+        HystrixCommandProperties.Snapshot snapshot = properties.snapshot();
+
+        assertEquals(true, snapshot.circuitBreakerForceOpen());
+        assertEquals(1000, snapshot.executionTimeoutInMilliseconds());
+        // the overridden properties can't tell us when they change, so they are read again each time
+        assertNotSame(snapshot, properties.snapshot());
+    }
+
 }
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCommandMetrics.HealthCounts;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.functions.Action1;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HystrixCommandRetryTest {
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testTransientFailureIsRetried() {
+        String name = "TransientFailureIsRetried";
+        fillBudget(name, ExecutionIsolationStrategy.THREAD, 3);
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 1, 0);
+
+        assertEquals(Integer.valueOf(1), command.execute());
+        assertEquals(2, command.attempts.get());
+        assertTrue(command.isSuccessfulExecution());
+        assertEquals(1, command.getEventCounts().getCount(HystrixEventType.RETRY));
+        assertFalse(command.isResponseFromFallback());
+    }
+
+    @Test
+    public void testSemaphoreIsolatedFailureIsRetried() {
+        String name = "SemaphoreIsolatedFailureIsRetried";
+        fillBudget(name, ExecutionIsolationStrategy.SEMAPHORE, 3);
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.SEMAPHORE, 3, 2, 0);
+
+        assertEquals(Integer.valueOf(2), command.execute());
+        assertEquals(3, command.attempts.get());
+        assertEquals(2, command.getEventCounts().getCount(HystrixEventType.RETRY));
+    }
+
+    @Test
+    public void testMaxAttempts() {
+        String name = "MaxAttempts";
+        fillBudget(name, ExecutionIsolationStrategy.THREAD, 3);
+        final List<HystrixCommandCompletion> completions = new CopyOnWriteArrayList<HystrixCommandCompletion>();
+        HystrixCommandCompletionStream.getInstance(HystrixCommandKey.Factory.asKey(name)).observe().subscribe(new Action1<HystrixCommandCompletion>() {
+            @Override
+            public void call(HystrixCommandCompletion completion) {
+                completions.add(completion);
+            }
+        });
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, Integer.MAX_VALUE, 0);
+
+        assertEquals(Integer.valueOf(-1), command.execute());
+        assertEquals(3, command.attempts.get());
+        assertTrue(command.isResponseFromFallback());
+        assertTrue(command.isFailedExecution());
+        assertEquals(1, completions.size());
+        assertEquals(2, completions.get(0).getEventCounts().getCount(HystrixEventType.RETRY));
+    }
+
+    @Test
+    public void testRetryBudget() {
+        String name = "RetryBudget";
+        // 5 successes at 10% leave half a token, which isn't enough for a retry
+        for (int i = 0; i < 5; i++) {
+            new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 0, 0, 10).execute();
+        }
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 1, 0, 10);
+
+        assertEquals(Integer.valueOf(-1), command.execute());
+        assertEquals(1, command.attempts.get());
+
+        for (int i = 0; i < 5; i++) {
+            new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 0, 0, 10).execute();
+        }
+        command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 1, 0, 10);
+        assertEquals(Integer.valueOf(1), command.execute());
+        assertEquals(2, command.attempts.get());
+    }
+
+    @Test
+    public void testNotRetryable() {
+        String name = "NotRetryable";
+        fillBudget(name, ExecutionIsolationStrategy.THREAD, 3);
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 1, 0) {
+            @Override
+            protected boolean isRetryable(Throwable e) {
+                return false;
+            }
+        };
+
+        assertEquals(Integer.valueOf(-1), command.execute());
+        assertEquals(1, command.attempts.get());
+    }
+
+    @Test
+    public void testBadRequestIsNotRetried() {
+        String name = "BadRequestIsNotRetried";
+        fillBudget(name, ExecutionIsolationStrategy.THREAD, 3);
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 3, 1, 0) {
+            @Override
+            protected Integer run() throws Exception {
+                attempts.incrementAndGet();
+                throw new HystrixBadRequestException("bad request");
+            }
+        };
+
+        try {
+            command.execute();
+            fail("expected a HystrixBadRequestException");
+        } catch (HystrixBadRequestException e) {
+            // expected
+        }
+        assertEquals(1, command.attempts.get());
+    }
+
+    @Test
+    public void testTimeoutCoversAllAttempts() {
+        String name = "TimeoutCoversAllAttempts";
+        fillBudget(name, ExecutionIsolationStrategy.THREAD, 10);
+        RetryCommand command = new RetryCommand(name, ExecutionIsolationStrategy.THREAD, 10, Integer.MAX_VALUE, 150);
+
+        long start = System.currentTimeMillis();
+        assertEquals(Integer.valueOf(-1), command.execute());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(command.isResponseTimedOut());
+        assertTrue("took " + elapsed + "ms", elapsed < 1000);
+        assertTrue(command.attempts.get() <= 3);
+    }
+
+    @Test
+    public void testRetriesCountAsFailuresInHealth() {
+        long[] eventTypeCounts = new long[HystrixEventType.values().length];
+        eventTypeCounts[HystrixEventType.SUCCESS.ordinal()] = 1;
+        eventTypeCounts[HystrixEventType.RETRY.ordinal()] = 3;
+
+        HealthCounts health = HealthCounts.empty().plus(eventTypeCounts);
+        assertEquals(4, health.getTotalRequests());
+        assertEquals(3, health.getErrorCount());
+    }
+
+    /**
+     * Make enough successful executions for the retry budget to be full.  The properties are cached per key, so these must be configured
+     * the same as the command under test.
+     */
+    private static void fillBudget(String name, ExecutionIsolationStrategy isolationStrategy, int maxAttempts) {
+        for (int i = 0; i < HystrixAttemptBudget.MAX_TOKENS; i++) {
+            new RetryCommand(name, isolationStrategy, maxAttempts, 0, 0).execute();
+        }
+    }
+
+    private static class RetryCommand extends HystrixCommand<Integer> {
+        private final int failures;
+        private final int sleepInMilliseconds;
+        protected final AtomicInteger attempts = new AtomicInteger();
+
+        RetryCommand(String name, ExecutionIsolationStrategy isolationStrategy, int maxAttempts, int failures, int sleepInMilliseconds) {
+            this(name, isolationStrategy, maxAttempts, failures, sleepInMilliseconds, 100);
+        }
+
+        /**
+         * @param failures number of attempts that fail before one succeeds
+         */
+        RetryCommand(String name, ExecutionIsolationStrategy isolationStrategy, int maxAttempts, int failures, int sleepInMilliseconds, int budgetPercentage) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Retry"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(isolationStrategy)
+                            .withExecutionTimeoutInMilliseconds(400)
+                            .withExecutionRetryMaxAttempts(maxAttempts)
+                            .withExecutionRetryBackoffInMilliseconds(10)
+                            .withExecutionRetryBudgetPercentage(budgetPercentage)
+                            .withCircuitBreakerEnabled(false)));
+            this.failures = failures;
+            this.sleepInMilliseconds = sleepInMilliseconds;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            int attempt = attempts.getAndIncrement();
+            if (sleepInMilliseconds > 0) {
+                Thread.sleep(sleepInMilliseconds);
+            }
+            if (attempt < failures) {
+                throw new RuntimeException("attempt " + attempt + " failed");
+            }
+            return attempt;
+        }
+
+        @Override
+        protected Integer getFallback() {
+            return -1;
+        }
+
+        @Override
+        protected boolean isIdempotent() {
+            return true;
+        }
+    }
+}
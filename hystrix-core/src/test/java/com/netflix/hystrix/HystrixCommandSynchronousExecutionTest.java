@@ -0,0 +1,294 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.AbstractCommand.TryableSemaphore;
+import com.netflix.hystrix.AbstractCommand.TryableSemaphoreActual;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Executes each scenario once on the calling thread and once through {@link HystrixCommand#queue()}, and checks that hooks, circuit-breaker,
+ * events and the outcome are the same.
+ */
+public class HystrixCommandSynchronousExecutionTest {
+
+    private static final HystrixCommandGroupKey GROUP = HystrixCommandGroupKey.Factory.asKey("SynchronousExecution");
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    private enum Behavior {
+        SUCCESS, FAILURE, BAD_REQUEST, REJECTED
+    }
+
+    @Test
+    public void testSuccess() {
+        assertEquivalent(new Scenario("Success", Behavior.SUCCESS));
+    }
+
+    @Test
+    public void testFailureWithFallback() {
+        assertEquivalent(new Scenario("FailureWithFallback", Behavior.FAILURE).withFallback(Behavior.SUCCESS));
+    }
+
+    @Test
+    public void testFailureWithoutFallback() {
+        assertEquivalent(new Scenario("FailureWithoutFallback", Behavior.FAILURE));
+    }
+
+    @Test
+    public void testFailureWithFallbackFailure() {
+        assertEquivalent(new Scenario("FallbackFailure", Behavior.FAILURE).withFallback(Behavior.FAILURE));
+    }
+
+    @Test
+    public void testBadRequest() {
+        assertEquivalent(new Scenario("BadRequest", Behavior.BAD_REQUEST).withFallback(Behavior.SUCCESS));
+    }
+
+    @Test
+    public void testRejectedExecutionFromRun() {
+        assertEquivalent(new Scenario("RejectedFromRun", Behavior.REJECTED).withFallback(Behavior.SUCCESS));
+    }
+
+    @Test
+    public void testShortCircuited() {
+        Scenario scenario = new Scenario("ShortCircuited", Behavior.SUCCESS).withFallback(Behavior.SUCCESS);
+        scenario.circuitOpen = true;
+        assertEquivalent(scenario);
+    }
+
+    @Test
+    public void testSemaphoreRejected() {
+        Scenario scenario = new Scenario("SemaphoreRejected", Behavior.SUCCESS).withFallback(Behavior.SUCCESS);
+        scenario.executionPermits = 0;
+        assertEquivalent(scenario);
+    }
+
+    @Test
+    public void testFallbackRejected() {
+        Scenario scenario = new Scenario("FallbackRejected", Behavior.FAILURE).withFallback(Behavior.SUCCESS);
+        scenario.fallbackPermits = 0;
+        assertEquivalent(scenario);
+    }
+
+    @Test
+    public void testFallbackDisabled() {
+        Scenario scenario = new Scenario("FallbackDisabled", Behavior.FAILURE).withFallback(Behavior.SUCCESS);
+        scenario.fallbackEnabled = false;
+        assertEquivalent(scenario);
+    }
+
+    @Test
+    public void testExecutedTwice() {
+        Scenario scenario = new Scenario("ExecutedTwice", Behavior.SUCCESS);
+        TraceCommand command = scenario.create(true);
+        command.execute();
+        try {
+            command.execute();
+            throw new AssertionError("expected a HystrixRuntimeException");
+        } catch (HystrixRuntimeException e) {
+            assertEquals(HystrixRuntimeException.FailureType.BAD_REQUEST_EXCEPTION, e.getFailureType());
+        }
+    }
+
+    @Test
+    public void testNotUsedWithTimeout() {
+        Scenario scenario = new Scenario("WithTimeout", Behavior.SUCCESS);
+        TraceCommand command = scenario.create(true, scenario.properties(true).withExecutionTimeoutEnabled(true));
+        assertFalse(command.isSynchronousExecutionEnabled());
+        assertEquals(Integer.valueOf(1), command.execute());
+    }
+
+    private static void assertEquivalent(Scenario scenario) {
+        TraceCommand synchronous = scenario.create(true);
+        TraceCommand asynchronous = scenario.create(false);
+        assertTrue(synchronous.isSynchronousExecutionEnabled());
+        assertFalse(asynchronous.isSynchronousExecutionEnabled());
+
+        String expected = asynchronous.executeAndTrace();
+        assertEquals(expected, synchronous.executeAndTrace());
+    }
+
+    private static class Scenario {
+        private final String name;
+        private final Behavior run;
+        private Behavior fallback;
+        private boolean circuitOpen = false;
+        private int executionPermits = 10;
+        private int fallbackPermits = 10;
+        private boolean fallbackEnabled = true;
+
+        Scenario(String name, Behavior run) {
+            this.name = name;
+            this.run = run;
+        }
+
+        Scenario withFallback(Behavior fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        HystrixCommandProperties.Setter properties(boolean synchronous) {
+            return HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                    .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                    .withExecutionTimeoutEnabled(false)
+                    .withFallbackEnabled(fallbackEnabled)
+                    .withExecutionIsolationSemaphoreSynchronousExecutionEnabled(synchronous);
+        }
+
+        TraceCommand create(boolean synchronous) {
+            return create(synchronous, properties(synchronous));
+        }
+
+        TraceCommand create(boolean synchronous, HystrixCommandProperties.Setter properties) {
+            // commands of each kind get their own key, as whether a fallback is defined is cached by key
+            HystrixCommandKey key = HystrixCommandKey.Factory.asKey("SynchronousExecution" + name + (synchronous ? "Sync" : "Async"));
+            TryableSemaphore executionSemaphore = new TryableSemaphoreActual(HystrixProperty.Factory.asProperty(executionPermits));
+            TryableSemaphore fallbackSemaphore = new TryableSemaphoreActual(HystrixProperty.Factory.asProperty(fallbackPermits));
+            RecordingCircuitBreaker circuitBreaker = new RecordingCircuitBreaker(circuitOpen);
+            if (fallback == null) {
+                return new TraceCommand(key, properties, circuitBreaker, executionSemaphore, fallbackSemaphore, run);
+            }
+            return new TraceCommandWithFallback(key, properties, circuitBreaker, executionSemaphore, fallbackSemaphore, run, fallback);
+        }
+    }
+
+    private static class TraceCommand extends HystrixCommand<Integer> {
+        private final RecordingCircuitBreaker circuitBreaker;
+        private final TestableExecutionHook hook;
+        private final Behavior run;
+
+        TraceCommand(HystrixCommandKey key, HystrixCommandProperties.Setter properties, RecordingCircuitBreaker circuitBreaker,
+                     TryableSemaphore executionSemaphore, TryableSemaphore fallbackSemaphore, Behavior run) {
+            this(key, properties, circuitBreaker, executionSemaphore, fallbackSemaphore, new TestableExecutionHook(), run);
+        }
+
+        private TraceCommand(HystrixCommandKey key, HystrixCommandProperties.Setter properties, RecordingCircuitBreaker circuitBreaker,
+                             TryableSemaphore executionSemaphore, TryableSemaphore fallbackSemaphore, TestableExecutionHook hook, Behavior run) {
+            super(GROUP, key, null, circuitBreaker, null, properties, null, null, fallbackSemaphore, executionSemaphore, null, hook);
+            this.circuitBreaker = circuitBreaker;
+            this.hook = hook;
+            this.run = run;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            return behave(run, 1);
+        }
+
+        static Integer behave(Behavior behavior, int value) {
+            switch (behavior) {
+                case FAILURE:
+                    throw new RuntimeException("failed with " + value);
+                case BAD_REQUEST:
+                    throw new HystrixBadRequestException("bad request");
+                case REJECTED:
+                    throw new RejectedExecutionException("rejected");
+                default:
+                    return value;
+            }
+        }
+
+        String executeAndTrace() {
+            String outcome;
+            try {
+                outcome = "value " + execute();
+            } catch (HystrixRuntimeException e) {
+                outcome = e.getClass().getSimpleName() + " " + e.getFailureType() + " " + e.getMessage().replace(getCommandKey().name(), "") + " caused by " + e.getCause();
+            } catch (RuntimeException e) {
+                outcome = e.getClass().getSimpleName() + " " + e.getMessage();
+            }
+            return hook.executionSequence + "| " + circuitBreaker.calls + "| " + getExecutionEvents() + " | " + outcome
+                    + " | complete " + isExecutionComplete() + " executed " + isExecutedInThread();
+        }
+    }
+
+    private static class TraceCommandWithFallback extends TraceCommand {
+        private final Behavior fallback;
+
+        TraceCommandWithFallback(HystrixCommandKey key, HystrixCommandProperties.Setter properties, RecordingCircuitBreaker circuitBreaker,
+                                 TryableSemaphore executionSemaphore, TryableSemaphore fallbackSemaphore, Behavior run, Behavior fallback) {
+            super(key, properties, circuitBreaker, executionSemaphore, fallbackSemaphore, run);
+            this.fallback = fallback;
+        }
+
+        @Override
+        protected Integer getFallback() {
+            return behave(fallback, 2);
+        }
+    }
+
+    private static class RecordingCircuitBreaker implements HystrixCircuitBreaker {
+        private final StringBuilder calls = new StringBuilder();
+        private final boolean open;
+
+        RecordingCircuitBreaker(boolean open) {
+            this.open = open;
+        }
+
+        @Override
+        public boolean allowRequest() {
+            calls.append("allowRequest - ");
+            return !open;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void markSuccess() {
+            calls.append("markSuccess - ");
+        }
+
+        @Override
+        public void markNonSuccess() {
+            calls.append("markNonSuccess - ");
+        }
+
+        @Override
+        public boolean attemptExecution() {
+            calls.append("attemptExecution - ");
+            return !open;
+        }
+    }
+}
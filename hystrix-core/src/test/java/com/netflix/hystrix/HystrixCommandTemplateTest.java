@@ -0,0 +1,120 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixCommandTemplateTest {
+
+    private static final HystrixCommandGroupKey GROUP = HystrixCommandGroupKey.Factory.asKey("CommandTemplate");
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testSharesStateWithCommandsFromSetter() {
+        HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("CommandTemplateShared"))
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter());
+        HystrixCommand.Template template = new HystrixCommand.Template(setter);
+
+        TemplateCommand first = new TemplateCommand(template, 1);
+        TemplateCommand second = new TemplateCommand(template, 2);
+        FromSetterCommand fromSetter = new FromSetterCommand(setter);
+
+        assertSame(first.getCommandKey(), fromSetter.getCommandKey());
+        assertSame(first.getProperties(), fromSetter.getProperties());
+        assertSame(first.getMetrics(), fromSetter.getMetrics());
+        assertSame(first.circuitBreaker, fromSetter.circuitBreaker);
+        assertSame(first.threadPool, second.threadPool);
+        assertSame(fromSetter.threadPool, second.threadPool);
+
+        assertEquals(Integer.valueOf(1), first.execute());
+        assertEquals(Integer.valueOf(2), second.execute());
+        assertEquals(2, HystrixRequestLog.getCurrentRequest().getAllExecutedCommands().size());
+    }
+
+    @Test
+    public void testCommandKeyDerivedFromClass() {
+        HystrixCommand.Template template = new HystrixCommand.Template(HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()));
+        assertEquals("TemplateCommand", new TemplateCommand(template, 1).getCommandKey().name());
+    }
+
+    @Test
+    public void testResolvedAgainAfterReset() {
+        HystrixCommand.Template template = new HystrixCommand.Template(HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("CommandTemplateReset"))
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()));
+        TemplateCommand before = new TemplateCommand(template, 1);
+        assertEquals(Integer.valueOf(1), before.execute());
+
+        context.shutdown();
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+
+        TemplateCommand after = new TemplateCommand(template, 2);
+        assertNotSame(before.getMetrics(), after.getMetrics());
+        assertSame(HystrixCommandMetrics.getInstance(after.getCommandKey()), after.getMetrics());
+        // the thread-pool the first command used was shut down by the reset
+        assertEquals(Integer.valueOf(2), after.execute());
+        assertTrue(after.isExecutedInThread());
+    }
+
+    private static class TemplateCommand extends HystrixCommand<Integer> {
+        private final int value;
+
+        TemplateCommand(Template template, int value) {
+            super(template);
+            this.value = value;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            return value;
+        }
+    }
+
+    private static class FromSetterCommand extends HystrixCommand<Integer> {
+        FromSetterCommand(Setter setter) {
+            super(setter);
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            return 0;
+        }
+    }
+}
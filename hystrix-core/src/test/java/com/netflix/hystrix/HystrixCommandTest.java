@@ -2779,7 +2779,8 @@ public class HystrixCommandTest extends CommonHystrixCommandTests<TestHystrixCom
         ts.awaitTerminalEvent();
 
         assertTrue(isRequestContextInitialized.get());
-        assertTrue(onErrorThread.get().getName().startsWith("HystrixTimer"));
+        // handed off from the thread which ticked, so a slow fallback does not hold up the timer
+        assertTrue(onErrorThread.get().getName().startsWith("HystrixTimer-Fallback-"));
 
         List<Throwable> errors = ts.getOnErrorEvents();
         assertEquals(1, errors.size());
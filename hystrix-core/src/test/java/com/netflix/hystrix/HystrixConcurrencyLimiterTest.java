@@ -0,0 +1,197 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCommandDefault;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixConcurrencyLimiterTest {
+
+    @Before
+    public void setup() {
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testLimitGrowsWhileLatencyWithinTolerance() {
+        assertEquals(110, HystrixConcurrencyLimiter.computeLimit(100, 100, 10, 10, 1, 200));
+        assertEquals(110, HystrixConcurrencyLimiter.computeLimit(100, 50, 10, 15, 1, 200));
+        assertEquals(200, HystrixConcurrencyLimiter.computeLimit(195, 195, 10, 10, 1, 200));
+    }
+
+    @Test
+    public void testLimitHeldWhenMostPermitsUnused() {
+        assertEquals(100, HystrixConcurrencyLimiter.computeLimit(100, 49, 10, 10, 1, 200));
+    }
+
+    @Test
+    public void testLimitShrinksByGradientWhenLatencyGrows() {
+        // 1.5 * 10 / 20
+        assertEquals(75, HystrixConcurrencyLimiter.computeLimit(100, 100, 10, 20, 1, 200));
+        // never more than half at a time
+        assertEquals(50, HystrixConcurrencyLimiter.computeLimit(100, 100, 10, 1000, 1, 200));
+        assertEquals(60, HystrixConcurrencyLimiter.computeLimit(100, 100, 10, 1000, 60, 200));
+        // shrinks even if not all permits are used
+        assertEquals(75, HystrixConcurrencyLimiter.computeLimit(100, 10, 10, 20, 1, 200));
+    }
+
+    @Test
+    public void testUpdateTracksBaseline() {
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("ConcurrencyLimiterBaseline");
+        HystrixConcurrencyLimiter limiter = HystrixConcurrencyLimiter.Factory.getInstance(key, newProperties(key, ExecutionIsolationStrategy.SEMAPHORE, 1, 1000), 16);
+        assertEquals(16, limiter.getLimit());
+        fill(limiter, 16);
+
+        limiter.update(10);
+        assertEquals(20, limiter.getLimit());
+
+        // latency triples, so the limit drops by the gradient against a baseline that drifted up to 11, 1.5 * 11 / 30
+        limiter.update(30);
+        assertEquals(11, limiter.getLimit());
+
+        // faster than ever, so the baseline drops to 5
+        fill(limiter, 10);
+        limiter.update(5);
+        assertEquals(14, limiter.getLimit());
+        // twice the baseline, which drifted up to 5.25
+        limiter.update(10);
+        assertEquals(11, limiter.getLimit());
+    }
+
+    @Test
+    public void testInitialLimitClamped() {
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("ConcurrencyLimiterClamp");
+        HystrixConcurrencyLimiter limiter = HystrixConcurrencyLimiter.Factory.getInstance(key, newProperties(key, ExecutionIsolationStrategy.SEMAPHORE, 5, 8), 100);
+        assertEquals(8, limiter.getLimit());
+        assertSame(limiter, HystrixConcurrencyLimiter.Factory.getInstance(key, null, 1));
+    }
+
+    @Test
+    public void testSemaphoreIsolatedRejection() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LatchedCommand first = new LatchedCommand("ConcurrencyLimiterSemaphore", ExecutionIsolationStrategy.SEMAPHORE, started, release);
+        LatchedCommand second = new LatchedCommand("ConcurrencyLimiterSemaphore", ExecutionIsolationStrategy.SEMAPHORE, started, release);
+
+        Future<String> f1 = runOnNewThread(first);
+        assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+        assertEquals(1, first.getMetrics().getConcurrencyLimit());
+
+        assertEquals("fallback", second.execute());
+        assertTrue(second.isResponseSemaphoreRejected());
+
+        release.countDown();
+        assertEquals("success", f1.get());
+    }
+
+    @Test
+    public void testThreadIsolatedRejectionBeforeQueueing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LatchedCommand first = new LatchedCommand("ConcurrencyLimiterThread", ExecutionIsolationStrategy.THREAD, started, release);
+        LatchedCommand second = new LatchedCommand("ConcurrencyLimiterThread", ExecutionIsolationStrategy.THREAD, started, release);
+
+        Future<String> f1 = first.queue();
+        assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+
+        assertEquals("fallback", second.execute());
+        // turned away by the limit in front of the thread-pool, not by the thread-pool
+        assertTrue(second.isResponseSemaphoreRejected());
+        assertFalse(second.isResponseThreadPoolRejected());
+        assertFalse(second.isExecutedInThread());
+
+        release.countDown();
+        assertEquals("success", f1.get());
+    }
+
+    @Test
+    public void testNoLimitWhenDisabled() {
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("ConcurrencyLimiterDisabled");
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(key, HystrixCommandGroupKey.Factory.asKey("ConcurrencyLimiter"),
+                new HystrixPropertiesCommandDefault(key, HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()));
+        assertEquals(-1, metrics.getConcurrencyLimit());
+    }
+
+    private static void fill(HystrixConcurrencyLimiter limiter, int permits) {
+        for (int i = 0; i < permits; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < permits; i++) {
+            limiter.release();
+        }
+    }
+
+    private static HystrixCommandProperties newProperties(HystrixCommandKey key, ExecutionIsolationStrategy isolationStrategy, int minLimit, int maxLimit) {
+        return new HystrixPropertiesCommandDefault(key, propertiesSetter(isolationStrategy, minLimit, maxLimit));
+    }
+
+    private static HystrixCommandProperties.Setter propertiesSetter(ExecutionIsolationStrategy isolationStrategy, int minLimit, int maxLimit) {
+        return HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                .withExecutionIsolationStrategy(isolationStrategy)
+                .withExecutionAdaptiveConcurrencyLimitEnabled(true)
+                .withExecutionAdaptiveConcurrencyLimitMinLimit(minLimit)
+                .withExecutionAdaptiveConcurrencyLimitMaxLimit(maxLimit);
+    }
+
+    private static Future<String> runOnNewThread(final HystrixCommand<String> command) {
+        final FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return command.execute();
+            }
+        });
+        new Thread(task).start();
+        return task;
+    }
+
+    private static class LatchedCommand extends HystrixCommand<String> {
+        private final CountDownLatch startLatch;
+        private final CountDownLatch releaseLatch;
+
+        LatchedCommand(String key, ExecutionIsolationStrategy isolationStrategy, CountDownLatch startLatch, CountDownLatch releaseLatch) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("ConcurrencyLimiter"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(key))
+                    .andCommandPropertiesDefaults(propertiesSetter(isolationStrategy, 1, 1)));
+            this.startLatch = startLatch;
+            this.releaseLatch = releaseLatch;
+        }
+
+        @Override
+        protected String run() throws Exception {
+            startLatch.countDown();
+            releaseLatch.await();
+            return "success";
+        }
+
+        @Override
+        protected String getFallback() {
+            return "fallback";
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixFailFastExceptionsTest {
+
+    private static final HystrixCommandGroupKey GROUP = HystrixCommandGroupKey.Factory.asKey("FailFastExceptions");
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        ConfigurationManager.getConfigInstance().clearProperty("hystrix.stacklessExceptions.debug");
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testShortCircuitIsSharedAndStackless() {
+        HystrixCommand.Setter setter = shortCircuitedSetter("FailFastShortCircuitStackless", true);
+        SuccessfulCommand first = new SuccessfulCommand(setter);
+        SuccessfulCommand second = new SuccessfulCommand(setter);
+
+        HystrixRuntimeException firstException = executeAndExpectFailure(first);
+        HystrixRuntimeException secondException = executeAndExpectFailure(second);
+
+        assertEquals(FailureType.SHORTCIRCUIT, firstException.getFailureType());
+        assertEquals("Hystrix circuit short-circuited and is OPEN", firstException.getCause().getMessage());
+        assertSame(firstException.getCause(), secondException.getCause());
+        assertEquals(0, firstException.getCause().getStackTrace().length);
+        assertEquals(0, firstException.getStackTrace().length);
+        assertNotSame(firstException, secondException);
+        assertTrue(firstException.getMessage().contains("short-circuited and no fallback available."));
+        assertEquals(0, firstException.getFallbackException().getStackTrace().length);
+    }
+
+    @Test
+    public void testShortCircuitKeepsStackTraceByDefault() {
+        HystrixCommand.Setter setter = shortCircuitedSetter("FailFastShortCircuitDefault", false);
+        SuccessfulCommand first = new SuccessfulCommand(setter);
+        SuccessfulCommand second = new SuccessfulCommand(setter);
+
+        HystrixRuntimeException firstException = executeAndExpectFailure(first);
+        HystrixRuntimeException secondException = executeAndExpectFailure(second);
+
+        assertNotSame(firstException.getCause(), secondException.getCause());
+        assertTrue(firstException.getCause().getStackTrace().length > 0);
+        assertTrue(firstException.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testDebugPropertyRestoresStackTraces() {
+        ConfigurationManager.getConfigInstance().setProperty("hystrix.stacklessExceptions.debug", true);
+        SuccessfulCommand command = new SuccessfulCommand(shortCircuitedSetter("FailFastShortCircuitDebug", true));
+
+        HystrixRuntimeException exception = executeAndExpectFailure(command);
+
+        assertTrue(exception.getCause().getStackTrace().length > 0);
+        assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testSemaphoreRejectionIsStackless() {
+        HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("FailFastSemaphoreRejected"))
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                        .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                        .withExecutionIsolationSemaphoreMaxConcurrentRequests(0)
+                        .withExecutionStacklessExceptionsEnabled(true));
+        SuccessfulCommand command = new SuccessfulCommand(setter);
+
+        HystrixRuntimeException exception = executeAndExpectFailure(command);
+
+        assertEquals(FailureType.REJECTED_SEMAPHORE_EXECUTION, exception.getFailureType());
+        assertEquals("could not acquire a semaphore for execution", exception.getCause().getMessage());
+        assertEquals(0, exception.getCause().getStackTrace().length);
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    public void testTimeoutIsStackless() {
+        HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("FailFastTimeout"))
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                        .withExecutionTimeoutInMilliseconds(50)
+                        .withExecutionStacklessExceptionsEnabled(true));
+        HystrixCommand<Integer> command = new HystrixCommand<Integer>(setter) {
+            @Override
+            protected Integer run() throws Exception {
+                Thread.sleep(500);
+                return 1;
+            }
+        };
+
+        HystrixRuntimeException exception = executeAndExpectFailure(command);
+
+        assertEquals(FailureType.TIMEOUT, exception.getFailureType());
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        assertEquals(0, exception.getCause().getStackTrace().length);
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    public void testCommandExceptionKeepsStackTrace() {
+        HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("FailFastCommandException"))
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                        .withExecutionStacklessExceptionsEnabled(true));
+        HystrixCommand<Integer> command = new HystrixCommand<Integer>(setter) {
+            @Override
+            protected Integer run() throws Exception {
+                throw new RuntimeException("run failed");
+            }
+        };
+
+        HystrixRuntimeException exception = executeAndExpectFailure(command);
+
+        assertEquals(FailureType.COMMAND_EXCEPTION, exception.getFailureType());
+        assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    private static HystrixCommand.Setter shortCircuitedSetter(String commandKey, boolean stacklessExceptions) {
+        return HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey(commandKey))
+                .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                        .withCircuitBreakerForceOpen(true)
+                        .withExecutionStacklessExceptionsEnabled(stacklessExceptions));
+    }
+
+    private static HystrixRuntimeException executeAndExpectFailure(HystrixCommand<Integer> command) {
+        try {
+            command.execute();
+        } catch (HystrixRuntimeException e) {
+            return e;
+        }
+        throw new AssertionError("expected a HystrixRuntimeException");
+    }
+
+    private static class SuccessfulCommand extends HystrixCommand<Integer> {
+        SuccessfulCommand(Setter setter) {
+            super(setter);
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            return 1;
+        }
+    }
+}
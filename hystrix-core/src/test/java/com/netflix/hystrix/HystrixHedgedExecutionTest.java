@@ -0,0 +1,246 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HystrixHedgedExecutionTest {
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testBudget() {
+        HystrixAttemptBudget budget = new HystrixAttemptBudget();
+        assertFalse(budget.tryAcquire());
+
+        for (int i = 0; i < 9; i++) {
+            budget.deposit(10);
+        }
+        assertFalse(budget.tryAcquire());
+        budget.deposit(10);
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        for (int i = 0; i < 1000; i++) {
+            budget.deposit(50);
+        }
+        assertEquals(HystrixAttemptBudget.MAX_TOKENS, budget.getAvailableTokens());
+        for (int i = 0; i < HystrixAttemptBudget.MAX_TOKENS; i++) {
+            assertTrue(budget.tryAcquire());
+        }
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    public void testSlowExecutionIsHedged() throws InterruptedException {
+        HedgedCommand command = new HedgedCommand("SlowExecutionIsHedged", true, 100, 1000, 10);
+
+        long start = System.currentTimeMillis();
+        assertEquals(Integer.valueOf(1), command.execute());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("took " + elapsed + "ms", elapsed < 500);
+        assertEquals(2, command.attempts.get());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.HEDGE));
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.HEDGE_WIN));
+        assertTrue(command.isSuccessfulExecution());
+        // the original execution lost, so it is interrupted
+        assertTrue(command.interrupted.await(1000, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFastExecutionIsNotHedged() {
+        HedgedCommand command = new HedgedCommand("FastExecutionIsNotHedged", true, 100, 10, 10);
+
+        assertEquals(Integer.valueOf(0), command.execute());
+        assertEquals(1, command.attempts.get());
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.HEDGE));
+    }
+
+    @Test
+    public void testOriginalExecutionWinsAfterHedge() throws InterruptedException {
+        HedgedCommand command = new HedgedCommand("OriginalExecutionWinsAfterHedge", true, 100, 200, 1000);
+
+        assertEquals(Integer.valueOf(0), command.execute());
+        assertEquals(2, command.attempts.get());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.HEDGE));
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.HEDGE_WIN));
+        // the hedge lost, so it is interrupted
+        assertTrue(command.interrupted.await(1000, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFailedHedgeIsIgnored() {
+        HedgedCommand command = new HedgedCommand("FailedHedgeIsIgnored", true, 100, 300, -1);
+
+        assertEquals(Integer.valueOf(0), command.execute());
+        assertEquals(2, command.attempts.get());
+        assertTrue(command.isSuccessfulExecution());
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.HEDGE_WIN));
+    }
+
+    @Test
+    public void testFailureWaitsForRunningHedge() {
+        HedgedCommand command = new HedgedCommand("FailureWaitsForRunningHedge", true, 100, -150, 300);
+
+        assertEquals(Integer.valueOf(1), command.execute());
+        assertEquals(2, command.attempts.get());
+        assertTrue(command.isSuccessfulExecution());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.HEDGE_WIN));
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.FAILURE));
+    }
+
+    @Test
+    public void testFailsWhenHedgeFailsToo() {
+        HedgedCommand command = new HedgedCommand("FailsWhenHedgeFailsToo", true, 100, -150, -300);
+
+        try {
+            command.execute();
+            fail("we expect an exception");
+        } catch (HystrixRuntimeException e) {
+            // the failure of the original execution, not of its hedge
+            assertEquals("attempt 0 failed", e.getCause().getMessage());
+        }
+        assertEquals(2, command.attempts.get());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.FAILURE));
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.HEDGE_WIN));
+    }
+
+    @Test
+    public void testFailureBeforeHedgeIsNotHedged() {
+        HedgedCommand command = new HedgedCommand("FailureBeforeHedgeIsNotHedged", true, 100, -1, 10);
+
+        try {
+            command.execute();
+            fail("we expect an exception");
+        } catch (HystrixRuntimeException e) {
+            assertEquals("attempt 0 failed", e.getCause().getMessage());
+        }
+        assertEquals(1, command.attempts.get());
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.HEDGE));
+    }
+
+    @Test
+    public void testCommandNotIdempotent() {
+        HedgedCommand command = new HedgedCommand("CommandNotIdempotent", false, 100, 300, 10);
+
+        assertEquals(Integer.valueOf(0), command.execute());
+        assertEquals(1, command.attempts.get());
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.HEDGE));
+    }
+
+    @Test
+    public void testHedgeBudget() {
+        // 10% allows the 10th execution to be hedged, and then not again until the 20th
+        int hedged = 0;
+        for (int i = 0; i < 15; i++) {
+            HedgedCommand command = new HedgedCommand("HedgeBudget", true, 10, 100, 10);
+            command.execute();
+            if (command.getExecutionEvents().contains(HystrixEventType.HEDGE)) {
+                hedged++;
+            }
+        }
+        assertEquals(1, hedged);
+    }
+
+    @Test
+    public void testHedgeHasRequestContext() {
+        final AtomicInteger hedgesWithContext = new AtomicInteger();
+        HedgedCommand command = new HedgedCommand("HedgeHasRequestContext", true, 100, 1000, 10) {
+            @Override
+            protected Integer run() throws Exception {
+                if (attempts.get() > 0 && HystrixRequestContext.isCurrentThreadInitialized()) {
+                    hedgesWithContext.incrementAndGet();
+                }
+                return super.run();
+            }
+        };
+
+        assertEquals(Integer.valueOf(1), command.execute());
+        assertEquals(1, hedgesWithContext.get());
+    }
+
+    private static class HedgedCommand extends HystrixCommand<Integer> {
+        private final boolean idempotent;
+        private final int originalSleepInMilliseconds;
+        private final int hedgeSleepInMilliseconds;
+        protected final AtomicInteger attempts = new AtomicInteger();
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        /**
+         * @param originalSleepInMilliseconds time the original execution takes, or negative for it to fail after that long
+         * @param hedgeSleepInMilliseconds time the hedge takes, or negative for it to fail after that long
+         */
+        HedgedCommand(String name, boolean idempotent, int budgetPercentage, int originalSleepInMilliseconds, int hedgeSleepInMilliseconds) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Hedge"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionTimeoutInMilliseconds(2000)
+                            .withExecutionHedgeEnabled(true)
+                            .withExecutionHedgeMinimumDelayInMilliseconds(50)
+                            .withExecutionHedgeBudgetPercentage(budgetPercentage)));
+            this.idempotent = idempotent;
+            this.originalSleepInMilliseconds = originalSleepInMilliseconds;
+            this.hedgeSleepInMilliseconds = hedgeSleepInMilliseconds;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            int attempt = attempts.getAndIncrement();
+            int sleep = attempt == 0 ? originalSleepInMilliseconds : hedgeSleepInMilliseconds;
+            try {
+                Thread.sleep(Math.abs(sleep));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            if (sleep < 0) {
+                throw new RuntimeException("attempt " + attempt + " failed");
+            }
+            return attempt;
+        }
+
+        @Override
+        protected boolean isIdempotent() {
+            return idempotent;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.hystrix.junit.HystrixRequestContextRule;
+import com.netflix.hystrix.HystrixCircuitBreaker.HystrixRollingHealthCircuitBreaker;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCommandDefault;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixPartitionedCircuitBreakerTest {
+
+    @Rule
+    public HystrixRequestContextRule ctx = new HystrixRequestContextRule();
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testFailingPartitionDoesNotShortCircuitOthers() {
+        String key = "PartitionTrips";
+        for (int i = 0; i < 10; i++) {
+            new TestCommand(key, "shard-1", true, true).execute();
+            new TestCommand(key, "shard-2", true, false).execute();
+        }
+
+        HystrixPartitionedCircuitBreaker partitioned = HystrixPartitionedCircuitBreaker.Factory.getInstance(HystrixCommandKey.Factory.asKey(key));
+        assertTrue(partitioned.isOpen("shard-1"));
+        assertFalse(partitioned.isOpen("shard-2"));
+        assertEquals(Collections.singletonList("shard-1"), partitioned.getOpenPartitions());
+
+        TestCommand failingShard = new TestCommand(key, "shard-1", true, false);
+        assertFalse(failingShard.execute());
+        assertTrue(failingShard.isResponseShortCircuited());
+        assertTrue(failingShard.isCircuitBreakerOpen());
+
+        TestCommand healthyShard = new TestCommand(key, "shard-2", true, false);
+        assertTrue(healthyShard.execute());
+        assertFalse(healthyShard.isCircuitBreakerOpen());
+
+        // without a partition key the execution uses the circuit of the command, which hasn't been given these executions
+        TestCommand unpartitioned = new TestCommand(key, null, true, false);
+        assertTrue(unpartitioned.execute());
+    }
+
+    @Test
+    public void testPartitionClosesAfterSuccessfulTest() throws InterruptedException {
+        String key = "PartitionCloses";
+        for (int i = 0; i < 10; i++) {
+            new TestCommand(key, "shard-1", true, true).execute();
+        }
+        HystrixPartitionedCircuitBreaker partitioned = HystrixPartitionedCircuitBreaker.Factory.getInstance(HystrixCommandKey.Factory.asKey(key));
+        assertTrue(partitioned.isOpen("shard-1"));
+
+        Thread.sleep(SLEEP_WINDOW + 50);
+        assertTrue(new TestCommand(key, "shard-1", true, false).execute());
+        assertFalse(partitioned.isOpen("shard-1"));
+        HystrixRollingHealthCircuitBreaker cb = partitioned.getCircuitBreaker("shard-1");
+        assertEquals(0, cb.getHealthCounter().getErrorCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPartitionsAreEvicted() {
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("PartitionsEvicted");
+        HystrixCommandProperties properties = new HystrixPropertiesCommandDefault(key,
+                HystrixCommandProperties.Setter().withCircuitBreakerPartitionMaxPartitions(2));
+        HystrixPartitionedCircuitBreaker partitioned = new HystrixPartitionedCircuitBreaker(key, properties);
+
+        HystrixRollingHealthCircuitBreaker a = partitioned.getCircuitBreaker("a");
+        partitioned.getCircuitBreaker("b");
+        assertSame(a, partitioned.getCircuitBreaker("a"));
+        // b is now the least recently used
+        partitioned.getCircuitBreaker("c");
+        assertEquals(2, partitioned.getNumberOfPartitions());
+        assertSame(a, partitioned.getCircuitBreaker("a"));
+
+        HystrixRollingHealthCircuitBreaker c = partitioned.getCircuitBreaker("c");
+        partitioned.getCircuitBreaker("b");
+        // a was evicted to make room for b again
+        assertSame(c, partitioned.getCircuitBreaker("c"));
+        assertNotSame(a, partitioned.getCircuitBreaker("a"));
+        assertEquals(2, partitioned.getNumberOfPartitions());
+    }
+
+    @Test
+    public void testDisabledUsesCommandCircuitBreaker() {
+        String key = "PartitionsDisabled";
+        for (int i = 0; i < 10; i++) {
+            new TestCommand(key, "shard-1", false, true).execute();
+        }
+        assertNull(HystrixPartitionedCircuitBreaker.Factory.getInstance(HystrixCommandKey.Factory.asKey(key)));
+        TestCommand command = new TestCommand(key, "shard-1", false, false);
+        assertSame(command.getCircuitBreaker(), command.circuitBreaker);
+    }
+
+    private static final int SLEEP_WINDOW = 200;
+
+    private static class TestCommand extends HystrixCommand<Boolean> {
+        private final String partitionKey;
+        private final boolean shouldFail;
+
+        TestCommand(String key, String partitionKey, boolean partitionEnabled, boolean shouldFail) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("PartitionedCircuitBreaker"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(key))
+                    .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                            .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                            .withCircuitBreakerPartitionEnabled(partitionEnabled)
+                            .withCircuitBreakerRequestVolumeThreshold(10)
+                            .withCircuitBreakerErrorThresholdPercentage(50)
+                            .withCircuitBreakerSleepWindowInMilliseconds(SLEEP_WINDOW)
+                            .withMetricsRollingStatisticalWindowInMilliseconds(20000)
+                            .withMetricsRollingStatisticalWindowBuckets(10)
+                            .withMetricsHealthSnapshotIntervalInMilliseconds(10000)));
+            this.partitionKey = partitionKey;
+            this.shouldFail = shouldFail;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            if (shouldFail) {
+                throw new RuntimeException("induced failure");
+            }
+            return true;
+        }
+
+        @Override
+        protected Boolean getFallback() {
+            return false;
+        }
+
+        @Override
+        protected String getPartitionKey() {
+            return partitionKey;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixCommandCompletionStream;
+import com.netflix.hystrix.strategy.concurrency.HystrixContextRunnable;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.functions.Action1;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HystrixRequestDeadlineTest {
+
+    private static final HystrixCommandGroupKey GROUP = HystrixCommandGroupKey.Factory.asKey("RequestDeadline");
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testRemainingTime() throws InterruptedException {
+        assertFalse(context.hasDeadline());
+        assertEquals(Long.MAX_VALUE, context.getRemainingTimeInMilliseconds());
+
+        context.setDeadline(1, TimeUnit.SECONDS);
+        assertTrue(context.hasDeadline());
+        long remaining = context.getRemainingTimeInMilliseconds();
+        assertTrue(remaining > 900 && remaining <= 1000);
+
+        context.setDeadline(10, TimeUnit.MILLISECONDS);
+        Thread.sleep(20);
+        assertTrue(context.getRemainingTimeInMilliseconds() <= 0);
+
+        context.clearDeadline();
+        assertFalse(context.hasDeadline());
+        assertEquals(Long.MAX_VALUE, context.getRemainingTimeInMilliseconds());
+    }
+
+    @Test
+    public void testDeadlineShortensTimeout() {
+        SleepCommand command = new SleepCommand("DeadlineShortensTimeout", ExecutionIsolationStrategy.THREAD, 1000, 2000, true);
+        context.setDeadline(200, TimeUnit.MILLISECONDS);
+
+        long start = System.currentTimeMillis();
+        assertFalse(command.execute());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("took " + elapsed + "ms", elapsed < 900);
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.DEADLINE_EXCEEDED));
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.FALLBACK_SUCCESS));
+        assertFalse(command.isResponseTimedOut());
+        assertTrue(command.ran.get());
+    }
+
+    @Test
+    public void testConfiguredTimeoutBeforeDeadline() {
+        SleepCommand command = new SleepCommand("ConfiguredTimeoutBeforeDeadline", ExecutionIsolationStrategy.THREAD, 1000, 100, true);
+        context.setDeadline(2, TimeUnit.SECONDS);
+
+        assertFalse(command.execute());
+        assertTrue(command.isResponseTimedOut());
+        assertFalse(command.getExecutionEvents().contains(HystrixEventType.DEADLINE_EXCEEDED));
+    }
+
+    @Test
+    public void testNoDeadline() {
+        SleepCommand command = new SleepCommand("NoDeadline", ExecutionIsolationStrategy.THREAD, 50, 1000, true);
+
+        assertTrue(command.execute());
+        assertEquals(1, command.getExecutionEvents().size());
+        assertTrue(command.isSuccessfulExecution());
+    }
+
+    @Test
+    public void testExhaustedDeadlineFailsFastWithoutThread() throws InterruptedException {
+        context.setDeadline(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        SleepCommand command = new SleepCommand("ExhaustedDeadline", ExecutionIsolationStrategy.THREAD, 10, 1000, true);
+
+        assertFalse(command.execute());
+        assertFalse(command.ran.get());
+        assertFalse(command.isExecutedInThread());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.DEADLINE_EXCEEDED));
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.FALLBACK_SUCCESS));
+        assertTrue(command.getExecutionException() instanceof TimeoutException);
+    }
+
+    @Test
+    public void testExhaustedDeadlineWithoutFallback() throws InterruptedException {
+        context.setDeadline(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        SleepCommand command = new SleepCommand("ExhaustedDeadlineNoFallback", ExecutionIsolationStrategy.THREAD, 10, 1000, false);
+
+        try {
+            command.execute();
+            fail("expected a HystrixRuntimeException");
+        } catch (HystrixRuntimeException e) {
+            assertEquals(FailureType.TIMEOUT, e.getFailureType());
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertFalse(command.ran.get());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.DEADLINE_EXCEEDED));
+    }
+
+    @Test
+    public void testExhaustedDeadlineOnCallingThread() throws InterruptedException {
+        context.setDeadline(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(GROUP)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("ExhaustedDeadlineOnCallingThread"))
+                .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                        .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                        .withExecutionTimeoutEnabled(false)
+                        .withExecutionIsolationSemaphoreSynchronousExecutionEnabled(true));
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        HystrixCommand<Boolean> command = new HystrixCommand<Boolean>(setter) {
+            @Override
+            protected Boolean run() throws Exception {
+                ran.set(true);
+                return true;
+            }
+
+            @Override
+            protected Boolean getFallback() {
+                return false;
+            }
+        };
+
+        assertFalse(command.execute());
+        assertFalse(ran.get());
+        assertTrue(command.getExecutionEvents().contains(HystrixEventType.DEADLINE_EXCEEDED));
+    }
+
+    @Test
+    public void testDeadlineFollowsContextToOtherThreads() throws Exception {
+        context.setDeadline(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        final AtomicReference<SleepCommand> command = new AtomicReference<SleepCommand>();
+        Thread thread = new Thread(new HystrixContextRunnable(new Runnable() {
+            @Override
+            public void run() {
+                SleepCommand c = new SleepCommand("DeadlineOtherThread", ExecutionIsolationStrategy.THREAD, 10, 1000, true);
+                c.execute();
+                command.set(c);
+            }
+        }));
+        thread.start();
+        thread.join();
+
+        assertFalse(command.get().ran.get());
+        assertTrue(command.get().getExecutionEvents().contains(HystrixEventType.DEADLINE_EXCEEDED));
+    }
+
+    @Test
+    public void testDeadlineExceededInMetricsStream() throws InterruptedException {
+        context.setDeadline(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("DeadlineMetrics");
+        final List<HystrixCommandCompletion> completions = new CopyOnWriteArrayList<HystrixCommandCompletion>();
+        HystrixCommandCompletionStream.getInstance(key).observe().subscribe(new Action1<HystrixCommandCompletion>() {
+            @Override
+            public void call(HystrixCommandCompletion completion) {
+                completions.add(completion);
+            }
+        });
+
+        new SleepCommand(key.name(), ExecutionIsolationStrategy.THREAD, 10, 1000, true).execute();
+
+        assertEquals(1, completions.size());
+        assertEquals(1, completions.get(0).getEventCounts().getCount(HystrixEventType.DEADLINE_EXCEEDED));
+        assertEquals(0, completions.get(0).getEventCounts().getCount(HystrixEventType.TIMEOUT));
+    }
+
+    private static class SleepCommand extends HystrixCommand<Boolean> {
+        private final int sleepInMilliseconds;
+        private final AtomicBoolean ran = new AtomicBoolean(false);
+
+        SleepCommand(String name, ExecutionIsolationStrategy isolationStrategy, int sleepInMilliseconds, int timeoutInMilliseconds, boolean fallbackEnabled) {
+            super(Setter.withGroupKey(GROUP)
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(isolationStrategy)
+                            .withExecutionTimeoutInMilliseconds(timeoutInMilliseconds)
+                            .withFallbackEnabled(fallbackEnabled)));
+            this.sleepInMilliseconds = sleepInMilliseconds;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            ran.set(true);
+            Thread.sleep(sleepInMilliseconds);
+            return true;
+        }
+
+        @Override
+        protected Boolean getFallback() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCommandDefault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HystrixResponseCacheTest {
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testGetAndPut() {
+        HystrixResponseCache cache = newCache("ResponseCacheGetPut", 60000, 0, 10);
+        assertNull(cache.get("a"));
+
+        assertEquals(0, cache.put("a", Collections.singletonList("A"), 1));
+        HystrixResponseCache.Entry<String> entry = cache.get("a");
+        assertNotNull(entry);
+        assertEquals(Collections.singletonList("A"), entry.getValues());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getWeight());
+
+        cache.clear("a");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        HystrixResponseCache cache = newCache("ResponseCacheExpiry", 50, 100, 10);
+        cache.put("a", Collections.singletonList("A"), 1);
+        assertEquals(HystrixResponseCache.State.FRESH, cache.get("a").getState(properties("ResponseCacheExpiry", 50, 100, 10)));
+
+        Thread.sleep(75);
+        HystrixResponseCache.Entry<String> stale = cache.get("a");
+        assertEquals(HystrixResponseCache.State.STALE, stale.getState(properties("ResponseCacheExpiry", 50, 100, 10)));
+        assertTrue(stale.startRefresh());
+        assertFalse(stale.startRefresh());
+        stale.refreshFailed();
+        assertTrue(stale.startRefresh());
+
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedForMoreFrequentKey() {
+        HystrixResponseCache cache = newCache("ResponseCacheEviction", 60000, 0, 3);
+        for (String key : new String[] { "a", "b", "c" }) {
+            cache.get(key);
+            cache.put(key, Collections.singletonList(key), 1);
+        }
+        // a is used again, so b is the least recently used
+        cache.get("a");
+
+        cache.get("d");
+        cache.get("d");
+        assertEquals(1, cache.put("d", Collections.singletonList("d"), 1));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("d"));
+        assertEquals(3, cache.getWeight());
+    }
+
+    @Test
+    public void testKeySeenOnceNotAdmitted() {
+        HystrixResponseCache cache = newCache("ResponseCacheAdmission", 60000, 0, 2);
+        for (int i = 0; i < 3; i++) {
+            cache.get("a");
+            cache.get("b");
+        }
+        cache.put("a", Collections.singletonList("a"), 1);
+        cache.put("b", Collections.singletonList("b"), 1);
+
+        cache.get("once");
+        assertEquals(0, cache.put("once", Collections.singletonList("once"), 1));
+        assertNull(cache.get("once"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    public void testWeightedEviction() {
+        HystrixResponseCache cache = newCache("ResponseCacheWeight", 60000, 0, 10);
+        cache.put("a", Collections.singletonList("a"), 4);
+        cache.put("b", Collections.singletonList("b"), 4);
+
+        // heavier than the whole cache
+        assertEquals(0, cache.put("huge", Collections.singletonList("huge"), 11));
+        assertNull(cache.get("huge"));
+
+        // replacing a response is always allowed, and makes room by evicting the other
+        assertEquals(1, cache.put("a", Collections.singletonList("a2"), 8));
+        assertEquals(Collections.singletonList("a2"), cache.<String>get("a").getValues());
+        assertNull(cache.get("b"));
+        assertEquals(8, cache.getWeight());
+    }
+
+    @Test
+    public void testResponseSharedAcrossRequests() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        CachedCommand first = new CachedCommand("ResponseCacheShared", "x", executions, 60000, 0);
+        // start counting events
+        first.getMetrics().getRollingCount(HystrixEventType.RESPONSE_CACHE_HIT);
+        assertEquals("x-1", first.execute());
+        assertFalse(first.isResponseFromCache());
+        assertTrue(first.getExecutionEvents().contains(HystrixEventType.RESPONSE_CACHE_MISS));
+
+        context.shutdown();
+        context = HystrixRequestContext.initializeContext();
+
+        CachedCommand second = new CachedCommand("ResponseCacheShared", "x", executions, 60000, 0);
+        assertEquals("x-1", second.execute());
+        assertTrue(second.isResponseFromCache());
+        assertTrue(second.getExecutionEvents().contains(HystrixEventType.RESPONSE_CACHE_HIT));
+        assertEquals(1, executions.get());
+
+        Thread.sleep(150);
+        assertEquals(1, second.getMetrics().getRollingCount(HystrixEventType.RESPONSE_CACHE_MISS));
+        assertEquals(1, second.getMetrics().getRollingCount(HystrixEventType.RESPONSE_CACHE_HIT));
+    }
+
+    @Test
+    public void testFallbackNotCached() {
+        AtomicInteger executions = new AtomicInteger();
+        CachedCommand failing = new CachedCommand("ResponseCacheFallback", "x", executions, 60000, 0);
+        failing.fail = true;
+        assertEquals("fallback", failing.execute());
+        assertNull(HystrixResponseCache.getInstance(failing.getCommandKey()).get("x"));
+
+        CachedCommand succeeding = new CachedCommand("ResponseCacheFallback", "y", executions, 60000, 0);
+        assertEquals("y-2", succeeding.execute());
+        assertNotNull(HystrixResponseCache.getInstance(succeeding.getCommandKey()).get("y"));
+    }
+
+    @Test
+    public void testStaleResponseReturnedWhileRefreshed() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        assertEquals("x-1", new CachedCommand("ResponseCacheStale", "x", executions, 50, 60000).execute());
+
+        Thread.sleep(100);
+        CachedCommand stale = new CachedCommand("ResponseCacheStale", "x", executions, 50, 60000);
+        assertEquals("x-1", stale.execute());
+        assertTrue(stale.isResponseFromCache());
+
+        // the stale command refreshed the response
+        awaitResponse("ResponseCacheStale", "x", "x-2");
+        assertEquals(2, executions.get());
+        CachedCommand refreshed = new CachedCommand("ResponseCacheStale", "x", executions, 50, 60000);
+        assertEquals("x-2", refreshed.execute());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testStaleResponseReturnedWithoutWaitingForRefresh() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        assertEquals("x-1", new CachedCommand("ResponseCacheStaleSlow", "x", executions, 50, 60000).execute());
+
+        Thread.sleep(100);
+        CachedCommand stale = new CachedCommand("ResponseCacheStaleSlow", "x", executions, 50, 60000);
+        stale.sleepInMilliseconds = 500;
+        long start = System.currentTimeMillis();
+        assertEquals("x-1", stale.execute());
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("took " + elapsed + "ms", elapsed < 250);
+        assertTrue(stale.isResponseFromCache());
+
+        // the refresh carries on after the stale response has been returned
+        awaitResponse("ResponseCacheStaleSlow", "x", "x-2");
+    }
+
+    @Test
+    public void testStaleResponseRefreshedInBackgroundWithRequestCache() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        assertEquals("x-1", new CachedCommand("ResponseCacheStaleRequestCache", "x", executions, 50, 60000, true).execute());
+
+        Thread.sleep(100);
+        // in a new request, so the response can't come from the request cache
+        context.shutdown();
+        context = HystrixRequestContext.initializeContext();
+        CachedCommand stale = new CachedCommand("ResponseCacheStaleRequestCache", "x", executions, 50, 60000, true);
+        stale.sleepInMilliseconds = 500;
+        long start = System.currentTimeMillis();
+        assertEquals("x-1", stale.execute());
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("took " + elapsed + "ms", elapsed < 250);
+
+        awaitResponse("ResponseCacheStaleRequestCache", "x", "x-2");
+        assertTrue(stale.runThreadName, stale.runThreadName.startsWith("HystrixResponseCache-Refresh-"));
+    }
+
+    @Test
+    public void testEvictionsCountedOnCommand() {
+        AtomicInteger executions = new AtomicInteger();
+        HystrixCommandKey key = HystrixCommandKey.Factory.asKey("ResponseCacheEvictions");
+        HystrixResponseCache cache = HystrixResponseCache.getInstance(key, properties(key.name(), 60000, 0, 1));
+
+        new CachedCommand(key.name(), "a", executions, 60000, 0).execute();
+        // seen more often than a, so it is admitted
+        cache.get("b");
+        CachedCommand evicting = new CachedCommand(key.name(), "b", executions, 60000, 0);
+        evicting.execute();
+        assertEquals(1, evicting.executionResult.getEventCounts().getCount(HystrixEventType.RESPONSE_CACHE_EVICTION));
+        assertNull(cache.get("a"));
+    }
+
+    /**
+     * Wait for a background refresh to store the given response.
+     */
+    private static void awaitResponse(String key, String cacheKey, String expected) throws InterruptedException {
+        HystrixResponseCache cache = HystrixResponseCache.getInstance(HystrixCommandKey.Factory.asKey(key));
+        for (int i = 0; i < 100; i++) {
+            HystrixResponseCache.Entry<String> entry = cache.get(cacheKey);
+            if (entry != null && entry.getValues().equals(Collections.singletonList(expected))) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("response was not refreshed to " + expected);
+    }
+
+    private static HystrixResponseCache newCache(String key, int timeToLive, int staleWhileRevalidate, int maxWeight) {
+        return new HystrixResponseCache(properties(key, timeToLive, staleWhileRevalidate, maxWeight));
+    }
+
+    private static HystrixCommandProperties properties(String key, int timeToLive, int staleWhileRevalidate, int maxWeight) {
+        return new HystrixPropertiesCommandDefault(HystrixCommandKey.Factory.asKey(key), propertiesSetter(timeToLive, staleWhileRevalidate)
+                .withResponseCacheMaxWeight(maxWeight));
+    }
+
+    private static HystrixCommandProperties.Setter propertiesSetter(int timeToLive, int staleWhileRevalidate) {
+        return propertiesSetter(timeToLive, staleWhileRevalidate, false);
+    }
+
+    /**
+     * @param requestCacheEnabled false so that responses can only come from the response cache
+     */
+    private static HystrixCommandProperties.Setter propertiesSetter(int timeToLive, int staleWhileRevalidate, boolean requestCacheEnabled) {
+        return HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                .withMetricsRollingStatisticalWindowInMilliseconds(1000)
+                .withMetricsRollingStatisticalWindowBuckets(10)
+                .withRequestCacheEnabled(requestCacheEnabled)
+                .withResponseCacheEnabled(true)
+                .withResponseCacheTimeToLiveInMilliseconds(timeToLive)
+                .withResponseCacheStaleWhileRevalidateInMilliseconds(staleWhileRevalidate);
+    }
+
+    private static class CachedCommand extends HystrixCommand<String> {
+        private final String value;
+        private final AtomicInteger executions;
+        boolean fail = false;
+        int sleepInMilliseconds = 0;
+        volatile String runThreadName;
+
+        CachedCommand(String key, String value, AtomicInteger executions, int timeToLive, int staleWhileRevalidate) {
+            this(key, value, executions, timeToLive, staleWhileRevalidate, false);
+        }
+
+        CachedCommand(String key, String value, AtomicInteger executions, int timeToLive, int staleWhileRevalidate, boolean requestCacheEnabled) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("ResponseCache"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(key))
+                    .andCommandPropertiesDefaults(propertiesSetter(timeToLive, staleWhileRevalidate, requestCacheEnabled)));
+            this.value = value;
+            this.executions = executions;
+        }
+
+        @Override
+        protected String run() throws Exception {
+            runThreadName = Thread.currentThread().getName();
+            if (sleepInMilliseconds > 0) {
+                Thread.sleep(sleepInMilliseconds);
+            }
+            int execution = executions.incrementAndGet();
+            if (fail) {
+                throw new RuntimeException("induced failure");
+            }
+            return value + "-" + execution;
+        }
+
+        @Override
+        protected String getFallback() {
+            return "fallback";
+        }
+
+        @Override
+        protected String getCacheKey() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.hystrix.junit.HystrixRequestContextRule;
+import com.netflix.hystrix.HystrixCircuitBreaker.HystrixSlidingWindowCircuitBreakerImpl;
+import com.netflix.hystrix.HystrixCommandProperties.CircuitBreakerImplementation;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixSlidingWindowCircuitBreakerTest {
+
+    @Rule
+    public HystrixRequestContextRule ctx = new HystrixRequestContextRule();
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testImplementationSelectedByProperty() {
+        HystrixCommand<Boolean> slidingWindow = new TestCommand("SlidingWindowSelected", CircuitBreakerImplementation.SLIDING_WINDOW, false);
+        assertTrue(slidingWindow.circuitBreaker instanceof HystrixSlidingWindowCircuitBreakerImpl);
+
+        HystrixCommand<Boolean> snapshot = new TestCommand("SnapshotSelected", CircuitBreakerImplementation.HEALTH_SNAPSHOT, false);
+        assertTrue(snapshot.circuitBreaker instanceof HystrixCircuitBreaker.HystrixCircuitBreakerImpl);
+    }
+
+    @Test
+    public void testTripsOnCompletionCrossingThreshold() {
+        String key = "SlidingWindowTripLatency";
+        HystrixCircuitBreaker cb = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false).circuitBreaker;
+
+        for (int i = 0; i < 5; i++) {
+            new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false).execute();
+        }
+        for (int i = 0; i < 4; i++) {
+            new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, true).execute();
+        }
+        // 4 of 9 failed, below the 50% threshold
+        assertFalse(cb.isOpen());
+
+        // 5 of 10 is the one that trips it, without waiting for a health snapshot
+        TestCommand tripping = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, true);
+        tripping.execute();
+        assertTrue(cb.isOpen());
+        assertFalse(cb.attemptExecution());
+
+        TestCommand shortCircuited = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false);
+        assertFalse(shortCircuited.execute());
+        assertTrue(shortCircuited.isResponseShortCircuited());
+    }
+
+    @Test
+    public void testSnapshotBreakerWaitsForHealthSnapshot() {
+        String key = "SnapshotTripLatency";
+        HystrixCircuitBreaker cb = new TestCommand(key, CircuitBreakerImplementation.HEALTH_SNAPSHOT, false).circuitBreaker;
+
+        for (int i = 0; i < 10; i++) {
+            new TestCommand(key, CircuitBreakerImplementation.HEALTH_SNAPSHOT, true).execute();
+        }
+        // nothing trips until the next snapshot, 10s away
+        assertFalse(cb.isOpen());
+    }
+
+    @Test
+    public void testVolumeThreshold() {
+        String key = "SlidingWindowVolume";
+        HystrixCircuitBreaker cb = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false).circuitBreaker;
+
+        for (int i = 0; i < 9; i++) {
+            new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, true).execute();
+        }
+        assertFalse(cb.isOpen());
+        new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, true).execute();
+        assertTrue(cb.isOpen());
+    }
+
+    @Test
+    public void testHealthResetWhenCircuitCloses() throws InterruptedException {
+        String key = "SlidingWindowReset";
+        HystrixSlidingWindowCircuitBreakerImpl cb = (HystrixSlidingWindowCircuitBreakerImpl) new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false).circuitBreaker;
+
+        for (int i = 0; i < 10; i++) {
+            new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, true).execute();
+        }
+        assertTrue(cb.isOpen());
+        assertEquals(10, cb.getHealthCounter().getTotalRequests());
+
+        Thread.sleep(SLEEP_WINDOW + 50);
+        TestCommand singleTest = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false);
+        assertTrue(singleTest.execute());
+        assertFalse(cb.isOpen());
+        assertEquals(0, cb.getHealthCounter().getErrorCount());
+
+        // the failures from before the circuit opened no longer count towards tripping it
+        new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, true).execute();
+        assertFalse(cb.isOpen());
+    }
+
+    @Test
+    public void testMarkCompletionIgnoresEventsWithoutHealth() {
+        String key = "SlidingWindowIgnored";
+        HystrixSlidingWindowCircuitBreakerImpl cb = (HystrixSlidingWindowCircuitBreakerImpl) new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, false).circuitBreaker;
+
+        cb.markCompletion(ExecutionResult.from(HystrixEventType.SHORT_CIRCUITED, HystrixEventType.FALLBACK_SUCCESS).getEventCounts());
+        cb.markCompletion(ExecutionResult.from(HystrixEventType.BAD_REQUEST).getEventCounts());
+        assertEquals(0, cb.getHealthCounter().getTotalRequests());
+
+        cb.markCompletion(ExecutionResult.from(HystrixEventType.TIMEOUT, HystrixEventType.FALLBACK_SUCCESS).getEventCounts());
+        cb.markCompletion(ExecutionResult.from(HystrixEventType.SEMAPHORE_REJECTED, HystrixEventType.FALLBACK_FAILURE).getEventCounts());
+        cb.markCompletion(ExecutionResult.from(HystrixEventType.SUCCESS).getEventCounts());
+        assertEquals(3, cb.getHealthCounter().getTotalRequests());
+        assertEquals(2, cb.getHealthCounter().getErrorCount());
+    }
+
+    private static final int SLEEP_WINDOW = 200;
+
+    private static class TestCommand extends HystrixCommand<Boolean> {
+        private final boolean shouldFail;
+
+        TestCommand(String key, CircuitBreakerImplementation implementation, boolean shouldFail) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("SlidingWindowCircuitBreaker"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(key))
+                    .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                            .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                            .withCircuitBreakerImplementation(implementation)
+                            .withCircuitBreakerRequestVolumeThreshold(10)
+                            .withCircuitBreakerErrorThresholdPercentage(50)
+                            .withCircuitBreakerSleepWindowInMilliseconds(SLEEP_WINDOW)
+                            .withMetricsRollingStatisticalWindowInMilliseconds(20000)
+                            .withMetricsRollingStatisticalWindowBuckets(10)
+                            .withMetricsHealthSnapshotIntervalInMilliseconds(10000)));
+            this.shouldFail = shouldFail;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            if (shouldFail) {
+                throw new RuntimeException("induced failure");
+            }
+            return true;
+        }
+
+        @Override
+        protected Boolean getFallback() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.hystrix.junit.HystrixRequestContextRule;
+import com.netflix.hystrix.HystrixCircuitBreaker.HystrixSlidingWindowCircuitBreakerImpl;
+import com.netflix.hystrix.HystrixCircuitBreaker.OpenReason;
+import com.netflix.hystrix.HystrixCommandProperties.CircuitBreakerImplementation;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixSlowCallCircuitBreakerTest {
+
+    @Rule
+    public HystrixRequestContextRule ctx = new HystrixRequestContextRule();
+
+    private final List<OpenReason> openReasons = new CopyOnWriteArrayList<OpenReason>();
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        HystrixPlugins.reset();
+        HystrixPlugins.getInstance().registerEventNotifier(new HystrixEventNotifier() {
+            @Override
+            public void markCircuitBreakerOpened(HystrixCommandKey key, OpenReason reason) {
+                openReasons.add(reason);
+            }
+        });
+    }
+
+    @After
+    public void cleanup() {
+        HystrixPlugins.reset();
+    }
+
+    @Test
+    public void testTripsOnSlowCallPercentage() {
+        String key = "SlowCallTrip";
+        HystrixSlidingWindowCircuitBreakerImpl cb = (HystrixSlidingWindowCircuitBreakerImpl) new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, 100, 0).circuitBreaker;
+
+        for (int i = 0; i < 5; i++) {
+            cb.markCompletion(ExecutionResult.from(HystrixEventType.SUCCESS).getEventCounts(), 10);
+        }
+        for (int i = 0; i < 4; i++) {
+            cb.markCompletion(ExecutionResult.from(HystrixEventType.SUCCESS).getEventCounts(), 100);
+        }
+        // 4 of 9 were slow, below the 50% threshold
+        assertFalse(cb.isOpen());
+        assertNull(cb.getOpenReason());
+
+        cb.markCompletion(ExecutionResult.from(HystrixEventType.SUCCESS).getEventCounts(), 250);
+        assertTrue(cb.isOpen());
+        assertEquals(OpenReason.SLOW_CALL_PERCENTAGE, cb.getOpenReason());
+        assertEquals(OpenReason.SLOW_CALL_PERCENTAGE, HystrixCircuitBreaker.Factory.getOpenReason(HystrixCommandKey.Factory.asKey(key)));
+        assertEquals(1, openReasons.size());
+        assertEquals(OpenReason.SLOW_CALL_PERCENTAGE, openReasons.get(0));
+    }
+
+    @Test
+    public void testErrorPercentageReportedAsReason() {
+        String key = "SlowCallErrorReason";
+        HystrixSlidingWindowCircuitBreakerImpl cb = (HystrixSlidingWindowCircuitBreakerImpl) new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, 100, 0).circuitBreaker;
+
+        for (int i = 0; i < 10; i++) {
+            // slow as well as failing, and errors are checked first
+            cb.markCompletion(ExecutionResult.from(HystrixEventType.FAILURE).getEventCounts(), 200);
+        }
+        assertTrue(cb.isOpen());
+        assertEquals(OpenReason.ERROR_PERCENTAGE, cb.getOpenReason());
+        assertEquals(1, openReasons.size());
+        assertEquals(OpenReason.ERROR_PERCENTAGE, openReasons.get(0));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        String key = "SlowCallDisabled";
+        HystrixSlidingWindowCircuitBreakerImpl cb = (HystrixSlidingWindowCircuitBreakerImpl) new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, 0, 0).circuitBreaker;
+
+        for (int i = 0; i < 10; i++) {
+            cb.markCompletion(ExecutionResult.from(HystrixEventType.SUCCESS).getEventCounts(), 60000);
+        }
+        assertFalse(cb.isOpen());
+        assertEquals(0, cb.getHealthCounter().getSlowCallCount());
+        assertTrue(openReasons.isEmpty());
+    }
+
+    @Test
+    public void testSlowExecutionsTripSlidingWindow() {
+        String key = "SlowCallExecutions";
+        HystrixCircuitBreaker cb = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, 20, 0).circuitBreaker;
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, 20, 30).execute());
+        }
+        assertTrue(cb.isOpen());
+
+        TestCommand shortCircuited = new TestCommand(key, CircuitBreakerImplementation.SLIDING_WINDOW, 20, 0);
+        assertFalse(shortCircuited.execute());
+        assertTrue(shortCircuited.isResponseShortCircuited());
+    }
+
+    @Test
+    public void testSlowCallsCountedInHealthSnapshot() throws InterruptedException {
+        String key = "SlowCallSnapshot";
+        TestCommand first = new TestCommand(key, CircuitBreakerImplementation.HEALTH_SNAPSHOT, 20, 30);
+        HystrixCircuitBreaker cb = first.circuitBreaker;
+
+        first.execute();
+        for (int i = 0; i < 9; i++) {
+            new TestCommand(key, CircuitBreakerImplementation.HEALTH_SNAPSHOT, 20, i < 5 ? 30 : 0).execute();
+        }
+        Thread.sleep(300);
+
+        HystrixCommandMetrics.HealthCounts health = first.metrics.getHealthCounts();
+        assertEquals(10, health.getTotalRequests());
+        assertEquals(6, health.getSlowCallCount());
+        assertEquals(60, health.getSlowCallPercentage());
+        assertTrue(cb.isOpen());
+        assertEquals(OpenReason.SLOW_CALL_PERCENTAGE, HystrixCircuitBreaker.Factory.getOpenReason(HystrixCommandKey.Factory.asKey(key)));
+    }
+
+    private static class TestCommand extends HystrixCommand<Boolean> {
+        private final int sleepInMilliseconds;
+
+        TestCommand(String key, CircuitBreakerImplementation implementation, int slowCallThreshold, int sleepInMilliseconds) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("SlowCallCircuitBreaker"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(key))
+                    .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                            .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                            .withCircuitBreakerImplementation(implementation)
+                            .withCircuitBreakerRequestVolumeThreshold(10)
+                            .withCircuitBreakerErrorThresholdPercentage(50)
+                            .withCircuitBreakerSlowCallDurationThresholdInMilliseconds(slowCallThreshold)
+                            .withCircuitBreakerSlowCallRateThresholdPercentage(50)
+                            .withMetricsRollingStatisticalWindowInMilliseconds(20000)
+                            .withMetricsRollingStatisticalWindowBuckets(10)
+                            .withMetricsHealthSnapshotIntervalInMilliseconds(100)));
+            this.sleepInMilliseconds = sleepInMilliseconds;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            if (sleepInMilliseconds > 0) {
+                Thread.sleep(sleepInMilliseconds);
+            }
+            return true;
+        }
+
+        @Override
+        protected Boolean getFallback() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix;
+
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.util.PlatformSpecific;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixVirtualThreadBulkheadTest {
+
+    @Before
+    public void setup() {
+        Hystrix.reset();
+    }
+
+    private static class VirtualThreadCommand extends HystrixCommand<String> {
+        private final CountDownLatch startLatch;
+        private final CountDownLatch releaseLatch;
+        private final AtomicReference<Thread> runThread = new AtomicReference<Thread>();
+        private final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+        VirtualThreadCommand(String key, int maxConcurrentRequests, int timeoutInMs, CountDownLatch startLatch, CountDownLatch releaseLatch) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("VirtualThread"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(key))
+                    .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(key))
+                    .andCommandPropertiesDefaults(HystrixCommandPropertiesTest.getUnitTestPropertiesSetter()
+                            .withExecutionIsolationStrategy(ExecutionIsolationStrategy.VIRTUAL_THREAD)
+                            .withExecutionTimeoutInMilliseconds(timeoutInMs))
+                    .andThreadPoolPropertiesDefaults(HystrixThreadPoolPropertiesTest.getUnitTestPropertiesBuilder()
+                            .withVirtualThreadMaxConcurrentRequests(maxConcurrentRequests)));
+            this.startLatch = startLatch;
+            this.releaseLatch = releaseLatch;
+        }
+
+        @Override
+        protected String run() throws Exception {
+            runThread.set(Thread.currentThread());
+            startLatch.countDown();
+            try {
+                releaseLatch.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return "success";
+        }
+
+        @Override
+        protected String getFallback() {
+            return "fallback";
+        }
+    }
+
+    @Test
+    public void testRunsOnNewThreadPerExecution() throws Exception {
+        CountDownLatch released = new CountDownLatch(0);
+        VirtualThreadCommand first = new VirtualThreadCommand("VirtualThreadNewThread", 10, 1000, new CountDownLatch(1), released);
+        VirtualThreadCommand second = new VirtualThreadCommand("VirtualThreadNewThread", 10, 1000, new CountDownLatch(1), released);
+
+        assertEquals("success", first.execute());
+        assertEquals("success", second.execute());
+
+        assertTrue(first.isExecutedInThread());
+        assertNotSame(Thread.currentThread(), first.runThread.get());
+        assertNotSame(first.runThread.get(), second.runThread.get());
+        assertTrue(first.runThread.get().getName().startsWith("hystrix-VirtualThreadNewThread-"));
+        assertTrue(first.getExecutionEvents().contains(HystrixEventType.SUCCESS));
+
+        HystrixVirtualThreadBulkhead bulkhead = HystrixVirtualThreadBulkhead.Factory.getInstance(HystrixThreadPoolKey.Factory.asKey("VirtualThreadNewThread"));
+        waitForRelease(bulkhead);
+        assertEquals(2, bulkhead.getTaskCount());
+        assertEquals(2, bulkhead.getCompletedTaskCount());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    public void testRejectionWhenPermitsExhausted() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        VirtualThreadCommand first = new VirtualThreadCommand("VirtualThreadRejection", 2, 5000, started, release);
+        VirtualThreadCommand second = new VirtualThreadCommand("VirtualThreadRejection", 2, 5000, started, release);
+        VirtualThreadCommand third = new VirtualThreadCommand("VirtualThreadRejection", 2, 5000, started, release);
+
+        Future<String> f1 = first.queue();
+        Future<String> f2 = second.queue();
+        assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+
+        HystrixThreadPoolMetrics threadPoolMetrics = HystrixThreadPoolMetrics.getInstance(HystrixThreadPoolKey.Factory.asKey("VirtualThreadRejection"));
+        assertEquals(2, threadPoolMetrics.getCurrentActiveCount().intValue());
+
+        assertEquals("fallback", third.execute());
+        assertTrue(third.isResponseRejected());
+        assertTrue(third.getExecutionEvents().contains(HystrixEventType.THREAD_POOL_REJECTED));
+        assertTrue(third.getExecutionEvents().contains(HystrixEventType.FALLBACK_SUCCESS));
+
+        release.countDown();
+        assertEquals("success", f1.get());
+        assertEquals("success", f2.get());
+
+        waitForRelease(HystrixVirtualThreadBulkhead.Factory.getInstance(HystrixThreadPoolKey.Factory.asKey("VirtualThreadRejection")));
+        assertEquals(0, threadPoolMetrics.getCurrentActiveCount().intValue());
+        assertEquals(2, threadPoolMetrics.getCurrentCompletedTaskCount().intValue());
+    }
+
+    @Test
+    public void testTimeoutInterruptsThread() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        VirtualThreadCommand command = new VirtualThreadCommand("VirtualThreadTimeout", 10, 100, started, neverReleased);
+
+        assertEquals("fallback", command.execute());
+        assertTrue(command.isResponseTimedOut());
+
+        HystrixVirtualThreadBulkhead bulkhead = HystrixVirtualThreadBulkhead.Factory.getInstance(HystrixThreadPoolKey.Factory.asKey("VirtualThreadTimeout"));
+        waitForRelease(bulkhead);
+        assertTrue(command.interrupted.get());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    public void testPermitsAcquiredAndReleased() {
+        HystrixThreadPoolKey key = HystrixThreadPoolKey.Factory.asKey("VirtualThreadPermits");
+        HystrixVirtualThreadBulkhead bulkhead = HystrixVirtualThreadBulkhead.Factory.getInstance(key,
+                HystrixThreadPoolPropertiesTest.getUnitTestPropertiesBuilder().withVirtualThreadMaxConcurrentRequests(1));
+        assertSame(bulkhead, HystrixVirtualThreadBulkhead.Factory.getInstance(key, null));
+
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+        bulkhead.release();
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(2, bulkhead.getTaskCount());
+    }
+
+    @Test
+    public void testThreadTypeMatchesPlatform() throws Exception {
+        VirtualThreadCommand command = new VirtualThreadCommand("VirtualThreadType", 10, 1000, new CountDownLatch(1), new CountDownLatch(0));
+        assertEquals("success", command.execute());
+        if (PlatformSpecific.isVirtualThreadSupported()) {
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(command.runThread.get()));
+        } else {
+            assertTrue(command.runThread.get().isDaemon());
+        }
+    }
+
+    private static void waitForRelease(HystrixVirtualThreadBulkhead bulkhead) throws InterruptedException {
+        //permits get released as the thread exits, which can be just after the command has returned its value
+        for (int i = 0; i < 100 && bulkhead.getActiveCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
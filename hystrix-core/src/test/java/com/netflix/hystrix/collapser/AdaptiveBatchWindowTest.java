@@ -0,0 +1,181 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.collapser;
+
+import com.netflix.hystrix.HystrixCollapser.CollapsedRequest;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserMetrics;
+import com.netflix.hystrix.HystrixCollapserProperties;
+import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategyDefault;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCollapserDefault;
+import com.netflix.hystrix.util.HystrixTimer.TimerListener;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Func1;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveBatchWindowTest {
+
+    @Test
+    public void testWindowFollowsBatchLatency() {
+        // 1 request/ms, so plenty arrive within the max delay
+        assertEquals(25, AdaptiveBatchWindow.computeWindow(1.0, 25, 10, 1, 50));
+        assertEquals(50, AdaptiveBatchWindow.computeWindow(1.0, 200, 10, 1, 50));
+        assertEquals(5, AdaptiveBatchWindow.computeWindow(1.0, 0, 10, 5, 50));
+    }
+
+    @Test
+    public void testWindowUsesTimerDelayUntilBatchLatencyKnown() {
+        assertEquals(10, AdaptiveBatchWindow.computeWindow(1.0, -1, 10, 1, 50));
+        assertEquals(50, AdaptiveBatchWindow.computeWindow(1.0, -1, 100, 1, 50));
+    }
+
+    @Test
+    public void testWindowIsMinWhenRequestsTooSparseToBatch() {
+        // 1 request every 100ms, so a request held for 50ms is unlikely to be joined by another
+        assertEquals(1, AdaptiveBatchWindow.computeWindow(0.01, 25, 10, 1, 50));
+        assertEquals(1, AdaptiveBatchWindow.computeWindow(0, 25, 10, 1, 50));
+        // 1 request every 40ms will usually be joined within 50ms
+        assertEquals(25, AdaptiveBatchWindow.computeWindow(0.025, 25, 10, 1, 50));
+    }
+
+    @Test
+    public void testTargetBatchSizeIsExpectedArrivals() {
+        assertEquals(25, AdaptiveBatchWindow.computeTargetBatchSize(1.0, 25, Integer.MAX_VALUE));
+        assertEquals(3, AdaptiveBatchWindow.computeTargetBatchSize(0.1, 25, Integer.MAX_VALUE));
+        assertEquals(2, AdaptiveBatchWindow.computeTargetBatchSize(0.0, 25, Integer.MAX_VALUE));
+        assertEquals(10, AdaptiveBatchWindow.computeTargetBatchSize(1.0, 25, 10));
+    }
+
+    @Test
+    public void testBatchWindowInMetrics() {
+        HystrixCollapserKey key = HystrixCollapserKey.Factory.asKey("AdaptiveBatchWindowMetrics");
+        HystrixCollapserProperties properties = new HystrixPropertiesCollapserDefault(key, HystrixCollapserProperties.Setter()
+                .withTimerDelayInMilliseconds(1000)
+                .withAdaptiveBatchWindowEnabled(true)
+                .withAdaptiveBatchWindowMinDelayInMilliseconds(2)
+                .withAdaptiveBatchWindowMaxDelayInMilliseconds(100));
+        HystrixCollapserMetrics metrics = HystrixCollapserMetrics.getInstance(key, properties);
+        assertEquals(1000, metrics.getBatchWindowInMilliseconds());
+
+        new RequestCollapser<List<String>, String, String>(new TestBridge(key), properties, new ManualTimer(), HystrixConcurrencyStrategyDefault.getInstance());
+        // nothing has been batched yet, so requests are too sparse to be worth holding
+        assertEquals(2, metrics.getBatchWindowInMilliseconds());
+    }
+
+    @Test
+    public void testBatchExecutedWhenFullEnough() {
+        HystrixCollapserKey key = HystrixCollapserKey.Factory.asKey("AdaptiveBatchWindowFullEnough");
+        TestBridge bridge = new TestBridge(key);
+        ManualTimer timer = new ManualTimer();
+        RequestCollapser<List<String>, String, String> collapser = newAdaptiveCollapser(bridge, timer);
+
+        // with no arrivals recorded yet, a second request is all it takes, without waiting for the timer
+        collapser.submitRequest("a");
+        assertEquals(0, bridge.batches.size());
+        collapser.submitRequest("b");
+        assertEquals(1, bridge.batches.size());
+        assertEquals(2, bridge.batches.get(0).size());
+    }
+
+    @Test
+    public void testBatchExecutedAfterWindow() throws InterruptedException {
+        HystrixCollapserKey key = HystrixCollapserKey.Factory.asKey("AdaptiveBatchWindowExpired");
+        TestBridge bridge = new TestBridge(key);
+        ManualTimer timer = new ManualTimer();
+        RequestCollapser<List<String>, String, String> collapser = newAdaptiveCollapser(bridge, timer);
+
+        collapser.submitRequest("a");
+        assertEquals(5, timer.listener.getIntervalTimeInMilliseconds());
+
+        // a tick straight away is within the 5ms window
+        timer.listener.tick();
+        assertEquals(0, bridge.batches.size());
+
+        Thread.sleep(10);
+        timer.listener.tick();
+        assertEquals(Collections.singletonList(Collections.singletonList("a")), bridge.batches);
+    }
+
+    private static RequestCollapser<List<String>, String, String> newAdaptiveCollapser(TestBridge bridge, ManualTimer timer) {
+        HystrixCollapserProperties properties = new HystrixPropertiesCollapserDefault(bridge.key, HystrixCollapserProperties.Setter()
+                .withTimerDelayInMilliseconds(1000)
+                .withAdaptiveBatchWindowEnabled(true)
+                .withAdaptiveBatchWindowMinDelayInMilliseconds(5)
+                .withAdaptiveBatchWindowMaxDelayInMilliseconds(1000));
+        return new RequestCollapser<List<String>, String, String>(bridge, properties, timer, HystrixConcurrencyStrategyDefault.getInstance());
+    }
+
+    private static class ManualTimer implements CollapserTimer {
+        TimerListener listener;
+
+        @Override
+        public Reference<TimerListener> addListener(TimerListener collapseTask) {
+            this.listener = collapseTask;
+            return new SoftReference<TimerListener>(collapseTask);
+        }
+    }
+
+    private static class TestBridge implements HystrixCollapserBridge<List<String>, String, String> {
+        final HystrixCollapserKey key;
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+        TestBridge(HystrixCollapserKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public Collection<Collection<CollapsedRequest<String, String>>> shardRequests(Collection<CollapsedRequest<String, String>> requests) {
+            return Collections.singletonList(requests);
+        }
+
+        @Override
+        public Observable<List<String>> createObservableCommand(Collection<CollapsedRequest<String, String>> requests) {
+            List<String> args = new ArrayList<String>();
+            for (CollapsedRequest<String, String> request : requests) {
+                args.add(request.getArgument());
+            }
+            batches.add(args);
+            return Observable.just(args);
+        }
+
+        @Override
+        public Observable<Void> mapResponseToRequests(Observable<List<String>> batchResponse, final Collection<CollapsedRequest<String, String>> requests) {
+            return batchResponse.flatMap(new Func1<List<String>, Observable<Void>>() {
+                @Override
+                public Observable<Void> call(List<String> args) {
+                    for (CollapsedRequest<String, String> request : requests) {
+                        request.setResponse(request.getArgument() + ":response");
+                    }
+                    return Observable.empty();
+                }
+            });
+        }
+
+        @Override
+        public HystrixCollapserKey getCollapserKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.collapser;
+
+import com.netflix.hystrix.HystrixCollapser.CollapsedRequest;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserProperties;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesCollapserDefault;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Func1;
+import rx.observers.TestSubscriber;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RequestBatchTest {
+
+    private static final HystrixCollapserKey KEY = HystrixCollapserKey.Factory.asKey("RequestBatchTest");
+
+    @Test
+    public void testConcurrentOffersAllLandInBatch() throws InterruptedException {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, Integer.MAX_VALUE);
+        final int numThreads = 8;
+        final int offersPerThread = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(numThreads);
+        final AtomicInteger rejected = new AtomicInteger();
+
+        for (int t = 0; t < numThreads; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < offersPerThread; i++) {
+                            if (batch.offer(thread + "-" + i) == null) {
+                                rejected.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(0, rejected.get());
+        assertEquals(numThreads * offersPerThread, batch.getSize());
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(1, bridge.batches.size());
+        assertEquals(numThreads * offersPerThread, new HashSet<String>(bridge.batches.get(0)).size());
+    }
+
+    @Test
+    public void testMaxBatchSizeAcrossSegments() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 100);
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(batch.offer("arg" + i));
+        }
+        assertNull(batch.offer("arg100"));
+        assertEquals(100, batch.getSize());
+
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(100, bridge.batches.get(0).size());
+        assertEquals("arg0", bridge.batches.get(0).get(0));
+        assertEquals("arg99", bridge.batches.get(0).get(99));
+    }
+
+    @Test
+    public void testOfferAfterStartIsRejected() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 10);
+        assertNotNull(batch.offer("a"));
+        batch.executeBatchIfNotAlreadyStarted();
+        assertNull(batch.offer("b"));
+        assertEquals(0, batch.getSize());
+
+        // only executes once
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(1, bridge.batches.size());
+    }
+
+    @Test
+    public void testDuplicatesShareRequestWithRequestCachingOn() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 10);
+        Observable<String> first = batch.offer("a");
+        Observable<String> second = batch.offer("a");
+        assertSame(first, second);
+        assertEquals(1, batch.getSize());
+
+        TestSubscriber<String> ts = new TestSubscriber<String>();
+        second.subscribe(ts);
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(Collections.singletonList("a"), bridge.batches.get(0));
+        ts.assertValues("a:response");
+    }
+
+    @Test
+    public void testDuplicatesFailWithRequestCachingOff() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, false, 10);
+        TestSubscriber<String> first = new TestSubscriber<String>();
+        TestSubscriber<String> second = new TestSubscriber<String>();
+        batch.offer("a").subscribe(first);
+        batch.offer("a").subscribe(second);
+        batch.offer("b");
+
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(2, bridge.batches.get(0).size());
+        first.assertValues("a:response");
+        second.assertError(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRemovedRequestIsNotExecuted() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 10);
+        batch.offer("a").subscribe(new TestSubscriber<String>()).unsubscribe();
+        batch.offer("b").subscribe(new TestSubscriber<String>());
+
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(Collections.singletonList("b"), bridge.batches.get(0));
+    }
+
+    @Test
+    public void testRemovedArgumentCanBeOfferedAgain() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 10);
+        batch.offer("a").subscribe(new TestSubscriber<String>()).unsubscribe();
+        TestSubscriber<String> ts = new TestSubscriber<String>();
+        batch.offer("a").subscribe(ts);
+
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(Collections.singletonList("a"), bridge.batches.get(0));
+        ts.assertValues("a:response");
+    }
+
+    @Test
+    public void testAllRemovedDoesNotExecute() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 10);
+        batch.offer("a").subscribe(new TestSubscriber<String>()).unsubscribe();
+
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(0, bridge.batches.size());
+    }
+
+    @Test
+    public void testShutdownFailsOutstandingRequests() {
+        final TestBridge bridge = new TestBridge();
+        final RequestBatch<List<String>, String, String> batch = newBatch(bridge, true, 10);
+        TestSubscriber<String> ts = new TestSubscriber<String>();
+        batch.offer("a").subscribe(ts);
+
+        batch.shutdown();
+        ts.assertError(IllegalStateException.class);
+        assertNull(batch.offer("b"));
+
+        batch.executeBatchIfNotAlreadyStarted();
+        assertEquals(0, bridge.batches.size());
+    }
+
+    private static RequestBatch<List<String>, String, String> newBatch(TestBridge bridge, boolean requestCacheEnabled, int maxBatchSize) {
+        HystrixCollapserProperties properties = new HystrixPropertiesCollapserDefault(KEY, HystrixCollapserProperties.Setter().withRequestCacheEnabled(requestCacheEnabled));
+        return new RequestBatch<List<String>, String, String>(properties, bridge, maxBatchSize);
+    }
+
+    private static class TestBridge implements HystrixCollapserBridge<List<String>, String, String> {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+        @Override
+        public Collection<Collection<CollapsedRequest<String, String>>> shardRequests(Collection<CollapsedRequest<String, String>> requests) {
+            return Collections.singletonList(requests);
+        }
+
+        @Override
+        public Observable<List<String>> createObservableCommand(Collection<CollapsedRequest<String, String>> requests) {
+            List<String> args = new ArrayList<String>();
+            for (CollapsedRequest<String, String> request : requests) {
+                args.add(request.getArgument());
+            }
+            batches.add(args);
+            return Observable.just(args);
+        }
+
+        @Override
+        public Observable<Void> mapResponseToRequests(Observable<List<String>> batchResponse, final Collection<CollapsedRequest<String, String>> requests) {
+            return batchResponse.flatMap(new Func1<List<String>, Observable<Void>>() {
+                @Override
+                public Observable<Void> call(List<String> args) {
+                    for (CollapsedRequest<String, String> request : requests) {
+                        request.setResponse(request.getArgument() + ":response");
+                    }
+                    return Observable.empty();
+                }
+            });
+        }
+
+        @Override
+        public HystrixCollapserKey getCollapserKey() {
+            return KEY;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric;
+
+import com.netflix.hystrix.ExecutionResult;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import org.junit.Test;
+import rx.Subscriber;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class HystrixCommandEventDispatcherTest {
+
+    HystrixCommandKey commandKey;
+    HystrixThreadPoolKey threadPoolKey;
+
+    HystrixCommandEventDispatcher dispatcher;
+    HystrixCommandCompletionStream readCommandStream;
+    HystrixThreadPoolCompletionStream readThreadPoolStream;
+    HystrixCommandStartStream readCommandStartStream;
+    HystrixThreadPoolStartStream readThreadPoolStartStream;
+
+    public HystrixCommandEventDispatcherTest() {
+        commandKey = HystrixCommandKey.Factory.asKey("CMD-Dispatcher");
+        threadPoolKey = HystrixThreadPoolKey.Factory.asKey("TP-Dispatcher");
+
+        dispatcher = HystrixCommandEventDispatcher.forCommand(commandKey);
+        readCommandStream = HystrixCommandCompletionStream.getInstance(commandKey);
+        readThreadPoolStream = HystrixThreadPoolCompletionStream.getInstance(threadPoolKey);
+        readCommandStartStream = HystrixCommandStartStream.getInstance(commandKey);
+        readThreadPoolStartStream = HystrixThreadPoolStartStream.getInstance(threadPoolKey);
+    }
+
+    private <T> Subscriber<T> getLatchedSubscriber(final CountDownLatch latch) {
+        return new Subscriber<T>() {
+            @Override
+            public void onCompleted() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                fail(e.getMessage());
+                e.printStackTrace();
+                latch.countDown();
+            }
+
+            @Override
+            public void onNext(T value) {
+                System.out.println("OnNext : " + value);
+            }
+        };
+    }
+
+    @Test
+    public void testThreadIsolatedSuccess() throws InterruptedException {
+        CountDownLatch commandLatch = new CountDownLatch(1);
+        CountDownLatch threadPoolLatch = new CountDownLatch(1);
+
+        Subscriber<HystrixCommandCompletion> commandSubscriber = getLatchedSubscriber(commandLatch);
+        readCommandStream.observe().take(1).subscribe(commandSubscriber);
+
+        Subscriber<HystrixCommandCompletion> threadPoolSubscriber = getLatchedSubscriber(threadPoolLatch);
+        readThreadPoolStream.observe().take(1).subscribe(threadPoolSubscriber);
+
+        ExecutionResult result = ExecutionResult.from(HystrixEventType.SUCCESS).setExecutedInThread();
+        dispatcher.executionDone(result, commandKey, threadPoolKey);
+
+        //writes are synchronous, so no need to wait
+        assertEquals(0, commandLatch.getCount());
+        assertEquals(0, threadPoolLatch.getCount());
+    }
+
+    @Test
+    public void testSemaphoreIsolatedSuccess() throws InterruptedException {
+        CountDownLatch commandLatch = new CountDownLatch(1);
+        CountDownLatch threadPoolLatch = new CountDownLatch(1);
+
+        Subscriber<HystrixCommandCompletion> commandSubscriber = getLatchedSubscriber(commandLatch);
+        readCommandStream.observe().take(1).subscribe(commandSubscriber);
+
+        Subscriber<HystrixCommandCompletion> threadPoolSubscriber = getLatchedSubscriber(threadPoolLatch);
+        readThreadPoolStream.observe().take(1).subscribe(threadPoolSubscriber);
+
+        ExecutionResult result = ExecutionResult.from(HystrixEventType.SUCCESS);
+        dispatcher.executionDone(result, commandKey, threadPoolKey);
+
+        assertEquals(0, commandLatch.getCount());
+        assertFalse(threadPoolLatch.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testThreadPoolRejectionGoesToThreadPoolStream() throws InterruptedException {
+        CountDownLatch threadPoolLatch = new CountDownLatch(1);
+
+        Subscriber<HystrixCommandCompletion> threadPoolSubscriber = getLatchedSubscriber(threadPoolLatch);
+        readThreadPoolStream.observe().take(1).subscribe(threadPoolSubscriber);
+
+        ExecutionResult result = ExecutionResult.from(HystrixEventType.THREAD_POOL_REJECTED, HystrixEventType.FALLBACK_SUCCESS);
+        dispatcher.executionDone(result, commandKey, threadPoolKey);
+
+        assertEquals(0, threadPoolLatch.getCount());
+    }
+
+    @Test
+    public void testExecutionStartedGoesToStartStreams() throws InterruptedException {
+        CountDownLatch commandLatch = new CountDownLatch(1);
+        CountDownLatch threadPoolLatch = new CountDownLatch(1);
+        final AtomicReference<HystrixCommandExecutionStarted> observed = new AtomicReference<HystrixCommandExecutionStarted>();
+
+        readCommandStartStream.observe().take(1).subscribe(new Subscriber<HystrixCommandExecutionStarted>() {
+            @Override
+            public void onCompleted() {
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                fail(e.getMessage());
+            }
+
+            @Override
+            public void onNext(HystrixCommandExecutionStarted event) {
+                observed.set(event);
+            }
+        });
+        Subscriber<HystrixCommandExecutionStarted> commandSubscriber = getLatchedSubscriber(commandLatch);
+        readCommandStartStream.observe().take(1).subscribe(commandSubscriber);
+        Subscriber<HystrixCommandExecutionStarted> threadPoolSubscriber = getLatchedSubscriber(threadPoolLatch);
+        readThreadPoolStartStream.observe().take(1).subscribe(threadPoolSubscriber);
+
+        dispatcher.commandExecutionStarted(commandKey, threadPoolKey, HystrixCommandProperties.ExecutionIsolationStrategy.THREAD, 3);
+
+        assertEquals(0, commandLatch.getCount());
+        assertEquals(0, threadPoolLatch.getCount());
+        assertEquals(3, observed.get().getCurrentConcurrency());
+    }
+
+    @Test
+    public void testThreadPoolKeyChange() throws InterruptedException {
+        HystrixThreadPoolKey otherThreadPoolKey = HystrixThreadPoolKey.Factory.asKey("TP-Dispatcher-Other");
+        CountDownLatch originalLatch = new CountDownLatch(1);
+        CountDownLatch otherLatch = new CountDownLatch(1);
+
+        Subscriber<HystrixCommandCompletion> originalSubscriber = getLatchedSubscriber(originalLatch);
+        readThreadPoolStream.observe().take(2).subscribe(originalSubscriber);
+        Subscriber<HystrixCommandCompletion> otherSubscriber = getLatchedSubscriber(otherLatch);
+        HystrixThreadPoolCompletionStream.getInstance(otherThreadPoolKey).observe().take(1).subscribe(otherSubscriber);
+
+        ExecutionResult result = ExecutionResult.from(HystrixEventType.SUCCESS).setExecutedInThread();
+        dispatcher.executionDone(result, commandKey, threadPoolKey);
+        dispatcher.executionDone(result, commandKey, otherThreadPoolKey);
+
+        assertEquals(1, originalLatch.getCount());
+        assertEquals(0, otherLatch.getCount());
+
+        dispatcher.executionDone(result, commandKey, threadPoolKey);
+        assertEquals(0, originalLatch.getCount());
+    }
+}
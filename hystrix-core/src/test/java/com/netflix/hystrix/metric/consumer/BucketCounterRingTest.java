@@ -0,0 +1,157 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric.consumer;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BucketCounterRingTest {
+
+    @Test
+    public void testWritesGoIntoCurrentBucket() {
+        MockedTime time = new MockedTime();
+        BucketCounterRing ring = new BucketCounterRing(time, 100, 3, 4);
+
+        long bucket = ring.getCurrentBucketIndex();
+        ring.add(0, 1);
+        ring.add(0, 2);
+        ring.add(2, 5);
+
+        long[] counts = new long[3];
+        assertTrue(ring.readBucket(bucket, counts));
+        assertArrayEquals(new long[] { 3, 0, 5 }, counts);
+    }
+
+    @Test
+    public void testBucketRotatesWithClock() {
+        MockedTime time = new MockedTime();
+        BucketCounterRing ring = new BucketCounterRing(time, 100, 2, 1);
+
+        long first = ring.getCurrentBucketIndex();
+        ring.add(0, 1);
+        time.increment(100);
+        long second = ring.getCurrentBucketIndex();
+        assertEquals(first + 1, second);
+        ring.add(1, 7);
+
+        long[] counts = new long[2];
+        assertTrue(ring.readBucket(first, counts));
+        assertArrayEquals(new long[] { 1, 0 }, counts);
+        assertTrue(ring.readBucket(second, counts));
+        assertArrayEquals(new long[] { 0, 7 }, counts);
+    }
+
+    @Test
+    public void testSlotIsZeroedOnReuse() {
+        MockedTime time = new MockedTime();
+        BucketCounterRing ring = new BucketCounterRing(time, 10, 1, 2);
+
+        long first = ring.getCurrentBucketIndex();
+        ring.add(0, 42);
+        time.increment(10 * BucketCounterRing.RING_SIZE);
+        long reused = ring.getCurrentBucketIndex();
+        ring.add(0, 1);
+
+        long[] counts = new long[1];
+        assertFalse(ring.readBucket(first, counts));
+        assertEquals(0L, counts[0]);
+        assertTrue(ring.readBucket(reused, counts));
+        assertEquals(1L, counts[0]);
+    }
+
+    @Test
+    public void testUnwrittenBucketReadsAsEmpty() {
+        MockedTime time = new MockedTime();
+        BucketCounterRing ring = new BucketCounterRing(time, 10, 2, 1);
+        long[] counts = new long[] { 5, 5 };
+        assertFalse(ring.readBucket(ring.getCurrentBucketIndex(), counts));
+        assertArrayEquals(new long[] { 0, 0 }, counts);
+    }
+
+    @Test
+    public void testAddAllAndScratchReuse() {
+        MockedTime time = new MockedTime();
+        BucketCounterRing ring = new BucketCounterRing(time, 100, 4, 2);
+
+        long[] scratch = ring.acquireScratch();
+        scratch[1] = 2;
+        scratch[3] = 1;
+        ring.addAll(scratch);
+        ring.releaseScratch(scratch);
+
+        long[] next = ring.acquireScratch();
+        assertSame(scratch, next);
+        for (int i = 0; i < ring.getWidth(); i++) {
+            assertEquals(0L, next[i]);
+        }
+
+        long[] counts = new long[4];
+        ring.readBucket(ring.getCurrentBucketIndex(), counts);
+        assertArrayEquals(new long[] { 0, 2, 0, 1 }, counts);
+    }
+
+    @Test
+    public void testConcurrentWritersAcrossStripes() throws InterruptedException {
+        MockedTime time = new MockedTime();
+        final BucketCounterRing ring = new BucketCounterRing(time, 1000, 2, 4);
+        final int numThreads = 8;
+        final int writesPerThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+
+        for (int i = 0; i < numThreads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < writesPerThread; j++) {
+                        ring.add(0, 1);
+                        ring.add(1, 2);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        long[] counts = new long[2];
+        assertTrue(ring.readBucket(ring.getCurrentBucketIndex(), counts));
+        assertEquals(numThreads * writesPerThread, counts[0]);
+        assertEquals(2 * numThreads * writesPerThread, counts[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStripesMustBePowerOfTwo() {
+        new BucketCounterRing(new MockedTime(), 100, 2, 3);
+    }
+
+    private static class MockedTime implements BucketCounterRing.Time {
+
+        private AtomicInteger time = new AtomicInteger(0);
+
+        @Override
+        public long getCurrentTimeInMillis() {
+            return time.get();
+        }
+
+        public void increment(int millis) {
+            time.addAndGet(millis);
+        }
+    }
+}
@@ -90,7 +90,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -115,7 +115,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -140,7 +140,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -165,7 +165,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -190,7 +190,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -223,7 +223,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         System.out.println("ReqLog : " + HystrixRequestLog.getCurrentRequest().getExecutedCommandsAsString());
 
         //RESPONSE_FROM_CACHE should not show up at all in thread pool counters - just the success
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -273,7 +273,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         assertTrue(shortCircuit2.isResponseShortCircuited());
 
         //only the FAILUREs should show up in thread pool counters
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(3, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -331,7 +331,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         assertTrue(rejected2.isResponseSemaphoreRejected());
 
         //none of these got executed on a thread-pool, so thread pool metrics should be 0
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -384,7 +384,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         assertTrue(rejected2.isResponseThreadPoolRejected());
 
         //all 12 commands got submitted to thread pool, 10 accepted, 2 rejected is expected
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(10, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(2, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -409,7 +409,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -434,7 +434,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -481,7 +481,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         }
 
         //all 7 commands executed on-thread, so should be executed according to thread-pool metrics
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(7, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -511,7 +511,7 @@ public class CumulativeThreadPoolEventCounterStreamTest extends CommandStreamTes
         }
 
         //all commands should have aged out
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(2, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
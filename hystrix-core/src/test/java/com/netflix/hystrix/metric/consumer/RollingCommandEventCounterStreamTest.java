@@ -15,6 +15,7 @@
  */
 package com.netflix.hystrix.metric.consumer;
 
+import com.netflix.config.ConfigurationManager;
 import com.netflix.hystrix.HystrixCommandGroupKey;
 import com.netflix.hystrix.HystrixCommandKey;
 import com.netflix.hystrix.HystrixCommandMetrics;
@@ -543,4 +544,38 @@ public class RollingCommandEventCounterStreamTest extends CommandStreamTest {
         System.out.println("ReqLog : " + HystrixRequestLog.getCurrentRequest().getExecutedCommandsAsString());
         assertArrayEquals(expected, stream.getLatest());
     }
+
+    @Test
+    public void testRingBucketEngineProducesSameCounts() {
+        ConfigurationManager.getConfigInstance().setProperty("hystrix.metrics.bucketEngine", "RING");
+        try {
+            HystrixCommandKey key = HystrixCommandKey.Factory.asKey("CMD-RollingCounter-Ring");
+            stream = RollingCommandEventCounterStream.getInstance(key, 10, 100);
+            stream.startCachingStreamValuesIfUnstarted();
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            stream.observe().take(10).subscribe(getSubscriber(latch));
+
+            CommandStreamTest.Command cmd1 = CommandStreamTest.Command.from(groupKey, key, HystrixEventType.SUCCESS, 20);
+            CommandStreamTest.Command cmd2 = CommandStreamTest.Command.from(groupKey, key, HystrixEventType.FAILURE, 10);
+
+            cmd1.observe();
+            cmd2.observe();
+
+            try {
+                assertTrue(latch.await(10000, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException ex) {
+                fail("Interrupted ex");
+            }
+            assertEquals(HystrixEventType.values().length, stream.getLatest().length);
+            long[] expected = new long[HystrixEventType.values().length];
+            expected[HystrixEventType.SUCCESS.ordinal()] = 1;
+            expected[HystrixEventType.FAILURE.ordinal()] = 1;
+            expected[HystrixEventType.FALLBACK_SUCCESS.ordinal()] = 1;
+            System.out.println("ReqLog : " + HystrixRequestLog.getCurrentRequest().getExecutedCommandsAsString());
+            assertArrayEquals(expected, stream.getLatest());
+        } finally {
+            ConfigurationManager.getConfigInstance().clearProperty("hystrix.metrics.bucketEngine");
+        }
+    }
 }
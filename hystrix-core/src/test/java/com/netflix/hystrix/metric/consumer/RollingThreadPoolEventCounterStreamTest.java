@@ -90,7 +90,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED) + stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
 
@@ -114,7 +114,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -139,7 +139,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -164,7 +164,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -189,7 +189,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -222,7 +222,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         System.out.println("ReqLog : " + HystrixRequestLog.getCurrentRequest().getExecutedCommandsAsString());
 
         //RESPONSE_FROM_CACHE should not show up at all in thread pool counters - just the success
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -272,7 +272,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         assertTrue(shortCircuit2.isResponseShortCircuited());
 
         //only the FAILUREs should show up in thread pool counters
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(3, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -330,7 +330,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         assertTrue(rejected2.isResponseSemaphoreRejected());
 
         //none of these got executed on a thread-pool, so thread pool metrics should be 0
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -383,7 +383,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         assertTrue(rejected2.isResponseThreadPoolRejected());
 
         //all 12 commands got submitted to thread pool, 10 accepted, 2 rejected is expected
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(10, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(2, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -408,7 +408,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -433,7 +433,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         } catch (InterruptedException ex) {
             fail("Interrupted ex");
         }
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(1, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -480,7 +480,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         }
 
         //all 7 commands executed on-thread, so should be executed according to thread-pool metrics
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(7, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
@@ -511,7 +511,7 @@ public class RollingThreadPoolEventCounterStreamTest extends CommandStreamTest {
         }
 
         //all commands should have aged out
-        assertEquals(2, stream.getLatest().length);
+        assertEquals(3, stream.getLatest().length);
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.EXECUTED));
         assertEquals(0, stream.getLatestCount(HystrixEventType.ThreadPool.REJECTED));
     }
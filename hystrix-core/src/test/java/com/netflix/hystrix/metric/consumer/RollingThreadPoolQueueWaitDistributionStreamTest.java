@@ -0,0 +1,183 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.metric.consumer;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.metric.CachedValuesHistogram;
+import com.netflix.hystrix.metric.HystrixCommandCompletion;
+import com.netflix.hystrix.metric.HystrixThreadPoolCompletionStream;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Subscriber;
+import rx.functions.Action1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RollingThreadPoolQueueWaitDistributionStreamTest {
+    RollingThreadPoolQueueWaitDistributionStream stream;
+    HystrixRequestContext context;
+
+    @Before
+    public void setUp() {
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void tearDown() {
+        context.shutdown();
+        stream.unsubscribe();
+        RollingThreadPoolQueueWaitDistributionStream.reset();
+    }
+
+    @Test
+    public void testEmptyStreamProducesZeros() {
+        HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("ThreadPool-QueueWait-A");
+        stream = RollingThreadPoolQueueWaitDistributionStream.getInstance(threadPoolKey, 10, 100);
+        stream.startCachingStreamValuesIfUnstarted();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        stream.observe().take(10).subscribe(getSubscriber(latch));
+
+        //no writes
+
+        try {
+            assertTrue(latch.await(10000, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException ex) {
+            fail("Interrupted ex");
+        }
+        assertEquals(0, stream.getLatestMean());
+        assertEquals(0, stream.getLatestPercentile(100));
+    }
+
+    /**
+     * 3 commands of 100ms on a pool with a single thread: the first starts straight away, the second waits for the first and the third for both.
+     */
+    @Test
+    public void testQueuedCommandsRecordTimeInQueue() throws Exception {
+        String name = "ThreadPool-QueueWait-B";
+        HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey(name);
+        stream = RollingThreadPoolQueueWaitDistributionStream.getInstance(threadPoolKey, 10, 100);
+        stream.startCachingStreamValuesIfUnstarted();
+
+        final List<HystrixCommandCompletion> completions = new CopyOnWriteArrayList<HystrixCommandCompletion>();
+        HystrixThreadPoolCompletionStream.getInstance(threadPoolKey).observe().subscribe(new Action1<HystrixCommandCompletion>() {
+            @Override
+            public void call(HystrixCommandCompletion completion) {
+                completions.add(completion);
+            }
+        });
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        stream.observe().take(10).subscribe(getSubscriber(latch));
+
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < 3; i++) {
+            results.add(new SleepCommand(name, HystrixCommandProperties.ExecutionIsolationStrategy.THREAD, 100).queue());
+        }
+        for (Future<Integer> result : results) {
+            assertEquals(Integer.valueOf(1), result.get());
+        }
+
+        assertTrue(latch.await(10000, TimeUnit.MILLISECONDS));
+
+        assertEquals(3, completions.size());
+        long maxQueueWait = 0;
+        for (HystrixCommandCompletion completion : completions) {
+            assertTrue(completion.getQueueWaitLatency() >= 0);
+            maxQueueWait = Math.max(maxQueueWait, completion.getQueueWaitLatency());
+        }
+        System.out.println("Max queue wait : " + maxQueueWait + ", rolling max : " + stream.getLatestPercentile(100));
+        assertTrue(maxQueueWait >= 150);
+        assertTrue(stream.getLatestPercentile(100) >= 150);
+        assertTrue(stream.getLatestPercentile(0) < 50);
+    }
+
+    @Test
+    public void testSemaphoreIsolatedCommandsNotRecorded() throws InterruptedException {
+        String name = "ThreadPool-QueueWait-C";
+        HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey(name);
+        stream = RollingThreadPoolQueueWaitDistributionStream.getInstance(threadPoolKey, 10, 100);
+        stream.startCachingStreamValuesIfUnstarted();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        stream.observe().take(10).subscribe(getSubscriber(latch));
+
+        new SleepCommand(name, HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE, 10).execute();
+
+        assertTrue(latch.await(10000, TimeUnit.MILLISECONDS));
+        CachedValuesHistogram latest = stream.getLatest();
+        assertEquals(0, latest.getMean());
+    }
+
+    private static Subscriber<CachedValuesHistogram> getSubscriber(final CountDownLatch latch) {
+        return new Subscriber<CachedValuesHistogram>() {
+            @Override
+            public void onCompleted() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                fail(e.getMessage());
+            }
+
+            @Override
+            public void onNext(CachedValuesHistogram distribution) {
+                System.out.println("OnNext @ " + System.currentTimeMillis() + " : " + distribution.getMean() + "/" + distribution.getValueAtPercentile(100));
+            }
+        };
+    }
+
+    private static class SleepCommand extends HystrixCommand<Integer> {
+        private final int sleepInMilliseconds;
+
+        SleepCommand(String name, HystrixCommandProperties.ExecutionIsolationStrategy isolationStrategy, int sleepInMilliseconds) {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(name))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(isolationStrategy)
+                            .withExecutionTimeoutInMilliseconds(2000))
+                    .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter()
+                            .withCoreSize(1)
+                            .withMaxQueueSize(10)
+                            .withQueueSizeRejectionThreshold(10)));
+            this.sleepInMilliseconds = sleepInMilliseconds;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            Thread.sleep(sleepInMilliseconds);
+            return 1;
+        }
+    }
+}
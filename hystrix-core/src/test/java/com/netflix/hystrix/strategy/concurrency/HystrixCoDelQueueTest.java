@@ -0,0 +1,332 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.strategy.concurrency;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixEventType;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.exception.HystrixQueueDropException;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixCoDelQueueTest {
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testFifoWhileNotOverloaded() throws InterruptedException {
+        HystrixCoDelQueue queue = newQueue(10, 5, 1000, true);
+        Runnable first = new NoOp();
+        Runnable second = new NoOp();
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+
+        assertSame(first, queue.take());
+        assertFalse(HystrixCoDelQueue.isCurrentTaskDropped());
+        assertSame(second, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertFalse(HystrixCoDelQueue.isCurrentTaskDropped());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRejectsOfferWhenFull() {
+        HystrixCoDelQueue queue = newQueue(2, 5, 1000, true);
+        assertTrue(queue.offer(new NoOp()));
+        assertTrue(queue.offer(new NoOp()));
+        assertFalse(queue.offer(new NoOp()));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+    }
+
+    @Test
+    public void testDropsTaskWaitingLongerThanInterval() throws InterruptedException {
+        HystrixCoDelQueue queue = newQueue(10, 5, 50, true);
+        Runnable stale = new NoOp();
+        assertTrue(queue.offer(stale));
+        Thread.sleep(100);
+
+        assertSame(stale, queue.take());
+        assertTrue(HystrixCoDelQueue.isCurrentTaskDropped());
+        // only the first check sees the drop
+        assertFalse(HystrixCoDelQueue.isCurrentTaskDropped());
+    }
+
+    @Test
+    public void testAdaptiveLifoWhileOverloaded() throws InterruptedException {
+        HystrixCoDelQueue queue = newQueue(10, 1000, 50, true);
+        Runnable oldest = new NoOp();
+        Runnable newest = new NoOp();
+        assertTrue(queue.offer(oldest));
+        Thread.sleep(100);
+        assertTrue(queue.offer(newest));
+
+        // non-empty for longer than the interval, and nothing has waited longer than the target yet
+        assertSame(newest, queue.take());
+        assertFalse(HystrixCoDelQueue.isCurrentTaskDropped());
+        assertSame(oldest, queue.take());
+        assertFalse(HystrixCoDelQueue.isCurrentTaskDropped());
+    }
+
+    @Test
+    public void testFifoWhileOverloadedWithoutAdaptiveLifo() throws InterruptedException {
+        HystrixCoDelQueue queue = newQueue(10, 1000, 50, false);
+        Runnable oldest = new NoOp();
+        Runnable newest = new NoOp();
+        assertTrue(queue.offer(oldest));
+        Thread.sleep(100);
+        assertTrue(queue.offer(newest));
+
+        assertSame(oldest, queue.take());
+        assertSame(newest, queue.take());
+    }
+
+    @Test
+    public void testDropsOldestFirstWhileOverloaded() throws InterruptedException {
+        HystrixCoDelQueue queue = newQueue(10, 20, 50, true);
+        Runnable oldest = new NoOp();
+        Runnable middle = new NoOp();
+        Runnable newest = new NoOp();
+        assertTrue(queue.offer(oldest));
+        assertTrue(queue.offer(middle));
+        Thread.sleep(100);
+        assertTrue(queue.offer(newest));
+
+        assertSame(oldest, queue.take());
+        assertTrue(HystrixCoDelQueue.isCurrentTaskDropped());
+        assertSame(middle, queue.take());
+        assertTrue(HystrixCoDelQueue.isCurrentTaskDropped());
+        assertSame(newest, queue.take());
+        assertFalse(HystrixCoDelQueue.isCurrentTaskDropped());
+    }
+
+    @Test
+    public void testRemoveFromExecutor() throws InterruptedException {
+        HystrixCoDelQueue queue = newQueue(10, 5, 1000, true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, queue);
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // exit
+                    }
+                }
+            });
+            Runnable queued = new NoOp();
+            executor.execute(queued);
+            assertEquals(1, queue.size());
+            assertTrue(executor.remove(queued));
+            assertEquals(0, queue.size());
+            release.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testDroppedCommandIsRejected() throws Exception {
+        String name = "CoDel-Dropped";
+        HystrixThreadPoolProperties.Setter threadPoolProperties = coDelThreadPool(1, 10)
+                .withQueueCoDelTargetDelayInMilliseconds(5)
+                .withQueueCoDelIntervalInMilliseconds(50);
+        final CountDownLatch release = new CountDownLatch(1);
+        BlockingCommand blocker = new BlockingCommand(name, threadPoolProperties, release);
+        Future<Boolean> blocking = blocker.queue();
+        BlockingCommand dropped = new BlockingCommand(name, threadPoolProperties, new CountDownLatch(0));
+        Future<Boolean> droppedResult = dropped.queue();
+
+        Thread.sleep(150);
+        release.countDown();
+
+        assertTrue(blocking.get());
+        try {
+            droppedResult.get();
+        } catch (ExecutionException e) {
+            // no fallback
+        }
+        assertTrue(dropped.isResponseRejected());
+        assertTrue(dropped.getExecutionEvents().contains(HystrixEventType.THREAD_POOL_REJECTED));
+        assertTrue(dropped.getExecutionEvents().contains(HystrixEventType.THREAD_POOL_DROPPED));
+        assertTrue(dropped.getExecutionException() instanceof HystrixQueueDropException);
+        assertFalse(dropped.ran.get());
+    }
+
+    /**
+     * Offer a pool twice as many commands as it can run, with a queue much longer than the command timeout allows, and count the commands which succeed.
+     * With a FIFO queue, commands wait for most of their timeout before they get a thread, so most of them time out while running and the threads
+     * do work nobody waits for.  The CoDel queue drops those commands instead, and the commands it runs are fresh enough to finish in time.
+     */
+    @Test
+    public void testGoodputUnderTwiceCapacity() throws Exception {
+        int[] fifo = runAtTwiceCapacity("CoDel-Goodput-Fifo", false);
+        int[] coDel = runAtTwiceCapacity("CoDel-Goodput-CoDel", true);
+        // 4 threads running 20ms commands for 2 seconds can complete 400 at most
+        System.out.println("Successes at 2x overload, FIFO : " + fifo[0] + ", CoDel : " + coDel[0] + " (" + coDel[1] + " dropped)");
+
+        assertEquals(0, fifo[1]);
+        assertTrue(coDel[1] > 0);
+        assertTrue(coDel[0] > 300);
+        assertTrue(coDel[0] > 2 * fifo[0]);
+    }
+
+    /**
+     * @return the number of commands which succeeded, and the number which were dropped
+     */
+    private static int[] runAtTwiceCapacity(String name, boolean coDelEnabled) throws InterruptedException {
+        HystrixThreadPoolProperties.Setter threadPoolProperties = coDelThreadPool(4, 100)
+                .withQueueCoDelEnabled(coDelEnabled)
+                .withQueueCoDelTargetDelayInMilliseconds(10)
+                .withQueueCoDelIntervalInMilliseconds(50);
+        List<SleepCommand> commands = new ArrayList<SleepCommand>();
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        long start = System.currentTimeMillis();
+        // 400 per second for 2 seconds, against a capacity of 200 per second
+        for (int i = 0; i < 800; i++) {
+            long due = start + (i * 5) / 2;
+            long sleep = due - System.currentTimeMillis();
+            if (sleep > 0) {
+                Thread.sleep(sleep);
+            }
+            SleepCommand command = new SleepCommand(name, threadPoolProperties, 20);
+            commands.add(command);
+            results.add(command.queue());
+        }
+        int successes = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) {
+                    successes++;
+                }
+            } catch (ExecutionException e) {
+                // rejected, dropped or timed out
+            }
+        }
+        int drops = 0;
+        for (SleepCommand command : commands) {
+            if (command.getExecutionEvents().contains(HystrixEventType.THREAD_POOL_DROPPED)) {
+                drops++;
+            }
+        }
+        return new int[] { successes, drops };
+    }
+
+    private static HystrixCoDelQueue newQueue(int capacity, int targetDelay, int interval, boolean adaptiveLifo) {
+        return new HystrixCoDelQueue(capacity, HystrixProperty.Factory.asProperty(targetDelay), HystrixProperty.Factory.asProperty(interval),
+                HystrixProperty.Factory.asProperty(adaptiveLifo));
+    }
+
+    private static HystrixThreadPoolProperties.Setter coDelThreadPool(int coreSize, int maxQueueSize) {
+        return HystrixThreadPoolProperties.Setter()
+                .withCoreSize(coreSize)
+                .withMaxQueueSize(maxQueueSize)
+                .withQueueSizeRejectionThreshold(maxQueueSize)
+                .withQueueCoDelEnabled(true);
+    }
+
+    private static HystrixCommand.Setter setter(String name, HystrixThreadPoolProperties.Setter threadPoolProperties) {
+        return HystrixCommand.Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(name))
+                .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(name))
+                .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                        .withExecutionTimeoutInMilliseconds(100)
+                        .withCircuitBreakerEnabled(false)
+                        .withFallbackEnabled(false)
+                        .withRequestLogEnabled(false))
+                .andThreadPoolPropertiesDefaults(threadPoolProperties);
+    }
+
+    private static class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    private static class SleepCommand extends HystrixCommand<Boolean> {
+        private final int sleepInMilliseconds;
+
+        SleepCommand(String name, HystrixThreadPoolProperties.Setter threadPoolProperties, int sleepInMilliseconds) {
+            super(setter(name, threadPoolProperties));
+            this.sleepInMilliseconds = sleepInMilliseconds;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            Thread.sleep(sleepInMilliseconds);
+            return true;
+        }
+    }
+
+    private static class BlockingCommand extends HystrixCommand<Boolean> {
+        private final CountDownLatch release;
+        private final AtomicBoolean ran = new AtomicBoolean(false);
+
+        BlockingCommand(String name, HystrixThreadPoolProperties.Setter threadPoolProperties, CountDownLatch release) {
+            super(HystrixCommand.Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(name))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionTimeoutInMilliseconds(1000)
+                            .withFallbackEnabled(false))
+                    .andThreadPoolPropertiesDefaults(threadPoolProperties));
+            this.release = release;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            ran.set(true);
+            release.await();
+            return true;
+        }
+    }
+}
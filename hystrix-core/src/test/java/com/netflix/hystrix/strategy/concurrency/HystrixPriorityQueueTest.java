@@ -0,0 +1,306 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.strategy.concurrency;
+
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixPriority;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixPriorityQueueTest {
+
+    private HystrixRequestContext context;
+
+    @Before
+    public void init() {
+        Hystrix.reset();
+        context = HystrixRequestContext.initializeContext();
+    }
+
+    @After
+    public void cleanup() {
+        context.shutdown();
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testFifoWithinPriority() throws InterruptedException {
+        HystrixPriorityQueue queue = newQueue(10, 8, 4, 1);
+        Runnable first = new NoOp();
+        Runnable second = new NoOp();
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+
+        assertEquals(2, queue.size(HystrixPriority.NORMAL));
+        assertSame(first, queue.take());
+        assertSame(second, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRejectsOfferWhenFull() {
+        HystrixPriorityQueue queue = newQueue(2, 8, 4, 1);
+        assertTrue(offer(queue, HystrixPriority.LOW));
+        assertTrue(offer(queue, HystrixPriority.HIGH));
+        assertFalse(offer(queue, HystrixPriority.HIGH));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+    }
+
+    @Test
+    public void testSchedulerWithPriority() {
+        final HystrixPriorityQueue queue = newQueue(10, 8, 4, 1);
+        assertEquals(HystrixPriority.NORMAL, HystrixPriorityQueue.getSchedulingPriority());
+        HystrixPriorityQueue.withPriority(Schedulers.immediate(), HystrixPriority.HIGH).createWorker().schedule(new Action0() {
+            @Override
+            public void call() {
+                assertEquals(HystrixPriority.HIGH, HystrixPriorityQueue.getSchedulingPriority());
+                queue.offer(new NoOp());
+            }
+        });
+
+        assertEquals(HystrixPriority.NORMAL, HystrixPriorityQueue.getSchedulingPriority());
+        assertEquals(1, queue.size(HystrixPriority.HIGH));
+        assertEquals(0, queue.size(HystrixPriority.NORMAL));
+    }
+
+    @Test
+    public void testWeightedDequeue() throws InterruptedException {
+        HystrixPriorityQueue queue = newQueue(100, 3, 2, 1);
+        for (int i = 0; i < 6; i++) {
+            offer(queue, HystrixPriority.LOW);
+            offer(queue, HystrixPriority.NORMAL);
+            offer(queue, HystrixPriority.HIGH);
+        }
+
+        int[] taken = new int[HystrixPriority.values().length];
+        for (int i = 0; i < 6; i++) {
+            taken[((Task) queue.take()).priority.ordinal()]++;
+        }
+        assertEquals(3, taken[HystrixPriority.HIGH.ordinal()]);
+        assertEquals(2, taken[HystrixPriority.NORMAL.ordinal()]);
+        assertEquals(1, taken[HystrixPriority.LOW.ordinal()]);
+    }
+
+    @Test
+    public void testLowPriorityIsNotStarved() throws InterruptedException {
+        HystrixPriorityQueue queue = newQueue(100, 8, 4, 1);
+        for (int i = 0; i < 50; i++) {
+            offer(queue, HystrixPriority.HIGH);
+        }
+        offer(queue, HystrixPriority.LOW);
+
+        // a weight of 1 out of 9 gets a turn within 9 dequeues
+        boolean lowTaken = false;
+        for (int i = 0; i < 9; i++) {
+            if (((Task) queue.take()).priority == HystrixPriority.LOW) {
+                lowTaken = true;
+            }
+        }
+        assertTrue(lowTaken);
+    }
+
+    @Test
+    public void testSinglePriorityTakesEveryTurn() throws InterruptedException {
+        HystrixPriorityQueue queue = newQueue(100, 8, 4, 1);
+        for (int i = 0; i < 5; i++) {
+            offer(queue, HystrixPriority.LOW);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HystrixPriority.LOW, ((Task) queue.take()).priority);
+        }
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPriorityAwareRejection() throws Exception {
+        String name = "Priority-Rejection";
+        HystrixThreadPoolProperties.Setter threadPoolProperties = priorityThreadPool(1, 10, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        results.add(new BlockingCommand(name, HystrixPriority.HIGH, threadPoolProperties, release, null).queue());
+        Thread.sleep(50);
+
+        // LOW may queue up to 50% of the threshold of 4, and NORMAL up to 80%
+        BlockingCommand low1 = new BlockingCommand(name, HystrixPriority.LOW, threadPoolProperties, release, null);
+        BlockingCommand low2 = new BlockingCommand(name, HystrixPriority.LOW, threadPoolProperties, release, null);
+        BlockingCommand low3 = new BlockingCommand(name, HystrixPriority.LOW, threadPoolProperties, release, null);
+        BlockingCommand normal1 = new BlockingCommand(name, HystrixPriority.NORMAL, threadPoolProperties, release, null);
+        BlockingCommand normal2 = new BlockingCommand(name, HystrixPriority.NORMAL, threadPoolProperties, release, null);
+        BlockingCommand high = new BlockingCommand(name, HystrixPriority.HIGH, threadPoolProperties, release, null);
+        for (BlockingCommand command : new BlockingCommand[] { low1, low2, low3, normal1, normal2, high }) {
+            results.add(command.queue());
+        }
+        release.countDown();
+        for (Future<Boolean> result : results) {
+            result.get();
+        }
+
+        assertFalse(low1.isResponseRejected());
+        assertFalse(low2.isResponseRejected());
+        assertTrue(low3.isResponseRejected());
+        assertFalse(normal1.isResponseRejected());
+        assertTrue(normal2.isResponseRejected());
+        assertFalse(high.isResponseRejected());
+
+        HystrixThreadPoolMetrics metrics = HystrixThreadPoolMetrics.getInstance(HystrixThreadPoolKey.Factory.asKey(name));
+        assertEquals(1, metrics.getCumulativeCountThreadsRejected(HystrixPriority.LOW));
+        assertEquals(1, metrics.getCumulativeCountThreadsRejected(HystrixPriority.NORMAL));
+        assertEquals(0, metrics.getCumulativeCountThreadsRejected(HystrixPriority.HIGH));
+        assertEquals(2, metrics.getCumulativeCountThreadsExecuted(HystrixPriority.LOW));
+        assertEquals(1, metrics.getCumulativeCountThreadsExecuted(HystrixPriority.NORMAL));
+        assertEquals(2, metrics.getCumulativeCountThreadsExecuted(HystrixPriority.HIGH));
+        assertTrue(metrics.getQueueWaitTimeMean(HystrixPriority.LOW) > 0);
+    }
+
+    @Test
+    public void testHighPriorityRunsFirst() throws Exception {
+        String name = "Priority-Order";
+        HystrixThreadPoolProperties.Setter threadPoolProperties = priorityThreadPool(1, 10, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        List<HystrixPriority> order = new CopyOnWriteArrayList<HystrixPriority>();
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        results.add(new BlockingCommand(name, HystrixPriority.NORMAL, threadPoolProperties, release, null).queue());
+        Thread.sleep(50);
+
+        for (int i = 0; i < 3; i++) {
+            results.add(new BlockingCommand(name, HystrixPriority.LOW, threadPoolProperties, release, order).queue());
+        }
+        for (int i = 0; i < 3; i++) {
+            results.add(new BlockingCommand(name, HystrixPriority.HIGH, threadPoolProperties, release, order).queue());
+        }
+        release.countDown();
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+
+        // with weights of 8 to 1, the 3 HIGH commands queued last run before any of the LOW ones
+        assertEquals(6, order.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HystrixPriority.HIGH, order.get(i));
+        }
+    }
+
+    @Test
+    public void testPriorityFromRequestContext() {
+        String name = "Priority-Context";
+        HystrixThreadPoolProperties.Setter threadPoolProperties = priorityThreadPool(1, 10, 10);
+        assertEquals(HystrixPriority.NORMAL, new BlockingCommand(name, null, threadPoolProperties, new CountDownLatch(0), null).getPriority());
+
+        context.setPriority(HystrixPriority.LOW);
+        assertEquals(HystrixPriority.LOW, new BlockingCommand(name, null, threadPoolProperties, new CountDownLatch(0), null).getPriority());
+        // a priority declared by the command takes precedence
+        assertEquals(HystrixPriority.HIGH, new BlockingCommand(name, HystrixPriority.HIGH, threadPoolProperties, new CountDownLatch(0), null).getPriority());
+    }
+
+    private static boolean offer(final HystrixPriorityQueue queue, final HystrixPriority priority) {
+        final boolean[] offered = new boolean[1];
+        HystrixPriorityQueue.withPriority(Schedulers.immediate(), priority).createWorker().schedule(new Action0() {
+            @Override
+            public void call() {
+                offered[0] = queue.offer(new Task(priority));
+            }
+        });
+        return offered[0];
+    }
+
+    private static HystrixPriorityQueue newQueue(int capacity, int highWeight, int normalWeight, int lowWeight) {
+        return new HystrixPriorityQueue(capacity, HystrixProperty.Factory.asProperty(highWeight), HystrixProperty.Factory.asProperty(normalWeight),
+                HystrixProperty.Factory.asProperty(lowWeight));
+    }
+
+    private static HystrixThreadPoolProperties.Setter priorityThreadPool(int coreSize, int maxQueueSize, int queueSizeRejectionThreshold) {
+        return HystrixThreadPoolProperties.Setter()
+                .withCoreSize(coreSize)
+                .withMaxQueueSize(maxQueueSize)
+                .withQueueSizeRejectionThreshold(queueSizeRejectionThreshold)
+                .withQueuePriorityEnabled(true)
+                .withQueuePriorityNormalRejectionThresholdPercentage(80)
+                .withQueuePriorityLowRejectionThresholdPercentage(50);
+    }
+
+    private static class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    private static class Task extends NoOp {
+        private final HystrixPriority priority;
+
+        Task(HystrixPriority priority) {
+            this.priority = priority;
+        }
+    }
+
+    private static class BlockingCommand extends HystrixCommand<Boolean> {
+        private final CountDownLatch release;
+        private final List<HystrixPriority> order;
+
+        BlockingCommand(String name, HystrixPriority priority, HystrixThreadPoolProperties.Setter threadPoolProperties, CountDownLatch release, List<HystrixPriority> order) {
+            super(HystrixCommand.Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(name))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(name))
+                    .andPriority(priority)
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionTimeoutInMilliseconds(1000)
+                            .withCircuitBreakerEnabled(false))
+                    .andThreadPoolPropertiesDefaults(threadPoolProperties));
+            this.release = release;
+            this.order = order;
+        }
+
+        @Override
+        protected Boolean run() throws Exception {
+            if (order != null) {
+                order.add(getPriority());
+            }
+            release.await();
+            // long enough for the queue wait of the next command to be measurable
+            Thread.sleep(5);
+            return true;
+        }
+
+        @Override
+        protected Boolean getFallback() {
+            return false;
+        }
+    }
+}
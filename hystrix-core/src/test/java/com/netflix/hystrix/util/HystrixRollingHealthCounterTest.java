@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.util;
+
+import com.netflix.hystrix.util.HystrixRollingNumber.Time;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class HystrixRollingHealthCounterTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBucketsMustDivideWindow() {
+        new HystrixRollingHealthCounter(new MockedTime(), 200, 3);
+    }
+
+    @Test
+    public void testCountsWithinWindow() {
+        MockedTime time = new MockedTime();
+        HystrixRollingHealthCounter counter = new HystrixRollingHealthCounter(time, 200, 10);
+        assertEquals(0, counter.getTotalRequests());
+        assertEquals(0, counter.getErrorPercentage());
+
+        counter.add(1, 0);
+        counter.add(1, 1);
+        time.increment(50);
+        counter.add(2, 1);
+
+        assertEquals(4, counter.getTotalRequests());
+        assertEquals(2, counter.getErrorCount());
+        assertEquals(50, counter.getErrorPercentage());
+    }
+
+    @Test
+    public void testExpiredBucketsSubtracted() {
+        MockedTime time = new MockedTime();
+        HystrixRollingHealthCounter counter = new HystrixRollingHealthCounter(time, 200, 10);
+
+        counter.add(3, 3);
+        time.increment(100);
+        counter.add(1, 0);
+        assertEquals(4, counter.getTotalRequests());
+        assertEquals(75, counter.getErrorPercentage());
+
+        // the first bucket falls out of the window
+        time.increment(100);
+        assertEquals(1, counter.getTotalRequests());
+        assertEquals(0, counter.getErrorCount());
+
+        // and the second
+        time.increment(100);
+        assertEquals(0, counter.getTotalRequests());
+    }
+
+    @Test
+    public void testIdleLongerThanWindow() {
+        MockedTime time = new MockedTime();
+        HystrixRollingHealthCounter counter = new HystrixRollingHealthCounter(time, 200, 10);
+
+        for (int i = 0; i < 10; i++) {
+            counter.add(1, 1);
+            time.increment(20);
+        }
+        assertEquals(9, counter.getTotalRequests());
+
+        time.increment(10000);
+        counter.add(1, 0);
+        assertEquals(1, counter.getTotalRequests());
+        assertEquals(0, counter.getErrorCount());
+    }
+
+    @Test
+    public void testSlowCalls() {
+        MockedTime time = new MockedTime();
+        HystrixRollingHealthCounter counter = new HystrixRollingHealthCounter(time, 200, 10);
+
+        counter.add(2, 0, 2);
+        time.increment(100);
+        counter.add(2, 1, 0);
+        assertEquals(2, counter.getSlowCallCount());
+        assertEquals(50, counter.getSlowCallPercentage());
+        assertEquals(25, counter.getErrorPercentage());
+
+        // the bucket with the slow calls falls out of the window
+        time.increment(100);
+        assertEquals(0, counter.getSlowCallCount());
+        assertEquals(0, counter.getSlowCallPercentage());
+        assertEquals(2, counter.getTotalRequests());
+    }
+
+    @Test
+    public void testReset() {
+        MockedTime time = new MockedTime();
+        HystrixRollingHealthCounter counter = new HystrixRollingHealthCounter(time, 200, 10);
+        counter.add(5, 5);
+        time.increment(20);
+        counter.add(5, 0);
+
+        counter.reset();
+        assertEquals(0, counter.getTotalRequests());
+        assertEquals(0, counter.getErrorCount());
+
+        counter.add(1, 1);
+        assertEquals(100, counter.getErrorPercentage());
+    }
+
+    @Test
+    public void testConcurrentAdds() throws InterruptedException {
+        final MockedTime time = new MockedTime();
+        final HystrixRollingHealthCounter counter = new HystrixRollingHealthCounter(time, 200, 10);
+        final int threads = 8;
+        final int addsPerThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < addsPerThread; i++) {
+                        counter.add(2, 1);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * addsPerThread * 2, counter.getTotalRequests());
+        assertEquals(threads * addsPerThread, counter.getErrorCount());
+
+        // everything was in one bucket, so it all leaves the totals together
+        time.increment(200);
+        assertEquals(0, counter.getTotalRequests());
+        assertEquals(0, counter.getErrorCount());
+    }
+
+    private static class MockedTime implements Time {
+
+        private AtomicInteger time = new AtomicInteger(0);
+
+        @Override
+        public long getCurrentTimeInMillis() {
+            return time.get();
+        }
+
+        public void increment(int millis) {
+            time.addAndGet(millis);
+        }
+
+    }
+}
@@ -16,6 +16,7 @@
 package com.netflix.hystrix.util;
 
 import com.netflix.hystrix.HystrixTimerThreadPoolProperties;
+import com.netflix.hystrix.HystrixTimerThreadPoolProperties.TimerImplementation;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 import com.netflix.hystrix.util.HystrixTimer.ScheduledExecutor;
@@ -25,7 +26,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.lang.ref.Reference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -41,6 +45,7 @@ public class HystrixTimerTest {
 
     @After
     public void tearDown() {
+        HystrixTimer.reset();
         HystrixPlugins.reset();
     }
 
@@ -207,6 +212,179 @@ public class HystrixTimerTest {
 
     }
 
+    @Test
+    public void testTimingWheelConfiguredWithBuilder() {
+        HystrixTimerThreadPoolProperties.Setter builder = HystrixTimerThreadPoolProperties.Setter()
+                .withCoreSize(1)
+                .withImplementation(TimerImplementation.TIMING_WHEEL);
+        final HystrixTimerThreadPoolProperties props = new HystrixTimerThreadPoolProperties(builder) {
+        };
+
+        HystrixPropertiesStrategy strategy = new HystrixPropertiesStrategy() {
+            @Override
+            public HystrixTimerThreadPoolProperties getTimerThreadPoolProperties() {
+                return props;
+            }
+        };
+
+        HystrixPlugins.getInstance().registerPropertiesStrategy(strategy);
+
+        HystrixTimer timer = HystrixTimer.getInstance();
+        TestListener l1 = new TestListener(50, "A");
+        timer.addTimerListener(l1);
+        TestListener l2 = new TestListener(50, "B");
+        Reference<TimerListener> l2ref = timer.addTimerListener(l2);
+
+        ScheduledExecutor ex = timer.executor.get();
+        assertNull(ex.getThreadPool());
+        HystrixTimingWheel wheel = ex.getTimingWheel();
+        assertFalse(wheel.isShutdown());
+        assertEquals(512, wheel.getBucketCount());
+
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        System.out.println("l1 ticks: " + l1.tickCount.get());
+        System.out.println("l2 ticks: " + l2.tickCount.get());
+        assertTrue(l1.tickCount.get() > 7);
+        assertTrue(l2.tickCount.get() > 7);
+
+        l2ref.clear();
+        l2.tickCount.set(0);
+
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        assertEquals(0, l2.tickCount.get());
+
+        HystrixTimer.reset();
+        assertTrue(wheel.isShutdown());
+        assertNull(timer.executor.get());
+    }
+
+    @Test
+    public void testExecuteOnFallbackThread() throws InterruptedException {
+        HystrixTimer timer = HystrixTimer.getInstance();
+        timer.startThreadIfNeeded();
+
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        final CountDownLatch done = new CountDownLatch(1);
+        timer.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(1000, TimeUnit.MILLISECONDS));
+        assertTrue(thread.get().getName().startsWith("HystrixTimer-Fallback-"));
+        assertEquals(Runtime.getRuntime().availableProcessors(), timer.executor.get().getFallbackThreadPool().getCorePoolSize());
+    }
+
+    @Test
+    public void testExecuteOnCallingThreadWithoutFallbackThreads() {
+        registerTimerProperties(HystrixTimerThreadPoolProperties.Setter().withCoreSize(1).withFallbackCoreSize(0));
+        HystrixTimer timer = HystrixTimer.getInstance();
+        timer.startThreadIfNeeded();
+        assertNull(timer.executor.get().getFallbackThreadPool());
+
+        assertSame(Thread.currentThread(), executeAndGetThread(timer));
+    }
+
+    @Test
+    public void testExecuteOnCallingThreadWhenFallbackThreadsSaturated() throws InterruptedException {
+        registerTimerProperties(HystrixTimerThreadPoolProperties.Setter().withCoreSize(1).withFallbackCoreSize(1).withFallbackMaxQueueSize(0));
+        HystrixTimer timer = HystrixTimer.getInstance();
+        timer.startThreadIfNeeded();
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        timer.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        });
+
+        try {
+            assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+            assertSame(Thread.currentThread(), executeAndGetThread(timer));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testTickLagOfBlockedTimer() throws InterruptedException {
+        registerTimerProperties(HystrixTimerThreadPoolProperties.Setter().withCoreSize(1));
+        HystrixTimer timer = HystrixTimer.getInstance();
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        Reference<TimerListener> blocking = timer.addTimerListener(new TimerListener() {
+            @Override
+            public void tick() {
+                if (blocked.getCount() > 0) {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        // done
+                    }
+                    blocked.countDown();
+                }
+            }
+
+            @Override
+            public int getIntervalTimeInMilliseconds() {
+                return 10;
+            }
+        });
+        TestListener l1 = new TestListener(20, "A");
+        Reference<TimerListener> l1ref = timer.addTimerListener(l1);
+
+        assertTrue(blocked.await(1000, TimeUnit.MILLISECONDS));
+        Thread.sleep(50);
+        blocking.clear();
+        l1ref.clear();
+
+        // the single timer thread was held up by the first tick, so the other listener ticked late
+        System.out.println("tick lag: " + timer.getRollingMaxTickLagInMilliseconds());
+        assertTrue(timer.getRollingMaxTickLagInMilliseconds() >= 200);
+        assertTrue(l1.tickCount.get() > 0);
+    }
+
+    private static Thread executeAndGetThread(HystrixTimer timer) {
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        timer.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        });
+        return thread.get();
+    }
+
+    private static void registerTimerProperties(HystrixTimerThreadPoolProperties.Setter builder) {
+        final HystrixTimerThreadPoolProperties props = new HystrixTimerThreadPoolProperties(builder) {
+        };
+        HystrixPlugins.getInstance().registerPropertiesStrategy(new HystrixPropertiesStrategy() {
+            @Override
+            public HystrixTimerThreadPoolProperties getTimerThreadPoolProperties() {
+                return props;
+            }
+        });
+    }
+
     private static class TestListener implements TimerListener {
 
         private final int interval;
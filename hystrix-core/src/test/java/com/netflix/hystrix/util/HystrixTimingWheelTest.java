@@ -0,0 +1,186 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.util;
+
+import com.netflix.hystrix.util.HystrixTimer.TimerListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.ref.Reference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HystrixTimingWheelTest {
+
+    private HystrixTimingWheel wheel;
+
+    @After
+    public void tearDown() {
+        if (wheel != null) {
+            wheel.shutdown();
+        }
+    }
+
+    @Test
+    public void testBucketCountRoundedUpToPowerOfTwo() {
+        wheel = new HystrixTimingWheel(1, 100, 1, Executors.defaultThreadFactory());
+        assertEquals(128, wheel.getBucketCount());
+    }
+
+    @Test
+    public void testTicksAtFixedRate() throws InterruptedException {
+        wheel = new HystrixTimingWheel(1, 64, 2, Executors.defaultThreadFactory());
+        CountingListener l1 = new CountingListener(10);
+        CountingListener l2 = new CountingListener(50);
+        wheel.schedule(l1);
+        wheel.schedule(l2);
+
+        Thread.sleep(500);
+
+        System.out.println("l1 ticks: " + l1.tickCount.get());
+        System.out.println("l2 ticks: " + l2.tickCount.get());
+        assertTrue(l1.tickCount.get() > 30);
+        assertTrue(l1.tickCount.get() < 55);
+        assertTrue(l2.tickCount.get() > 7);
+        assertTrue(l2.tickCount.get() < 12);
+    }
+
+    @Test
+    public void testNeverTicksEarly() throws InterruptedException {
+        wheel = new HystrixTimingWheel(5, 8, 1, Executors.defaultThreadFactory());
+        final long start = System.nanoTime();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger elapsed = new AtomicInteger();
+        Reference<TimerListener> ref = wheel.schedule(new TimerListener() {
+            @Override
+            public void tick() {
+                elapsed.set((int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                latch.countDown();
+            }
+
+            @Override
+            public int getIntervalTimeInMilliseconds() {
+                return 23;
+            }
+        });
+        assertTrue(latch.await(1000, TimeUnit.MILLISECONDS));
+        ref.clear();
+        System.out.println("elapsed: " + elapsed.get());
+        assertTrue(elapsed.get() >= 23);
+    }
+
+    @Test
+    public void testIntervalLongerThanOneRevolution() throws InterruptedException {
+        //8 buckets of 5ms is a 40ms revolution, so a 130ms interval needs to sit through 3 rounds
+        wheel = new HystrixTimingWheel(5, 8, 1, Executors.defaultThreadFactory());
+        CountingListener l1 = new CountingListener(130);
+        wheel.schedule(l1);
+
+        Thread.sleep(100);
+        assertEquals(0, l1.tickCount.get());
+
+        Thread.sleep(100);
+        assertEquals(1, l1.tickCount.get());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        wheel = new HystrixTimingWheel(1, 64, 1, Executors.defaultThreadFactory());
+        CountingListener l1 = new CountingListener(10);
+        CountingListener l2 = new CountingListener(10);
+        wheel.schedule(l1);
+        Reference<TimerListener> l2ref = wheel.schedule(l2);
+
+        //cancelled before it was ever placed in a bucket
+        CountingListener l3 = new CountingListener(10);
+        wheel.schedule(l3).clear();
+
+        Thread.sleep(100);
+        assertTrue(l2.tickCount.get() > 3);
+
+        l2ref.clear();
+        Thread.sleep(20);
+        l1.tickCount.set(0);
+        l2.tickCount.set(0);
+
+        Thread.sleep(100);
+        assertTrue(l1.tickCount.get() > 3);
+        assertEquals(0, l2.tickCount.get());
+        assertEquals(0, l3.tickCount.get());
+    }
+
+    @Test
+    public void testExceptionDoesNotStopListener() throws InterruptedException {
+        wheel = new HystrixTimingWheel(1, 64, 1, Executors.defaultThreadFactory());
+        final AtomicInteger tickCount = new AtomicInteger();
+        wheel.schedule(new TimerListener() {
+            @Override
+            public void tick() {
+                tickCount.incrementAndGet();
+                throw new RuntimeException("tick failure");
+            }
+
+            @Override
+            public int getIntervalTimeInMilliseconds() {
+                return 10;
+            }
+        });
+
+        Thread.sleep(100);
+        assertTrue(tickCount.get() > 3);
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        wheel = new HystrixTimingWheel(1, 64, 1, Executors.defaultThreadFactory());
+        CountingListener l1 = new CountingListener(10);
+        wheel.schedule(l1);
+        assertFalse(wheel.isShutdown());
+
+        wheel.shutdown();
+        assertTrue(wheel.isShutdown());
+        Thread.sleep(20);
+        l1.tickCount.set(0);
+
+        Thread.sleep(100);
+        assertEquals(0, l1.tickCount.get());
+    }
+
+    private static class CountingListener implements TimerListener {
+        private final int interval;
+        final AtomicInteger tickCount = new AtomicInteger();
+
+        CountingListener(int interval) {
+            this.interval = interval;
+        }
+
+        @Override
+        public void tick() {
+            tickCount.incrementAndGet();
+        }
+
+        @Override
+        public int getIntervalTimeInMilliseconds() {
+            return interval;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2016 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.hystrix.util;
+
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrdinalTableTest {
+
+    private enum TestCommandKey implements HystrixCommandKey {
+        ORDINAL_TABLE_ENUM
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        OrdinalTable<String> table = new OrdinalTable<String>();
+        assertNull(table.get(3));
+        assertNull(table.putIfAbsent(3, "a"));
+        assertEquals("a", table.putIfAbsent(3, "b"));
+        assertEquals("a", table.get(3));
+        assertNull(table.get(2));
+    }
+
+    @Test
+    public void testGrowsBeyondInitialCapacity() {
+        OrdinalTable<String> table = new OrdinalTable<String>();
+        table.putIfAbsent(1, "a");
+        table.putIfAbsent(1000, "b");
+        assertEquals("a", table.get(1));
+        assertEquals("b", table.get(1000));
+        assertNull(table.get(1001));
+        assertEquals(Arrays.asList("a", "b"), table.values());
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        OrdinalTable<String> table = new OrdinalTable<String>();
+        table.putIfAbsent(0, "a");
+        table.putIfAbsent(5, "b");
+        assertFalse(table.remove(0, "b"));
+        assertTrue(table.remove(0, "a"));
+        assertNull(table.get(0));
+        assertFalse(table.remove(100, "a"));
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertNull(table.get(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeOrdinal() {
+        new OrdinalTable<String>().putIfAbsent(-1, "a");
+    }
+
+    @Test
+    public void testKeyOrdinals() {
+        int first = HystrixCommandKey.Factory.ordinalOf(HystrixCommandKey.Factory.asKey("OrdinalTableFirst"));
+        int second = HystrixCommandKey.Factory.ordinalOf(HystrixCommandKey.Factory.asKey("OrdinalTableSecond"));
+        assertTrue(first != second);
+        assertEquals(first, HystrixCommandKey.Factory.ordinalOf(HystrixCommandKey.Factory.asKey("OrdinalTableFirst")));
+
+        // a key implemented outside the factory shares the ordinal of the interned key with its name
+        int enumOrdinal = HystrixCommandKey.Factory.ordinalOf(TestCommandKey.ORDINAL_TABLE_ENUM);
+        assertEquals(enumOrdinal, HystrixCommandKey.Factory.ordinalOf(HystrixCommandKey.Factory.asKey("ORDINAL_TABLE_ENUM")));
+
+        HystrixThreadPoolKey threadPoolKey = HystrixThreadPoolKey.Factory.asKey("OrdinalTable");
+        assertEquals(HystrixThreadPoolKey.Factory.ordinalOf(threadPoolKey), HystrixThreadPoolKey.Factory.ordinalOf(HystrixThreadPoolKey.Factory.asKey("OrdinalTable")));
+        HystrixCollapserKey collapserKey = HystrixCollapserKey.Factory.asKey("OrdinalTable");
+        assertEquals(HystrixCollapserKey.Factory.ordinalOf(collapserKey), HystrixCollapserKey.Factory.ordinalOf(HystrixCollapserKey.Factory.asKey("OrdinalTable")));
+    }
+}